@@ -1,6 +1,8 @@
 package com.joakimcolloz.stocker.datacollector;
 
 import com.joakimcolloz.stocker.datacollector.data.StockDataService;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.CoalescingDataFetcher;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.FailoverDataFetcher;
 import com.joakimcolloz.stocker.datacollector.data.fetchers.FinanceBirdFetcher;
 import com.joakimcolloz.stocker.datacollector.data.fetchers.YahooFinanceFetcher;
 import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
@@ -18,21 +20,30 @@ import java.util.ArrayList;
 
 /**
  * Main class of the program.
+ * The first argument selects the API to use: FinanceBird (default), YahooFinance, Failover or Hedged.
+ * Duplicate requests during the run are coalesced by a {@link CoalescingDataFetcher}.
+ * Responses are parsed on one thread per available processor while the next symbols are fetched.
+ * Prices are parsed and stored as fixed-point values if {@code DB_PRICE_SCALE} is set.
  *
  * @author Joakim Colloz
- * @version 1.1
+ * @version 1.4
  */
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final double MAX_HEDGE_RATIO = 0.1;
 
     public static void main(String... args) {
-        final DatabaseManager databaseManager = new DatabaseManager(new DatabaseConfig());
+        final DatabaseConfig databaseConfig = new DatabaseConfig();
+        final DatabaseManager databaseManager = new DatabaseManager(databaseConfig);
         databaseManager.initialize();
 
         ArrayList<String> stockList;
 
         final StockDataService stockDataService = createStockDataService(args);
         stockDataService.setDelayInMs(200);
+        stockDataService.setParseParallelism(Runtime.getRuntime().availableProcessors());
+        stockDataService.setPriceScale(databaseConfig.getPriceScale());
 
         try {
             stockList = StockReader.readStockNamesFromResource("largecap.txt");
@@ -49,7 +60,7 @@ public class Main {
             logger.info("Using FinanceBird as default to fetch data");
             return new StockDataService(
                     FinanceBirdParser::new,
-                    new FinanceBirdFetcher()
+                    new CoalescingDataFetcher(new FinanceBirdFetcher())
             );
         } else {
             final String apiToUse = args[0];
@@ -58,14 +69,31 @@ public class Main {
                     logger.info("Using FinanceBird to fetch data");
                     return new StockDataService(
                         FinanceBirdParser::new,
-                        new FinanceBirdFetcher()
+                        new CoalescingDataFetcher(new FinanceBirdFetcher())
                     );
                 }
                 case "YahooFinance" -> {
                     logger.info("Using YahooFinance to fetch data");
                     return new StockDataService(
                         YahooFinanceParser::new,
-                        new YahooFinanceFetcher()
+                        new CoalescingDataFetcher(new YahooFinanceFetcher())
+                    );
+                }
+                case "Failover" -> {
+                    logger.info("Using FinanceBird to fetch data, failing over to YahooFinance");
+                    return new StockDataService(
+                        FinanceBirdParser::new,
+                        new CoalescingDataFetcher(
+                                new FailoverDataFetcher(new FinanceBirdFetcher(), new YahooFinanceFetcher()))
+                    );
+                }
+                case "Hedged" -> {
+                    logger.info("Using FinanceBird to fetch data, hedging slow requests to YahooFinance");
+                    return new StockDataService(
+                        FinanceBirdParser::new,
+                        new CoalescingDataFetcher(
+                                new FailoverDataFetcher(new FinanceBirdFetcher(), new YahooFinanceFetcher(),
+                                        HEDGE_PERCENTILE, MAX_HEDGE_RATIO))
                     );
                 }
                 default -> throw new IllegalArgumentException("Invalid API: " + apiToUse);
@@ -1,26 +1,42 @@
 package com.joakimcolloz.stocker.datacollector.data;
 
 import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
-import com.joakimcolloz.stocker.datacollector.data.fetchers.BaseDataFetcher;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.DataFetcher;
 import com.joakimcolloz.stocker.datacollector.data.parsers.BaseParser;
+import com.joakimcolloz.stocker.datacollector.data.parsers.ParseStage;
+import com.joakimcolloz.stocker.datacollector.data.parsers.ParserPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.joakimcolloz.stocker.datacollector.data.validation.DataFetcherInputValidator;
 import com.joakimcolloz.stocker.datacollector.database.CandlestickDao;
 import com.joakimcolloz.stocker.datacollector.database.DatabaseConfig;
 import com.joakimcolloz.stocker.datacollector.database.DatabaseManager;
+import com.joakimcolloz.stocker.datacollector.database.IndicatorDao;
+import com.joakimcolloz.stocker.datacollector.database.InsertResult;
+import com.joakimcolloz.stocker.datacollector.database.columnar.ColumnarPriceStore;
+import com.joakimcolloz.stocker.datacollector.database.validation.RejectedCandlestick;
+import com.joakimcolloz.stocker.datacollector.database.spool.CandlestickSpool;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
 import com.joakimcolloz.stocker.datacollector.model.Interval;
 import com.joakimcolloz.stocker.datacollector.model.Range;
 import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 /**
  * This class is responsible for fetching and inserting price data into the database for
  * each stock symbol in the given {@code stockSymbols} list.
  *
- * It uses the {@link BaseDataFetcher} to fetch the data and the {@link BaseParser} to parse the data.
+ * It uses the {@link DataFetcher} to fetch the data and the {@link BaseParser} to parse the data.
  * It uses a delay between fetching data for each stock symbol to avoid overloading the API.
  * The default delay is 100ms.
  *
@@ -29,8 +45,18 @@ import java.util.function.Supplier;
  *  1.1 - Used FinanceBird
  *  1.2 - Added support for different data fetchers and parsers
  *  1.3 - Added delay between fetching data for each stock symbol
+ *  1.4 - Accepts any {@link DataFetcher}, e.g. a composite fetcher using several providers
+ *  1.5 - Reuses parsers through a {@link ParserPool} instead of creating a parser per symbol
+ *  1.6 - Inserts the columnar series of the trading period
+ *  1.7 - Optionally parses responses in parallel on a {@link ParseStage} while fetching the next symbols
+ *  1.8 - Stores intraday candlesticks in the table of their interval
+ *  1.9 - Updates the technical indicators of each symbol after its daily candlesticks are added
+ *  1.10 - Spools the candlesticks while the database is unavailable and adds them on the next run
+ *  1.11 - Mirrors the added daily candlesticks to a {@link ColumnarPriceStore}
+ *  1.12 - Optionally parses and stores prices as fixed-point values
+ *  1.13 - Reports the inserted, updated and unchanged candlesticks of each run
  * @author Joakim Colloz
- * @version 1.3
+ * @version 1.14
  */
 public class StockDataService {
     private static final Logger logger = LoggerFactory.getLogger(StockDataService.class);
@@ -38,13 +64,17 @@ public class StockDataService {
 
     private final DataFetcherInputValidator validator;
     private final DatabaseManager databaseManager;
-    private final Supplier<BaseParser> baseParser;
-    private final BaseDataFetcher fetcher;
+    private final Supplier<BaseParser> parserFactory;
+    private final ParserPool parserPool;
+    private final DataFetcher fetcher;
 
     private long DELAY_IN_MS = 100;
+    private int parseParallelism = 0;
+    private int priceScale = CandlestickSeries.FLOATING_POINT;
 
-    public StockDataService(Supplier<BaseParser> baseParser, BaseDataFetcher fetcher) {
-        this.baseParser = baseParser;
+    public StockDataService(Supplier<BaseParser> baseParser, DataFetcher fetcher) {
+        this.parserFactory = baseParser;
+        this.parserPool = new ParserPool(baseParser);
         this.fetcher = fetcher;
         this.validator = new DataFetcherInputValidator();
         this.databaseManager = new DatabaseManager(new DatabaseConfig());
@@ -54,11 +84,12 @@ public class StockDataService {
 
     public StockDataService(
             Supplier<BaseParser> baseParser,
-            BaseDataFetcher fetcher,
+            DataFetcher fetcher,
             DataFetcherInputValidator validator,
             DatabaseManager databaseManager)
     {
-        this.baseParser = baseParser;
+        this.parserFactory = baseParser;
+        this.parserPool = new ParserPool(baseParser);
         this.fetcher = fetcher;
         this.validator = validator;
         this.databaseManager = databaseManager;
@@ -73,7 +104,16 @@ public class StockDataService {
      * Only stock symbols that belong to the Swedish market (i.e., symbols ending with ".ST") are processed.
      * </p>
      * <p>
-     * The data is fetched using the {@link BaseDataFetcher} and parsed using the {@link BaseParser}.
+     * The data is fetched using the {@link DataFetcher} and parsed using the {@link BaseParser}.
+     * </p>
+     * <p>
+     * If a {@link CandlestickSpool} is configured, candlesticks that cannot be added because the database is
+     * unavailable are spooled instead of failing the symbol. The spool is replayed before and after the symbols
+     * are processed.
+     * </p>
+     * <p>
+     * If a {@link ColumnarPriceStore} is configured, the daily candlesticks added to the database are added to it
+     * as well.
      * </p>
      *
      * @param stockSymbols the list of stock symbols to process
@@ -88,12 +128,19 @@ public class StockDataService {
         validate(stockSymbols);
 
         CandlestickDao candlestickDao = databaseManager.createCandlestickDao();
+        IndicatorDao indicatorDao = databaseManager.createIndicatorDao();
         int successCount = 0;
         int failureCount = 0;
+        final WriteCounts writeCounts = new WriteCounts();
+
+        replaySpool(candlestickDao, indicatorDao, writeCounts);
 
         logger.info("Starting to fetch and process data for {} stock symbols with range {} and interval {}",
                 stockSymbols.size(), range, interval);
 
+        final ParseStage parseStage = parseParallelism > 0 ? new ParseStage(this::createParser, parseParallelism) : null;
+        final Deque<PendingParse> pendingParses = new ArrayDeque<>();
+
         for (String symbol : stockSymbols) {
             logger.debug("Starting processing for symbol: {}", symbol);
             try {
@@ -101,43 +148,28 @@ public class StockDataService {
                 logger.debug("Processing symbol: {} (full: {})", symbol, fullSymbol);
 
                 // Fetch data
-                final String jsonResponse = fetchData(range, interval, fullSymbol);
-
-                // Parse data
-                TradingPeriod tradingPeriod;
-                ParsingResult parsingResult = parseResponse(jsonResponse, fullSymbol, failureCount);
-                if (parsingResult.parsedSuccessfully) {
-                    tradingPeriod = parsingResult.tradingPeriod;
-                    failureCount = parsingResult.failureCount;
-                } else {
-                    continue;
-                }
-
-                // Validate trading period
-                if (isInvalidTradingPeriod(tradingPeriod)) {
-                    logger.warn("No candlesticks available for symbol: {} - trading period is null or empty", fullSymbol);
-                    failureCount++;
-                    continue;
-                }
-
-                // Log number of candlesticks retrieved
-                int originalCandlestickCount = tradingPeriod.candlesticks().size();
-                logger.debug("Retrieved {} candlesticks for symbol: {}", originalCandlestickCount, fullSymbol);
-
-                if (tradingPeriod.candlesticks().isEmpty()) {
-                    logger.warn("No candlesticks left after processing for symbol: {} - skipping database insertion", fullSymbol);
-                    failureCount++;
-                    continue;
-                }
+                final byte[] jsonResponse = fetchData(range, interval, fullSymbol);
 
-                // Add data to database
-                try {
-                    insertToDatabase(tradingPeriod, fullSymbol, candlestickDao);
-                    successCount++;
-                } catch (Exception e) { // TODO; Should be more specific here and catch RuntimeException instead so we do not catch programming errors such as NullPointerException
-                    // TODO: Here we catch expected database failures (validation, connection issues)
-                    logger.error("Error adding candlesticks to database for symbol {}: {}", fullSymbol, e.getMessage(), e);
-                    failureCount++;
+                // Parse data on the parse stage while the next symbol is fetched
+                if (parseStage != null) {
+                    pendingParses.addLast(new PendingParse(fullSymbol, parseStage.submit(fullSymbol, jsonResponse)));
+                } else {
+                    TradingPeriod tradingPeriod;
+                    ParsingResult parsingResult = parseResponse(jsonResponse, fullSymbol, failureCount);
+                    if (parsingResult.parsedSuccessfully) {
+                        tradingPeriod = parsingResult.tradingPeriod;
+                        failureCount = parsingResult.failureCount;
+                    } else {
+                        continue;
+                    }
+
+                    // Validate and add data to database
+                    if (storeTradingPeriod(tradingPeriod, fullSymbol, interval, candlestickDao, indicatorDao,
+                            writeCounts)) {
+                        successCount++;
+                    } else {
+                        failureCount++;
+                    }
                 }
 
             } catch (IllegalArgumentException e) {
@@ -149,6 +181,15 @@ public class StockDataService {
                 failureCount++;
             }
 
+            // Store the responses already parsed, in the order they were fetched
+            while (!pendingParses.isEmpty() && pendingParses.peekFirst().tradingPeriod().isDone()) {
+                if (storeParsed(pendingParses.pollFirst(), interval, candlestickDao, indicatorDao, writeCounts)) {
+                    successCount++;
+                } else {
+                    failureCount++;
+                }
+            }
+
             logger.debug("Completed processing for symbol: {} (success: {})",
                     symbol, successCount > (successCount + failureCount - stockSymbols.size() + 1) ? "true" : "false");
 
@@ -160,9 +201,24 @@ public class StockDataService {
             }
         }
 
+        if (parseStage != null) {
+            while (!pendingParses.isEmpty()) {
+                if (storeParsed(pendingParses.pollFirst(), interval, candlestickDao, indicatorDao, writeCounts)) {
+                    successCount++;
+                } else {
+                    failureCount++;
+                }
+            }
+            parseStage.close();
+        }
+
+        replaySpool(candlestickDao, indicatorDao, writeCounts);
+
         // Log summary of operation
         logger.info("Completed processing {} stock symbols. Success: {}, Failure: {}",
                 stockSymbols.size(), successCount, failureCount);
+        logger.info("Candlesticks inserted: {}, updated: {}, skipped as unchanged: {}",
+                writeCounts.inserted, writeCounts.updated, writeCounts.unchanged);
 
         if (failureCount > 0) {
             logger.warn("Processing completed with {} failures out of {} total symbols ({}% success rate)",
@@ -181,12 +237,223 @@ public class StockDataService {
         this.DELAY_IN_MS = DELAY_IN_MS;
     }
 
-    private static void insertToDatabase(TradingPeriod tradingPeriod, String fullSymbol, CandlestickDao candlestickDao) {
+    public int getParseParallelism() {
+        return parseParallelism;
+    }
+
+    /**
+     * Sets the number of threads parsing the fetched responses. With 0, the default, each response is parsed on
+     * the calling thread before the next symbol is fetched. Otherwise the responses are parsed on a
+     * {@link ParseStage} while the next symbols are fetched, and are added to the database in the order they
+     * were fetched.
+     *
+     * @param parseParallelism the number of parse threads, or 0 to parse on the calling thread
+     * @throws IllegalArgumentException if parseParallelism is negative
+     */
+    public void setParseParallelism(int parseParallelism) {
+        if (parseParallelism < 0) {
+            throw new IllegalArgumentException("Parse parallelism cannot be negative");
+        }
+        this.parseParallelism = parseParallelism;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    /**
+     * Sets whether prices are parsed as fixed-point values, exactly from the digits of the response, and stored
+     * as exact decimals. Disabled by default, prices are then parsed as doubles.
+     *
+     * @param priceScale the number of decimals of the prices, or {@link CandlestickSeries#FLOATING_POINT}
+     * @throws IllegalArgumentException if the scale is not supported
+     */
+    public void setPriceScale(int priceScale) {
+        if (priceScale != CandlestickSeries.FLOATING_POINT) {
+            FixedPoint.checkScale(priceScale);
+        }
+        this.priceScale = priceScale;
+    }
+
+    private BaseParser createParser() {
+        final BaseParser parser = parserFactory.get();
+        parser.setPriceScale(priceScale);
+        return parser;
+    }
+
+    /**
+     * Validates the trading period and adds its candlesticks to the database.
+     *
+     * @return true if the candlesticks were added, false if the trading period is empty or the insert failed
+     */
+    private boolean storeTradingPeriod(TradingPeriod tradingPeriod, String fullSymbol, Interval interval,
+                                       CandlestickDao candlestickDao, IndicatorDao indicatorDao,
+                                       WriteCounts writeCounts) {
+        // Validate trading period
+        if (isInvalidTradingPeriod(tradingPeriod)) {
+            logger.warn("No candlesticks available for symbol: {} - trading period is null or empty", fullSymbol);
+            return false;
+        }
+
+        // Log number of candlesticks retrieved
+        int originalCandlestickCount = tradingPeriod.candlesticks().size();
+        logger.debug("Retrieved {} candlesticks for symbol: {}", originalCandlestickCount, fullSymbol);
+
+        // Add data to database
+        final InsertResult result;
+        try {
+            result = insertToDatabase(tradingPeriod, fullSymbol, interval, candlestickDao);
+        } catch (Exception e) { // TODO; Should be more specific here and catch RuntimeException instead so we do not catch programming errors such as NullPointerException
+            // TODO: Here we catch expected database failures (validation, connection issues)
+            if (spool(tradingPeriod, fullSymbol, interval, e)) {
+                return true;
+            }
+            logger.error("Error adding candlesticks to database for symbol {}: {}", fullSymbol, e.getMessage(), e);
+            return false;
+        }
+        writeCounts.add(result);
+
+        updateIndicators(fullSymbol, interval, result, indicatorDao);
+        updateColumnarStore(fullSymbol, interval, tradingPeriod.series(), result, candlestickDao);
+        return true;
+    }
+
+    /**
+     * Indicators are derived from the stored candlesticks, from the earliest written one on. A failure does not
+     * fail the symbol
+     */
+    private static void updateIndicators(String fullSymbol, Interval interval, InsertResult result,
+                                         IndicatorDao indicatorDao) {
+        if (interval == Interval.ONE_DAY) {
+            try {
+                indicatorDao.updateIndicators(fullSymbol, result.firstWrittenTimestamp());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update indicators for symbol {}: {}", fullSymbol, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Adds the inserted daily candlesticks to the columnar store. The first time a symbol is added, its whole
+     * history is read from the database. A failure does not fail the symbol.
+     */
+    private void updateColumnarStore(String fullSymbol, Interval interval, CandlestickSeries series,
+                                     InsertResult result, CandlestickDao candlestickDao) {
+        final Optional<ColumnarPriceStore> store = databaseManager.getColumnarPriceStore();
+        if (store.isEmpty() || interval != Interval.ONE_DAY) {
+            return;
+        }
+        try {
+            if (store.get().contains(fullSymbol)) {
+                store.get().update(fullSymbol, withoutRejected(series, result.rejected()));
+            } else {
+                store.get().update(fullSymbol,
+                        CandlestickSeries.from(candlestickDao.getAllRowsByName(fullSymbol, Interval.ONE_DAY)));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to update columnar store for symbol {}: {}", fullSymbol, e.getMessage(), e);
+        }
+    }
+
+    private static CandlestickSeries withoutRejected(CandlestickSeries series, List<RejectedCandlestick> rejected) {
+        if (rejected.isEmpty()) {
+            return series;
+        }
+        final boolean[] isRejected = new boolean[series.size()];
+        rejected.forEach(candlestick -> isRejected[candlestick.index()] = true);
+        final int size = series.size() - rejected.size();
+        final long[] timestamps = new long[size];
+        final double[] opens = new double[size];
+        final double[] highs = new double[size];
+        final double[] lows = new double[size];
+        final double[] closes = new double[size];
+        final long[] volumes = new long[size];
+        int row = 0;
+        for (int i = 0; i < series.size(); i++) {
+            if (!isRejected[i]) {
+                timestamps[row] = series.timestamp(i);
+                opens[row] = series.open(i);
+                highs[row] = series.high(i);
+                lows[row] = series.low(i);
+                closes[row] = series.close(i);
+                volumes[row] = series.volume(i);
+                row++;
+            }
+        }
+        return new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+    }
+
+    /**
+     * Spools the candlesticks if the insert failed because the database is unavailable.
+     *
+     * @return true if the candlesticks were spooled, false if spooling is not configured, the failure is not
+     * caused by the database being unavailable, or the spool could not be written
+     */
+    private boolean spool(TradingPeriod tradingPeriod, String fullSymbol, Interval interval, Exception failure) {
+        final Optional<CandlestickSpool> spool = databaseManager.getCandlestickSpool();
+        if (spool.isEmpty() || !CandlestickSpool.isDatabaseUnavailable(failure)) {
+            return false;
+        }
+        try {
+            spool.get().append(fullSymbol, interval, tradingPeriod.series());
+            logger.warn("Database unavailable, spooled candlesticks for symbol {}: {}", fullSymbol, failure.getMessage());
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spool candlesticks for symbol {}: {}", fullSymbol, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the spooled candlesticks to the database, if there are any.
+     */
+    private void replaySpool(CandlestickDao candlestickDao, IndicatorDao indicatorDao, WriteCounts writeCounts) {
+        final Optional<CandlestickSpool> spool = databaseManager.getCandlestickSpool();
+        if (spool.isEmpty() || spool.get().isEmpty()) {
+            return;
+        }
+        try {
+            spool.get().replay(entry -> {
+                InsertResult result = candlestickDao.addRows(entry.symbol(), entry.interval(), entry.series());
+                logger.info("Added {} spooled candlesticks for symbol: {}", result.insertedCount(), entry.symbol());
+                writeCounts.add(result);
+                updateIndicators(entry.symbol(), entry.interval(), result, indicatorDao);
+                updateColumnarStore(entry.symbol(), entry.interval(), entry.series(), result, candlestickDao);
+            });
+        } catch (IOException e) {
+            logger.error("Failed to replay candlestick spool {}: {}", spool.get().getFile(), e.getMessage(), e);
+        }
+    }
+
+    private boolean storeParsed(PendingParse pendingParse, Interval interval, CandlestickDao candlestickDao,
+                                IndicatorDao indicatorDao, WriteCounts writeCounts) {
+        final TradingPeriod tradingPeriod;
+        try {
+            tradingPeriod = pendingParse.tradingPeriod().join();
+        } catch (CompletionException | CancellationException e) {
+            // The parse stage has already logged the cause
+            logger.debug("Skipping symbol {} as its JSON data could not be parsed", pendingParse.fullSymbol());
+            return false;
+        }
+        return storeTradingPeriod(tradingPeriod, pendingParse.fullSymbol(), interval, candlestickDao,
+                indicatorDao, writeCounts);
+    }
+
+    private static InsertResult insertToDatabase(TradingPeriod tradingPeriod, String fullSymbol, Interval interval,
+                                                 CandlestickDao candlestickDao) {
         logger.debug("Inserting {} candlesticks into database for symbol: {}",
                 tradingPeriod.candlesticks().size(), fullSymbol);
-        candlestickDao.addRows(fullSymbol, tradingPeriod.candlesticks());
-        logger.info("Successfully added {} candlesticks for symbol: {}",
-                tradingPeriod.candlesticks().size(), fullSymbol);
+        InsertResult result = candlestickDao.addRows(fullSymbol, interval, tradingPeriod.series());
+        if (result.rejectedCount() > 0) {
+            logger.warn("Added {} candlesticks for symbol: {}, {} invalid candlesticks were rejected",
+                    result.insertedCount(), fullSymbol, result.rejectedCount());
+        } else if (result.unchangedCount() > 0) {
+            logger.info("Successfully added {} candlesticks for symbol: {}, {} were stored unchanged and skipped",
+                    result.insertedCount(), fullSymbol, result.unchangedCount());
+        } else {
+            logger.info("Successfully added {} candlesticks for symbol: {}", result.insertedCount(), fullSymbol);
+        }
+        return result;
     }
 
     private boolean isInvalidTradingPeriod(TradingPeriod tradingPeriod) {
@@ -195,13 +462,13 @@ public class StockDataService {
                 || tradingPeriod.candlesticks().isEmpty();
     }
 
-    private String fetchData(Range range, Interval interval, String fullSymbol) throws DataFetchException {
+    private byte[] fetchData(Range range, Interval interval, String fullSymbol) throws DataFetchException {
         logger.debug("Fetching data for symbol: {}", fullSymbol);
-        final String json = fetcher.fetchData(
+        final byte[] json = fetcher.fetchBytes(
                 fullSymbol, range.toString(), interval.toString());
 
-        logger.debug("Received {} characters of JSON data for symbol: {}",
-                json.length(), fullSymbol);
+        logger.debug("Received {} bytes of JSON data for symbol: {}",
+                json.length, fullSymbol);
         return json;
     }
 
@@ -215,20 +482,22 @@ public class StockDataService {
         }
     }
 
-    private void logInitialization(Supplier<BaseParser> baseParser, BaseDataFetcher fetcher, DataFetcherInputValidator validator, DatabaseManager databaseManager) {
+    private void logInitialization(Supplier<BaseParser> baseParser, DataFetcher fetcher, DataFetcherInputValidator validator, DatabaseManager databaseManager) {
         logger.info("Parser: {}", baseParser);
         logger.info("Fetcher: {}", fetcher);
         logger.info("Validator: {}", validator);
         logger.info("DatabaseManager: {}", databaseManager);
     }
 
-    private ParsingResult parseResponse(String jsonResponse, String fullSymbol, int failureCount) {
+    private ParsingResult parseResponse(byte[] jsonResponse, String fullSymbol, int failureCount) {
         TradingPeriod tradingPeriod = null;
         boolean parsedSuccessfully = false;
 
         logger.info("Parsing JSON data for symbol: {}", fullSymbol);
-        try (BaseParser parser = baseParser.get()) {
-            parser.setJsonString(jsonResponse);
+        final BaseParser parser = parserPool.acquire();
+        try {
+            parser.setPriceScale(priceScale);
+            parser.setJsonBytes(jsonResponse);
             parser.parse();
             logger.info("JSON parsing completed for symbol: {}", fullSymbol);
             tradingPeriod = parser.getTradingPeriod();
@@ -237,10 +506,29 @@ public class StockDataService {
             // TODO Here we catch specific parsing errors/expected business failures
             logger.error("Failed to parse JSON data for symbol {}: {}", fullSymbol, e.getMessage(), e);
             failureCount++;
+        } finally {
+            parserPool.release(parser);
         }
 
         return new ParsingResult(tradingPeriod, parsedSuccessfully, failureCount);
     }
 
     private record ParsingResult(TradingPeriod tradingPeriod, boolean parsedSuccessfully, int failureCount) {}
+
+    /**
+     * Candlesticks written and skipped during a run, over all symbols.
+     */
+    private static final class WriteCounts {
+        private long inserted;
+        private long updated;
+        private long unchanged;
+
+        void add(InsertResult result) {
+            inserted += result.newCount();
+            updated += result.updatedCount();
+            unchanged += result.unchangedCount();
+        }
+    }
+
+    private record PendingParse(String fullSymbol, CompletableFuture<TradingPeriod> tradingPeriod) {}
 }
@@ -0,0 +1,333 @@
+package com.joakimcolloz.stocker.datacollector.data.cache;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of API responses, keyed by provider, symbol, range and interval.
+ * <p>
+ * Each response is stored gzip compressed in a file named by the SHA-256 hash of its key.
+ * Every range ends at the latest trading day, so the time to live depends on whether that day is still
+ * in progress: responses stored during a trading session expire after a short live TTL, while responses
+ * stored outside a session only contain closed candles and stay valid until the next session opens.
+ * </p>
+ * <p>
+ * The total size of the cache is bounded; when it is exceeded the least recently used responses are evicted.
+ * The access order is kept in the file modification times so that it survives restarts.
+ * Only the index of the entries is guarded by the lock of the cache, responses are compressed, read and written
+ * outside it so that concurrent fetchers do not wait for each other's disk I/O.
+ * Errors when reading or writing the cache are logged and treated as cache misses.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.3
+ */
+public class ResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+    private static final String FILE_SUFFIX = ".json.gz";
+    private static final ZoneId MARKET_ZONE = ZoneId.of("Europe/Stockholm");
+    private static final LocalTime SESSION_OPEN = LocalTime.of(9, 0);
+    // Market closes 17:30, delayed data is allowed to settle before the day is considered closed
+    private static final LocalTime SESSION_SETTLED = LocalTime.of(18, 0);
+    private static final Map<Path, ResponseCache> sharedCaches = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Duration liveTtl;
+    private final Clock clock;
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSizeBytes = 0;
+
+    /**
+     * Creates a cache in the given directory, loading any responses stored by earlier runs.
+     *
+     * @param directory    the directory to store responses in, created if missing
+     * @param maxSizeBytes the maximum total size of the stored (compressed) responses
+     * @param liveTtl      how long a response stored during a trading session is valid
+     * @throws IllegalArgumentException if the directory is null, cannot be created, or a limit is invalid
+     */
+    public ResponseCache(Path directory, long maxSizeBytes, Duration liveTtl) {
+        this(directory, maxSizeBytes, liveTtl, Clock.systemUTC());
+    }
+
+    ResponseCache(Path directory, long maxSizeBytes, Duration liveTtl, Clock clock) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cache directory cannot be null");
+        }
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("Max cache size must be positive");
+        }
+        if (liveTtl == null || liveTtl.isNegative()) {
+            throw new IllegalArgumentException("Live TTL cannot be null or negative");
+        }
+
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.liveTtl = liveTtl;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to open response cache directory: " + directory, e);
+        }
+
+        logger.info("Response cache opened in {} with {} entries ({} of max {} bytes)",
+                directory, entrySizes.size(), totalSizeBytes, maxSizeBytes);
+    }
+
+    /**
+     * Creates a cache from the environment if {@code RESPONSE_CACHE_DIR} is set.
+     * {@code RESPONSE_CACHE_MAX_MB} (default 512) bounds the size and
+     * {@code RESPONSE_CACHE_LIVE_TTL_SECONDS} (default 300) sets the TTL during trading sessions.
+     * Fetchers configured with the same directory share a single cache instance.
+     *
+     * @param dotenv the environment to read the configuration from
+     * @return the cache, or empty if caching is not configured
+     */
+    public static Optional<ResponseCache> fromDotenv(Dotenv dotenv) {
+        String directory = dotenv.get("RESPONSE_CACHE_DIR");
+        if (directory == null || directory.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        long maxSizeBytes = Long.parseLong(dotenv.get("RESPONSE_CACHE_MAX_MB", "512")) * 1024 * 1024;
+        Duration liveTtl = Duration.ofSeconds(Long.parseLong(dotenv.get("RESPONSE_CACHE_LIVE_TTL_SECONDS", "300")));
+        return Optional.of(sharedCaches.computeIfAbsent(Path.of(directory.trim()).toAbsolutePath(),
+                path -> new ResponseCache(path, maxSizeBytes, liveTtl)));
+    }
+
+    /**
+     * Returns the cached response for the given request if present and not expired.
+     *
+     * @param provider the provider the response was fetched from, e.g. the API host
+     * @param symbol   the stock symbol
+     * @param range    the range of the request
+     * @param interval the interval of the request
+     * @return the cached UTF-8 encoded JSON response, or empty on a cache miss
+     */
+    public Optional<byte[]> get(String provider, String symbol, String range, String interval) {
+        final String fileName = fileName(provider, symbol, range, interval);
+        synchronized (this) {
+            if (entrySizes.get(fileName) == null) { // marks the entry as recently used
+                logger.debug("Cache miss for {} {} {} from {}", symbol, range, interval, provider);
+                return Optional.empty();
+            }
+        }
+
+        // The file is read outside the lock, a concurrent put replaces it atomically
+        final Path file = directory.resolve(fileName);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            Instant expiresAt = Instant.ofEpochMilli(in.readLong());
+            if (!clock.instant().isBefore(expiresAt)) {
+                logger.debug("Cached response for {} {} {} expired at {}", symbol, range, interval, expiresAt);
+                remove(fileName);
+                return Optional.empty();
+            }
+
+            byte[] json = in.readAllBytes();
+            Files.setLastModifiedTime(file, FileTime.from(clock.instant()));
+            logger.debug("Cache hit for {} {} {} from {}", symbol, range, interval, provider);
+            return Optional.of(json);
+        } catch (IOException e) {
+            logger.warn("Failed to read cached response {}: {}", file, e.getMessage());
+            remove(fileName);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a response, evicting the least recently used responses if the cache grows too large.
+     * The response is compressed into a temporary file outside the lock and moved into place atomically.
+     *
+     * @param provider the provider the response was fetched from, e.g. the API host
+     * @param symbol   the stock symbol
+     * @param range    the range of the request
+     * @param interval the interval of the request
+     * @param json     the UTF-8 encoded JSON response to store
+     */
+    public void put(String provider, String symbol, String range, String interval, byte[] json) {
+        final String fileName = fileName(provider, symbol, range, interval);
+        final Path file = directory.resolve(fileName);
+        final Instant expiresAt = expiresAt(clock.instant());
+
+        final long size;
+        try {
+            Path temporaryFile = Files.createTempFile(directory, "response", ".tmp");
+            boolean moved = false;
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new GZIPOutputStream(Files.newOutputStream(temporaryFile)))) {
+                    out.writeLong(expiresAt.toEpochMilli());
+                    out.write(json);
+                }
+                size = Files.size(temporaryFile);
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+            } finally {
+                if (!moved) {
+                    // Not part of the index, so it would never be evicted
+                    Files.deleteIfExists(temporaryFile);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to cache response for {} {} {}: {}", symbol, range, interval, e.getMessage());
+            return;
+        }
+
+        final List<String> evicted;
+        synchronized (this) {
+            Long previousSize = entrySizes.put(fileName, size);
+            totalSizeBytes += size - (previousSize != null ? previousSize : 0);
+            evicted = evictLeastRecentlyUsed();
+        }
+        logger.debug("Cached response for {} {} {} from {} until {}", symbol, range, interval, provider, expiresAt);
+        evicted.forEach(this::deleteFile);
+    }
+
+    /**
+     * Returns when a response stored at the given time expires.
+     */
+    Instant expiresAt(Instant storedAt) {
+        ZonedDateTime marketTime = storedAt.atZone(MARKET_ZONE);
+        if (isTradingDay(marketTime) && !marketTime.toLocalTime().isBefore(SESSION_OPEN)
+                && marketTime.toLocalTime().isBefore(SESSION_SETTLED)) {
+            return storedAt.plus(liveTtl);
+        }
+
+        ZonedDateTime nextOpen = marketTime.with(SESSION_OPEN);
+        if (!marketTime.toLocalTime().isBefore(SESSION_OPEN)) {
+            nextOpen = nextOpen.plusDays(1);
+        }
+        while (!isTradingDay(nextOpen)) {
+            nextOpen = nextOpen.plusDays(1);
+        }
+        return nextOpen.toInstant();
+    }
+
+    /**
+     * @return the total size in bytes of the stored responses
+     */
+    public synchronized long getTotalSizeBytes() {
+        return totalSizeBytes;
+    }
+
+    /**
+     * @return the number of stored responses
+     */
+    public synchronized int size() {
+        return entrySizes.size();
+    }
+
+    private static boolean isTradingDay(ZonedDateTime marketTime) {
+        DayOfWeek day = marketTime.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Removes the least recently used entries from the index until the cache fits, called holding the lock.
+     *
+     * @return the file names of the removed entries, to be deleted outside the lock
+     */
+    private List<String> evictLeastRecentlyUsed() {
+        final List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (totalSizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalSizeBytes -= eldest.getValue();
+            iterator.remove();
+            evicted.add(eldest.getKey());
+            logger.debug("Evicted cached response {} ({} bytes)", eldest.getKey(), eldest.getValue());
+        }
+        return evicted;
+    }
+
+    private void remove(String fileName) {
+        synchronized (this) {
+            Long size = entrySizes.remove(fileName);
+            if (size != null) {
+                totalSizeBytes -= size;
+            }
+        }
+        deleteFile(fileName);
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            logger.warn("Failed to delete cached response {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparing(ResponseCache::lastModified))
+                    .forEach(file -> {
+                        try {
+                            long size = Files.size(file);
+                            entrySizes.put(file.getFileName().toString(), size);
+                            totalSizeBytes += size;
+                        } catch (IOException e) {
+                            logger.warn("Skipping unreadable cached response {}: {}", file, e.getMessage());
+                        }
+                    });
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String fileName(String provider, String symbol, String range, String interval) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.join("|", provider, symbol, range, interval)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + FILE_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{directory=" + directory + ", maxSizeBytes=" + maxSizeBytes + ", liveTtl=" + liveTtl + "}";
+    }
+}
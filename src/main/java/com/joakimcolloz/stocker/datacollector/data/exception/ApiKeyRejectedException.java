@@ -0,0 +1,21 @@
+package com.joakimcolloz.stocker.datacollector.data.exception;
+
+/**
+ * Exception thrown when an API responds with a status code signalling that the used API key
+ * was rejected or throttled (401, 403 or 429). The request may succeed with another key.
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public class ApiKeyRejectedException extends DataFetchException {
+    private final int statusCode;
+
+    public ApiKeyRejectedException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,256 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pool of API keys for a single provider. Requests are spread across the keys so that the aggregate
+ * throughput scales with the number of subscriptions.
+ * <p>
+ * Each key has its own rate limit (requests per second) and daily quota. A key that is rejected by the
+ * API (401, 403 or 429) is retired for a cooldown period and is not handed out again until it has expired.
+ * When several keys are available, the key with the fewest requests today is used.
+ * </p>
+ * <p>
+ * The pool is configured from the environment by {@link #fromDotenv(Dotenv)}:
+ * <ul>
+ *   <li>{@code RAPID_API_KEYS} - comma separated list of keys, falls back to {@code RAPID_API_KEY}</li>
+ *   <li>{@code RAPID_API_KEY_REQUESTS_PER_SECOND} - rate limit per key, 0 means unlimited (default 0)</li>
+ *   <li>{@code RAPID_API_KEY_DAILY_QUOTA} - requests per key and UTC day, 0 means unlimited (default 0)</li>
+ *   <li>{@code RAPID_API_KEY_COOLDOWN_SECONDS} - how long a rejected key is retired (default 60)</li>
+ * </ul>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public class ApiKeyPool {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyPool.class);
+    private static final Duration DEFAULT_COOLDOWN = Duration.ofSeconds(60);
+
+    private final List<KeyState> keys;
+    private final Duration minInterval;
+    private final int dailyQuota;
+    private final Duration cooldown;
+    private final Clock clock;
+    private LocalDate quotaDay;
+
+    /**
+     * Creates a pool without rate limit or daily quota.
+     *
+     * @param apiKeys the API keys to spread requests across
+     * @throws IllegalArgumentException if the list is null, empty or contains null/empty keys
+     */
+    public ApiKeyPool(List<String> apiKeys) {
+        this(apiKeys, 0, 0, DEFAULT_COOLDOWN);
+    }
+
+    /**
+     * Creates a pool with the given per key limits.
+     *
+     * @param apiKeys           the API keys to spread requests across
+     * @param requestsPerSecond max requests per second for each key, 0 means unlimited
+     * @param dailyQuota        max requests per key and UTC day, 0 means unlimited
+     * @param cooldown          how long a rejected key is retired
+     * @throws IllegalArgumentException if the list is null, empty or contains null/empty keys, or a limit is negative
+     */
+    public ApiKeyPool(List<String> apiKeys, int requestsPerSecond, int dailyQuota, Duration cooldown) {
+        this(apiKeys, requestsPerSecond, dailyQuota, cooldown, Clock.systemUTC());
+    }
+
+    ApiKeyPool(List<String> apiKeys, int requestsPerSecond, int dailyQuota, Duration cooldown, Clock clock) {
+        if (apiKeys == null || apiKeys.isEmpty()) {
+            throw new IllegalArgumentException("API key pool must contain at least one API key");
+        }
+        if (requestsPerSecond < 0) {
+            throw new IllegalArgumentException("Requests per second cannot be negative");
+        }
+        if (dailyQuota < 0) {
+            throw new IllegalArgumentException("Daily quota cannot be negative");
+        }
+        if (cooldown == null || cooldown.isNegative()) {
+            throw new IllegalArgumentException("Cooldown cannot be null or negative");
+        }
+
+        this.keys = new ArrayList<>(apiKeys.size());
+        for (String apiKey : apiKeys) {
+            if (apiKey == null || apiKey.trim().isEmpty()) {
+                throw new IllegalArgumentException("API key cannot be null or empty");
+            }
+            keys.add(new KeyState(apiKey.trim()));
+        }
+
+        this.minInterval = requestsPerSecond == 0 ? Duration.ZERO : Duration.ofNanos(1_000_000_000L / requestsPerSecond);
+        this.dailyQuota = dailyQuota;
+        this.cooldown = cooldown;
+        this.clock = clock;
+        this.quotaDay = LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+
+        logger.debug("ApiKeyPool initialized with {} key(s), {} req/s per key, daily quota: {}, cooldown: {}",
+                keys.size(), requestsPerSecond, dailyQuota, cooldown);
+    }
+
+    /**
+     * Creates a pool from the environment. See the class documentation for the used variables.
+     *
+     * @param dotenv the environment to read the configuration from
+     * @return the created pool
+     * @throws IllegalArgumentException if no API key is configured or a limit is invalid
+     */
+    public static ApiKeyPool fromDotenv(Dotenv dotenv) {
+        String keys = dotenv.get("RAPID_API_KEYS");
+        if (keys == null || keys.trim().isEmpty()) {
+            keys = dotenv.get("RAPID_API_KEY");
+        }
+        if (keys == null || keys.trim().isEmpty()) {
+            throw new IllegalArgumentException("API key cannot be null");
+        }
+
+        List<String> apiKeys = Arrays.stream(keys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .toList();
+
+        return new ApiKeyPool(
+                apiKeys,
+                Integer.parseInt(dotenv.get("RAPID_API_KEY_REQUESTS_PER_SECOND", "0")),
+                Integer.parseInt(dotenv.get("RAPID_API_KEY_DAILY_QUOTA", "0")),
+                Duration.ofSeconds(Long.parseLong(dotenv.get("RAPID_API_KEY_COOLDOWN_SECONDS", "60"))));
+    }
+
+    /**
+     * Returns the key to use for the next request, blocking until a key is allowed to send
+     * according to its rate limit and cooldown.
+     *
+     * @return the API key to use
+     * @throws DataFetchException if every key has used up its daily quota or the thread is interrupted while waiting
+     */
+    public synchronized String acquire() throws DataFetchException {
+        while (true) {
+            Instant now = clock.instant();
+            rollOverQuotaDay(now);
+
+            KeyState selected = null;
+            Instant selectedReadyAt = null;
+            for (KeyState key : keys) {
+                if (dailyQuota > 0 && key.usedToday >= dailyQuota) {
+                    continue;
+                }
+                Instant readyAt = key.readyAt().isAfter(now) ? key.readyAt() : now;
+                if (selected == null || readyAt.isBefore(selectedReadyAt)
+                        || (readyAt.equals(selectedReadyAt) && key.usedToday < selected.usedToday)) {
+                    selected = key;
+                    selectedReadyAt = readyAt;
+                }
+            }
+
+            if (selected == null) {
+                logger.error("All {} API key(s) have used up their daily quota of {}", keys.size(), dailyQuota);
+                throw new DataFetchException("All " + keys.size() + " API key(s) have used up their daily quota");
+            }
+
+            long waitMillis = Duration.between(now, selectedReadyAt).toMillis();
+            if (waitMillis <= 0) {
+                selected.nextSlot = now.plus(minInterval);
+                selected.usedToday++;
+                logger.trace("Acquired API key {} ({} request(s) today)", selected.masked(), selected.usedToday);
+                return selected.apiKey;
+            }
+
+            logger.debug("No API key available, waiting {} ms for key {}", waitMillis, selected.masked());
+            try {
+                wait(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataFetchException("Interrupted while waiting for an available API key", e);
+            }
+        }
+    }
+
+    /**
+     * Retires the given key for the configured cooldown, or longer if the API asked us to retry later.
+     *
+     * @param apiKey     the key that was rejected
+     * @param statusCode the HTTP status code returned by the API
+     * @param retryAfter the delay requested by the API through a Retry-After header, or null if absent
+     */
+    public synchronized void retire(String apiKey, int statusCode, Duration retryAfter) {
+        Duration retiredFor = retryAfter != null && retryAfter.compareTo(cooldown) > 0 ? retryAfter : cooldown;
+        for (KeyState key : keys) {
+            if (key.apiKey.equals(apiKey)) {
+                key.retiredUntil = clock.instant().plus(retiredFor);
+                logger.warn("API key {} rejected with status code {}, retired for {} seconds",
+                        key.masked(), statusCode, retiredFor.toSeconds());
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Returns true if the status code means that the API key was rejected or throttled.
+     *
+     * @param statusCode the HTTP status code
+     * @return true for 401, 403 and 429
+     */
+    public static boolean isKeyRejection(int statusCode) {
+        return statusCode == 401 || statusCode == 403 || statusCode == 429;
+    }
+
+    /**
+     * @return the number of keys in the pool
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return the number of requests sent with each key today, in the order the keys were configured
+     */
+    public synchronized List<Integer> getUsageToday() {
+        rollOverQuotaDay(clock.instant());
+        return keys.stream().map(key -> key.usedToday).toList();
+    }
+
+    private void rollOverQuotaDay(Instant now) {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        if (!today.equals(quotaDay)) {
+            logger.debug("New quota day {}, resetting usage of {} API key(s)", today, keys.size());
+            keys.forEach(key -> key.usedToday = 0);
+            quotaDay = today;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ApiKeyPool{keys=" + keys.size() + ", dailyQuota=" + dailyQuota + ", cooldown=" + cooldown + "}";
+    }
+
+    private static final class KeyState {
+        private final String apiKey;
+        private Instant nextSlot = Instant.MIN;
+        private Instant retiredUntil = Instant.MIN;
+        private int usedToday;
+
+        private KeyState(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        private Instant readyAt() {
+            return nextSlot.isAfter(retiredUntil) ? nextSlot : retiredUntil;
+        }
+
+        private String masked() {
+            return "..." + apiKey.substring(Math.max(0, apiKey.length() - 4));
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.joakimcolloz.stocker.datacollector.data.fetchers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.joakimcolloz.stocker.datacollector.data.cache.ResponseCache;
+import com.joakimcolloz.stocker.datacollector.data.exception.ApiKeyRejectedException;
 import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
 import com.joakimcolloz.stocker.datacollector.data.validation.DataFetcherInputValidator;
 
@@ -10,32 +12,47 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Base data fetcher used as template for other concrete fetchers.
  * Provides common functionality for fetching data from a stock data API.
+ * Requests are spread across the keys of an {@link ApiKeyPool}.
+ * If a {@link ResponseCache} is set, cached responses are returned without using the network or an API key.
+ * Responses are received and cached as bytes, {@link #fetchBytes(String, String, String)} returns them without
+ * decoding.
  *
  * @author Joakim Colloz
- * @version 1.0
+ * @version 1.3
  */
-public abstract class BaseDataFetcher {
+public abstract class BaseDataFetcher implements DataFetcher {
     private static final Logger logger = LoggerFactory.getLogger(BaseDataFetcher.class);
 
     private final String apiKeyHeader;
     private final String apiHostHeader;
-    private final String apiKey;
+    private final ApiKeyPool apiKeyPool;
     private final String apiHost;
     private final String apiUrl;
 
     protected final DataFetcherInputValidator validator;
+    private ResponseCache responseCache;
 
     /**
-     * Creates a new BaseDataFetcher with the specified API configuration.
+     * Creates a new BaseDataFetcher with the specified API configuration and a single API key.
      * Validates the API configuration parameters using the {@link DataFetcherInputValidator}.
      */
     protected BaseDataFetcher(final String apiKeyHeader, final String apiHostHeader,
                               final String apiKey, final String apiHost, final String apiUrl) {
-        this.validator = new DataFetcherInputValidator();
+        this(apiKeyHeader, apiHostHeader, apiKey, apiHost, apiUrl, new DataFetcherInputValidator());
+    }
+
+    protected BaseDataFetcher(final String apiKeyHeader, final String apiHostHeader,
+                              final String apiKey, final String apiHost, final String apiUrl,
+                              final DataFetcherInputValidator validator) {
+        this.validator = validator;
 
         // Validate API configuration parameters
         try {
@@ -48,22 +65,28 @@ public abstract class BaseDataFetcher {
 
         this.apiKeyHeader = apiKeyHeader;
         this.apiHostHeader = apiHostHeader;
-        this.apiKey = apiKey;
+        this.apiKeyPool = new ApiKeyPool(List.of(apiKey));
         this.apiHost = apiHost;
         this.apiUrl = apiUrl;
 
         logger.debug("BaseDataFetcher initialized for API: {}", apiUrl);
     }
 
+    /**
+     * Creates a new BaseDataFetcher that spreads its requests across the keys in the given {@link ApiKeyPool}.
+     * Validates the API configuration parameters using the {@link DataFetcherInputValidator}.
+     */
     protected BaseDataFetcher(final String apiKeyHeader, final String apiHostHeader,
-                              final String apiKey, final String apiHost, final String apiUrl,
-                              final DataFetcherInputValidator validator) {
-        this.validator = validator;
+                              final ApiKeyPool apiKeyPool, final String apiHost, final String apiUrl) {
+        this.validator = new DataFetcherInputValidator();
 
         // Validate API configuration parameters
         try {
-            validator.validateApiConfig(apiKeyHeader, apiHostHeader, apiKey, apiHost, apiUrl);
-            logger.debug("API configuration validation passed"); // TODO: move this to a separate method
+            validator.validateApiConfig(apiKeyHeader, apiHostHeader, apiHost, apiUrl);
+            if (apiKeyPool == null) {
+                throw new IllegalArgumentException("API key pool cannot be null");
+            }
+            logger.debug("API configuration validation passed");
         } catch (IllegalArgumentException e) {
             logger.error("API configuration validation failed: {}", e.getMessage());
             throw e;
@@ -71,11 +94,11 @@ public abstract class BaseDataFetcher {
 
         this.apiKeyHeader = apiKeyHeader;
         this.apiHostHeader = apiHostHeader;
-        this.apiKey = apiKey;
+        this.apiKeyPool = apiKeyPool;
         this.apiHost = apiHost;
         this.apiUrl = apiUrl;
 
-        logger.debug("BaseDataFetcher initialized with injected validator for API: {}", apiUrl);
+        logger.debug("BaseDataFetcher initialized with {} API key(s) for API: {}", apiKeyPool.size(), apiUrl);
     }
 
     /**
@@ -87,8 +110,24 @@ public abstract class BaseDataFetcher {
      * @return the response as a string in JSON format
      * @throws DataFetchException if the request fails
      */
+    @Override
     public String fetchData(final String stockName, final String range, final String interval)
             throws DataFetchException {
+        return new String(fetchBytes(stockName, range, interval), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fetches stock data and returns the response body as received, UTF-8 encoded JSON.
+     *
+     * @param stockName the stock symbol to fetch data for (e.g., "ABB")
+     * @param range the time range to fetch data for
+     * @param interval the interval of the data to fetch
+     * @return the UTF-8 encoded response in JSON format
+     * @throws DataFetchException if the request fails
+     */
+    @Override
+    public byte[] fetchBytes(final String stockName, final String range, final String interval)
+            throws DataFetchException {
 
         logger.debug("Starting fetchData for stock: {}, range: {}, interval: {}", stockName, range, interval);
 
@@ -103,25 +142,75 @@ public abstract class BaseDataFetcher {
             throw e; // Let unchecked exception bubble up
         }
 
+        if (responseCache != null) {
+            Optional<byte[]> cachedResponse = responseCache.get(getApiUrl(), stockName, range, interval);
+            if (cachedResponse.isPresent()) {
+                logger.info("Using cached data for stock: {}, range: {}, interval: {}", stockName, range, interval);
+                return cachedResponse.get();
+            }
+        }
+
         String apiUrl = buildApiUrl(stockName, range, interval);
         logger.info("Fetching data for stock: {}, range: {}, interval: {}", stockName, range, interval);
 
-        HttpRequest request = createHttpRequest(apiUrl);
-        HttpResponse<String> response = executeRequest(request, stockName);
+        HttpResponse<byte[]> response = executeWithApiKeyRotation(apiUrl, stockName);
 
-        String responseBody = validateAndGetResponseBody(response, stockName);
+        byte[] responseBody = validateAndGetResponseBody(response, stockName);
 
         logger.info("Successfully received data for {}", stockName);
         if (logger.isDebugEnabled()) {
-            logger.debug("Received response for {}: {}", stockName, responseBody);
+            logger.debug("Received response for {}: {}", stockName, new String(responseBody, StandardCharsets.UTF_8));
+        }
+
+        if (responseCache != null) {
+            responseCache.put(getApiUrl(), stockName, range, interval, responseBody);
         }
 
         return responseBody;
     }
 
+    /**
+     * Sets the cache used to avoid fetching identical responses again, or null to disable caching.
+     *
+     * @param responseCache the cache to use
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        logger.debug("Response cache set for API {}: {}", apiUrl, responseCache);
+    }
+
     protected abstract String buildApiUrl(String stockName, String range, String interval);
 
-    private HttpRequest createHttpRequest(String apiUrl) throws DataFetchException {
+    /**
+     * @return the base URL of the API that requests are sent to
+     */
+    protected String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Sends the request with a key from the {@link ApiKeyPool}. If the key is rejected or throttled
+     * the request is retried with the next available key, at most once per key in the pool.
+     */
+    private HttpResponse<byte[]> executeWithApiKeyRotation(String apiUrl, String stockName)
+            throws DataFetchException {
+        final int maxAttempts = apiKeyPool.size();
+        for (int attempt = 1; ; attempt++) {
+            final String apiKey = apiKeyPool.acquire();
+            HttpRequest request = createHttpRequest(apiUrl, apiKey);
+            try {
+                return executeRequest(request, apiKey, stockName);
+            } catch (ApiKeyRejectedException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.info("Retrying request for {} with another API key (attempt {} of {})",
+                        stockName, attempt + 1, maxAttempts);
+            }
+        }
+    }
+
+    private HttpRequest createHttpRequest(String apiUrl, String apiKey) throws DataFetchException {
         try {
             logger.debug("Creating HTTP request for URL: {}", apiUrl);
             return HttpRequest.newBuilder()
@@ -139,12 +228,19 @@ public abstract class BaseDataFetcher {
         }
     }
 
-    private HttpResponse<String> executeRequest(HttpRequest request, String stockName)
+    private HttpResponse<byte[]> executeRequest(HttpRequest request, String apiKey, String stockName)
             throws DataFetchException {
         try {
             logger.debug("Executing HTTP request for stock: {}", stockName);
-            HttpResponse<String> response = HttpClient.newHttpClient().send(
-                    request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                    request, HttpResponse.BodyHandlers.ofByteArray());
+
+            if (ApiKeyPool.isKeyRejection(response.statusCode())) {
+                logger.warn("API key rejected for {} with status code: {}", stockName, response.statusCode());
+                apiKeyPool.retire(apiKey, response.statusCode(), parseRetryAfter(response));
+                throw new ApiKeyRejectedException("API key rejected for " + stockName +
+                        " with status code: " + response.statusCode(), response.statusCode());
+            }
 
             if (response.statusCode() >= 400) {
                 logger.error("HTTP request failed for {} with status code: {}", stockName, response.statusCode());
@@ -171,9 +267,22 @@ public abstract class BaseDataFetcher {
         }
     }
 
-    private String validateAndGetResponseBody(HttpResponse<String> response, String stockName)
+    /**
+     * Returns the delay requested through a Retry-After header given in seconds, or null if absent or not a number.
+     */
+    private static Duration parseRetryAfter(HttpResponse<byte[]> response) {
+        if (response.headers() == null) {
+            return null;
+        }
+        return response.headers().firstValue("Retry-After")
+                .filter(value -> value.chars().allMatch(Character::isDigit) && !value.isEmpty())
+                .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+                .orElse(null);
+    }
+
+    private byte[] validateAndGetResponseBody(HttpResponse<byte[]> response, String stockName)
             throws DataFetchException {
-        String responseBody = response.body();
+        byte[] responseBody = response.body();
         if (responseBody == null) {
             logger.error("HTTP request failed for {}: Response body was null", stockName);
             throw new DataFetchException("Response body was null for stock: " + stockName);
@@ -0,0 +1,327 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight fetcher in front of another {@link DataFetcher}.
+ * <p>
+ * Concurrent or repeated requests for the same symbol, range and interval share one request to the
+ * underlying fetcher. In-flight requests are kept until they complete. Of the completed responses only the
+ * most recently used {@code maxCompletedResponses} are kept, so a long run does not hold every fetched response,
+ * and {@link #clear()} drops them all. Failed requests are not kept, so they are sent again the next time.
+ * </p>
+ * <p>
+ * For the daily interval, a request for a shorter range is served by slicing the response of an in-flight
+ * or kept completed request for a longer range of the same symbol, e.g. 3mo is cut from 1y. Ranges given in days
+ * (1d, 5d) keep the latest candles, other ranges keep the candles from the same date one period back.
+ * If slicing is not possible the request is sent to the underlying fetcher.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.2
+ */
+public class CoalescingDataFetcher implements DataFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingDataFetcher.class);
+    private static final ZoneId MARKET_ZONE = ZoneId.of("Europe/Stockholm");
+    private static final String SLICEABLE_INTERVAL = "1d";
+    // Ranges ordered from shortest to longest, every range covers the ranges before it (except ytd)
+    private static final List<String> RANGES_BY_LENGTH = List.of(
+            "1d", "5d", "1wk", "1mo", "3mo", "6mo", "ytd", "1y", "2y", "5y", "10y", "max");
+    private static final Map<String, Integer> CANDLES_IN_RANGE = Map.of("1d", 1, "5d", 5);
+    private static final Map<String, Period> PERIOD_OF_RANGE = Map.of(
+            "1wk", Period.ofWeeks(1),
+            "1mo", Period.ofMonths(1),
+            "3mo", Period.ofMonths(3),
+            "6mo", Period.ofMonths(6),
+            "1y", Period.ofYears(1),
+            "2y", Period.ofYears(2),
+            "5y", Period.ofYears(5),
+            "10y", Period.ofYears(10));
+    private static final int DEFAULT_MAX_COMPLETED_RESPONSES = 16;
+
+    private final DataFetcher delegate;
+    private final Clock clock;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final int maxCompletedResponses;
+    // In-flight and completed responses in access order, guarded by itself
+    private final LinkedHashMap<String, CompletableFuture<byte[]>> responses = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong slicedCount = new AtomicLong();
+
+    /**
+     * Creates a coalescing fetcher in front of the given fetcher.
+     *
+     * @param delegate the fetcher that sends the actual requests
+     * @throws IllegalArgumentException if the fetcher is null
+     */
+    public CoalescingDataFetcher(DataFetcher delegate) {
+        this(delegate, DEFAULT_MAX_COMPLETED_RESPONSES);
+    }
+
+    /**
+     * Creates a coalescing fetcher in front of the given fetcher, keeping at most the given number of completed
+     * responses.
+     *
+     * @param delegate              the fetcher that sends the actual requests
+     * @param maxCompletedResponses the number of completed responses to keep, 0 to keep only in-flight requests
+     * @throws IllegalArgumentException if the fetcher is null or the number is negative
+     */
+    public CoalescingDataFetcher(DataFetcher delegate, int maxCompletedResponses) {
+        this(delegate, Clock.systemUTC(), maxCompletedResponses);
+    }
+
+    CoalescingDataFetcher(DataFetcher delegate, Clock clock) {
+        this(delegate, clock, DEFAULT_MAX_COMPLETED_RESPONSES);
+    }
+
+    CoalescingDataFetcher(DataFetcher delegate, Clock clock, int maxCompletedResponses) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Fetcher cannot be null");
+        }
+        if (maxCompletedResponses < 0) {
+            throw new IllegalArgumentException("Max completed responses cannot be negative");
+        }
+        this.delegate = delegate;
+        this.clock = clock;
+        this.maxCompletedResponses = maxCompletedResponses;
+        logger.debug("CoalescingDataFetcher initialized in front of {}", delegate);
+    }
+
+    @Override
+    public String fetchData(String stockName, String range, String interval) throws DataFetchException {
+        return new String(fetchBytes(stockName, range, interval), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] fetchBytes(String stockName, String range, String interval) throws DataFetchException {
+        final String key = key(stockName, range, interval);
+        final CompletableFuture<byte[]> created = new CompletableFuture<>();
+        final CompletableFuture<byte[]> existing;
+        synchronized (responses) {
+            existing = responses.get(key);
+            if (existing == null) {
+                responses.put(key, created);
+            }
+        }
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            logger.debug("Sharing request for {} range: {}, interval: {}", stockName, range, interval);
+            return await(existing, stockName);
+        }
+
+        try {
+            byte[] json = sliceFromLongerRange(stockName, range, interval);
+            if (json == null) {
+                fetchCount.incrementAndGet();
+                json = delegate.fetchBytes(stockName, range, interval);
+            }
+            created.complete(json);
+            evictCompletedResponses();
+            return json;
+        } catch (DataFetchException | RuntimeException e) {
+            synchronized (responses) {
+                responses.remove(key, created);
+            }
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the response for the given range cut from an in-flight or completed request for a longer range,
+     * or null if there is no such request or it cannot be sliced.
+     */
+    private byte[] sliceFromLongerRange(String stockName, String range, String interval) {
+        final int rangeIndex = RANGES_BY_LENGTH.indexOf(range);
+        if (!SLICEABLE_INTERVAL.equals(interval) || rangeIndex < 0) {
+            return null;
+        }
+
+        for (String longerRange : RANGES_BY_LENGTH.subList(rangeIndex + 1, RANGES_BY_LENGTH.size())) {
+            CompletableFuture<byte[]> longer;
+            synchronized (responses) {
+                longer = responses.get(key(stockName, longerRange, interval));
+            }
+            if (longer == null || "ytd".equals(longerRange)) {
+                continue;
+            }
+            try {
+                byte[] json = slice(await(longer, stockName), range);
+                slicedCount.incrementAndGet();
+                logger.debug("Sliced {} range: {} from range: {}", stockName, range, longerRange);
+                return json;
+            } catch (DataFetchException e) {
+                logger.debug("Request for {} range: {} failed, cannot slice range: {}", stockName, longerRange, range);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to slice {} range: {} from range: {}: {}", stockName, range, longerRange, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the chart response trimmed to the candles of the given range.
+     */
+    byte[] slice(byte[] json, String range) {
+        JsonObject root = JsonParser.parseReader(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject result = root.getAsJsonObject("chart").getAsJsonArray("result").get(0).getAsJsonObject();
+        JsonArray timestamps = result.getAsJsonArray("timestamp");
+        final int candleCount = timestamps.size();
+
+        int firstKept;
+        if (CANDLES_IN_RANGE.containsKey(range)) {
+            firstKept = Math.max(0, candleCount - CANDLES_IN_RANGE.get(range));
+        } else {
+            LocalDate today = LocalDate.ofInstant(clock.instant(), MARKET_ZONE);
+            LocalDate firstDay = "ytd".equals(range) ? today.withDayOfYear(1) : today.minus(PERIOD_OF_RANGE.get(range));
+            long cutoff = firstDay.atStartOfDay(MARKET_ZONE).toEpochSecond();
+            firstKept = 0;
+            while (firstKept < candleCount && timestamps.get(firstKept).getAsLong() < cutoff) {
+                firstKept++;
+            }
+        }
+
+        result.add("timestamp", tail(timestamps, firstKept));
+        trimSeries(result.getAsJsonObject("indicators"), candleCount, firstKept);
+        result.getAsJsonObject("meta").addProperty("range", range);
+        return gson.toJson(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Trims every array in the indicators that holds one value per candle.
+     */
+    private static void trimSeries(JsonObject object, int candleCount, int firstKept) {
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            if (entry.getValue().isJsonObject()) {
+                trimSeries(entry.getValue().getAsJsonObject(), candleCount, firstKept);
+            } else if (entry.getValue().isJsonArray()) {
+                JsonArray array = entry.getValue().getAsJsonArray();
+                if (array.size() == candleCount && (array.isEmpty() || !array.get(0).isJsonObject())) {
+                    entry.setValue(tail(array, firstKept));
+                } else {
+                    for (JsonElement element : array) {
+                        if (element.isJsonObject()) {
+                            trimSeries(element.getAsJsonObject(), candleCount, firstKept);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static JsonArray tail(JsonArray array, int from) {
+        JsonArray tail = new JsonArray(array.size() - from);
+        for (int i = from; i < array.size(); i++) {
+            tail.add(array.get(i));
+        }
+        return tail;
+    }
+
+    /**
+     * Returns the response of a shared request, rethrowing its failure unwrapped.
+     */
+    private static byte[] await(CompletableFuture<byte[]> future, String stockName) throws DataFetchException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataFetchException dataFetchException) {
+                throw dataFetchException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new DataFetchException("Unexpected error while fetching data for " + stockName, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataFetchException("Request was interrupted while fetching data for " + stockName, e);
+        }
+    }
+
+    /**
+     * Drops the least recently used completed responses above {@code maxCompletedResponses}, keeping all
+     * in-flight requests.
+     */
+    private void evictCompletedResponses() {
+        synchronized (responses) {
+            int completedCount = 0;
+            for (CompletableFuture<byte[]> response : responses.values()) {
+                if (response.isDone()) {
+                    completedCount++;
+                }
+            }
+            Iterator<CompletableFuture<byte[]>> iterator = responses.values().iterator();
+            while (completedCount > maxCompletedResponses && iterator.hasNext()) {
+                if (iterator.next().isDone()) {
+                    iterator.remove();
+                    completedCount--;
+                }
+            }
+        }
+    }
+
+    private static String key(String stockName, String range, String interval) {
+        return stockName + "|" + range + "|" + interval;
+    }
+
+    /**
+     * Forgets all kept responses, e.g. before the next run.
+     */
+    public void clear() {
+        synchronized (responses) {
+            responses.clear();
+        }
+    }
+
+    /**
+     * @return the number of requests sent to the underlying fetcher
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * @return the number of requests that shared the response of an identical request
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return the number of requests served by slicing the response of a longer range
+     */
+    public long getSlicedCount() {
+        return slicedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingDataFetcher{delegate=" + delegate + "}";
+    }
+}
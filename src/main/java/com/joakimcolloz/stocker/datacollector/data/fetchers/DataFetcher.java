@@ -0,0 +1,45 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A source of stock price data in the chart JSON format shared by the supported providers.
+ * Implemented by {@link BaseDataFetcher} for single providers and by decorators combining several fetchers.
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ */
+@FunctionalInterface
+public interface DataFetcher {
+
+    /**
+     * Fetches stock data and returns the response as a string in JSON format.
+     *
+     * @param stockName the stock symbol to fetch data for (e.g., "ABB.ST")
+     * @param range the time range to fetch data for
+     * @param interval the interval of the data to fetch
+     * @return the response as a string in JSON format
+     * @throws DataFetchException if the request fails
+     * @throws IllegalArgumentException if any of the parameters is invalid
+     */
+    String fetchData(String stockName, String range, String interval) throws DataFetchException;
+
+    /**
+     * Fetches stock data and returns the UTF-8 encoded response in JSON format, to be parsed from the bytes with
+     * {@link com.joakimcolloz.stocker.datacollector.data.parsers.BaseParser#setJsonBytes(byte[])}.
+     * Encodes the response of {@link #fetchData(String, String, String)} by default, fetchers that receive the
+     * response as bytes return them without decoding.
+     *
+     * @param stockName the stock symbol to fetch data for (e.g., "ABB.ST")
+     * @param range the time range to fetch data for
+     * @param interval the interval of the data to fetch
+     * @return the UTF-8 encoded response in JSON format
+     * @throws DataFetchException if the request fails
+     * @throws IllegalArgumentException if any of the parameters is invalid
+     */
+    default byte[] fetchBytes(String stockName, String range, String interval) throws DataFetchException {
+        return fetchData(stockName, range, interval).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,253 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Composite fetcher using a primary and a secondary provider returning the same chart schema,
+ * e.g. {@link FinanceBirdFetcher} and {@link YahooFinanceFetcher}.
+ * <p>
+ * If the primary fails with a {@link DataFetchException} the request fails over to the secondary.
+ * Invalid input ({@link IllegalArgumentException}) is not failed over as the secondary would reject it too.
+ * </p>
+ * <p>
+ * Optionally, a hedged request is sent to the secondary when the primary has not answered within the
+ * configured percentile of its recent latencies. The first successful response is used. To keep the
+ * quota use of the secondary bounded, at most {@code maxHedgeRatio} of all requests are hedged, and never
+ * before {@value #MIN_HEDGE_DELAY_MILLIS} ms. The request that does not win is cancelled.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.2
+ */
+public class FailoverDataFetcher implements DataFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(FailoverDataFetcher.class);
+    private static final int LATENCY_WINDOW_SIZE = 200;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+
+    private final DataFetcher primary;
+    private final DataFetcher secondary;
+    private final double hedgePercentile;
+    private final double maxHedgeRatio;
+    private final ExecutorService executor;
+
+    private final long[] primaryLatencies = new long[LATENCY_WINDOW_SIZE];
+    private int latencySampleCount = 0;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong failoverCount = new AtomicLong();
+
+    /**
+     * Creates a fetcher that fails over to the secondary provider but never sends hedged requests.
+     *
+     * @param primary   the provider used for all requests
+     * @param secondary the provider used when the primary fails
+     */
+    public FailoverDataFetcher(DataFetcher primary, DataFetcher secondary) {
+        this(primary, secondary, 0, 0);
+    }
+
+    /**
+     * Creates a fetcher that fails over to the secondary provider and sends hedged requests.
+     *
+     * @param primary         the provider used for all requests
+     * @param secondary       the provider used when the primary fails or is slow
+     * @param hedgePercentile the percentile of recent primary latencies after which a hedged request
+     *                        is sent (e.g. 0.95), or 0 to disable hedging
+     * @param maxHedgeRatio   the maximum share of requests that may be hedged (e.g. 0.1)
+     * @throws IllegalArgumentException if a fetcher is null or a ratio is outside [0, 1)
+     */
+    public FailoverDataFetcher(DataFetcher primary, DataFetcher secondary,
+                               double hedgePercentile, double maxHedgeRatio) {
+        if (primary == null || secondary == null) {
+            throw new IllegalArgumentException("Primary and secondary fetchers cannot be null");
+        }
+        if (hedgePercentile < 0 || hedgePercentile >= 1) {
+            throw new IllegalArgumentException("Hedge percentile must be in the range [0, 1)");
+        }
+        if (maxHedgeRatio < 0 || maxHedgeRatio > 1) {
+            throw new IllegalArgumentException("Max hedge ratio must be in the range [0, 1]");
+        }
+
+        this.primary = primary;
+        this.secondary = secondary;
+        this.hedgePercentile = hedgePercentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hedged-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.debug("FailoverDataFetcher initialized, primary: {}, secondary: {}, hedge percentile: {}, max hedge ratio: {}",
+                primary, secondary, hedgePercentile, maxHedgeRatio);
+    }
+
+    @Override
+    public String fetchData(String stockName, String range, String interval) throws DataFetchException {
+        return new String(fetchBytes(stockName, range, interval), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] fetchBytes(String stockName, String range, String interval) throws DataFetchException {
+        requestCount.incrementAndGet();
+
+        Long hedgeDelayMillis = hedgeDelayMillis();
+        if (hedgeDelayMillis == null) {
+            return fetchWithFailover(stockName, range, interval);
+        }
+
+        CompletionService<byte[]> completionService = new ExecutorCompletionService<>(executor);
+        Future<byte[]> primaryFuture = completionService.submit(timedPrimary(stockName, range, interval));
+        Future<byte[]> secondaryFuture = null;
+
+        try {
+            Future<byte[]> completed = completionService.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+            if (completed != null || !isHedgeAllowed()) {
+                return getOrFailover(primaryFuture, stockName, range, interval);
+            }
+
+            hedgeCount.incrementAndGet();
+            logger.info("Primary did not answer for {} within {} ms, sending hedged request to secondary",
+                    stockName, hedgeDelayMillis);
+            secondaryFuture = completionService.submit(
+                    () -> secondary.fetchBytes(stockName, range, interval));
+
+            Future<byte[]> first = completionService.take();
+            try {
+                return unwrap(first);
+            } catch (DataFetchException e) {
+                Future<byte[]> other = first == primaryFuture ? secondaryFuture : primaryFuture;
+                logger.warn("{} request failed for {}, waiting for the other provider: {}",
+                        first == primaryFuture ? "Primary" : "Hedged", stockName, e.getMessage());
+                return unwrap(other);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataFetchException("Request was interrupted while fetching data for " + stockName, e);
+        } finally {
+            // Stops the losing request, so it no longer holds a thread or uses quota. No-op for completed requests.
+            primaryFuture.cancel(true);
+            if (secondaryFuture != null) {
+                secondaryFuture.cancel(true);
+            }
+        }
+    }
+
+    private byte[] fetchWithFailover(String stockName, String range, String interval) throws DataFetchException {
+        try {
+            return timedPrimary(stockName, range, interval).call();
+        } catch (DataFetchException e) {
+            return failover(e, stockName, range, interval);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataFetchException("Unexpected error while fetching data for " + stockName, e);
+        }
+    }
+
+    private byte[] getOrFailover(Future<byte[]> primaryFuture, String stockName, String range, String interval)
+            throws DataFetchException, InterruptedException {
+        try {
+            return unwrap(primaryFuture);
+        } catch (DataFetchException e) {
+            return failover(e, stockName, range, interval);
+        }
+    }
+
+    private byte[] failover(DataFetchException primaryException, String stockName, String range, String interval)
+            throws DataFetchException {
+        failoverCount.incrementAndGet();
+        logger.warn("Primary failed for {}, failing over to secondary: {}", stockName, primaryException.getMessage());
+        try {
+            return secondary.fetchBytes(stockName, range, interval);
+        } catch (DataFetchException e) {
+            logger.error("Secondary failed for {} as well: {}", stockName, e.getMessage());
+            e.addSuppressed(primaryException);
+            throw e;
+        }
+    }
+
+    private Callable<byte[]> timedPrimary(String stockName, String range, String interval) {
+        return () -> {
+            long start = System.nanoTime();
+            byte[] json = primary.fetchBytes(stockName, range, interval);
+            recordPrimaryLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return json;
+        };
+    }
+
+    /**
+     * Returns the result of a completed or running request, rethrowing its failure unwrapped.
+     */
+    private static byte[] unwrap(Future<byte[]> future) throws DataFetchException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataFetchException dataFetchException) {
+                throw dataFetchException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new DataFetchException("Unexpected error while fetching data", cause);
+        }
+    }
+
+    private synchronized void recordPrimaryLatency(long latencyMillis) {
+        primaryLatencies[latencySampleCount % LATENCY_WINDOW_SIZE] = latencyMillis;
+        latencySampleCount++;
+    }
+
+    /**
+     * Returns how long to wait for the primary before hedging, at least {@value #MIN_HEDGE_DELAY_MILLIS} ms,
+     * or null if hedging is disabled or there are not yet enough latency samples.
+     */
+    private synchronized Long hedgeDelayMillis() {
+        if (hedgePercentile == 0 || latencySampleCount < MIN_LATENCY_SAMPLES) {
+            return null;
+        }
+        long[] window = Arrays.copyOf(primaryLatencies, Math.min(latencySampleCount, LATENCY_WINDOW_SIZE));
+        Arrays.sort(window);
+        return Math.max(window[(int) Math.ceil(hedgePercentile * window.length) - 1], MIN_HEDGE_DELAY_MILLIS);
+    }
+
+    private boolean isHedgeAllowed() {
+        return hedgeCount.get() + 1 <= maxHedgeRatio * requestCount.get();
+    }
+
+    /**
+     * @return the number of requests that were hedged to the secondary provider
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return the number of requests that failed over to the secondary provider
+     */
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FailoverDataFetcher{primary=" + primary + ", secondary=" + secondary +
+                ", hedgePercentile=" + hedgePercentile + ", maxHedgeRatio=" + maxHedgeRatio + "}";
+    }
+}
@@ -1,5 +1,6 @@
 package com.joakimcolloz.stocker.datacollector.data.fetchers;
 
+import com.joakimcolloz.stocker.datacollector.data.cache.ResponseCache;
 import io.github.cdimascio.dotenv.Dotenv;
 
 // TODO: add java doc mentioning link to price plan: https://rapidapi.com/shareefbassam3/api/financebird/pricing
@@ -17,16 +18,31 @@ public class FinanceBirdFetcher extends BaseDataFetcher {
 
     @Override
     protected String buildApiUrl(String stockName, String range, String interval) {
-        return API_URL + stockName + ENDPOINT + "?range=" + range + "&interval=" + interval;
+        return getApiUrl() + stockName + ENDPOINT + "?range=" + range + "&interval=" + interval;
     }
 
+    /**
+     * Creates a fetcher configured from the environment. {@code FINANCEBIRD_API_URL} overrides the API URL,
+     * e.g. to point the fetcher at a local stub server.
+     */
     public FinanceBirdFetcher() {
+        this(dotenv.get("FINANCEBIRD_API_URL", API_URL), ApiKeyPool.fromDotenv(dotenv));
+        ResponseCache.fromDotenv(dotenv).ifPresent(this::setResponseCache);
+    }
+
+    /**
+     * Creates a fetcher sending requests to the given API URL with the keys in the given pool.
+     *
+     * @param apiUrl     the base URL of the API, ending with the quote path, e.g. {@code http://localhost:8080/quote/}
+     * @param apiKeyPool the API keys to use
+     */
+    public FinanceBirdFetcher(String apiUrl, ApiKeyPool apiKeyPool) {
         super(
                 API_KEY_HEADER,
                 API_HOST_HEADER,
-                dotenv.get("RAPID_API_KEY"),
+                apiKeyPool,
                 API_HOST,
-                API_URL
+                apiUrl
         );
     }
 }
@@ -1,5 +1,6 @@
 package com.joakimcolloz.stocker.datacollector.data.fetchers;
 
+import com.joakimcolloz.stocker.datacollector.data.cache.ResponseCache;
 import io.github.cdimascio.dotenv.Dotenv;
 
 /**
@@ -18,16 +19,31 @@ public class YahooFinanceFetcher extends BaseDataFetcher {
             "/v8/finance/chart/";
 
     protected String buildApiUrl(String stockName, String range, String interval) {
-        return YAHOO_API_URL + stockName + "?range=" + range + "&interval=" + interval;
+        return getApiUrl() + stockName + "?range=" + range + "&interval=" + interval;
     }
 
+    /**
+     * Creates a fetcher configured from the environment. {@code YAHOO_FINANCE_API_URL} overrides the API URL,
+     * e.g. to point the fetcher at a local stub server.
+     */
     public YahooFinanceFetcher() {
+        this(dotenv.get("YAHOO_FINANCE_API_URL", YAHOO_API_URL), ApiKeyPool.fromDotenv(dotenv));
+        ResponseCache.fromDotenv(dotenv).ifPresent(this::setResponseCache);
+    }
+
+    /**
+     * Creates a fetcher sending requests to the given API URL with the keys in the given pool.
+     *
+     * @param apiUrl     the base URL of the API, ending with the chart path, e.g. {@code http://localhost:8080/v8/finance/chart/}
+     * @param apiKeyPool the API keys to use
+     */
+    public YahooFinanceFetcher(String apiUrl, ApiKeyPool apiKeyPool) {
         super(
             YAHOO_API_KEY_HEADER,
             YAHOO_API_HOST_HEADER,
-            dotenv.get("RAPID_API_KEY"),
+            apiKeyPool,
             YAHOO_API_HOST,
-            YAHOO_API_URL
+            apiUrl
         );
     }
 }
@@ -4,20 +4,38 @@ import com.google.gson.JsonParseException;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
 import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Abstract base class for parsing JSON strings.
  * This class provides basic functionalities for traversing and handling JSON data.
  * Subclasses should implement the abstract methods to handle specific JSON token types.
+ * <p>
+ * Subclasses that declare the JSON paths they need through {@link #getJsonPathSchema()} are parsed path aware:
+ * everything outside the declared paths is skipped without being dispatched to the handle methods.
+ * </p>
+ * <p>
+ * JSON given as bytes is parsed by the {@link ChartByteParser} if the subclass supports it, falling back to the
+ * {@link JsonReader} if the bytes contain anything the byte parser does not expect.
+ * </p>
+ * <p>
+ * Parsers of the chart response can parse prices as fixed-point values instead of doubles, see
+ * {@link #setPriceScale(int)}.
+ * </p>
  *
  * @author Joakim Colloz
- * @version 1.0
+ * @version 1.5
  * @since 1.1
  */
 public abstract class BaseParser implements AutoCloseable {
@@ -27,6 +45,10 @@ public abstract class BaseParser implements AutoCloseable {
     protected JsonReader jsonReader;
     protected JsonToken jsonToken;
     protected TradingPeriod tradingPeriod;
+    private boolean pathAwareParsing = true;
+    private boolean byteParsing = true;
+    private ByteBuffer jsonBytes;
+    private final ChartColumns chartColumns = new ChartColumns();
 
     protected BaseParser() {
     }
@@ -42,6 +64,75 @@ public abstract class BaseParser implements AutoCloseable {
 
         logger.debug("Using JSON string of {} characters", jsonString.length());
         this.jsonReader = new JsonReader(new StringReader(jsonString));
+        this.jsonBytes = null;
+    }
+
+    /**
+     * Set the UTF-8 encoded json to parse. This method or {@link #setJsonString(String)} has to be called
+     * before parsing. The bytes between the position and the limit of the buffer are parsed without copying them.
+     * @param jsonBytes the UTF-8 encoded json to parse
+     */
+    public void setJsonBytes(ByteBuffer jsonBytes) {
+        if (jsonBytes == null || !jsonBytes.hasRemaining()) {
+            throw new IllegalArgumentException("JSON bytes cannot be null or empty");
+        }
+
+        logger.debug("Using JSON of {} bytes", jsonBytes.remaining());
+        this.jsonBytes = jsonBytes;
+        this.jsonReader = null;
+    }
+
+    /**
+     * Set the UTF-8 encoded json to parse.
+     * @param jsonBytes the UTF-8 encoded json to parse
+     */
+    public void setJsonBytes(byte[] jsonBytes) {
+        if (jsonBytes == null) {
+            throw new IllegalArgumentException("JSON bytes cannot be null or empty");
+        }
+        setJsonBytes(ByteBuffer.wrap(jsonBytes));
+    }
+
+    /**
+     * Reads the UTF-8 encoded json to parse from the stream. The stream is not closed.
+     * @param jsonStream the stream to read the json from
+     * @throws IOException if reading the stream fails
+     */
+    public void setJsonStream(InputStream jsonStream) throws IOException {
+        if (jsonStream == null) {
+            throw new IllegalArgumentException("JSON stream cannot be null");
+        }
+        setJsonBytes(jsonStream.readAllBytes());
+    }
+
+    /**
+     * Enables or disables parsing of JSON bytes with the {@link ChartByteParser}, enabled by default.
+     *
+     * @param byteParsing false to always parse with the {@link JsonReader}
+     */
+    public void setByteParsing(boolean byteParsing) {
+        this.byteParsing = byteParsing;
+    }
+
+    /**
+     * Sets whether prices are parsed as fixed-point values, exactly from their digits, or as doubles (the
+     * default). The trading period then holds a fixed-point {@link CandlestickSeries}. Kept on {@link #reset()}.
+     *
+     * @param priceScale the number of decimals of the prices, or {@link CandlestickSeries#FLOATING_POINT}
+     * @throws IllegalArgumentException if the scale is not supported
+     */
+    public void setPriceScale(int priceScale) {
+        chartColumns.setPriceScale(priceScale);
+    }
+
+    /**
+     * Enables or disables path aware parsing, enabled by default. When disabled, every token of the
+     * document is dispatched to the handle methods even if the parser declares a {@link JsonPathSchema}.
+     *
+     * @param pathAwareParsing true to skip everything outside the declared JSON paths
+     */
+    public void setPathAwareParsing(boolean pathAwareParsing) {
+        this.pathAwareParsing = pathAwareParsing;
     }
 
     /**
@@ -75,14 +166,28 @@ public abstract class BaseParser implements AutoCloseable {
      * @throws JsonParseException if parsing fails due to malformed JSON or I/O errors
      */
     public void parse() throws JsonParseException {
-        if (jsonReader == null) {
+        if (jsonReader == null && jsonBytes == null) {
             logger.error("Cannot parse before setting JSON string");
             throw new JsonParseException("Cannot parse before setting JSON string");
         }
 
         logger.info("Starting JSON parsing");
         try {
-            traverserJsonObject();
+            if (jsonBytes != null) {
+                if (byteParsing && supportsChartByteParsing() && parseChartBytes()) {
+                    finalizeParsingResult();
+                    logger.info("JSON parsing completed successfully");
+                    return;
+                }
+                jsonReader = createJsonReader(jsonBytes);
+            }
+
+            final JsonPathSchema jsonPathSchema = pathAwareParsing ? getJsonPathSchema() : null;
+            if (jsonPathSchema != null) {
+                traverseJsonValue(jsonPathSchema.root());
+            } else {
+                traverserJsonObject();
+            }
             finalizeParsingResult();
             logger.info("JSON parsing completed successfully");
         } catch (Exception e) {
@@ -91,6 +196,40 @@ public abstract class BaseParser implements AutoCloseable {
         }
     }
 
+    private boolean parseChartBytes() {
+        final ChartByteParser chartByteParser = new ChartByteParser(chartColumns);
+        if (!chartByteParser.parse(jsonBytes)) {
+            logger.info("JSON is not in the expected chart format, falling back to JsonReader");
+            chartColumns.clear();
+            return false;
+        }
+        handleChartColumns(chartByteParser.getSymbol(), chartByteParser.getInterval(), chartByteParser.getRange(), chartColumns);
+        return true;
+    }
+
+    private static JsonReader createJsonReader(ByteBuffer jsonBytes) {
+        final byte[] bytes = new byte[jsonBytes.remaining()];
+        jsonBytes.get(jsonBytes.position(), bytes);
+        return new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Resets the parser so it can parse the next JSON, keeping allocated buffers and the parsing options.
+     * The JsonReader is closed and the JSON, the key history and the parsed trading period are discarded.
+     * Subclasses holding parsed data must override this method, clear their data and call {@code super.reset()}.
+     */
+    public void reset() {
+        close();
+        jsonReader = null;
+        jsonBytes = null;
+        jsonToken = null;
+        currentKey = null;
+        previousKey = null;
+        tradingPeriod = null;
+        chartColumns.clear();
+        logger.debug("Parser reset");
+    }
+
     /**
      * Closes the JsonReader resource.
      */
@@ -106,6 +245,51 @@ public abstract class BaseParser implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns the JSON paths this parser needs. Everything outside them is skipped when parsing path aware.
+     * Names within the declared paths are recorded with {@link #updateJsonKeyHistory(String)} instead of being
+     * passed to {@link #handleNameToken()}.
+     *
+     * @return the JSON paths to parse, or null to traverse the whole document
+     */
+    protected JsonPathSchema getJsonPathSchema() {
+        return null;
+    }
+
+    /**
+     * Returns the columns the chart series are collected in. The byte level parser writes into them directly,
+     * and subclasses may use them for the series they read with the JsonReader. The columns are cleared on
+     * {@link #reset()}, keeping their capacity.
+     *
+     * @return the chart columns of this parser
+     */
+    protected ChartColumns getChartColumns() {
+        return chartColumns;
+    }
+
+    /**
+     * Returns true if the parser takes chart responses given as bytes from the {@link ChartByteParser}
+     * through {@link #handleChartColumns(String, String, String, ChartColumns)}.
+     *
+     * @return true if byte level parsing is supported, false by default
+     */
+    protected boolean supportsChartByteParsing() {
+        return false;
+    }
+
+    /**
+     * Handles the data parsed by the {@link ChartByteParser}, called instead of the handle methods
+     * when {@link #supportsChartByteParsing()} returns true.
+     *
+     * @param symbol   the symbol in the meta data, or null if absent
+     * @param interval the data granularity in the meta data, or null if absent
+     * @param range    the range in the meta data, or null if absent
+     * @param columns  the parsed series, the columns returned by {@link #getChartColumns()}
+     */
+    protected void handleChartColumns(String symbol, String interval, String range, ChartColumns columns) {
+        throw new UnsupportedOperationException("Byte level parsing is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Finalizes the parsing result by creating the target object from collected data.
      * This method is called after JSON traversal is complete.
@@ -255,6 +439,41 @@ public abstract class BaseParser implements AutoCloseable {
         }
     }
 
+    /**
+     * Traverses the next JSON value, skipping all object members that are not within the given schema node.
+     *
+     * @param node the schema node of the value
+     * @throws IOException if an I/O error occurs during JSON processing
+     */
+    private void traverseJsonValue(JsonPathSchema.Node node) throws IOException {
+        jsonToken = jsonReader.peek();
+        switch (jsonToken) {
+            case BEGIN_OBJECT -> {
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    final String name = jsonReader.nextName();
+                    final JsonPathSchema.Node child = node.child(name);
+                    if (child == null) {
+                        logger.trace("Skipping value at key: {}", name);
+                        jsonReader.skipValue();
+                    } else {
+                        updateJsonKeyHistory(name);
+                        traverseJsonValue(child);
+                    }
+                }
+                jsonReader.endObject();
+            }
+            case BEGIN_ARRAY -> {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    traverseJsonValue(node);
+                }
+                jsonReader.endArray();
+            }
+            default -> processValueToken();
+        }
+    }
+
     /**
      * Handles non-array JSON tokens such as strings, numbers, booleans, and nulls.
      *
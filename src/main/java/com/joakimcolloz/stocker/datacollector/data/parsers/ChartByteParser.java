@@ -0,0 +1,665 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.CHART;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.CLOSE;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.DATA_GRANULARITY;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.HIGH;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.INDICATORS;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.LOW;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.META;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.OPEN;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.QUOTE;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.RANGE;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.RESULT;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.SYMBOL;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.TIMESTAMP;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.VOLUME;
+
+/**
+ * Specialised parser for the chart response schema shared by FinanceBird and Yahoo Finance, working directly on
+ * the UTF-8 bytes of the response.
+ * <p>
+ * Keys are recognised by comparing their bytes with the keys in {@code JsonConstants}, so no strings are created
+ * for them, and the series in {@code chart.result.timestamp} and {@code chart.result.indicators.quote} are parsed
+ * straight into {@link ChartColumns}. Everything else is skipped. Only {@code meta.symbol},
+ * {@code meta.dataGranularity} and {@code meta.range} are decoded to strings. A null in a series is added
+ * as a gap, keeping the columns index aligned. Prices are read as fixed-point values from their digits when
+ * the columns have a price scale.
+ * </p>
+ * <p>
+ * The parser only accepts what it expects: escaped keys, fractions in the timestamps or volumes, non-ASCII
+ * strings or malformed JSON make {@link #parse(ByteBuffer)} return false, and the caller should fall back to
+ * a general JSON parser.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.2
+ * @see BaseParser#setJsonBytes(ByteBuffer)
+ */
+public final class ChartByteParser {
+    private static final Logger logger = LoggerFactory.getLogger(ChartByteParser.class);
+    private static final int MAX_DEPTH = 64;
+    // Largest mantissa that is exactly representable as a double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    // Largest value that can be multiplied by ten and have a digit added without overflowing a long
+    private static final long MAX_SCALED_PREFIX = (Long.MAX_VALUE - 9) / 10;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The positions in the schema that the parser cares about.
+     */
+    private enum Path {
+        ROOT, CHART, RESULT, META, SYMBOL, DATA_GRANULARITY, RANGE, TIMESTAMP, INDICATORS, QUOTE,
+        OPEN, HIGH, LOW, CLOSE, VOLUME
+    }
+
+    private static final byte[] CHART_KEY = bytes(CHART);
+    private static final byte[] RESULT_KEY = bytes(RESULT);
+    private static final byte[] META_KEY = bytes(META);
+    private static final byte[] SYMBOL_KEY = bytes(SYMBOL);
+    private static final byte[] DATA_GRANULARITY_KEY = bytes(DATA_GRANULARITY);
+    private static final byte[] RANGE_KEY = bytes(RANGE);
+    private static final byte[] TIMESTAMP_KEY = bytes(TIMESTAMP);
+    private static final byte[] INDICATORS_KEY = bytes(INDICATORS);
+    private static final byte[] QUOTE_KEY = bytes(QUOTE);
+    private static final byte[] OPEN_KEY = bytes(OPEN);
+    private static final byte[] HIGH_KEY = bytes(HIGH);
+    private static final byte[] LOW_KEY = bytes(LOW);
+    private static final byte[] CLOSE_KEY = bytes(CLOSE);
+    private static final byte[] VOLUME_KEY = bytes(VOLUME);
+    private static final byte[] NULL = bytes("null");
+
+    private final ChartColumns columns;
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private String symbol;
+    private String interval;
+    private String range;
+
+    /**
+     * Creates a parser writing the series into the given columns.
+     *
+     * @param columns the columns to append the parsed series to
+     */
+    public ChartByteParser(ChartColumns columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Parses the remaining bytes of the buffer without changing its position.
+     *
+     * @param json the UTF-8 encoded chart response
+     * @return true if the response was parsed, false if it contained anything unexpected; the columns and
+     * meta data are then incomplete and should be discarded
+     */
+    public boolean parse(ByteBuffer json) {
+        buffer = json;
+        position = json.position();
+        limit = json.limit();
+        symbol = null;
+        interval = null;
+        range = null;
+
+        try {
+            parseValue(Path.ROOT, 0);
+            skipWhitespace();
+            if (position != limit) {
+                throw unexpected("trailing data");
+            }
+            return true;
+        } catch (UnexpectedJsonException e) {
+            logger.debug("Byte level parsing stopped at offset {}: {}", position, e.getMessage());
+            return false;
+        } finally {
+            buffer = null;
+        }
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getInterval() {
+        return interval;
+    }
+
+    public String getRange() {
+        return range;
+    }
+
+    private void parseValue(Path path, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw unexpected("nesting too deep");
+        }
+        skipWhitespace();
+        switch (peek()) {
+            case '{' -> parseObject(path, depth);
+            case '[' -> parseArray(path, depth);
+            case '"' -> {
+                if (path == Path.SYMBOL || path == Path.DATA_GRANULARITY || path == Path.RANGE) {
+                    setMeta(path, readAsciiString());
+                } else {
+                    skipString();
+                }
+            }
+            default -> {
+                if (isSeries(path)) {
+                    throw unexpected("series value outside array");
+                }
+                skipLiteral();
+            }
+        }
+    }
+
+    private void parseObject(Path path, int depth) {
+        position++; // {
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw unexpected("expected key");
+            }
+            final int keyStart = ++position;
+            while (peek() != '"') {
+                if (peek() == '\\') {
+                    throw unexpected("escaped key");
+                }
+                position++;
+            }
+            final int keyEnd = position++;
+            skipWhitespace();
+            expect(':');
+
+            final Path child = child(path, keyStart, keyEnd);
+            if (child == null) {
+                skipWhitespace();
+                skipValue(depth + 1);
+            } else {
+                parseValue(child, depth + 1);
+            }
+
+            skipWhitespace();
+            final byte next = next();
+            if (next == '}') {
+                return;
+            }
+            if (next != ',') {
+                throw unexpected("expected , or }");
+            }
+        }
+    }
+
+    private void parseArray(Path path, int depth) {
+        if (isSeries(path)) {
+            parseSeries(path);
+            return;
+        }
+        position++; // [
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+        while (true) {
+            parseValue(path, depth + 1);
+            skipWhitespace();
+            final byte next = next();
+            if (next == ']') {
+                return;
+            }
+            if (next != ',') {
+                throw unexpected("expected , or ]");
+            }
+        }
+    }
+
+    /**
+     * Parses an array of numbers straight into the column of the given path.
+     */
+    private void parseSeries(Path path) {
+        position++; // [
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() == 'n') {
+                addGap(path);
+            } else {
+                addValue(path);
+            }
+            skipWhitespace();
+            final byte next = next();
+            if (next == ']') {
+                return;
+            }
+            if (next != ',') {
+                throw unexpected("expected , or ]");
+            }
+        }
+    }
+
+    private void addValue(Path path) {
+        switch (path) {
+            case TIMESTAMP -> columns.timestamps().add(readLong());
+            case VOLUME -> columns.volumes().add(readLong());
+            case OPEN -> addPrice(columns.opens(), columns.scaledOpens());
+            case HIGH -> addPrice(columns.highs(), columns.scaledHighs());
+            case LOW -> addPrice(columns.lows(), columns.scaledLows());
+            case CLOSE -> addPrice(columns.closes(), columns.scaledCloses());
+            default -> throw unexpected("not a series: " + path);
+        }
+    }
+
+    private void addPrice(ChartColumns.DoubleColumn column, ChartColumns.LongColumn scaledColumn) {
+        if (columns.isFixedPoint()) {
+            scaledColumn.add(readScaledPrice(columns.getPriceScale()));
+        } else {
+            column.add(readDouble());
+        }
+    }
+
+    private void addGap(Path path) {
+        for (int i = 0; i < NULL.length; i++) {
+            if (next() != NULL[i]) {
+                throw unexpected("expected null");
+            }
+        }
+        switch (path) {
+            case TIMESTAMP -> columns.addGap(columns.timestamps());
+            case VOLUME -> columns.addGap(columns.volumes());
+            case OPEN -> addPriceGap(columns.opens(), columns.scaledOpens());
+            case HIGH -> addPriceGap(columns.highs(), columns.scaledHighs());
+            case LOW -> addPriceGap(columns.lows(), columns.scaledLows());
+            case CLOSE -> addPriceGap(columns.closes(), columns.scaledCloses());
+            default -> throw unexpected("not a series: " + path);
+        }
+    }
+
+    private void addPriceGap(ChartColumns.DoubleColumn column, ChartColumns.LongColumn scaledColumn) {
+        if (columns.isFixedPoint()) {
+            columns.addGap(scaledColumn);
+        } else {
+            columns.addGap(column);
+        }
+    }
+
+    private Path child(Path path, int keyStart, int keyEnd) {
+        return switch (path) {
+            case ROOT -> keyEquals(CHART_KEY, keyStart, keyEnd) ? Path.CHART : null;
+            case CHART -> keyEquals(RESULT_KEY, keyStart, keyEnd) ? Path.RESULT : null;
+            case RESULT -> {
+                if (keyEquals(META_KEY, keyStart, keyEnd)) {
+                    yield Path.META;
+                } else if (keyEquals(TIMESTAMP_KEY, keyStart, keyEnd)) {
+                    yield Path.TIMESTAMP;
+                } else if (keyEquals(INDICATORS_KEY, keyStart, keyEnd)) {
+                    yield Path.INDICATORS;
+                }
+                yield null;
+            }
+            case META -> {
+                if (keyEquals(SYMBOL_KEY, keyStart, keyEnd)) {
+                    yield Path.SYMBOL;
+                } else if (keyEquals(DATA_GRANULARITY_KEY, keyStart, keyEnd)) {
+                    yield Path.DATA_GRANULARITY;
+                } else if (keyEquals(RANGE_KEY, keyStart, keyEnd)) {
+                    yield Path.RANGE;
+                }
+                yield null;
+            }
+            case INDICATORS -> keyEquals(QUOTE_KEY, keyStart, keyEnd) ? Path.QUOTE : null;
+            case QUOTE -> {
+                if (keyEquals(OPEN_KEY, keyStart, keyEnd)) {
+                    yield Path.OPEN;
+                } else if (keyEquals(HIGH_KEY, keyStart, keyEnd)) {
+                    yield Path.HIGH;
+                } else if (keyEquals(LOW_KEY, keyStart, keyEnd)) {
+                    yield Path.LOW;
+                } else if (keyEquals(CLOSE_KEY, keyStart, keyEnd)) {
+                    yield Path.CLOSE;
+                } else if (keyEquals(VOLUME_KEY, keyStart, keyEnd)) {
+                    yield Path.VOLUME;
+                }
+                yield null;
+            }
+            default -> null;
+        };
+    }
+
+    private boolean keyEquals(byte[] key, int keyStart, int keyEnd) {
+        if (keyEnd - keyStart != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSeries(Path path) {
+        return path == Path.TIMESTAMP || path == Path.OPEN || path == Path.HIGH || path == Path.LOW
+                || path == Path.CLOSE || path == Path.VOLUME;
+    }
+
+    private void setMeta(Path path, String value) {
+        switch (path) {
+            case SYMBOL -> symbol = value;
+            case DATA_GRANULARITY -> interval = value;
+            case RANGE -> range = value;
+            default -> throw unexpected("not a meta field: " + path);
+        }
+    }
+
+    private long readLong() {
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        final int start = position;
+        long value = 0;
+        while (position < limit && isDigit(buffer.get(position))) {
+            if (position - start >= 18) {
+                throw unexpected("integer too long");
+            }
+            value = value * 10 + (buffer.get(position++) - '0');
+        }
+        if (position == start) {
+            throw unexpected("expected integer");
+        }
+        if (position < limit && (buffer.get(position) == '.' || buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            throw unexpected("expected integer");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a number as the mantissa and the count of decimals, which is exact for up to 15 significant digits.
+     * Anything else, e.g. exponents, is left to {@link Double#parseDouble(String)}.
+     */
+    private double readDouble() {
+        final int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean fraction = false;
+        while (position < limit) {
+            final byte b = buffer.get(position);
+            if (isDigit(b)) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (++digits > 18) {
+                    return readDoubleSlow(start);
+                }
+                if (fraction) {
+                    decimals++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E' || b == '+') {
+                return readDoubleSlow(start);
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            throw unexpected("expected number");
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA || decimals >= POWERS_OF_TEN.length) {
+            return readDoubleSlow(start);
+        }
+        final double value = mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a number as a fixed-point value from its digits, rounding half to even past the scale, without
+     * going through a double. Exponents and values too large for a long are left to {@link FixedPoint#parse}.
+     */
+    private long readScaledPrice(int scale) {
+        final int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimals = 0;
+        int dropped = 0;
+        int roundingDigit = 0;
+        boolean sticky = false;
+        boolean fraction = false;
+        while (position < limit) {
+            final byte b = buffer.get(position);
+            if (isDigit(b)) {
+                digits++;
+                if (fraction && decimals == scale) {
+                    // Past the scale, only the first dropped digit and whether any later one is non-zero matter
+                    if (dropped++ == 0) {
+                        roundingDigit = b - '0';
+                    } else {
+                        sticky |= b != '0';
+                    }
+                } else {
+                    if (value > MAX_SCALED_PREFIX) {
+                        return readScaledPriceSlow(start, scale);
+                    }
+                    value = value * 10 + (b - '0');
+                    if (fraction) {
+                        decimals++;
+                    }
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E' || b == '+') {
+                return readScaledPriceSlow(start, scale);
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            throw unexpected("expected number");
+        }
+        for (; decimals < scale; decimals++) {
+            if (value > MAX_SCALED_PREFIX) {
+                return readScaledPriceSlow(start, scale);
+            }
+            value *= 10;
+        }
+        value = FixedPoint.roundHalfEven(value, roundingDigit, sticky);
+        return negative ? -value : value;
+    }
+
+    private long readScaledPriceSlow(int start, int scale) {
+        position = start;
+        while (position < limit && isNumberByte(buffer.get(position))) {
+            position++;
+        }
+        try {
+            return FixedPoint.parse(ascii(start, position), scale);
+        } catch (NumberFormatException e) {
+            throw unexpected("invalid number");
+        }
+    }
+
+    private double readDoubleSlow(int start) {
+        position = start;
+        while (position < limit && isNumberByte(buffer.get(position))) {
+            position++;
+        }
+        try {
+            return Double.parseDouble(ascii(start, position));
+        } catch (NumberFormatException e) {
+            throw unexpected("invalid number");
+        }
+    }
+
+    private String readAsciiString() {
+        final int start = ++position;
+        while (peek() != '"') {
+            final byte b = buffer.get(position);
+            if (b == '\\' || b < 0x20) {
+                throw unexpected("escaped or non-ASCII string");
+            }
+            position++;
+        }
+        return ascii(start, position++);
+    }
+
+    private String ascii(int start, int end) {
+        final byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void skipValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw unexpected("nesting too deep");
+        }
+        switch (peek()) {
+            case '{', '[' -> {
+                final byte close = peek() == '{' ? (byte) '}' : (byte) ']';
+                final boolean object = close == '}';
+                position++;
+                skipWhitespace();
+                if (peek() == close) {
+                    position++;
+                    return;
+                }
+                while (true) {
+                    skipWhitespace();
+                    if (object) {
+                        skipString();
+                        skipWhitespace();
+                        expect(':');
+                        skipWhitespace();
+                    }
+                    skipValue(depth + 1);
+                    skipWhitespace();
+                    final byte next = next();
+                    if (next == close) {
+                        return;
+                    }
+                    if (next != ',') {
+                        throw unexpected("expected , or " + (char) close);
+                    }
+                }
+            }
+            case '"' -> skipString();
+            default -> skipLiteral();
+        }
+    }
+
+    private void skipString() {
+        if (next() != '"') {
+            throw unexpected("expected string");
+        }
+        while (true) {
+            final byte b = next();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Skips a number, true, false or null.
+     */
+    private void skipLiteral() {
+        final int start = position;
+        while (position < limit) {
+            final byte b = buffer.get(position);
+            if (isNumberByte(b) || (b >= 'a' && b <= 'z')) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw unexpected("expected value");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            final byte b = buffer.get(position);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw unexpected("expected " + expected);
+        }
+    }
+
+    private byte peek() {
+        if (position >= limit) {
+            throw unexpected("unexpected end of data");
+        }
+        return buffer.get(position);
+    }
+
+    private byte next() {
+        final byte b = peek();
+        position++;
+        return b;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return isDigit(b) || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static UnexpectedJsonException unexpected(String reason) {
+        return new UnexpectedJsonException(reason);
+    }
+
+    /**
+     * Thrown internally when the input does not look like the expected chart response.
+     */
+    private static final class UnexpectedJsonException extends RuntimeException {
+        private UnexpectedJsonException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Growable primitive columns for the series of a chart response: timestamps, open, high, low, close and volume.
+ * Values are appended without boxing and the columns can be cleared and reused for the next response.
+ * <p>
+ * A null in a series is added as a gap with {@link #addGap(LongColumn)} or {@link #addGap(DoubleColumn)}, which
+ * keeps the columns index aligned. Rows with a gap in any column can be skipped with {@link #isGap(int)}.
+ * </p>
+ * <p>
+ * With a price scale set by {@link #setPriceScale(int)}, the prices are added as {@link FixedPoint} values to
+ * {@link #scaledOpens()} etc. instead of to the double columns.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.2
+ */
+public final class ChartColumns {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final LongColumn timestamps = new LongColumn();
+    private final DoubleColumn opens = new DoubleColumn();
+    private final DoubleColumn highs = new DoubleColumn();
+    private final DoubleColumn lows = new DoubleColumn();
+    private final DoubleColumn closes = new DoubleColumn();
+    private final LongColumn volumes = new LongColumn();
+    private final LongColumn scaledOpens = new LongColumn();
+    private final LongColumn scaledHighs = new LongColumn();
+    private final LongColumn scaledLows = new LongColumn();
+    private final LongColumn scaledCloses = new LongColumn();
+    private final BitSet gaps = new BitSet();
+    private int priceScale = CandlestickSeries.FLOATING_POINT;
+
+    /**
+     * Sets how prices are added, kept when the columns are cleared.
+     *
+     * @param priceScale the number of decimals of fixed-point prices, or {@link CandlestickSeries#FLOATING_POINT}
+     *                   to add prices as doubles
+     * @throws IllegalArgumentException if the scale is not supported
+     */
+    public void setPriceScale(int priceScale) {
+        if (priceScale != CandlestickSeries.FLOATING_POINT) {
+            FixedPoint.checkScale(priceScale);
+        }
+        this.priceScale = priceScale;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    /**
+     * @return true if prices are added as fixed-point values
+     */
+    public boolean isFixedPoint() {
+        return priceScale != CandlestickSeries.FLOATING_POINT;
+    }
+
+    public LongColumn timestamps() {
+        return timestamps;
+    }
+
+    public DoubleColumn opens() {
+        return opens;
+    }
+
+    public DoubleColumn highs() {
+        return highs;
+    }
+
+    public DoubleColumn lows() {
+        return lows;
+    }
+
+    public DoubleColumn closes() {
+        return closes;
+    }
+
+    public LongColumn volumes() {
+        return volumes;
+    }
+
+    public LongColumn scaledOpens() {
+        return scaledOpens;
+    }
+
+    public LongColumn scaledHighs() {
+        return scaledHighs;
+    }
+
+    public LongColumn scaledLows() {
+        return scaledLows;
+    }
+
+    public LongColumn scaledCloses() {
+        return scaledCloses;
+    }
+
+    /**
+     * @return the number of opening prices added, to the fixed-point column if fixed point
+     */
+    public int openCount() {
+        return isFixedPoint() ? scaledOpens.size() : opens.size();
+    }
+
+    /**
+     * @return the number of highest prices added, to the fixed-point column if fixed point
+     */
+    public int highCount() {
+        return isFixedPoint() ? scaledHighs.size() : highs.size();
+    }
+
+    /**
+     * @return the number of lowest prices added, to the fixed-point column if fixed point
+     */
+    public int lowCount() {
+        return isFixedPoint() ? scaledLows.size() : lows.size();
+    }
+
+    /**
+     * @return the number of closing prices added, to the fixed-point column if fixed point
+     */
+    public int closeCount() {
+        return isFixedPoint() ? scaledCloses.size() : closes.size();
+    }
+
+    /**
+     * Adds a missing value to the column, marking its row as a gap.
+     *
+     * @param column the column of this instance the value is missing in
+     */
+    public void addGap(LongColumn column) {
+        gaps.set(column.size());
+        column.add(0);
+    }
+
+    /**
+     * Adds a missing value to the column, marking its row as a gap.
+     *
+     * @param column the column of this instance the value is missing in
+     */
+    public void addGap(DoubleColumn column) {
+        gaps.set(column.size());
+        column.add(Double.NaN);
+    }
+
+    /**
+     * @param row the row index
+     * @return true if a value of the row is missing in any column
+     */
+    public boolean isGap(int row) {
+        return gaps.get(row);
+    }
+
+    /**
+     * @return the number of rows with a missing value
+     */
+    public int gapCount() {
+        return gaps.cardinality();
+    }
+
+    /**
+     * Empties all columns, keeping their capacity.
+     */
+    public void clear() {
+        gaps.clear();
+        timestamps.clear();
+        opens.clear();
+        highs.clear();
+        lows.clear();
+        closes.clear();
+        volumes.clear();
+        scaledOpens.clear();
+        scaledHighs.clear();
+        scaledLows.clear();
+        scaledCloses.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ChartColumns{timestamps=" + timestamps.size() + ", opens=" + openCount() + ", highs=" + highCount() +
+                ", lows=" + lowCount() + ", closes=" + closeCount() + ", volumes=" + volumes.size() + ", gaps=" + gaps.cardinality() +
+                ", priceScale=" + priceScale + "}";
+    }
+
+    /**
+     * Growable column of long values.
+     */
+    public static final class LongColumn {
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public long get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * @return a copy of the values
+         */
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable column of double values.
+     */
+    public static final class DoubleColumn {
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size;
+
+        public void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public double get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * @return a copy of the values
+         */
+        public double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
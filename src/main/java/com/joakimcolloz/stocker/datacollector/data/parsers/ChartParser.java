@@ -0,0 +1,405 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.google.gson.JsonParseException;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.CHART;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.RESULT;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.META;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.QUOTE;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.TIMESTAMP;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.OPEN;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.CLOSE;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.LOW;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.HIGH;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.VOLUME;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.DATA_GRANULARITY;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.SYMBOL;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.INDICATORS;
+import static com.joakimcolloz.stocker.datacollector.data.fetchers.JsonConstants.RANGE;
+
+/**
+ * Abstract base class for parsers of chart responses: the meta data and the candlestick series of one symbol.
+ * Holds what the chart parsers of the different providers share, the subclasses add the provider specific parts.
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ * @since 1.2
+ */
+public abstract class ChartParser extends BaseParser {
+    private static final Logger logger = LoggerFactory.getLogger(ChartParser.class);
+    private static final JsonPathSchema JSON_PATH_SCHEMA = JsonPathSchema.of(
+            String.join(".", CHART, RESULT, META, SYMBOL),
+            String.join(".", CHART, RESULT, META, DATA_GRANULARITY),
+            String.join(".", CHART, RESULT, META, RANGE),
+            String.join(".", CHART, RESULT, TIMESTAMP),
+            String.join(".", CHART, RESULT, INDICATORS, QUOTE));
+    private final DecimalFormat decimalFormat = new DecimalFormat("#.##");
+
+    private final ChartColumns columns;
+    private String symbol;
+    private String interval;
+    private String range;
+
+    protected ChartParser() {
+        this.columns = getChartColumns();
+        this.symbol = null;
+        this.interval = null;
+        this.range = null;
+    }
+
+    /**
+     * Returns the name of the provider response, for the messages of parse errors.
+     *
+     * @return the name of the response, e.g. "Yahoo Finance response"
+     */
+    protected abstract String getResponseName();
+
+    @Override
+    protected JsonPathSchema getJsonPathSchema() {
+        return JSON_PATH_SCHEMA;
+    }
+
+    @Override
+    protected boolean supportsChartByteParsing() {
+        return true;
+    }
+
+    @Override
+    protected void handleChartColumns(String symbol, String interval, String range, ChartColumns columns) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.range = range;
+        logger.debug("Took {} timestamps from byte level parsing", columns.timestamps().size());
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        symbol = null;
+        interval = null;
+        range = null;
+        logger.trace("Chart meta data reset");
+    }
+
+    @Override
+    protected void finalizeParsingResult() {
+        logger.info("Initializing trading period from parsed data");
+
+        // Validate that we have consistent data
+        validateParsedData();
+
+        logger.debug("Creating trading period with {} candlesticks", columns.timestamps().size());
+        tradingPeriod = createTradingPeriod();
+
+        logger.info("Successfully created trading period for symbol '{}' with {} candlesticks, interval: {}, range: {}",
+                symbol, tradingPeriod.candlesticks().size(), interval, range);
+    }
+
+    /**
+     * Validates that the parsed data is consistent and complete.
+     *
+     * @throws JsonParseException if data validation fails
+     */
+    private void validateParsedData() {
+        int expectedSize = columns.timestamps().size();
+
+        if (expectedSize == 0) {
+            logger.error("No timestamp data found in JSON");
+            throw new JsonParseException("No candlestick data found in " + getResponseName());
+        }
+
+        // Check that all lists have the same size
+        if (columns.openCount() != expectedSize || columns.closeCount() != expectedSize ||
+                columns.lowCount() != expectedSize || columns.highCount() != expectedSize ||
+                columns.volumes().size() != expectedSize) {
+
+            logger.error("Inconsistent data sizes - timestamps: {}, open: {}, close: {}, low: {}, high: {}, volume: {}",
+                    columns.timestamps().size(), columns.openCount(), columns.closeCount(),
+                    columns.lowCount(), columns.highCount(), columns.volumes().size());
+            throw new JsonParseException("Inconsistent data arrays in " + getResponseName());
+        }
+
+        logger.debug("Data validation passed - all arrays have {} elements", expectedSize);
+    }
+
+    /**
+     * Creates a TradingPeriod backed by a {@link CandlestickSeries} from the parsed columns.
+     * Rows with a null in any series, e.g. a halted trading day, are dropped.
+     * Prices are processed with {@link #processPrice(double)} here, for both the JsonReader and the byte level path.
+     * Fixed-point prices were already rounded to their scale while parsed and are used as they are.
+     *
+     * @return the created TradingPeriod
+     * @throws JsonParseException if the series cannot be created
+     */
+    private TradingPeriod createTradingPeriod() {
+        try {
+            final int gapCount = columns.gapCount();
+            if (gapCount > 0) {
+                logger.warn("Dropping {} candlesticks with missing values for symbol '{}'", gapCount, symbol);
+            }
+
+            final int size = columns.timestamps().size() - gapCount;
+            if (columns.isFixedPoint()) {
+                return TradingPeriod.of(createFixedPointSeries(size), range, interval);
+            }
+            final long[] timestamps = new long[size];
+            final double[] opens = new double[size];
+            final double[] highs = new double[size];
+            final double[] lows = new double[size];
+            final double[] closes = new double[size];
+            final long[] volumes = new long[size];
+            int row = 0;
+            for (int i = 0; i < columns.timestamps().size(); i++) {
+                if (columns.isGap(i)) {
+                    continue;
+                }
+                timestamps[row] = columns.timestamps().get(i);
+                opens[row] = processPrice(columns.opens().get(i));
+                highs[row] = processPrice(columns.highs().get(i));
+                lows[row] = processPrice(columns.lows().get(i));
+                closes[row] = processPrice(columns.closes().get(i));
+                volumes[row] = columns.volumes().get(i);
+                row++;
+            }
+
+            final CandlestickSeries series = new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+            return TradingPeriod.of(series, range, interval);
+
+        } catch (Exception e) {
+            logger.error("Failed to create trading period: {}", e.getMessage(), e);
+            throw new JsonParseException("Failed to create trading period from parsed data", e);
+        }
+    }
+
+    /**
+     * Creates a fixed-point series from the scaled price columns, dropping the rows with a gap.
+     *
+     * @param size the number of rows without a gap
+     * @return the created series
+     */
+    private CandlestickSeries createFixedPointSeries(int size) {
+        final long[] timestamps = new long[size];
+        final long[] opens = new long[size];
+        final long[] highs = new long[size];
+        final long[] lows = new long[size];
+        final long[] closes = new long[size];
+        final long[] volumes = new long[size];
+        int row = 0;
+        for (int i = 0; i < columns.timestamps().size(); i++) {
+            if (columns.isGap(i)) {
+                continue;
+            }
+            timestamps[row] = columns.timestamps().get(i);
+            opens[row] = columns.scaledOpens().get(i);
+            highs[row] = columns.scaledHighs().get(i);
+            lows[row] = columns.scaledLows().get(i);
+            closes[row] = columns.scaledCloses().get(i);
+            volumes[row] = columns.volumes().get(i);
+            row++;
+        }
+        return CandlestickSeries.ofFixedPoint(columns.getPriceScale(), timestamps, opens, highs, lows, closes, volumes);
+    }
+
+    @Override
+    protected void handleNumberToken() throws IOException {
+        try {
+            switch (currentKey) {
+                case TIMESTAMP -> {
+                    long timestamp = jsonReader.nextLong();
+                    columns.timestamps().add(timestamp);
+                    logger.trace("Added timestamp: {}", timestamp);
+                }
+                case OPEN -> addPrice(columns.opens(), columns.scaledOpens(), "open");
+                case CLOSE -> addPrice(columns.closes(), columns.scaledCloses(), "close");
+                case LOW -> addPrice(columns.lows(), columns.scaledLows(), "low");
+                case HIGH -> addPrice(columns.highs(), columns.scaledHighs(), "high");
+                case VOLUME -> {
+                    long volume = jsonReader.nextLong();
+                    columns.volumes().add(volume);
+                    logger.trace("Added volume: {}", volume);
+                }
+                default -> {
+                    String value = jsonReader.nextString();
+                    logger.debug("Unhandled number token at key '{}' with value: {}", currentKey, value);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading number token at key '{}': {}", currentKey, e.getMessage(), e);
+            throw new IOException("Failed to read number token at key: " + currentKey, e);
+        } catch (Exception e) {
+            logger.error("Error processing number token at key '{}': {}", currentKey, e.getMessage(), e);
+            throw new JsonParseException("Failed to process number token at key: " + currentKey, e);
+        }
+    }
+
+    /**
+     * Adds the price at the current number token to the double column, or to the scaled column when prices are
+     * parsed as fixed-point values.
+     *
+     * @param column       the column of double prices
+     * @param scaledColumn the column of fixed-point prices
+     * @param name         the name of the price, for logging
+     * @throws IOException if reading the number token fails
+     */
+    private void addPrice(ChartColumns.DoubleColumn column, ChartColumns.LongColumn scaledColumn, String name)
+            throws IOException {
+        if (columns.isFixedPoint()) {
+            // The literal digits of the number, so the price never goes through a double
+            long price = FixedPoint.parse(jsonReader.nextString(), columns.getPriceScale());
+            scaledColumn.add(price);
+            logger.trace("Added {} price: {} with scale {}", name, price, columns.getPriceScale());
+        } else {
+            double price = jsonReader.nextDouble();
+            column.add(price);
+            logger.trace("Added {} price: {}", name, price);
+        }
+    }
+
+    /**
+     * Processes a price value, applying decimal formatting if needed.
+     *
+     * @param price the raw price value
+     * @return the processed price value
+     */
+    private double processPrice(double price) {
+        try {
+            // Apply decimal formatting to handle locale-specific decimal separators
+            return Double.parseDouble(decimalFormat.format(price));
+        } catch (NumberFormatException e) {
+            logger.warn("Failed to format price {}, using original value: {}", price, e.getMessage());
+            return price;
+        }
+    }
+
+    @Override
+    protected void handleStringToken() throws IOException {
+        try {
+            final String currentString = jsonReader.nextString();
+            logger.trace("Processing string token: '{}' at key: '{}'", currentString, currentKey);
+
+            switch (currentKey) {
+                case DATA_GRANULARITY -> {
+                    interval = currentString;
+                    logger.debug("Set interval to: {}", interval);
+                }
+                case RANGE -> {
+                    range = currentString;
+                    logger.debug("Set range to: {}", range);
+                }
+                case SYMBOL -> {
+                    symbol = currentString;
+                    logger.debug("Set symbol to: {}", symbol);
+                }
+                default -> {
+                    logger.trace("Unhandled string token at key '{}': {}", currentKey, currentString);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading string token at key '{}': {}", currentKey, e.getMessage(), e);
+            throw new IOException("Failed to read string token at key: " + currentKey, e);
+        }
+    }
+
+    @Override
+    protected void handleBooleanToken() throws IOException {
+        try {
+            final boolean currentBoolean = jsonReader.nextBoolean();
+            logger.trace("Processing boolean token: {} at key: {}", currentBoolean, currentKey);
+        } catch (IOException e) {
+            logger.error("Error reading boolean token at key '{}': {}", currentKey, e.getMessage(), e);
+            throw new IOException("Failed to read boolean token at key: " + currentKey, e);
+        }
+    }
+
+    @Override
+    protected void handleNameToken() throws IOException {
+        try {
+            final String currentName = jsonReader.nextName();
+            updateJsonKeyHistory(currentName);
+            logger.trace("Processing name token: {}", currentName);
+
+            switch (currentName) {
+                case INDICATORS -> {
+                    logger.debug("Entering indicators section");
+                }
+                case SYMBOL -> {
+                    logger.debug("Found symbol field");
+                    // Don't set symbol here - it gets set in handleStringToken
+                }
+                default -> {
+                    logger.trace("Processing field: {}", currentName);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading name token: {}", e.getMessage(), e);
+            throw new IOException("Failed to read name token", e);
+        }
+    }
+
+    @Override
+    protected void handleNullToken() throws IOException {
+        try {
+            jsonReader.nextNull();
+            logger.trace("Processing null token at key: {}", currentKey);
+
+            // A null in a series is a gap, keeping the columns aligned so the row can be dropped
+            switch (currentKey == null ? "" : currentKey) {
+                case TIMESTAMP -> columns.addGap(columns.timestamps());
+                case OPEN -> addPriceGap(columns.opens(), columns.scaledOpens());
+                case CLOSE -> addPriceGap(columns.closes(), columns.scaledCloses());
+                case LOW -> addPriceGap(columns.lows(), columns.scaledLows());
+                case HIGH -> addPriceGap(columns.highs(), columns.scaledHighs());
+                case VOLUME -> columns.addGap(columns.volumes());
+                default -> {
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading null token at key '{}': {}", currentKey, e.getMessage(), e);
+            throw new IOException("Failed to read null token at key: " + currentKey, e);
+        }
+    }
+
+    private void addPriceGap(ChartColumns.DoubleColumn column, ChartColumns.LongColumn scaledColumn) {
+        if (columns.isFixedPoint()) {
+            columns.addGap(scaledColumn);
+        } else {
+            columns.addGap(column);
+        }
+    }
+
+    /**
+     * Returns the parsed symbol.
+     *
+     * @return the symbol, or null if not found in JSON
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the parsed interval.
+     *
+     * @return the interval, or null if not found in JSON
+     */
+    public String getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the parsed range.
+     *
+     * @return the range, or null if not found in JSON
+     */
+    public String getRange() {
+        return range;
+    }
+}
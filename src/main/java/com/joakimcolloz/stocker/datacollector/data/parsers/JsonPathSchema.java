@@ -0,0 +1,71 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JSON paths a parser needs, stored as a trie of object keys.
+ * <p>
+ * Paths are written as dot separated keys, e.g. {@code chart.result.meta.symbol}. Arrays are transparent:
+ * the elements of an array have the same path as the array itself. A declared path includes everything
+ * below it, so declaring {@code chart.result.indicators.quote} includes all quote arrays.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ * @see BaseParser#getJsonPathSchema()
+ */
+public final class JsonPathSchema {
+    private final Node root = new Node();
+
+    private JsonPathSchema() {
+    }
+
+    /**
+     * Creates a schema including the given paths.
+     *
+     * @param paths dot separated paths of object keys
+     * @return the created schema
+     * @throws IllegalArgumentException if no path is given or a path is empty
+     */
+    public static JsonPathSchema of(String... paths) {
+        if (paths == null || paths.length == 0) {
+            throw new IllegalArgumentException("JSON path schema must contain at least one path");
+        }
+
+        JsonPathSchema schema = new JsonPathSchema();
+        for (String path : paths) {
+            if (path == null || path.trim().isEmpty()) {
+                throw new IllegalArgumentException("JSON path cannot be null or empty");
+            }
+            Node node = schema.root;
+            for (String key : path.split("\\.")) {
+                node = node.children.computeIfAbsent(key, k -> new Node());
+            }
+            node.included = true;
+        }
+        return schema;
+    }
+
+    /**
+     * @return the node of the document root
+     */
+    Node root() {
+        return root;
+    }
+
+    /**
+     * A position in the schema.
+     */
+    static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean included;
+
+        /**
+         * Returns the node of the given key below this node, or null if the key is not needed.
+         */
+        Node child(String key) {
+            return included ? this : children.get(key);
+        }
+    }
+}
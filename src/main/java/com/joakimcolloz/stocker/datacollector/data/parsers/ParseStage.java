@@ -0,0 +1,151 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Parses fetched responses on a work-stealing {@link ForkJoinPool}, so parsing runs in parallel and does not
+ * wait behind the network I/O of the next fetch.
+ * <p>
+ * Responses are queued with {@link #submit(String, byte[])} and parsed by the workers of the pool, each reusing
+ * its parsers through a {@link ParserPool}. The pool is sized to the available processors by default.
+ * {@link #getStats()} reports how many bytes were parsed and how long the workers were busy, giving the
+ * throughput per worker.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ */
+public class ParseStage implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ParseStage.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ForkJoinPool pool;
+    private final ParserPool parserPool;
+    private final LongAdder documentCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    /**
+     * Creates a parse stage with one worker per available processor.
+     *
+     * @param parserFactory creates the parsers used by the workers
+     * @throws IllegalArgumentException if parserFactory is null
+     */
+    public ParseStage(Supplier<? extends BaseParser> parserFactory) {
+        this(parserFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a parse stage with the given number of workers.
+     *
+     * @param parserFactory creates the parsers used by the workers
+     * @param parallelism   the number of workers
+     * @throws IllegalArgumentException if parserFactory is null or parallelism is not positive
+     */
+    public ParseStage(Supplier<? extends BaseParser> parserFactory, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parserPool = new ParserPool(parserFactory);
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        logger.info("ParseStage initialized with {} workers", parallelism);
+    }
+
+    /**
+     * Queues a response for parsing.
+     *
+     * @param symbol the symbol of the response, used for logging
+     * @param json   the UTF-8 encoded response to parse
+     * @return a future completed with the parsed trading period, or exceptionally if parsing fails
+     */
+    public CompletableFuture<TradingPeriod> submit(String symbol, byte[] json) {
+        return CompletableFuture.supplyAsync(() -> parse(symbol, json), pool);
+    }
+
+    private TradingPeriod parse(String symbol, byte[] json) {
+        final long start = System.nanoTime();
+        final BaseParser parser = parserPool.acquire();
+        try {
+            parser.setJsonBytes(json);
+            parser.parse();
+            documentCount.increment();
+            logger.debug("Parsed {} bytes for symbol {} on {}", json.length, symbol,
+                    Thread.currentThread().getName());
+            return parser.getTradingPeriod();
+        } catch (RuntimeException e) {
+            failureCount.increment();
+            logger.error("Failed to parse JSON data for symbol {}: {}", symbol, e.getMessage());
+            throw e;
+        } finally {
+            parserPool.release(parser);
+            byteCount.add(json.length);
+            busyNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the number of workers
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * @return a snapshot of the parse statistics since the stage was created
+     */
+    public Stats getStats() {
+        return new Stats(documentCount.sum(), failureCount.sum(), byteCount.sum(), busyNanos.sum(), getParallelism());
+    }
+
+    /**
+     * Stops accepting responses and waits for the queued responses to be parsed.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("ParseStage did not finish within {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("ParseStage closed: {}", getStats());
+    }
+
+    /**
+     * Parse statistics of a stage.
+     *
+     * @param documents   the number of parsed responses
+     * @param failures    the number of responses that failed to parse
+     * @param bytes       the size of the parsed responses in bytes, including failed responses
+     * @param busyNanos   the time the workers spent parsing, summed over all workers
+     * @param parallelism the number of workers
+     */
+    public record Stats(long documents, long failures, long bytes, long busyNanos, int parallelism) {
+
+        /**
+         * @return the throughput of a single busy worker in MB/s
+         */
+        public double megabytesPerSecondPerWorker() {
+            return busyNanos == 0 ? 0 : bytes / (busyNanos / 1e9) / (1024 * 1024);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats{documents=%d, failures=%d, bytes=%d, parallelism=%d, %.1f MB/s per worker}",
+                    documents, failures, bytes, parallelism, megabytesPerSecondPerWorker());
+        }
+    }
+}
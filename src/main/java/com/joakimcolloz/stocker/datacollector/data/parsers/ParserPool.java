@@ -0,0 +1,103 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool of parsers, one pool per worker thread, so that the buffers a parser grew for a large response
+ * are reused for the next response instead of allocating a new parser per symbol.
+ * <p>
+ * A parser is taken with {@link #acquire()} and handed back with {@link #release(BaseParser)}, which resets it.
+ * Parsers are never shared between threads, so no locking is needed. At most {@code maxIdlePerThread} released
+ * parsers are kept per thread, the rest are closed and left to the garbage collector.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public class ParserPool {
+    private static final Logger logger = LoggerFactory.getLogger(ParserPool.class);
+    private static final int DEFAULT_MAX_IDLE_PER_THREAD = 2;
+
+    private final Supplier<? extends BaseParser> parserFactory;
+    private final int maxIdlePerThread;
+    private final ThreadLocal<ArrayDeque<BaseParser>> idleParsers = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    /**
+     * Creates a pool keeping at most two idle parsers per thread.
+     *
+     * @param parserFactory creates new parsers when a thread has no idle parser
+     * @throws IllegalArgumentException if parserFactory is null
+     */
+    public ParserPool(Supplier<? extends BaseParser> parserFactory) {
+        this(parserFactory, DEFAULT_MAX_IDLE_PER_THREAD);
+    }
+
+    /**
+     * Creates a pool keeping at most the given number of idle parsers per thread.
+     *
+     * @param parserFactory    creates new parsers when a thread has no idle parser
+     * @param maxIdlePerThread max released parsers kept per thread
+     * @throws IllegalArgumentException if parserFactory is null or maxIdlePerThread is negative
+     */
+    public ParserPool(Supplier<? extends BaseParser> parserFactory, int maxIdlePerThread) {
+        if (parserFactory == null) {
+            throw new IllegalArgumentException("Parser factory cannot be null");
+        }
+        if (maxIdlePerThread < 0) {
+            throw new IllegalArgumentException("Max idle parsers per thread cannot be negative");
+        }
+        this.parserFactory = parserFactory;
+        this.maxIdlePerThread = maxIdlePerThread;
+    }
+
+    /**
+     * Takes an idle parser of the calling thread, or creates a new parser if there is none.
+     *
+     * @return a parser ready for a JSON to be set
+     */
+    public BaseParser acquire() {
+        final BaseParser parser = idleParsers.get().pollFirst();
+        if (parser != null) {
+            logger.trace("Reusing pooled parser {}", parser);
+            return parser;
+        }
+        createdCount.incrementAndGet();
+        logger.debug("Creating new parser for thread {}", Thread.currentThread().getName());
+        return parserFactory.get();
+    }
+
+    /**
+     * Resets the parser and keeps it for the next {@link #acquire()} on the calling thread.
+     * The parser must not be used by the caller afterwards.
+     *
+     * @param parser the parser taken with {@link #acquire()}, ignored if null
+     */
+    public void release(BaseParser parser) {
+        if (parser == null) {
+            return;
+        }
+        parser.reset();
+        final ArrayDeque<BaseParser> idle = idleParsers.get();
+        if (idle.size() < maxIdlePerThread) {
+            idle.addFirst(parser);
+        }
+    }
+
+    /**
+     * @return the number of parsers created by the pool
+     */
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ParserPool{maxIdlePerThread=" + maxIdlePerThread + ", created=" + createdCount.get() + "}";
+    }
+}
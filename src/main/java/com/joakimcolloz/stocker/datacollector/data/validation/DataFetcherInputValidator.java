@@ -112,6 +112,30 @@ public class DataFetcherInputValidator {
         }
     }
 
+    /**
+     * Validates UTF-8 encoded JSON data, like {@link #validateJsonData(String)} without decoding it.
+     *
+     * @param jsonBytes the UTF-8 encoded JSON to validate
+     * @throws IllegalArgumentException if the JSON is null or empty
+     */
+    public void validateJsonData(byte[] jsonBytes) {
+        if (jsonBytes == null) {
+            throw new IllegalArgumentException("JSON string cannot be null");
+        }
+
+        // Basic JSON validation - check if the first character after leading whitespace is { or [
+        int first = 0;
+        while (first < jsonBytes.length && (jsonBytes[first] & 0xFF) <= ' ') {
+            first++;
+        }
+        if (first == jsonBytes.length) {
+            throw new IllegalArgumentException("JSON string cannot be empty");
+        }
+        if (jsonBytes[first] != '{' && jsonBytes[first] != '[') {
+            throw new IllegalArgumentException("Invalid JSON format: must start with '{' or '['");
+        }
+    }
+
     /**
      * Validates API configuration parameters.
      *
@@ -126,6 +150,22 @@ public class DataFetcherInputValidator {
         validateNotNullOrEmpty(apiKeyHeader, "API key header");
         validateNotNullOrEmpty(apiHostHeader, "API host header");
         validateNotNullOrEmpty(apiKey, "API key");
+        validateApiConfig(apiKeyHeader, apiHostHeader, apiHost, apiUrl);
+    }
+
+    /**
+     * Validates API configuration parameters when the API keys are supplied separately,
+     * e.g. through an API key pool.
+     *
+     * @param apiKeyHeader the API key header
+     * @param apiHostHeader the API host header
+     * @param apiHost the API host
+     * @param apiUrl the API URL
+     * @throws IllegalArgumentException if any parameter is null, empty, or invalid
+     */
+    public void validateApiConfig(String apiKeyHeader, String apiHostHeader, String apiHost, String apiUrl) {
+        validateNotNullOrEmpty(apiKeyHeader, "API key header");
+        validateNotNullOrEmpty(apiHostHeader, "API host header");
         validateNotNullOrEmpty(apiHost, "API host");
         validateNotNullOrEmpty(apiUrl, "API URL");
 
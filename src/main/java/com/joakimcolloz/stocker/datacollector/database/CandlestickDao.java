@@ -1,8 +1,14 @@
 package com.joakimcolloz.stocker.datacollector.database;
 
 import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
 import com.joakimcolloz.stocker.datacollector.database.validation.DatabaseInputValidator;
+import com.joakimcolloz.stocker.datacollector.database.validation.RejectedCandlestick;
+import com.joakimcolloz.stocker.datacollector.database.validation.ValidationPolicy;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+import com.joakimcolloz.stocker.datacollector.model.Interval;
 
+import org.postgresql.PGConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,28 +17,81 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_15MIN_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_1HOUR_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_1MIN_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_1MONTH_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_1WEEK_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_TABLE;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CANDLESTICK_5MIN_TABLE;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CLOSE_COLUMN;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.COUNT_QUARANTINE_BY_SYMBOL_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.CREATE_PARTITION_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.DETACH_PARTITION_QUERY_FORMAT;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.HIGH_COLUMN;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.INSERT_CANDLESTICK_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.INSERT_QUARANTINE_QUERY;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.LOW_COLUMN;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.OPEN_COLUMN;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.REFRESH_ROLLUPS_QUERY;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.RESET_TABLE_QUERY;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_ALL_QUERY;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_BY_SYMBOL_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_INTERVAL_BY_SYMBOL_QUERY_FORMAT;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.TIMESTAMP_COLUMN;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.UPSERT_INTRADAY_FIXED_POINT_QUERY_FORMAT;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.UPSERT_INTRADAY_QUERY_FORMAT;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.UPSERT_SYMBOL_QUERY;
 import static com.joakimcolloz.stocker.datacollector.database.DbConstants.VOLUME_COLUMN;
 
 /**
  * Database access object class. Used to interact with the database for candlestick data.
  * Uses {@link DatabaseManager} for connection management.
+ * <p>
+ * Candlesticks reference their symbol by the integer id of the symbols table. The ids are cached per DAO once the
+ * symbol has been committed, so the symbols table is only queried the first time a symbol is written.
+ * </p>
+ * <p>
+ * The candlestick table is partitioned by year. Before rows are inserted, the partitions of their years are
+ * created if missing, and the years are cached the same way as the symbol ids.
+ * </p>
+ * <p>
+ * Intraday candlesticks are routed by {@link Interval} to a table per interval, see
+ * {@link #addRows(String, Interval, CandlestickSeries)}. Weekly and monthly candlesticks are aggregated from the
+ * daily rows by the database: after each daily insert the buckets overlapping the inserted rows are recomputed
+ * in the same transaction, and they are read with {@link #getAllRowsByName(String, Interval)}.
+ * </p>
+ * <p>
+ * The prices of a fixed-point {@link CandlestickSeries} are bound as exact decimals, or as BIGINT arrays scaled
+ * by the database for intraday tables, so they are stored without converting a double.
+ * </p>
+ * <p>
+ * With {@link #setSkipUnchangedRows(boolean)}, the stored rows in the window of a series are loaded first and
+ * only the rows that are new or changed are written, e.g. the still forming current day of a daily fetch.
+ * </p>
+ * <p>
+ * Daily rows are sent in JDBC batches of at most {@link #setBatchSize(int) batch size} rows, all in one
+ * transaction, so a long backfill is not sent as one batch of thousands of statements.
+ * </p>
  *
  * @author Joakim Colloz
- * @version 2.0
+ * @version 2.12
  * @see DatabaseInputValidator
+ * @see ValidationPolicy
  * @see Candlestick
+ * @see CandlestickSeries
  * @see DAO
  * @see DbConstants
  * @see DatabaseManager
@@ -40,8 +99,14 @@ import static com.joakimcolloz.stocker.datacollector.database.DbConstants.VOLUME
  */
 public class CandlestickDao implements DAO<Candlestick> {
     private static final Logger logger = LoggerFactory.getLogger(CandlestickDao.class);
+    private static final int MAX_PARTITION_ATTEMPTS = 3;
     private final DatabaseInputValidator validator;
     private final DatabaseManager databaseManager;
+    private ValidationPolicy validationPolicy = ValidationPolicy.REJECT_ALL;
+    private boolean skipUnchangedRows;
+    private int batchSize = DatabaseConfig.DEFAULT_BATCH_SIZE;
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final Set<Integer> partitionYears = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructor that uses {@link DatabaseManager} for connection management.
@@ -66,6 +131,57 @@ public class CandlestickDao implements DAO<Candlestick> {
         logger.debug("CandlestickDao initialized with injected DatabaseManager and validator");
     }
 
+    public boolean isSkipUnchangedRows() {
+        return skipUnchangedRows;
+    }
+
+    /**
+     * Sets whether the rows of a series are compared with the stored rows before they are written, disabled by
+     * default. Rows stored unchanged are then skipped, which saves the dead tuples, WAL and index updates of
+     * rewriting them, at the cost of one range query per series. The counts are returned in the {@link InsertResult}.
+     *
+     * @param skipUnchangedRows true to write only new and changed rows
+     */
+    public void setSkipUnchangedRows(boolean skipUnchangedRows) {
+        this.skipUnchangedRows = skipUnchangedRows;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of rows sent to the database in one JDBC batch, {@link DatabaseConfig#DEFAULT_BATCH_SIZE}
+     * by default. The batches of a series are sent in the same transaction.
+     *
+     * @param batchSize the maximum rows per batch
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public ValidationPolicy getValidationPolicy() {
+        return validationPolicy;
+    }
+
+    /**
+     * Sets what {@link #addRows(String, CandlestickSeries)} does with invalid rows, {@link ValidationPolicy#REJECT_ALL}
+     * by default.
+     *
+     * @param validationPolicy the policy for invalid rows
+     * @throws IllegalArgumentException if validationPolicy is null
+     */
+    public void setValidationPolicy(ValidationPolicy validationPolicy) {
+        if (validationPolicy == null) {
+            throw new IllegalArgumentException("Validation policy cannot be null");
+        }
+        this.validationPolicy = validationPolicy;
+    }
+
     /**
      * Retrieves all candlesticks from the database.
      * Note: This method could potentially return a very large dataset if the table has many records.
@@ -146,26 +262,39 @@ public class CandlestickDao implements DAO<Candlestick> {
             throw e; // Let unchecked exception bubble up
         }
 
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(INSERT_CANDLESTICK_QUERY)) {
-
-            statement.setLong(1, candlestick.timestamp());
-            statement.setDouble(2, candlestick.open());
-            statement.setDouble(3, candlestick.close());
-            statement.setDouble(4, candlestick.low());
-            statement.setDouble(5, candlestick.high());
-            statement.setDouble(6, candlestick.volume());
-            statement.setString(7, symbol);
-
-            int rowsAffected = statement.executeUpdate();
-            if (rowsAffected > 0) {
-                logger.info("Successfully added candlestick for symbol: {}", symbol);
-            } else {
-                logger.warn("No rows affected when adding candlestick for symbol: {}", symbol);
+        createMissingPartitions(symbol, CandlestickSeries.from(List.of(candlestick)));
+
+        try (Connection connection = databaseManager.getConnection()) {
+            // The row and its rollups are committed together
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CANDLESTICK_QUERY)) {
+                statement.setLong(1, candlestick.timestamp());
+                statement.setDouble(2, candlestick.open());
+                statement.setDouble(3, candlestick.close());
+                statement.setDouble(4, candlestick.low());
+                statement.setDouble(5, candlestick.high());
+                statement.setDouble(6, candlestick.volume());
+                final int symbolId = findOrCreateSymbolId(symbol, connection);
+                statement.setInt(7, symbolId);
+
+                int rowsAffected = statement.executeUpdate();
+                refreshRollups(symbolId, candlestick.timestamp(), candlestick.timestamp(), connection);
+                connection.commit();
+                symbolIds.putIfAbsent(symbol, symbolId);
+                if (rowsAffected > 0) {
+                    logger.info("Successfully added candlestick for symbol: {}", symbol);
+                } else {
+                    logger.warn("No rows affected when adding candlestick for symbol: {}", symbol);
+                }
+            } catch (SQLException e) {
+                logger.error("Error adding candlestick for symbol {}: {}", symbol, e.getMessage(), e);
+                attemptRollback(symbol, connection);
+                throw new RuntimeException("Failed to add candlestick for symbol: " + symbol, e);
             }
         } catch (SQLException e) {
-            logger.error("Error adding candlestick for symbol {}: {}", symbol, e.getMessage(), e);
-            throw new RuntimeException("Failed to add candlestick for symbol: " + symbol, e);
+            logger.error("Error establishing database connection for symbol {}: {}", symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to establish database connection for symbol: " + symbol, e);
         }
     }
 
@@ -196,7 +325,9 @@ public class CandlestickDao implements DAO<Candlestick> {
      *   <li>Statement.SUCCESS_NO_INFO: driver could not determine affected row count</li>
      * </ul>
      * Any other result or a thrown SQLException is considered a failure. The operation is transactional:
-     * all candlesticks must pass validation and be successfully processed, or no changes will be made to the database.
+     * the valid candlesticks must all be successfully processed, or no changes will be made to the database.
+     * Invalid candlesticks are handled according to the {@link ValidationPolicy}, see
+     * {@link #addRows(String, CandlestickSeries)}.
      *
      * @param symbol        the stock symbol
      * @param candlesticks  list of candlesticks to add to the database
@@ -211,18 +342,325 @@ public class CandlestickDao implements DAO<Candlestick> {
                 candlesticks != null ? candlesticks.size() : 0, symbol);
 
         validateInputs(symbol, candlesticks);
-        logger.debug("All {} candlesticks passed validation for symbol: {}", candlesticks.size(), symbol);
+        insertSeries(symbol, CandlestickSeries.from(candlesticks));
+    }
+
+    /**
+     * Adds a series of candlesticks to the database using batch processing, reading the rows from the columns
+     * of the series without creating candlestick objects. Otherwise behaves as {@link #addRows(String, List)}.
+     * <p>
+     * Each row is validated while it is bound to the insert statement, and all invalid rows are collected.
+     * With {@link ValidationPolicy#REJECT_ALL} nothing is inserted if any row is invalid, the other policies
+     * insert the valid rows and return the invalid rows in the result. With {@link ValidationPolicy#QUARANTINE}
+     * the invalid rows are also written to the quarantine table, in the same transaction as the valid rows.
+     * </p>
+     *
+     * @param symbol the stock symbol
+     * @param series the candlesticks to add to the database
+     * @return the number of inserted rows and the rejected rows
+     * @throws IllegalArgumentException if symbol is invalid, the series is null/empty,
+     *                                  or a candlestick is invalid and the policy is {@link ValidationPolicy#REJECT_ALL}
+     * @throws RuntimeException         if database connection fails, batch execution fails,
+     *                                  or not all valid candlesticks are successfully processed
+     */
+    public InsertResult addRows(String symbol, CandlestickSeries series) {
+        logger.info("Starting to add {} candlesticks for symbol: {}", series != null ? series.size() : 0, symbol);
+
+        try {
+            validator.validateSymbol(symbol);
+            if (series == null || series.isEmpty()) {
+                throw new IllegalArgumentException("Candlestick series cannot be null or empty");
+            }
+            logger.debug("Input validation passed for addRows");
+        } catch (IllegalArgumentException e) {
+            logger.error("Validation failed for addRows: {}", e.getMessage());
+            throw e; // Let unchecked exception bubble up
+        }
+
+        return insertSeries(symbol, series);
+    }
+
+    /**
+     * Adds a series of candlesticks to the table of the interval. Daily candlesticks are added as with
+     * {@link #addRows(String, CandlestickSeries)}. Intraday candlesticks are written to the table of their interval
+     * with a single statement binding each column as an array, and an existing row with the same symbol and
+     * timestamp is updated. Invalid rows are handled according to the {@link ValidationPolicy}.
+     *
+     * @param symbol   the stock symbol
+     * @param interval the interval of the candlesticks, {@link Interval#ONE_DAY} or an intraday interval
+     * @param series   the candlesticks to add to the database
+     * @return the number of inserted or updated rows and the rejected rows
+     * @throws IllegalArgumentException if symbol is invalid, the series is null/empty, the interval has no table,
+     *                                  or a candlestick is invalid and the policy is {@link ValidationPolicy#REJECT_ALL}
+     * @throws RuntimeException         if database connection fails or the statement fails
+     */
+    public InsertResult addRows(String symbol, Interval interval, CandlestickSeries series) {
+        if (interval == Interval.ONE_DAY) {
+            return addRows(symbol, series);
+        }
+        final String table = intradayTable(interval);
+        logger.info("Starting to add {} {} candlesticks for symbol: {}",
+                series != null ? series.size() : 0, interval, symbol);
+
+        try {
+            validator.validateSymbol(symbol);
+            if (series == null || series.isEmpty()) {
+                throw new IllegalArgumentException("Candlestick series cannot be null or empty");
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("Validation failed for addRows: {}", e.getMessage());
+            throw e; // Let unchecked exception bubble up
+        }
 
         try (Connection connection = databaseManager.getConnection()) {
             connection.setAutoCommit(false); // Start transaction
-            logger.debug("Starting batch insert of {} candlesticks for symbol: {}", candlesticks.size(), symbol);
+            try {
+                final int symbolId = findOrCreateSymbolId(symbol, connection);
+                final InsertResult result = bulkUpsert(symbol, symbolId, table, series, connection);
+                symbolIds.putIfAbsent(symbol, symbolId);
+                logger.info("Successfully processed {} of {} {} candlesticks for symbol: {}",
+                        result.insertedCount(), series.size(), interval, symbol);
+                return result;
+            } catch (SQLException e) {
+                logger.error("Database error during bulk upsert for symbol {}: {}", symbol, e.getMessage(), e);
+                attemptRollback(symbol, connection);
+                throw new RuntimeException("Failed to add candlesticks for symbol: " + symbol, e);
+            }
+        } catch (SQLException e) {
+            logger.error("Error establishing database connection for symbol {}: {}", symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to establish database connection for symbol: " + symbol, e);
+        }
+    }
+
+    /**
+     * Retrieves the candlesticks of a symbol and interval, ordered by timestamp.
+     *
+     * @param name     the stock symbol
+     * @param interval the interval of the candlesticks, {@link Interval#ONE_DAY}, an intraday interval,
+     *                 {@link Interval#ONE_WEEK} or {@link Interval#ONE_MONTH}
+     * @return the candlesticks, or an empty list if the symbol is invalid or the query fails
+     * @throws IllegalArgumentException if the interval has no table
+     */
+    public List<Candlestick> getAllRowsByName(final String name, final Interval interval) {
+        if (interval == null) {
+            throw new IllegalArgumentException("Interval cannot be null");
+        }
+        if (interval == Interval.ONE_DAY) {
+            return getAllRowsByName(name);
+        }
+        final String table = switch (interval) {
+            case ONE_WEEK -> CANDLESTICK_1WEEK_TABLE;
+            case ONE_MONTH -> CANDLESTICK_1MONTH_TABLE;
+            default -> intradayTable(interval);
+        };
+        List<Candlestick> candlesticks = new ArrayList<>();
+
+        try {
+            validator.validateSymbol(name);
+        } catch (IllegalArgumentException e) {
+            logger.error("Symbol validation failed: {}", e.getMessage());
+            return candlesticks; // Return empty list for invalid input
+        }
+
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format(SELECT_INTERVAL_BY_SYMBOL_QUERY_FORMAT, table))) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    candlesticks.add(createCandlestick(resultSet));
+                }
+            }
+            logger.info("Retrieved {} {} candlesticks for symbol: {}", candlesticks.size(), interval, name);
+        } catch (SQLException e) {
+            logger.error("Error getting {} candlesticks for symbol {}: {}", interval, name, e.getMessage(), e);
+        }
+
+        return candlesticks;
+    }
+
+    private static String intradayTable(Interval interval) {
+        if (interval == null) {
+            throw new IllegalArgumentException("Interval cannot be null");
+        }
+        return switch (interval) {
+            case ONE_MINUTE -> CANDLESTICK_1MIN_TABLE;
+            case FIVE_MINUTES -> CANDLESTICK_5MIN_TABLE;
+            case FIFTEEN_MINUTES -> CANDLESTICK_15MIN_TABLE;
+            case ONE_HOUR -> CANDLESTICK_1HOUR_TABLE;
+            default -> throw new IllegalArgumentException("No candlestick table for interval: " + interval);
+        };
+    }
+
+    /**
+     * Validates the rows while copying the valid ones into compact column arrays, then upserts them with one
+     * statement and commits. Of rows with the same timestamp only the last valid one is upserted, as one
+     * statement cannot update a row twice.
+     */
+    private InsertResult bulkUpsert(String symbol, int symbolId, String table, CandlestickSeries series,
+                                    Connection connection) throws SQLException {
+        final StoredWindow stored = skipUnchangedRows
+                ? StoredWindow.load(connection, table, symbolId, series, false) : null;
+        final int[] validRows = new int[series.size()];
+        final List<RejectedCandlestick> rejected = new ArrayList<>();
+        int validCount = 0;
+        int duplicateCount = 0;
+        long lastTimestamp = Long.MIN_VALUE;
+        Map<Long, Integer> positionByTimestamp = null;
+
+        final CandlestickSeries.Cursor cursor = series.cursor();
+        while (cursor.next()) {
+            final String violation = validator.findViolation(cursor.timestamp(), cursor.open(), cursor.high(),
+                    cursor.low(), cursor.close(), cursor.volume());
+            if (violation != null) {
+                rejected.add(new RejectedCandlestick(cursor.index(), cursor.timestamp(), cursor.open(), cursor.high(),
+                        cursor.low(), cursor.close(), cursor.volume(), violation));
+                continue;
+            }
+            final long timestamp = cursor.timestamp();
+            if (timestamp <= lastTimestamp) {
+                // Out of order or repeated, e.g. the still forming last bar sent twice
+                if (positionByTimestamp == null) {
+                    positionByTimestamp = new HashMap<>();
+                    for (int i = 0; i < validCount; i++) {
+                        positionByTimestamp.put(series.timestamp(validRows[i]), i);
+                    }
+                }
+                final Integer position = positionByTimestamp.get(timestamp);
+                if (position != null) {
+                    validRows[position] = cursor.index();
+                    duplicateCount++;
+                    continue;
+                }
+            }
+            if (positionByTimestamp != null) {
+                positionByTimestamp.put(timestamp, validCount);
+            }
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            validRows[validCount++] = cursor.index();
+        }
+        handleRejected(symbol, rejected);
+        if (duplicateCount > 0) {
+            logger.debug("Kept the last of repeated timestamps, dropped {} candlesticks of symbol {}",
+                    duplicateCount, symbol);
+        }
+
+        int updatedCount = 0;
+        int unchangedCount = 0;
+        if (stored != null) {
+            int writtenCount = 0;
+            for (int i = 0; i < validCount; i++) {
+                final StoredWindow.Match match = stored.match(series, validRows[i]);
+                if (match == StoredWindow.Match.UNCHANGED) {
+                    unchangedCount++;
+                    continue;
+                }
+                if (match == StoredWindow.Match.CHANGED) {
+                    updatedCount++;
+                }
+                validRows[writtenCount++] = validRows[i];
+            }
+            validCount = writtenCount;
+        }
+
+        int upsertedCount = 0;
+        long firstWrittenTimestamp = InsertResult.NOTHING_WRITTEN;
+        if (validCount > 0) {
+            final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            final int[] rows = Arrays.copyOf(validRows, validCount);
+            final long[] timestamps = new long[validCount];
+            final long[] volumes = new long[validCount];
+            for (int i = 0; i < validCount; i++) {
+                timestamps[i] = series.timestamp(rows[i]);
+                volumes[i] = series.volume(rows[i]);
+                firstWrittenTimestamp = Math.min(firstWrittenTimestamp, timestamps[i]);
+            }
+            final String query = series.isFixedPoint() ? UPSERT_INTRADAY_FIXED_POINT_QUERY_FORMAT
+                    : UPSERT_INTRADAY_QUERY_FORMAT;
+            try (PreparedStatement statement = connection.prepareStatement(String.format(query, table))) {
+                statement.setInt(1, symbolId);
+                statement.setArray(2, pgConnection.createArrayOf("int8", timestamps));
+                if (series.isFixedPoint()) {
+                    bindScaledPrices(statement, pgConnection, series, rows);
+                } else {
+                    bindPrices(statement, pgConnection, series, rows);
+                }
+                statement.setArray(7, pgConnection.createArrayOf("int8", volumes));
+                upsertedCount = statement.executeUpdate();
+            }
+        } else if (unchangedCount > 0) {
+            logger.debug("All {} valid candlesticks of symbol {} are stored unchanged", unchangedCount, symbol);
+        } else {
+            logger.warn("No valid candlesticks to insert for symbol: {}", symbol);
+        }
+
+        if (validationPolicy == ValidationPolicy.QUARANTINE && !rejected.isEmpty()) {
+            quarantine(symbol, rejected, connection);
+        }
+        connection.commit();
+        return new InsertResult(upsertedCount, updatedCount, unchangedCount, rejected, firstWrittenTimestamp);
+    }
+
+    private static void bindPrices(PreparedStatement statement, PGConnection pgConnection, CandlestickSeries series,
+                                   int[] rows) throws SQLException {
+        final double[] opens = new double[rows.length];
+        final double[] highs = new double[rows.length];
+        final double[] lows = new double[rows.length];
+        final double[] closes = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            opens[i] = series.open(rows[i]);
+            highs[i] = series.high(rows[i]);
+            lows[i] = series.low(rows[i]);
+            closes[i] = series.close(rows[i]);
+        }
+        statement.setArray(3, pgConnection.createArrayOf("float8", opens));
+        statement.setArray(4, pgConnection.createArrayOf("float8", highs));
+        statement.setArray(5, pgConnection.createArrayOf("float8", lows));
+        statement.setArray(6, pgConnection.createArrayOf("float8", closes));
+    }
+
+    private static void bindScaledPrices(PreparedStatement statement, PGConnection pgConnection,
+                                         CandlestickSeries series, int[] rows) throws SQLException {
+        final long[] opens = new long[rows.length];
+        final long[] highs = new long[rows.length];
+        final long[] lows = new long[rows.length];
+        final long[] closes = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            opens[i] = series.scaledOpen(rows[i]);
+            highs[i] = series.scaledHigh(rows[i]);
+            lows[i] = series.scaledLow(rows[i]);
+            closes[i] = series.scaledClose(rows[i]);
+        }
+        statement.setArray(3, pgConnection.createArrayOf("int8", opens));
+        statement.setArray(4, pgConnection.createArrayOf("int8", highs));
+        statement.setArray(5, pgConnection.createArrayOf("int8", lows));
+        statement.setArray(6, pgConnection.createArrayOf("int8", closes));
+        statement.setBigDecimal(8, FixedPoint.toBigDecimal(1, series.priceScale()));
+    }
+
+    private InsertResult insertSeries(String symbol, CandlestickSeries series) {
+        final InsertResult result;
+        createMissingPartitions(symbol, series);
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false); // Start transaction
+            logger.debug("Starting batch insert of {} candlesticks for symbol: {}", series.size(), symbol);
 
             try (PreparedStatement statement = connection.prepareStatement(INSERT_CANDLESTICK_QUERY)) {
-                batchInsert(symbol, candlesticks, statement, connection);
+                final int symbolId = findOrCreateSymbolId(symbol, connection);
+                final StoredWindow stored = skipUnchangedRows
+                        ? StoredWindow.load(connection, CANDLESTICK_TABLE, symbolId, series, true) : null;
+                result = batchInsert(symbol, symbolId, series, stored, statement, connection);
+                // Only cache what was committed, a rolled back symbol must be added again
+                symbolIds.putIfAbsent(symbol, symbolId);
             } catch (SQLException e) {
                 logger.error("Database error during batch insert for symbol {}: {}", symbol, e.getMessage(), e);
                 attemptRollback(symbol, connection);
                 throw new RuntimeException("Failed to add candlesticks for symbol: " + symbol, e);
+            } catch (IllegalArgumentException e) {
+                // Rejected rows, batches of valid rows may already have been sent
+                attemptRollback(symbol, connection);
+                throw e;
             }
 
         } catch (SQLException e) {
@@ -230,7 +668,9 @@ public class CandlestickDao implements DAO<Candlestick> {
             throw new RuntimeException("Failed to establish database connection for symbol: " + symbol, e);
         }
 
-        logger.info("Successfully processed all {} candlesticks for symbol: {}", candlesticks.size(), symbol);
+        logger.info("Successfully processed {} of {} candlesticks for symbol: {}",
+                result.insertedCount(), series.size(), symbol);
+        return result;
     }
 
     private void validateInputs(String symbol, List<Candlestick> candlesticks) {
@@ -242,37 +682,297 @@ public class CandlestickDao implements DAO<Candlestick> {
             logger.error("Validation failed for addRows: {}", e.getMessage());
             throw e; // Let unchecked exception bubble up
         }
+        // The candlesticks themselves are validated while they are bound, see batchInsert
+    }
 
-        // All candlesticks must be valid or none are processed
-        for (int i = 0; i < candlesticks.size(); i++) {
+    /**
+     * Validates and binds the rows in a single pass, skipping the rows stored unchanged if the stored window is
+     * given, and executes a batch whenever it is full. Then applies the validation policy to the invalid rows
+     * before the last batch is executed. With {@link ValidationPolicy#REJECT_ALL}, no further batch is executed
+     * once a row is invalid.
+     */
+    private InsertResult batchInsert(String symbol, int symbolId, CandlestickSeries series, StoredWindow stored,
+                                     PreparedStatement statement, Connection connection) throws SQLException {
+        final List<RejectedCandlestick> rejected = new ArrayList<>();
+        int updatedCount = 0;
+        int unchangedCount = 0;
+        final int[] results = new int[series.size()];
+        int resultCount = 0;
+        int pendingCount = 0;
+        long firstTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+        final CandlestickSeries.Cursor cursor = series.cursor();
+        while (cursor.next()) {
+            final String violation = validator.findViolation(cursor.timestamp(), cursor.open(), cursor.high(),
+                    cursor.low(), cursor.close(), cursor.volume());
+            if (violation != null) {
+                rejected.add(new RejectedCandlestick(cursor.index(), cursor.timestamp(), cursor.open(), cursor.high(),
+                        cursor.low(), cursor.close(), cursor.volume(), violation));
+                continue;
+            }
+            if (stored != null) {
+                final StoredWindow.Match match = stored.match(series, cursor.index());
+                if (match == StoredWindow.Match.UNCHANGED) {
+                    unchangedCount++;
+                    continue;
+                }
+                if (match == StoredWindow.Match.CHANGED) {
+                    updatedCount++;
+                }
+            }
+            firstTimestamp = Math.min(firstTimestamp, cursor.timestamp());
+            lastTimestamp = Math.max(lastTimestamp, cursor.timestamp());
+            statement.setLong(1, cursor.timestamp());
+            if (series.isFixedPoint()) {
+                // Exact decimals, the column type, so the database does not convert a double
+                final int scale = series.priceScale();
+                statement.setBigDecimal(2, FixedPoint.toBigDecimal(cursor.scaledOpen(), scale));
+                statement.setBigDecimal(3, FixedPoint.toBigDecimal(cursor.scaledHigh(), scale));
+                statement.setBigDecimal(4, FixedPoint.toBigDecimal(cursor.scaledLow(), scale));
+                statement.setBigDecimal(5, FixedPoint.toBigDecimal(cursor.scaledClose(), scale));
+            } else {
+                statement.setDouble(2, cursor.open());
+                statement.setDouble(3, cursor.high());
+                statement.setDouble(4, cursor.low());
+                statement.setDouble(5, cursor.close());
+            }
+            statement.setDouble(6, cursor.volume());
+            statement.setInt(7, symbolId);
+            statement.addBatch();
+            if (++pendingCount == batchSize
+                    && (validationPolicy != ValidationPolicy.REJECT_ALL || rejected.isEmpty())) {
+                resultCount = executeBatch(statement, results, resultCount);
+                pendingCount = 0;
+            }
+        }
+
+        handleRejected(symbol, rejected);
+        final int writtenCount = series.size() - rejected.size() - unchangedCount;
+        if (writtenCount == 0 && unchangedCount > 0) {
+            logger.debug("All {} valid candlesticks of symbol {} are stored unchanged", unchangedCount, symbol);
+        } else if (writtenCount == 0) {
+            logger.warn("No valid candlesticks to insert for symbol: {}", symbol);
+        }
+
+        // Execute the last batch, refresh the rollups, quarantine the invalid rows and commit transaction
+        if (pendingCount > 0) {
+            resultCount = executeBatch(statement, results, resultCount);
+        }
+        if (writtenCount > 0) {
+            refreshRollups(symbolId, firstTimestamp, lastTimestamp, connection);
+        }
+        if (validationPolicy == ValidationPolicy.QUARANTINE && !rejected.isEmpty()) {
+            quarantine(symbol, rejected, connection);
+        }
+        connection.commit();
+
+        validateBatchResults(Arrays.copyOf(results, resultCount), writtenCount, symbol);
+        return new InsertResult(writtenCount, updatedCount, unchangedCount, rejected,
+                writtenCount > 0 ? firstTimestamp : InsertResult.NOTHING_WRITTEN);
+    }
+
+    /**
+     * Executes the batched rows and appends their update counts to the results.
+     *
+     * @return the number of results
+     */
+    private static int executeBatch(PreparedStatement statement, int[] results, int resultCount)
+            throws SQLException {
+        final int[] batchResults = statement.executeBatch();
+        final int length = Math.min(batchResults.length, results.length - resultCount);
+        System.arraycopy(batchResults, 0, results, resultCount, length);
+        logger.debug("Executed batch of {} candlesticks", batchResults.length);
+        return resultCount + length;
+    }
+
+    /**
+     * Recomputes the weekly and monthly candlesticks of the buckets overlapping the timestamp range, without
+     * committing.
+     */
+    private void refreshRollups(int symbolId, long firstTimestamp, long lastTimestamp,
+                                Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(REFRESH_ROLLUPS_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, firstTimestamp);
+            statement.setLong(3, lastTimestamp);
+            statement.execute();
+        }
+        logger.debug("Refreshed rollups of symbol id {} between {} and {}", symbolId, firstTimestamp, lastTimestamp);
+    }
+
+    /**
+     * Returns the cached id of the symbol, or adds the symbol to the symbols table and returns its new id.
+     * The caller caches the id once the statement using it has been committed.
+     */
+    private int findOrCreateSymbolId(String symbol, Connection connection) throws SQLException {
+        final Integer cached = symbolIds.get(symbol);
+        if (cached != null) {
+            return cached;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_SYMBOL_QUERY)) {
+            statement.setString(1, symbol);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("No id returned for symbol: " + symbol);
+                }
+                final int symbolId = resultSet.getInt(1);
+                logger.debug("Resolved id {} for symbol: {}", symbolId, symbol);
+                return symbolId;
+            }
+        }
+    }
+
+    /**
+     * Creates the yearly partitions of the rows that are not known to exist yet. Rows with a non-positive
+     * timestamp are skipped, they are rejected by validation.
+     * <p>
+     * The partitions are created on a connection of their own in autocommit mode, before the insert transaction
+     * is opened. Creating a partition locks the candlestick table, which would otherwise block all other writers
+     * until the rows are committed. A partition created concurrently by another session is found on retry.
+     * </p>
+     *
+     * @throws RuntimeException if a partition cannot be created
+     */
+    private void createMissingPartitions(String symbol, CandlestickSeries series) {
+        final Set<Integer> years = new TreeSet<>();
+        final CandlestickSeries.Cursor cursor = series.cursor();
+        while (cursor.next()) {
+            if (cursor.timestamp() > 0) {
+                final int year = yearOf(cursor.timestamp());
+                if (!partitionYears.contains(year)) {
+                    years.add(year);
+                }
+            }
+        }
+        if (years.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(CREATE_PARTITION_QUERY)) {
+            connection.setAutoCommit(true);
+            for (int year : years) {
+                createPartition(statement, year);
+                partitionYears.add(year);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating partitions {} for symbol {}: {}", years, symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to create partitions for symbol: " + symbol, e);
+        }
+        logger.debug("Ensured candlestick partitions for years: {}", years);
+    }
+
+    private static void createPartition(PreparedStatement statement, int year) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            statement.setInt(1, year);
             try {
-                validator.validateCandlestick(candlesticks.get(i));
-            } catch (IllegalArgumentException e) {
-                String errorMsg = "Invalid candlestick at index " + i + " for symbol " + symbol + ": " + e.getMessage();
+                statement.executeQuery().close();
+                return;
+            } catch (SQLException e) {
+                if (attempt >= MAX_PARTITION_ATTEMPTS || !isConcurrentCreation(e)) {
+                    throw e;
+                }
+                logger.debug("Partition of year {} was created concurrently, retrying: {}", year, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns true if the statement failed because another session created the same table at the same time,
+     * which surfaces as a duplicate table or as a unique violation in the system catalogs.
+     */
+    private static boolean isConcurrentCreation(SQLException e) {
+        final String state = e.getSQLState();
+        // 42P07: duplicate table, 42710: duplicate object, 23505: unique violation
+        return "42P07".equals(state) || "42710".equals(state) || "23505".equals(state);
+    }
+
+    private static int yearOf(long timestamp) {
+        return Instant.ofEpochSecond(timestamp).atOffset(ZoneOffset.UTC).getYear();
+    }
+
+    /**
+     * Detaches the partition of a year from the candlestick table. The rows of the year are no longer returned
+     * by queries but are kept in the detached table, which can be archived or dropped without touching the
+     * other years.
+     *
+     * @param year the year of the partition to detach
+     * @throws RuntimeException if the partition does not exist or the statement fails
+     */
+    public void detachPartition(int year) {
+        logger.info("Detaching candlestick partition of year {}", year);
+
+        try (Connection connection = databaseManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(String.format(DETACH_PARTITION_QUERY_FORMAT, year));
+            partitionYears.remove(year);
+            logger.info("Detached candlestick partition of year {}", year);
+        } catch (SQLException e) {
+            logger.error("Error detaching partition of year {}: {}", year, e.getMessage(), e);
+            throw new RuntimeException("Failed to detach partition of year: " + year, e);
+        }
+    }
+
+    private void handleRejected(String symbol, List<RejectedCandlestick> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        switch (validationPolicy) {
+            case REJECT_ALL -> {
+                String errorMsg = "Invalid candlesticks for symbol " + symbol + ": " + rejected.stream()
+                        .map(RejectedCandlestick::toString)
+                        .collect(Collectors.joining("; "));
                 logger.error(errorMsg);
                 throw new IllegalArgumentException(errorMsg);
             }
+            case SKIP_INVALID_ROWS -> logger.warn("Skipping {} invalid candlesticks for symbol {}: {}",
+                    rejected.size(), symbol, rejected);
+            case QUARANTINE -> logger.warn("Quarantining {} invalid candlesticks for symbol {}: {}",
+                    rejected.size(), symbol, rejected);
         }
     }
 
-    private void batchInsert(String symbol, List<Candlestick> candlesticks,
-                             PreparedStatement statement, Connection connection) throws SQLException {
-        for (Candlestick candlestick : candlesticks) {
-            statement.setLong(1, candlestick.timestamp());
-            statement.setDouble(2, candlestick.open());
-            statement.setDouble(3, candlestick.high());
-            statement.setDouble(4, candlestick.low());
-            statement.setDouble(5, candlestick.close());
-            statement.setDouble(6, candlestick.volume());
-            statement.setString(7, symbol);
-            statement.addBatch();
+    /**
+     * Writes the rejected rows to the quarantine table with one batch, without committing.
+     */
+    private void quarantine(String symbol, List<RejectedCandlestick> rejected, Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_QUARANTINE_QUERY)) {
+            for (RejectedCandlestick row : rejected) {
+                statement.setString(1, symbol);
+                statement.setLong(2, row.timestamp());
+                statement.setDouble(3, row.open());
+                statement.setDouble(4, row.high());
+                statement.setDouble(5, row.low());
+                statement.setDouble(6, row.close());
+                statement.setLong(7, row.volume());
+                statement.setString(8, row.reason());
+                statement.addBatch();
+            }
+            statement.executeBatch();
         }
+        logger.info("Quarantined {} invalid candlesticks for symbol: {}", rejected.size(), symbol);
+    }
 
-        // Execute batch and commit transaction
-        int[] results = statement.executeBatch();
-        connection.commit();
+    /**
+     * Counts the quarantined candlesticks of a symbol.
+     *
+     * @param symbol the stock symbol
+     * @return the number of quarantined rows
+     * @throws RuntimeException if the query fails
+     */
+    public int countQuarantinedRows(String symbol) {
+        validator.validateSymbol(symbol);
 
-        validateBatchResults(results, candlesticks.size(), symbol);
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COUNT_QUARANTINE_BY_SYMBOL_QUERY)) {
+            statement.setString(1, symbol);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("Error counting quarantined candlesticks for symbol {}: {}", symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to count quarantined candlesticks for symbol: " + symbol, e);
+        }
     }
 
     /**
@@ -1,11 +1,18 @@
 package com.joakimcolloz.stocker.datacollector.database;
 
+import com.joakimcolloz.stocker.datacollector.database.validation.ValidationPolicy;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.util.Properties;
+
 /**
  * Simple Database configuration class.
  */
 public class DatabaseConfig {
+    /** Rows sent per JDBC batch by default, the remaining rows of a series are sent in further batches */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
     private static final Dotenv dotenv = Dotenv.configure()
             .ignoreIfMissing()
             .systemProperties() // Check system env as fallback TODO: CHECK THIS: doesn't seem to work as expected
@@ -18,6 +25,13 @@ public class DatabaseConfig {
     private final String port;
     private final String databaseName;
     private final String schema;
+    private final ValidationPolicy validationPolicy;
+    private final String spoolFile;
+    private final String columnarStoreDirectory;
+    private final int priceScale;
+    private final boolean skipUnchangedRows;
+    private final int batchSize;
+    private final boolean rewriteBatchedInserts;
 
     /**
      * Default constructor loading configuration from .env
@@ -29,6 +43,13 @@ public class DatabaseConfig {
         this.username = dotenv.get("DB_USERNAME", "prod_user");
         this.password = dotenv.get("DB_PASSWORD", "prod_password");
         this.schema = dotenv.get("DB_SCHEMA", "stock_prices_schema");
+        this.validationPolicy = ValidationPolicy.fromString(dotenv.get("DB_VALIDATION_POLICY", "REJECT_ALL"));
+        this.spoolFile = dotenv.get("DB_SPOOL_FILE");
+        this.columnarStoreDirectory = dotenv.get("COLUMNAR_STORE_DIR");
+        this.priceScale = parsePriceScale(dotenv.get("DB_PRICE_SCALE"));
+        this.skipUnchangedRows = Boolean.parseBoolean(dotenv.get("DB_SKIP_UNCHANGED_ROWS", "true"));
+        this.batchSize = parseBatchSize(dotenv.get("DB_BATCH_SIZE"));
+        this.rewriteBatchedInserts = Boolean.parseBoolean(dotenv.get("DB_REWRITE_BATCHED_INSERTS", "true"));
         this.jdbcUrl = "jdbc:postgresql://" + host + ":" + port + "/" + databaseName;
     }
 
@@ -36,12 +57,32 @@ public class DatabaseConfig {
      * Constructor with direct values used by Testcontainers and custom configurations
      */
     public DatabaseConfig(String host, String port, String databaseName, String username, String password) {
+        this(host, port, databaseName, username, password, DEFAULT_BATCH_SIZE, true);
+    }
+
+    /**
+     * Constructor with direct values and batch settings, used by benchmarks comparing batch sizes
+     *
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public DatabaseConfig(String host, String port, String databaseName, String username, String password,
+                          int batchSize, boolean rewriteBatchedInserts) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
         this.host = host;
         this.port = port;
         this.databaseName = databaseName;
         this.username = username;
         this.password = password;
         this.schema = "stock_prices_schema"; // consistent schema across environments
+        this.validationPolicy = ValidationPolicy.REJECT_ALL;
+        this.spoolFile = null;
+        this.columnarStoreDirectory = null;
+        this.priceScale = CandlestickSeries.FLOATING_POINT;
+        this.skipUnchangedRows = true;
+        this.batchSize = batchSize;
+        this.rewriteBatchedInserts = rewriteBatchedInserts;
         this.jdbcUrl = "jdbc:postgresql://" + host + ":" + port + "/" + databaseName;
     }
 
@@ -74,9 +115,106 @@ public class DatabaseConfig {
         return schema;
     }
 
+    public ValidationPolicy getValidationPolicy() {
+        return validationPolicy;
+    }
+
+    /**
+     * @return the file candlesticks are spooled to while the database is unavailable, or null if not spooling
+     */
+    public String getSpoolFile() {
+        return spoolFile;
+    }
+
+    /**
+     * @return the directory of the local columnar copy of the daily candlesticks, or null if not kept
+     */
+    public String getColumnarStoreDirectory() {
+        return columnarStoreDirectory;
+    }
+
+    /**
+     * @return the number of decimals prices are parsed and stored with as fixed-point values, or
+     * {@link CandlestickSeries#FLOATING_POINT} if prices are doubles
+     */
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    /**
+     * @return true if rows already stored unchanged are skipped instead of rewritten, the default
+     */
+    public boolean isSkipUnchangedRows() {
+        return skipUnchangedRows;
+    }
+
+    /**
+     * @return the maximum number of rows sent to the database in one JDBC batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return true if the driver rewrites batched inserts into multi-row inserts, the default
+     */
+    public boolean isRewriteBatchedInserts() {
+        return rewriteBatchedInserts;
+    }
+
+    /**
+     * @return the properties to open connections with: the credentials and the driver settings of this configuration
+     */
+    public Properties getConnectionProperties() {
+        return connectionProperties(username, password, rewriteBatchedInserts);
+    }
+
+    /**
+     * @return the properties to open connections with the given credentials and driver settings
+     */
+    static Properties connectionProperties(String username, String password, boolean rewriteBatchedInserts) {
+        final Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        // Without it, PgJDBC sends one INSERT statement per batched row
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(rewriteBatchedInserts));
+        return properties;
+    }
+
+    private static int parseBatchSize(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        final int batchSize;
+        try {
+            batchSize = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid DB_BATCH_SIZE: " + value, e);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("DB_BATCH_SIZE must be positive: " + value);
+        }
+        return batchSize;
+    }
+
+    private static int parsePriceScale(String value) {
+        if (value == null || value.isBlank()) {
+            return CandlestickSeries.FLOATING_POINT;
+        }
+        final int scale;
+        try {
+            scale = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid DB_PRICE_SCALE: " + value, e);
+        }
+        FixedPoint.checkScale(scale);
+        return scale;
+    }
+
     @Override
     public String toString() {
-        return String.format("DatabaseConfig{host='%s', port='%s', database='%s', username='%s', schema='%s'}",
-                host, port, databaseName, username, schema);
+        return String.format("DatabaseConfig{host='%s', port='%s', database='%s', username='%s', schema='%s', validationPolicy=%s, spoolFile=%s, columnarStoreDirectory=%s, priceScale=%d, skipUnchangedRows=%s, batchSize=%d, rewriteBatchedInserts=%s}",
+                host, port, databaseName, username, schema, validationPolicy, spoolFile, columnarStoreDirectory, priceScale,
+                skipUnchangedRows, batchSize, rewriteBatchedInserts);
     }
 }
@@ -1,11 +1,21 @@
 package com.joakimcolloz.stocker.datacollector.database;
 
+import com.joakimcolloz.stocker.datacollector.database.columnar.ColumnarPriceStore;
+import com.joakimcolloz.stocker.datacollector.database.export.PriceExporter;
+import com.joakimcolloz.stocker.datacollector.database.spool.CandlestickSpool;
+import com.joakimcolloz.stocker.datacollector.database.validation.ValidationPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Properties;
 
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
@@ -13,7 +23,13 @@ public class DatabaseManager {
     private final String jdbcUrl;
     private final String username;
     private final String password;
+    private final Properties connectionProperties;
     private final MigrationManager migrationManager;
+    private final ValidationPolicy validationPolicy;
+    private final boolean skipUnchangedRows;
+    private final int batchSize;
+    private final CandlestickSpool candlestickSpool;
+    private final ColumnarPriceStore columnarPriceStore;
 
     /**
      * Initialize DatabaseManager with configuration
@@ -22,7 +38,17 @@ public class DatabaseManager {
         this.jdbcUrl = config.getJdbcUrl();
         this.username = config.getUsername();
         this.password = config.getPassword();
+        this.connectionProperties = config.getConnectionProperties();
         this.migrationManager = new MigrationManager(jdbcUrl, username, password);
+        this.validationPolicy = config.getValidationPolicy();
+        this.skipUnchangedRows = config.isSkipUnchangedRows();
+        this.batchSize = config.getBatchSize();
+        final String spoolFile = config.getSpoolFile();
+        this.candlestickSpool = spoolFile != null && !spoolFile.trim().isEmpty()
+                ? new CandlestickSpool(Path.of(spoolFile.trim())) : null;
+        final String columnarStoreDirectory = config.getColumnarStoreDirectory();
+        this.columnarPriceStore = columnarStoreDirectory != null && !columnarStoreDirectory.trim().isEmpty()
+                ? new ColumnarPriceStore(Path.of(columnarStoreDirectory.trim())) : null;
     }
 
     /**
@@ -32,7 +58,13 @@ public class DatabaseManager {
         this.jdbcUrl = jdbcUrl;
         this.username = username;
         this.password = password;
+        this.connectionProperties = DatabaseConfig.connectionProperties(username, password, true);
         this.migrationManager = new MigrationManager(jdbcUrl, username, password);
+        this.validationPolicy = ValidationPolicy.REJECT_ALL;
+        this.skipUnchangedRows = true;
+        this.batchSize = DatabaseConfig.DEFAULT_BATCH_SIZE;
+        this.candlestickSpool = null;
+        this.columnarPriceStore = null;
     }
 
     /**
@@ -44,7 +76,7 @@ public class DatabaseManager {
             Class.forName("org.postgresql.Driver");
 
             // Create new connection each time
-            return DriverManager.getConnection(jdbcUrl, username, password);
+            return DriverManager.getConnection(jdbcUrl, connectionProperties);
 
         } catch (ClassNotFoundException e) {
             throw new SQLException("PostgreSQL driver not found", e);
@@ -66,6 +98,9 @@ public class DatabaseManager {
             // Run all pending migrations
             migrationManager.migrate();
 
+            // Create the partitions of the coming year ahead of time
+            createPartitionsAhead();
+
             logger.info("Database initialized successfully!");
             logger.info("Current database version: {}", migrationManager.getCurrentVersion());
 
@@ -75,10 +110,61 @@ public class DatabaseManager {
     }
 
     /**
-     * Create CandlestickDao instance
+     * Create the candlestick partitions of the current and the next year if they do not exist
+     */
+    private void createPartitionsAhead() throws SQLException {
+        final int currentYear = Year.now(ZoneOffset.UTC).getValue();
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(DbConstants.CREATE_PARTITION_QUERY)) {
+            for (int year = currentYear; year <= currentYear + 1; year++) {
+                statement.setInt(1, year);
+                statement.executeQuery().close();
+            }
+        }
+        logger.info("Candlestick partitions exist through {}", currentYear + 1);
+    }
+
+    /**
+     * Create CandlestickDao instance using the configured validation policy, skipping of unchanged rows and batch size
      */
     public CandlestickDao createCandlestickDao() {
-        return new CandlestickDao(this);
+        CandlestickDao candlestickDao = new CandlestickDao(this);
+        candlestickDao.setValidationPolicy(validationPolicy);
+        candlestickDao.setSkipUnchangedRows(skipUnchangedRows);
+        candlestickDao.setBatchSize(batchSize);
+        return candlestickDao;
+    }
+
+    /**
+     * Create IndicatorDao instance
+     */
+    public IndicatorDao createIndicatorDao() {
+        return new IndicatorDao(this);
+    }
+
+    /**
+     * Create PriceExporter instance
+     */
+    public PriceExporter createPriceExporter() {
+        return new PriceExporter(this);
+    }
+
+    /**
+     * Get the spool of candlesticks that could not be added while the database was unavailable
+     *
+     * @return the spool, or empty if spooling is not configured
+     */
+    public Optional<CandlestickSpool> getCandlestickSpool() {
+        return Optional.ofNullable(candlestickSpool);
+    }
+
+    /**
+     * Get the local columnar copy of the daily candlesticks
+     *
+     * @return the store, or empty if no columnar copy is kept
+     */
+    public Optional<ColumnarPriceStore> getColumnarPriceStore() {
+        return Optional.ofNullable(columnarPriceStore);
     }
 
     /**
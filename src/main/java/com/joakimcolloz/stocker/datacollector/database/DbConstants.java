@@ -25,6 +25,15 @@ public final class DbConstants {
     public static final String DB_PASSWORD = dotenv.get("DB_PASSWORD");
     public static final String CANDLESTICK_TABLE = dotenv.get("DB_SCHEMA") + "." +
                                                   dotenv.get("DB_TABLE");
+    public static final String QUARANTINE_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_quarantine";
+    public static final String SYMBOLS_TABLE = dotenv.get("DB_SCHEMA") + ".symbols";
+    public static final String CANDLESTICK_1MIN_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_1min";
+    public static final String CANDLESTICK_5MIN_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_5min";
+    public static final String CANDLESTICK_15MIN_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_15min";
+    public static final String CANDLESTICK_1HOUR_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_1hour";
+    public static final String CANDLESTICK_1WEEK_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_1week";
+    public static final String CANDLESTICK_1MONTH_TABLE = dotenv.get("DB_SCHEMA") + ".stock_prices_1month";
+    public static final String INDICATOR_TABLE = dotenv.get("DB_SCHEMA") + ".stock_indicators_1day";
 
     /** Database table and attribute name constants */
     public static final String CLOSE_COLUMN = "close";
@@ -36,9 +45,82 @@ public final class DbConstants {
 
     /** SQL query constants */
     public static final String INSERT_CANDLESTICK_QUERY = "INSERT INTO " + CANDLESTICK_TABLE
-            + " (timestamp, open, high, low, close, volume, symbol) "
+            + " (timestamp, open, high, low, close, volume, symbol_id) "
             + "VALUES (?, ?, ?, ?, ?, ?, ?)";
     public static final String SELECT_ALL_QUERY = "SELECT * FROM " + CANDLESTICK_TABLE;
-    public static final String SELECT_BY_SYMBOL_QUERY = "SELECT * FROM " + CANDLESTICK_TABLE + " WHERE symbol = ?";
-    public static final String RESET_TABLE_QUERY = "TRUNCATE TABLE " + CANDLESTICK_TABLE;
+    public static final String SELECT_BY_SYMBOL_QUERY = "SELECT prices.* FROM " + CANDLESTICK_TABLE + " prices"
+            + " JOIN " + SYMBOLS_TABLE + " symbols ON symbols.id = prices.symbol_id WHERE symbols.symbol = ?";
+    /** Upserts a whole series into the intraday table given as %s, with the columns bound as arrays */
+    public static final String UPSERT_INTRADAY_QUERY_FORMAT = "INSERT INTO %s "
+            + "(symbol_id, timestamp, open, high, low, close, volume) "
+            + "SELECT ?, t.* FROM unnest(?::BIGINT[], ?::DOUBLE PRECISION[], ?::DOUBLE PRECISION[], "
+            + "?::DOUBLE PRECISION[], ?::DOUBLE PRECISION[], ?::BIGINT[]) AS t "
+            + "ON CONFLICT (symbol_id, timestamp) DO UPDATE SET open = EXCLUDED.open, high = EXCLUDED.high, "
+            + "low = EXCLUDED.low, close = EXCLUDED.close, volume = EXCLUDED.volume, updated_at = CURRENT_TIMESTAMP";
+    /** Upserts fixed-point prices, bound as BIGINT arrays and multiplied exactly by the NUMERIC unit of their scale */
+    public static final String UPSERT_INTRADAY_FIXED_POINT_QUERY_FORMAT = "INSERT INTO %s "
+            + "(symbol_id, timestamp, open, high, low, close, volume) "
+            + "SELECT ?, t.timestamp, t.open * u.unit, t.high * u.unit, t.low * u.unit, t.close * u.unit, t.volume "
+            + "FROM unnest(?::BIGINT[], ?::BIGINT[], ?::BIGINT[], ?::BIGINT[], ?::BIGINT[], ?::BIGINT[]) "
+            + "AS t(timestamp, open, high, low, close, volume) CROSS JOIN (SELECT ?::NUMERIC AS unit) AS u "
+            + "ON CONFLICT (symbol_id, timestamp) DO UPDATE SET open = EXCLUDED.open, high = EXCLUDED.high, "
+            + "low = EXCLUDED.low, close = EXCLUDED.close, volume = EXCLUDED.volume, updated_at = CURRENT_TIMESTAMP";
+    /** Selects the stored candlesticks of a symbol id in a timestamp range [from, to) of the table given as %s */
+    public static final String SELECT_STORED_WINDOW_QUERY_FORMAT = "SELECT timestamp, open, high, low, close, volume "
+            + "FROM %s WHERE symbol_id = ? AND timestamp >= ? AND timestamp < ?";
+    public static final String SELECT_INTERVAL_BY_SYMBOL_QUERY_FORMAT = "SELECT prices.* FROM %s prices"
+            + " JOIN " + SYMBOLS_TABLE + " symbols ON symbols.id = prices.symbol_id WHERE symbols.symbol = ?"
+            + " ORDER BY prices.timestamp";
+    /** Recomputes the weekly and monthly rollups of a symbol id overlapping a timestamp range */
+    public static final String REFRESH_ROLLUPS_QUERY = "SELECT " + dotenv.get("DB_SCHEMA")
+            + ".refresh_stock_price_rollups(?, ?, ?)";
+    /** Returns the id of the symbol, adding the symbol if it does not exist */
+    public static final String UPSERT_SYMBOL_QUERY = "INSERT INTO " + SYMBOLS_TABLE + " (symbol) VALUES (?) "
+            + "ON CONFLICT (symbol) DO UPDATE SET symbol = EXCLUDED.symbol RETURNING id";
+    public static final String RESET_TABLE_QUERY = "TRUNCATE TABLE " + CANDLESTICK_TABLE + ", "
+            + CANDLESTICK_1WEEK_TABLE + ", " + CANDLESTICK_1MONTH_TABLE + ", " + INDICATOR_TABLE;
+    public static final String INSERT_QUARANTINE_QUERY = "INSERT INTO " + QUARANTINE_TABLE
+            + " (symbol, timestamp, open, high, low, close, volume, reason) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    /** Creates the yearly partition of the candlestick table if it does not exist */
+    public static final String CREATE_PARTITION_QUERY = "SELECT " + dotenv.get("DB_SCHEMA")
+            + ".create_stock_prices_partition(?)";
+    /** Detaches the partition of the year given as %d from the candlestick table */
+    public static final String DETACH_PARTITION_QUERY_FORMAT = "ALTER TABLE " + CANDLESTICK_TABLE
+            + " DETACH PARTITION " + dotenv.get("DB_SCHEMA") + ".stock_prices_1day_y%d";
+    public static final String COUNT_QUARANTINE_BY_SYMBOL_QUERY = "SELECT COUNT(*) FROM " + QUARANTINE_TABLE
+            + " WHERE symbol = ?";
+
+    /** Indicator query constants */
+    public static final String SELECT_SYMBOL_ID_QUERY = "SELECT id FROM " + SYMBOLS_TABLE + " WHERE symbol = ?";
+    public static final String SELECT_LAST_INDICATOR_TIMESTAMP_QUERY = "SELECT MAX(timestamp) FROM " + INDICATOR_TABLE
+            + " WHERE symbol_id = ?";
+    public static final String SELECT_INDICATOR_BEFORE_QUERY = "SELECT * FROM " + INDICATOR_TABLE
+            + " WHERE symbol_id = ? AND timestamp < ? ORDER BY timestamp DESC LIMIT 1";
+    public static final String SELECT_RECENT_CLOSES_QUERY = "SELECT close FROM " + CANDLESTICK_TABLE
+            + " WHERE symbol_id = ? AND timestamp <= ? ORDER BY timestamp DESC LIMIT ?";
+    public static final String COUNT_CANDLESTICKS_UNTIL_QUERY = "SELECT COUNT(*) FROM " + CANDLESTICK_TABLE
+            + " WHERE symbol_id = ? AND timestamp <= ?";
+    public static final String SELECT_CANDLESTICKS_AFTER_QUERY = "SELECT timestamp, high, low, close FROM "
+            + CANDLESTICK_TABLE + " WHERE symbol_id = ? AND timestamp > ? ORDER BY timestamp";
+    public static final String DELETE_INDICATORS_AFTER_QUERY = "DELETE FROM " + INDICATOR_TABLE
+            + " WHERE symbol_id = ? AND timestamp > ?";
+    public static final String INSERT_INDICATOR_QUERY = "INSERT INTO " + INDICATOR_TABLE
+            + " (symbol_id, timestamp, close, candle_count, sma_20, ema_20, rsi_14, atr_14, "
+            + "ema_state, gain_state, loss_state, atr_state) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final String SELECT_INDICATORS_BY_SYMBOL_QUERY = "SELECT indicators.* FROM " + INDICATOR_TABLE
+            + " indicators JOIN " + SYMBOLS_TABLE + " symbols ON symbols.id = indicators.symbol_id"
+            + " WHERE symbols.symbol = ? ORDER BY indicators.timestamp";
+
+    /** Export query constants */
+    public static final String SELECT_EXPORT_ROWS_QUERY = "SELECT symbols.symbol, prices.timestamp, prices.open, "
+            + "prices.high, prices.low, prices.close, prices.volume FROM " + CANDLESTICK_TABLE + " prices"
+            + " JOIN " + SYMBOLS_TABLE + " symbols ON symbols.id = prices.symbol_id"
+            + " ORDER BY prices.symbol_id, prices.timestamp";
+    public static final String SELECT_EXPORT_ROWS_SINCE_QUERY = "SELECT symbols.symbol, prices.timestamp, "
+            + "prices.open, prices.high, prices.low, prices.close, prices.volume FROM " + CANDLESTICK_TABLE + " prices"
+            + " JOIN " + SYMBOLS_TABLE + " symbols ON symbols.id = prices.symbol_id"
+            + " WHERE prices.updated_at > ? ORDER BY prices.symbol_id, prices.timestamp";
+    /** Watermark of an export, behind the current time so that rows of transactions still running are not missed */
+    public static final String SELECT_EXPORT_WATERMARK_QUERY = "SELECT LOCALTIMESTAMP - INTERVAL '1 minute'";
 }
@@ -0,0 +1,306 @@
+package com.joakimcolloz.stocker.datacollector.database;
+
+import com.joakimcolloz.stocker.datacollector.database.validation.DatabaseInputValidator;
+import com.joakimcolloz.stocker.datacollector.indicators.IndicatorState;
+import com.joakimcolloz.stocker.datacollector.indicators.IndicatorValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.COUNT_CANDLESTICKS_UNTIL_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.DELETE_INDICATORS_AFTER_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.INSERT_INDICATOR_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_CANDLESTICKS_AFTER_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_INDICATORS_BY_SYMBOL_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_INDICATOR_BEFORE_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_LAST_INDICATOR_TIMESTAMP_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_RECENT_CLOSES_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_SYMBOL_ID_QUERY;
+
+/**
+ * Database access object for the technical indicators of the daily candlesticks, computed with
+ * {@link IndicatorState}.
+ * <p>
+ * {@link #updateIndicators(String, long)} continues from the stored indicator rows instead of the whole history:
+ * the state is restored from the row before both the last stored candlestick, which is recomputed since the
+ * daily candlestick of the latest day may have been updated, and the day of the earliest written candlestick,
+ * e.g. of a backfill of older history. Only the candlesticks after that row are processed. If the number of
+ * stored candlesticks up to that row does not match its candle count, older candlesticks were added without
+ * passing their timestamp, and all indicators are recomputed.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ * @see IndicatorState
+ */
+public class IndicatorDao {
+    private static final Logger logger = LoggerFactory.getLogger(IndicatorDao.class);
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final DatabaseManager databaseManager;
+    private final DatabaseInputValidator validator;
+
+    /**
+     * Preferably use {@link DatabaseManager#createIndicatorDao()} instead of calling this constructor directly.
+     *
+     * @param databaseManager the database manager to use for connections
+     */
+    public IndicatorDao(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+        this.validator = new DatabaseInputValidator();
+    }
+
+    /**
+     * Computes and stores the indicators of the daily candlesticks of a symbol that were added after the last
+     * update, or that may have changed on its last day, in one transaction.
+     *
+     * @param symbol the stock symbol
+     * @return the number of computed indicator rows, 0 if the symbol has no candlesticks
+     * @throws IllegalArgumentException if the symbol is invalid
+     * @throws RuntimeException         if a database error occurs
+     * @see #updateIndicators(String, long)
+     */
+    public int updateIndicators(String symbol) {
+        return updateIndicators(symbol, InsertResult.NOTHING_WRITTEN);
+    }
+
+    /**
+     * Computes and stores the indicators of the daily candlesticks of a symbol that were written since the last
+     * update, in one transaction.
+     *
+     * @param symbol                the stock symbol
+     * @param firstWrittenTimestamp the earliest timestamp of the written candlesticks, see
+     *                              {@link InsertResult#firstWrittenTimestamp()}
+     * @return the number of computed indicator rows, 0 if the symbol has no candlesticks
+     * @throws IllegalArgumentException if the symbol is invalid
+     * @throws RuntimeException         if a database error occurs
+     */
+    public int updateIndicators(String symbol, long firstWrittenTimestamp) {
+        validator.validateSymbol(symbol);
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                final Integer symbolId = findSymbolId(symbol, connection);
+                if (symbolId == null) {
+                    logger.warn("No candlesticks stored for symbol {}, no indicators to update", symbol);
+                    return 0;
+                }
+
+                // Restore the state before the last stored row, so that row is recomputed too, and before the
+                // day of the first written row. A day earlier is a previous day in any time zone.
+                IndicatorState state = IndicatorState.empty();
+                long afterTimestamp = NO_TIMESTAMP;
+                final long lastTimestamp = findLastTimestamp(symbolId, connection);
+                final long seedBefore = Math.min(lastTimestamp,
+                        firstWrittenTimestamp == InsertResult.NOTHING_WRITTEN
+                                ? firstWrittenTimestamp : firstWrittenTimestamp - SECONDS_PER_DAY + 1);
+                final IndicatorValues seed = lastTimestamp == NO_TIMESTAMP
+                        ? null : findIndicatorBefore(symbolId, seedBefore, connection);
+                if (seed != null) {
+                    final long storedCount = countCandlesticksUntil(symbolId, seed.timestamp(), connection);
+                    if (storedCount != seed.candleCount()) {
+                        logger.warn("Recomputing all indicators for symbol {}, {} candlesticks are stored up to {} "
+                                + "but the indicators were computed from {}", symbol, storedCount, seed.timestamp(),
+                                seed.candleCount());
+                    } else {
+                        try {
+                            state = IndicatorState.restore(seed,
+                                    findRecentCloses(symbolId, seed.timestamp(), connection));
+                            afterTimestamp = seed.timestamp();
+                        } catch (IllegalArgumentException e) {
+                            logger.warn("Recomputing all indicators for symbol {}, stored state does not match the "
+                                    + "candlesticks: {}", symbol, e.getMessage());
+                        }
+                    }
+                }
+
+                final List<IndicatorValues> values = computeAfter(symbolId, afterTimestamp, state, connection);
+                replaceAfter(symbolId, afterTimestamp, values, connection);
+                connection.commit();
+
+                logger.info("Updated {} indicator rows for symbol {}", values.size(), symbol);
+                return values.size();
+            } catch (SQLException e) {
+                logger.error("Error updating indicators for symbol {}: {}", symbol, e.getMessage(), e);
+                connection.rollback();
+                throw new RuntimeException("Failed to update indicators for symbol: " + symbol, e);
+            }
+        } catch (SQLException e) {
+            logger.error("Error establishing database connection for symbol {}: {}", symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to establish database connection for symbol: " + symbol, e);
+        }
+    }
+
+    /**
+     * Retrieves the stored indicators of a symbol, ordered by timestamp.
+     *
+     * @param symbol the stock symbol
+     * @return the indicator values, or an empty list if the symbol has none
+     * @throws IllegalArgumentException if the symbol is invalid
+     * @throws RuntimeException         if a database error occurs
+     */
+    public List<IndicatorValues> getIndicators(String symbol) {
+        validator.validateSymbol(symbol);
+        final List<IndicatorValues> values = new ArrayList<>();
+
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_INDICATORS_BY_SYMBOL_QUERY)) {
+            statement.setString(1, symbol);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(createIndicatorValues(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error getting indicators for symbol {}: {}", symbol, e.getMessage(), e);
+            throw new RuntimeException("Failed to get indicators for symbol: " + symbol, e);
+        }
+        return values;
+    }
+
+    private List<IndicatorValues> computeAfter(int symbolId, long afterTimestamp, IndicatorState state,
+                                               Connection connection) throws SQLException {
+        final List<IndicatorValues> values = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_CANDLESTICKS_AFTER_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, afterTimestamp);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(state.next(resultSet.getLong(1), resultSet.getDouble(2),
+                            resultSet.getDouble(3), resultSet.getDouble(4)));
+                }
+            }
+        }
+        return values;
+    }
+
+    private void replaceAfter(int symbolId, long afterTimestamp, List<IndicatorValues> values,
+                              Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_INDICATORS_AFTER_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, afterTimestamp);
+            statement.executeUpdate();
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_INDICATOR_QUERY)) {
+            for (IndicatorValues value : values) {
+                statement.setInt(1, symbolId);
+                statement.setLong(2, value.timestamp());
+                statement.setDouble(3, value.close());
+                statement.setInt(4, value.candleCount());
+                setNullableDouble(statement, 5, value.sma());
+                setNullableDouble(statement, 6, value.ema());
+                setNullableDouble(statement, 7, value.rsi());
+                setNullableDouble(statement, 8, value.atr());
+                statement.setDouble(9, value.emaState());
+                statement.setDouble(10, value.gainState());
+                statement.setDouble(11, value.lossState());
+                statement.setDouble(12, value.atrState());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void setNullableDouble(PreparedStatement statement, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            statement.setNull(index, Types.DOUBLE);
+        } else {
+            statement.setDouble(index, value);
+        }
+    }
+
+    private static Integer findSymbolId(String symbol, Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_SYMBOL_ID_QUERY)) {
+            statement.setString(1, symbol);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        }
+    }
+
+    private static long findLastTimestamp(int symbolId, Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_LAST_INDICATOR_TIMESTAMP_QUERY)) {
+            statement.setInt(1, symbolId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return NO_TIMESTAMP;
+                }
+                final long timestamp = resultSet.getLong(1);
+                return resultSet.wasNull() ? NO_TIMESTAMP : timestamp;
+            }
+        }
+    }
+
+    private static long countCandlesticksUntil(int symbolId, long timestamp, Connection connection)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_CANDLESTICKS_UNTIL_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, timestamp);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static IndicatorValues findIndicatorBefore(int symbolId, long timestamp,
+                                                       Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_INDICATOR_BEFORE_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, timestamp);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? createIndicatorValues(resultSet) : null;
+            }
+        }
+    }
+
+    /**
+     * @return the closes up to and including the timestamp, oldest first
+     */
+    private static double[] findRecentCloses(int symbolId, long timestamp, Connection connection) throws SQLException {
+        final double[] newestFirst = new double[IndicatorState.SMA_PERIOD];
+        int count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_RECENT_CLOSES_QUERY)) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, timestamp);
+            statement.setInt(3, IndicatorState.SMA_PERIOD);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    newestFirst[count++] = resultSet.getDouble(1);
+                }
+            }
+        }
+
+        final double[] closes = new double[count];
+        for (int i = 0; i < count; i++) {
+            closes[i] = newestFirst[count - 1 - i];
+        }
+        return closes;
+    }
+
+    private static IndicatorValues createIndicatorValues(ResultSet resultSet) throws SQLException {
+        return new IndicatorValues(resultSet.getLong("timestamp"), resultSet.getDouble("close"),
+                resultSet.getInt("candle_count"), getNullableDouble(resultSet, "sma_20"),
+                getNullableDouble(resultSet, "ema_20"), getNullableDouble(resultSet, "rsi_14"),
+                getNullableDouble(resultSet, "atr_14"), resultSet.getDouble("ema_state"),
+                resultSet.getDouble("gain_state"), resultSet.getDouble("loss_state"),
+                resultSet.getDouble("atr_state"));
+    }
+
+    private static double getNullableDouble(ResultSet resultSet, String column) throws SQLException {
+        final double value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? Double.NaN : value;
+    }
+}
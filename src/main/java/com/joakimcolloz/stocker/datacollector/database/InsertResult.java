@@ -0,0 +1,50 @@
+package com.joakimcolloz.stocker.datacollector.database;
+
+import com.joakimcolloz.stocker.datacollector.database.validation.RejectedCandlestick;
+
+import java.util.List;
+
+/**
+ * Result of adding a series of candlesticks with {@link CandlestickDao#addRows(String, com.joakimcolloz.stocker.datacollector.model.CandlestickSeries)}.
+ *
+ * @param insertedCount  the number of rows inserted or updated
+ * @param updatedCount   of the inserted rows, the number that replaced a different stored row; only known when
+ *                       unchanged rows are skipped, 0 otherwise
+ * @param unchangedCount        the number of valid rows that were already stored unchanged and were not written
+ * @param rejected              the rows that failed validation and were not inserted
+ * @param firstWrittenTimestamp the earliest timestamp of the inserted rows, {@link #NOTHING_WRITTEN} if none
+ *
+ * @author Joakim Colloz
+ * @version 1.2
+ * @see CandlestickDao#setSkipUnchangedRows(boolean)
+ */
+public record InsertResult(int insertedCount, int updatedCount, int unchangedCount,
+                           List<RejectedCandlestick> rejected, long firstWrittenTimestamp) {
+    /** The first written timestamp of a result without inserted rows, later than any timestamp */
+    public static final long NOTHING_WRITTEN = Long.MAX_VALUE;
+
+    public InsertResult {
+        rejected = List.copyOf(rejected);
+    }
+
+    /**
+     * Creates a result of an insert that did not compare the rows with the stored rows.
+     *
+     * @param insertedCount the number of rows inserted or updated
+     * @param rejected      the rows that failed validation and were not inserted
+     */
+    public InsertResult(int insertedCount, List<RejectedCandlestick> rejected) {
+        this(insertedCount, 0, 0, rejected, NOTHING_WRITTEN);
+    }
+
+    public int rejectedCount() {
+        return rejected.size();
+    }
+
+    /**
+     * @return the number of inserted rows that were not stored before
+     */
+    public int newCount() {
+        return insertedCount - updatedCount;
+    }
+}
@@ -0,0 +1,143 @@
+package com.joakimcolloz.stocker.datacollector.database;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_STORED_WINDOW_QUERY_FORMAT;
+
+/**
+ * The stored candlesticks of a symbol within the time window of a series about to be written, loaded with one
+ * range query, so rows that are already stored unchanged can be skipped instead of rewritten.
+ * <p>
+ * Daily rows are matched by their UTC day, as the same day trigger of the daily table (V011) keeps one row per
+ * symbol and UTC day, intraday rows by their timestamp. Prices are compared at the six decimals of the candlestick tables, so a fetched double and the
+ * decimal it was stored as compare equal, and fixed-point prices compare exactly.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ * @see CandlestickDao#setSkipUnchangedRows(boolean)
+ */
+final class StoredWindow {
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final int PRICE_DECIMALS = 6;
+    private static final double PRICE_UNIT = FixedPoint.unit(PRICE_DECIMALS);
+
+    /**
+     * How a row of the series compares with the stored rows.
+     */
+    enum Match {
+        /** No row is stored for the timestamp, or day of a daily row */
+        NEW,
+        /** A different row is stored, writing the row updates it */
+        CHANGED,
+        /** The same row is stored, writing the row can be skipped */
+        UNCHANGED
+    }
+
+    private final boolean daily;
+    // Timestamp, open, high, low, close and volume of each stored row, prices with PRICE_DECIMALS decimals
+    private final Map<Long, long[]> rows;
+
+    private StoredWindow(boolean daily, Map<Long, long[]> rows) {
+        this.daily = daily;
+        this.rows = rows;
+    }
+
+    /**
+     * Loads the stored rows of the symbol in the window of the series.
+     *
+     * @param connection the connection to query
+     * @param table      the candlestick table
+     * @param symbolId   the id of the symbol
+     * @param series     the series about to be written, not empty
+     * @param daily      true to match rows by UTC day, false to match them by timestamp
+     * @return the stored rows
+     * @throws SQLException if the query fails
+     */
+    static StoredWindow load(Connection connection, String table, int symbolId, CandlestickSeries series,
+                             boolean daily) throws SQLException {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < series.size(); i++) {
+            first = Math.min(first, series.timestamp(i));
+            last = Math.max(last, series.timestamp(i));
+        }
+        // A daily row replaces the stored row of its day, whatever the time of day of either
+        final long from = daily ? Math.floorDiv(first, SECONDS_PER_DAY) * SECONDS_PER_DAY : first;
+        final long to = daily ? (Math.floorDiv(last, SECONDS_PER_DAY) + 1) * SECONDS_PER_DAY : last + 1;
+
+        final Map<Long, long[]> rows = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                String.format(SELECT_STORED_WINDOW_QUERY_FORMAT, table))) {
+            statement.setInt(1, symbolId);
+            statement.setLong(2, from);
+            statement.setLong(3, to);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final long timestamp = resultSet.getLong(1);
+                    rows.put(daily ? Math.floorDiv(timestamp, SECONDS_PER_DAY) : timestamp, new long[]{timestamp,
+                            resultSet.getBigDecimal(2).movePointRight(PRICE_DECIMALS).longValue(),
+                            resultSet.getBigDecimal(3).movePointRight(PRICE_DECIMALS).longValue(),
+                            resultSet.getBigDecimal(4).movePointRight(PRICE_DECIMALS).longValue(),
+                            resultSet.getBigDecimal(5).movePointRight(PRICE_DECIMALS).longValue(),
+                            resultSet.getLong(6)});
+                }
+            }
+        }
+        return new StoredWindow(daily, rows);
+    }
+
+    /**
+     * @return the number of stored rows in the window
+     */
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * Compares a row of the series with the stored row of its timestamp, or day of a daily row.
+     *
+     * @param series the series the window was loaded for
+     * @param index  the row index
+     * @return how the row compares with the stored rows
+     */
+    Match match(CandlestickSeries series, int index) {
+        final long timestamp = series.timestamp(index);
+        final long[] stored = rows.get(daily ? Math.floorDiv(timestamp, SECONDS_PER_DAY) : timestamp);
+        if (stored == null) {
+            return Match.NEW;
+        }
+        if (stored[0] != timestamp || stored[5] != series.volume(index)) {
+            return Match.CHANGED;
+        }
+        final boolean unchanged;
+        if (series.isFixedPoint()) {
+            final long unit = FixedPoint.unit(PRICE_DECIMALS - series.priceScale());
+            unchanged = stored[1] == series.scaledOpen(index) * unit
+                    && stored[2] == series.scaledHigh(index) * unit
+                    && stored[3] == series.scaledLow(index) * unit
+                    && stored[4] == series.scaledClose(index) * unit;
+        } else {
+            unchanged = stored[1] == toStoredPrice(series.open(index))
+                    && stored[2] == toStoredPrice(series.high(index))
+                    && stored[3] == toStoredPrice(series.low(index))
+                    && stored[4] == toStoredPrice(series.close(index));
+        }
+        return unchanged ? Match.UNCHANGED : Match.CHANGED;
+    }
+
+    /**
+     * @return the decimal the database rounds the price to, with {@value #PRICE_DECIMALS} decimals
+     */
+    private static long toStoredPrice(double price) {
+        return Math.round(price * PRICE_UNIT);
+    }
+}
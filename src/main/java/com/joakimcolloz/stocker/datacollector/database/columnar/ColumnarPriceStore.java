@@ -0,0 +1,327 @@
+package com.joakimcolloz.stocker.datacollector.database.columnar;
+
+import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Local mirror of the daily candlesticks, one memory-mapped columnar file per symbol, so that analytics jobs
+ * can scan a price history without a round trip to the database.
+ * <p>
+ * A file starts with a 64 byte header holding the number of rows and the capacity, followed by one column of
+ * {@code capacity} little-endian values per field: timestamps, open, high, low, close and volume.
+ * Columns are preallocated, so new rows are appended in place and the row count is written last.
+ * When the capacity is exceeded, or rows arrive out of order, the file is rewritten and replaced atomically.
+ * </p>
+ * <p>
+ * Like the same day trigger of the daily table (V011), the store keeps one row per symbol and UTC day: a row for
+ * a day that is already stored replaces it. {@link #read(String)} maps the file read-only and returns zero-copy views of its columns.
+ * Readers in other processes see a consistent snapshot of the appended rows, but may see a row being replaced.
+ * A single writer per directory is assumed.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ */
+public class ColumnarPriceStore {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarPriceStore.class);
+    private static final int MAGIC = 0x50434F4C; // "PCOL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int COLUMN_COUNT = 6;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final String FILE_SUFFIX = ".cols";
+
+    private final Path directory;
+    private final Map<String, MappedByteBuffer> writableFiles = new HashMap<>();
+
+    /**
+     * Opens a store in the given directory.
+     *
+     * @param directory the directory of the columnar files, created if missing
+     * @throws IllegalArgumentException if the directory is null or cannot be created
+     */
+    public ColumnarPriceStore(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Store directory cannot be null");
+        }
+        this.directory = directory.toAbsolutePath();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to open columnar price store directory: " + this.directory, e);
+        }
+        logger.info("Columnar price store opened in {}", this.directory);
+    }
+
+    /**
+     * @param symbol the stock symbol
+     * @return true if the store has a file for the symbol
+     */
+    public boolean contains(String symbol) {
+        return Files.exists(file(symbol));
+    }
+
+    /**
+     * Adds the rows of a series to the file of the symbol, replacing stored rows of the same UTC day.
+     *
+     * @param symbol the stock symbol
+     * @param series the rows to add, normally ordered by timestamp
+     * @return the number of rows added or replaced
+     * @throws IllegalArgumentException if the symbol or series is null
+     * @throws IOException              if the file could not be read or written
+     */
+    public synchronized int update(String symbol, CandlestickSeries series) throws IOException {
+        if (symbol == null || series == null) {
+            throw new IllegalArgumentException("Symbol and series cannot be null");
+        }
+        if (series.isEmpty()) {
+            return 0;
+        }
+
+        final MappedByteBuffer buffer = writable(symbol);
+        if (buffer == null) {
+            return rewrite(symbol, null, series);
+        }
+        final int count = rowCount(buffer);
+        final int capacity = buffer.getInt(CAPACITY_OFFSET);
+
+        // Find the row of every new candlestick first, so that nothing is written if the file must be rewritten
+        final int[] rows = new int[series.size()];
+        long lastDay = count > 0 ? day(timestamp(buffer, capacity, count - 1)) : Long.MIN_VALUE;
+        int appendedCount = 0;
+        for (int i = 0; i < series.size(); i++) {
+            final long day = day(series.timestamp(i));
+            if (day > lastDay) {
+                rows[i] = count + appendedCount++;
+                lastDay = day;
+            } else {
+                rows[i] = findDay(buffer, capacity, count, day);
+                if (rows[i] < 0) {
+                    logger.debug("Rewriting columnar file of symbol {} for out of order candlesticks", symbol);
+                    return rewrite(symbol, buffer, series);
+                }
+            }
+        }
+        if (count + appendedCount > capacity) {
+            logger.debug("Growing columnar file of symbol {} beyond {} rows", symbol, capacity);
+            return rewrite(symbol, buffer, series);
+        }
+
+        for (int i = 0; i < series.size(); i++) {
+            putRow(buffer, capacity, rows[i], series.candlestick(i));
+        }
+        buffer.putLong(COUNT_OFFSET, count + appendedCount);
+        logger.debug("Updated columnar file of symbol {}: {} rows appended, {} replaced",
+                symbol, appendedCount, series.size() - appendedCount);
+        return series.size();
+    }
+
+    /**
+     * Maps the file of the symbol read-only.
+     *
+     * @param symbol the stock symbol
+     * @return views of the stored rows, or empty if the symbol is not stored
+     * @throws IOException if the file could not be mapped or is not a columnar price file
+     */
+    public Optional<PriceColumns> read(String symbol) throws IOException {
+        final Path file = file(symbol);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        checkHeader(buffer, file);
+        final int count = rowCount(buffer);
+        final int capacity = buffer.getInt(CAPACITY_OFFSET);
+        return Optional.of(new PriceColumns(count,
+                column(buffer, capacity, 0, count).asLongBuffer(),
+                column(buffer, capacity, 1, count).asDoubleBuffer(),
+                column(buffer, capacity, 2, count).asDoubleBuffer(),
+                column(buffer, capacity, 3, count).asDoubleBuffer(),
+                column(buffer, capacity, 4, count).asDoubleBuffer(),
+                column(buffer, capacity, 5, count).asLongBuffer()));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Merges the stored rows and the series by day and writes them to a new file replacing the current one.
+     */
+    private int rewrite(String symbol, MappedByteBuffer current, CandlestickSeries series) throws IOException {
+        final TreeMap<Long, Candlestick> rowsByDay = new TreeMap<>();
+        if (current != null) {
+            final int count = rowCount(current);
+            final int capacity = current.getInt(CAPACITY_OFFSET);
+            for (int row = 0; row < count; row++) {
+                final Candlestick candlestick = getRow(current, capacity, row);
+                rowsByDay.put(day(candlestick.timestamp()), candlestick);
+            }
+        }
+        for (int i = 0; i < series.size(); i++) {
+            rowsByDay.put(day(series.timestamp(i)), series.candlestick(i));
+        }
+
+        final int count = rowsByDay.size();
+        final int capacity = Math.max(MIN_CAPACITY, count * 2);
+        final Path file = file(symbol);
+        final Path temporaryFile = Files.createTempFile(directory, "columns", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            int row = 0;
+            for (Candlestick candlestick : rowsByDay.values()) {
+                putRow(buffer, capacity, row++, candlestick);
+            }
+            buffer.putLong(COUNT_OFFSET, count);
+            buffer.force();
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writableFiles.remove(symbol);
+
+        logger.debug("Wrote columnar file of symbol {} with {} rows and capacity {}", symbol, count, capacity);
+        return series.size();
+    }
+
+    /**
+     * Maps the file of the symbol for writing, reusing the mapping of earlier updates.
+     *
+     * @return the mapped file, or null if the symbol is not stored
+     */
+    private MappedByteBuffer writable(String symbol) throws IOException {
+        MappedByteBuffer buffer = writableFiles.get(symbol);
+        if (buffer != null) {
+            return buffer;
+        }
+        final Path file = file(symbol);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        checkHeader(buffer, file);
+        writableFiles.put(symbol, buffer);
+        return buffer;
+    }
+
+    private static void checkHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a columnar price file: " + file);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported columnar price file version " + buffer.getInt(4) + ": " + file);
+        }
+        final int capacity = buffer.getInt(CAPACITY_OFFSET);
+        final long count = buffer.getLong(COUNT_OFFSET);
+        if (capacity < 0 || buffer.capacity() < fileSize(capacity) || count < 0 || count > capacity) {
+            throw new IOException("Corrupt columnar price file: " + file);
+        }
+    }
+
+    private static int rowCount(ByteBuffer buffer) {
+        return (int) buffer.getLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Binary search for the stored row of a UTC day.
+     *
+     * @return the row of the day, or -1 if the day is not stored
+     */
+    private static int findDay(ByteBuffer buffer, int capacity, int count, long day) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long middleDay = day(timestamp(buffer, capacity, middle));
+            if (middleDay < day) {
+                low = middle + 1;
+            } else if (middleDay > day) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static long timestamp(ByteBuffer buffer, int capacity, int row) {
+        return buffer.getLong(offset(capacity, 0, row));
+    }
+
+    private static Candlestick getRow(ByteBuffer buffer, int capacity, int row) {
+        return new Candlestick(
+                buffer.getDouble(offset(capacity, 1, row)),
+                buffer.getDouble(offset(capacity, 2, row)),
+                buffer.getDouble(offset(capacity, 3, row)),
+                buffer.getDouble(offset(capacity, 4, row)),
+                buffer.getLong(offset(capacity, 5, row)),
+                buffer.getLong(offset(capacity, 0, row)));
+    }
+
+    private static void putRow(ByteBuffer buffer, int capacity, int row, Candlestick candlestick) {
+        buffer.putLong(offset(capacity, 0, row), candlestick.timestamp());
+        buffer.putDouble(offset(capacity, 1, row), candlestick.open());
+        buffer.putDouble(offset(capacity, 2, row), candlestick.high());
+        buffer.putDouble(offset(capacity, 3, row), candlestick.low());
+        buffer.putDouble(offset(capacity, 4, row), candlestick.close());
+        buffer.putLong(offset(capacity, 5, row), candlestick.volume());
+    }
+
+    private static ByteBuffer column(ByteBuffer buffer, int capacity, int column, int count) {
+        return buffer.slice(offset(capacity, column, 0), count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int offset(int capacity, int column, int row) {
+        return HEADER_BYTES + (column * capacity + row) * Long.BYTES;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) COLUMN_COUNT * capacity * Long.BYTES;
+    }
+
+    private static long day(long timestamp) {
+        return Math.floorDiv(timestamp, SECONDS_PER_DAY);
+    }
+
+    private Path file(String symbol) {
+        if (symbol == null || symbol.isEmpty()) {
+            throw new IllegalArgumentException("Symbol cannot be null or empty");
+        }
+        return directory.resolve(symbol.replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarPriceStore{directory=" + directory + "}";
+    }
+}
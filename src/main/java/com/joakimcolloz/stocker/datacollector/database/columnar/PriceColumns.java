@@ -0,0 +1,50 @@
+package com.joakimcolloz.stocker.datacollector.database.columnar;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Read-only view of the daily price history of a symbol in a {@link ColumnarPriceStore}, one buffer per column.
+ * <p>
+ * The buffers are backed directly by the memory-mapped file, so reading them does not copy the data.
+ * Rows are ordered by timestamp and each buffer holds exactly {@link #size()} values. The buffers are shared
+ * by all users of the view, so read them with the absolute getters, e.g. {@code closes().get(i)}.
+ * </p>
+ *
+ * @param size       the number of rows
+ * @param timestamps the Unix timestamps (seconds since epoch) of the rows
+ * @param opens      the opening prices
+ * @param highs      the highest prices
+ * @param lows       the lowest prices
+ * @param closes     the closing prices
+ * @param volumes    the volumes
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public record PriceColumns(int size, LongBuffer timestamps, DoubleBuffer opens, DoubleBuffer highs,
+                           DoubleBuffer lows, DoubleBuffer closes, LongBuffer volumes) {
+
+    /**
+     * Copies the view into a series, e.g. to use the rows after the store has been updated.
+     *
+     * @return a new series with the rows of the view
+     */
+    public CandlestickSeries toSeries() {
+        final long[] timestampArray = new long[size];
+        final double[] openArray = new double[size];
+        final double[] highArray = new double[size];
+        final double[] lowArray = new double[size];
+        final double[] closeArray = new double[size];
+        final long[] volumeArray = new long[size];
+        timestamps.get(0, timestampArray);
+        opens.get(0, openArray);
+        highs.get(0, highArray);
+        lows.get(0, lowArray);
+        closes.get(0, closeArray);
+        volumes.get(0, volumeArray);
+        return new CandlestickSeries(timestampArray, openArray, highArray, lowArray, closeArray, volumeArray);
+    }
+}
@@ -0,0 +1,176 @@
+package com.joakimcolloz.stocker.datacollector.database.export;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads an export file written by {@link PriceExportWriter}, one row group at a time.
+ *
+ * <pre>{@code
+ * try (PriceExportReader reader = new PriceExportReader(file)) {
+ *     PriceExportReader.RowGroup rowGroup;
+ *     while ((rowGroup = reader.next()) != null) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public class PriceExportReader implements AutoCloseable {
+    private final Path file;
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private boolean ended;
+
+    /**
+     * Opens an export file.
+     *
+     * @param file the export file
+     * @throws IOException if the file could not be opened or is not an export file
+     */
+    public PriceExportReader(Path file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (in.readInt() != PriceExportWriter.MAGIC) {
+                throw new IOException("Not a price export file: " + file);
+            }
+            final byte version = in.readByte();
+            if (version != PriceExportWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported price export version " + version + ": " + file);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next row group.
+     *
+     * @return the next row group, or null after the last row group
+     * @throws IOException if the file could not be read, or ends without its end marker
+     */
+    public RowGroup next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        final byte marker;
+        try {
+            marker = in.readByte();
+        } catch (EOFException e) {
+            throw new IOException("Incomplete price export file: " + file, e);
+        }
+        if (marker == PriceExportWriter.END_MARKER) {
+            ended = true;
+            return null;
+        }
+        if (marker != PriceExportWriter.ROW_GROUP_MARKER) {
+            throw new IOException("Corrupt price export file: " + file);
+        }
+
+        final String symbol = in.readUTF();
+        final int rowCount = in.readInt();
+        if (rowCount < 0 || rowCount > PriceExportWriter.MAX_ROW_GROUP_ROWS) {
+            throw new IOException("Invalid row group size " + rowCount + " in " + file);
+        }
+        final long[] timestamps = readColumn(rowCount);
+        final double[] opens = toPrices(readColumn(rowCount));
+        final double[] highs = toPrices(readColumn(rowCount));
+        final double[] lows = toPrices(readColumn(rowCount));
+        final double[] closes = toPrices(readColumn(rowCount));
+        final long[] volumes = readColumn(rowCount);
+        return new RowGroup(symbol, new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes));
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    private long[] readColumn(int rowCount) throws IOException {
+        final byte encoding = in.readByte();
+        final int encodedLength = in.readInt();
+        final int compressedLength = in.readInt();
+        if (encodedLength < 0 || compressedLength < 0) {
+            throw new IOException("Invalid column chunk in " + file);
+        }
+        final byte[] compressed = in.readNBytes(compressedLength);
+        if (compressed.length < compressedLength) {
+            throw new IOException("Incomplete price export file: " + file);
+        }
+
+        final byte[] encoded = new byte[encodedLength];
+        inflater.reset();
+        inflater.setInput(compressed);
+        int inflated = 0;
+        try {
+            while (inflated < encodedLength && !inflater.finished()) {
+                final int length = inflater.inflate(encoded, inflated, encodedLength - inflated);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += length;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid column chunk in " + file, e);
+        }
+        if (inflated != encodedLength) {
+            throw new IOException("Invalid column chunk in " + file);
+        }
+
+        final long[] values = new long[rowCount];
+        int position = 0;
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte current;
+            do {
+                if (position == encodedLength || shift > 63) {
+                    throw new IOException("Invalid column chunk in " + file);
+                }
+                current = encoded[position++];
+                zigzag |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            final long value = (zigzag >>> 1) ^ -(zigzag & 1);
+
+            switch (encoding) {
+                case PriceExportWriter.ENCODING_DELTA_VARINT -> values[i] = previous + value;
+                case PriceExportWriter.ENCODING_VARINT -> values[i] = value;
+                default -> throw new IOException("Unsupported column encoding " + encoding + " in " + file);
+            }
+            previous = values[i];
+        }
+        return values;
+    }
+
+    private static double[] toPrices(long[] fixedPoint) {
+        final double[] prices = new double[fixedPoint.length];
+        for (int i = 0; i < fixedPoint.length; i++) {
+            prices[i] = fixedPoint[i] / PriceExportWriter.PRICE_SCALE;
+        }
+        return prices;
+    }
+
+    /**
+     * Rows of a symbol read from an export file.
+     *
+     * @param symbol the stock symbol
+     * @param series the rows, in timestamp order
+     */
+    public record RowGroup(String symbol, CandlestickSeries series) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.joakimcolloz.stocker.datacollector.database.export;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes candlesticks to a compressed columnar export file, row by row, keeping only the current row group
+ * in memory.
+ * <p>
+ * Rows are grouped per symbol into row groups of at most {@value #MAX_ROW_GROUP_ROWS} rows. A row group stores
+ * each field as a separate column chunk, compressed with Deflate:
+ * </p>
+ * <ul>
+ *     <li>timestamps and prices as zigzag varints of the difference to the previous row, prices as fixed-point
+ *     values with {@value #PRICE_DECIMALS} decimals, the precision of the candlestick table</li>
+ *     <li>volumes as zigzag varints</li>
+ * </ul>
+ * <p>
+ * The file is written next to its final path and moved there by {@link #close()}, so an export that fails
+ * leaves no partial file behind. The format is read by {@link PriceExportReader}.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public class PriceExportWriter implements AutoCloseable {
+    static final int MAGIC = 0x50455850; // "PEXP"
+    static final byte FORMAT_VERSION = 1;
+    static final byte ROW_GROUP_MARKER = 1;
+    static final byte END_MARKER = 0;
+    static final byte ENCODING_DELTA_VARINT = 1;
+    static final byte ENCODING_VARINT = 2;
+    static final int PRICE_DECIMALS = 6;
+    static final double PRICE_SCALE = 1_000_000.0;
+    static final int MAX_ROW_GROUP_ROWS = 65536;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path file;
+    private final Path temporaryFile;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater();
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    private String symbol;
+    private int rowCount;
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] opens = new long[INITIAL_CAPACITY];
+    private long[] highs = new long[INITIAL_CAPACITY];
+    private long[] lows = new long[INITIAL_CAPACITY];
+    private long[] closes = new long[INITIAL_CAPACITY];
+    private long[] volumes = new long[INITIAL_CAPACITY];
+    private long totalRowCount;
+    private boolean closed;
+
+    /**
+     * Starts writing an export file.
+     *
+     * @param file the path of the export file, replaced when the writer is closed
+     * @throws IOException if the file could not be created
+     */
+    public PriceExportWriter(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.temporaryFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+    }
+
+    /**
+     * Adds a row. Rows of a symbol are expected in timestamp order, for the deltas to be small.
+     *
+     * @param symbol    the stock symbol
+     * @param timestamp the Unix timestamp (seconds since epoch)
+     * @param open      the opening price
+     * @param high      the highest price
+     * @param low       the lowest price
+     * @param close     the closing price
+     * @param volume    the volume
+     * @throws IOException if a completed row group could not be written
+     */
+    public void write(String symbol, long timestamp, double open, double high, double low, double close, long volume)
+            throws IOException {
+        if (!symbol.equals(this.symbol) || rowCount == MAX_ROW_GROUP_ROWS) {
+            flushRowGroup();
+            this.symbol = symbol;
+        }
+        if (rowCount == timestamps.length) {
+            grow();
+        }
+        timestamps[rowCount] = timestamp;
+        opens[rowCount] = toFixedPoint(open);
+        highs[rowCount] = toFixedPoint(high);
+        lows[rowCount] = toFixedPoint(low);
+        closes[rowCount] = toFixedPoint(close);
+        volumes[rowCount] = volume;
+        rowCount++;
+        totalRowCount++;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long getRowCount() {
+        return totalRowCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the last row group and the end marker, and moves the file to its final path.
+     *
+     * @throws IOException if the file could not be written or moved
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean completed = false;
+        try {
+            try {
+                flushRowGroup();
+                out.writeByte(END_MARKER);
+            } finally {
+                deflater.end();
+                out.close();
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * Closes the writer without completing the file, deleting what was written.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deflater.end();
+        try {
+            out.close();
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            // The export has already failed, the temporary file is left behind
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rowCount == 0) {
+            return;
+        }
+        out.writeByte(ROW_GROUP_MARKER);
+        out.writeUTF(symbol);
+        out.writeInt(rowCount);
+        writeColumn(timestamps, ENCODING_DELTA_VARINT);
+        writeColumn(opens, ENCODING_DELTA_VARINT);
+        writeColumn(highs, ENCODING_DELTA_VARINT);
+        writeColumn(lows, ENCODING_DELTA_VARINT);
+        writeColumn(closes, ENCODING_DELTA_VARINT);
+        writeColumn(volumes, ENCODING_VARINT);
+        rowCount = 0;
+    }
+
+    private void writeColumn(long[] values, byte encoding) throws IOException {
+        chunk.reset();
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            final long value = encoding == ENCODING_DELTA_VARINT ? values[i] - previous : values[i];
+            writeVarint(chunk, (value << 1) ^ (value >> 63));
+            previous = values[i];
+        }
+
+        final byte[] encoded = chunk.toByteArray();
+        deflater.reset();
+        deflater.setInput(encoded);
+        deflater.finish();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 2 + 16);
+        while (!deflater.finished()) {
+            compressed.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+        }
+
+        out.writeByte(encoding);
+        out.writeInt(encoded.length);
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream target, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.write((int) value);
+    }
+
+    private static long toFixedPoint(double price) {
+        // Exact for the DECIMAL(15,6) prices of the candlestick table, their doubles are within half a unit
+        return Math.round(price * PRICE_SCALE);
+    }
+
+    private void grow() {
+        final int capacity = Math.min(timestamps.length * 2, MAX_ROW_GROUP_ROWS);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        opens = Arrays.copyOf(opens, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        closes = Arrays.copyOf(closes, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "PriceExportWriter{file=" + file + ", rows=" + totalRowCount + "}";
+    }
+}
@@ -0,0 +1,196 @@
+package com.joakimcolloz.stocker.datacollector.database.export;
+
+import com.joakimcolloz.stocker.datacollector.database.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_ROWS_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_ROWS_SINCE_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_WATERMARK_QUERY;
+
+/**
+ * Exports the daily candlesticks to compressed columnar files written by {@link PriceExportWriter},
+ * one file per symbol or per year.
+ * <p>
+ * The rows are streamed with a server-side cursor, ordered by symbol and timestamp, so only a fetch of rows
+ * and the current row group of each open file are held in memory.
+ * </p>
+ * <p>
+ * Every export returns a watermark. Passing it to {@link #exportSince(Path, Partitioning, LocalDateTime)}
+ * exports only the rows added or updated after it, found with the index on {@code updated_at}. The watermark
+ * lags the database time by a minute so that rows of transactions still running during the export are included
+ * in the next export. Rows may therefore be exported twice, a later export of a row replaces the earlier one.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ */
+public class PriceExporter {
+    private static final Logger logger = LoggerFactory.getLogger(PriceExporter.class);
+    private static final int FETCH_SIZE = 10_000;
+    static final String FILE_SUFFIX = ".pexp";
+
+    /**
+     * How the exported rows are split into files.
+     */
+    public enum Partitioning {
+        /** One file per symbol, named by the symbol */
+        SYMBOL,
+        /** One file per calendar year (UTC), named by the year */
+        YEAR
+    }
+
+    private final DatabaseManager databaseManager;
+
+    public PriceExporter(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Exports all daily candlesticks.
+     *
+     * @param directory    the directory to write the files to, created if missing
+     * @param partitioning how the rows are split into files
+     * @return the exported files and the watermark for the next incremental export
+     * @throws IOException if a file could not be written
+     */
+    public ExportResult exportAll(Path directory, Partitioning partitioning) throws IOException {
+        return export(directory, partitioning, null);
+    }
+
+    /**
+     * Exports the daily candlesticks added or updated after a watermark of an earlier export.
+     * Use a new directory for every export, files of an earlier export with the same name are replaced.
+     *
+     * @param directory    the directory to write the files to, created if missing
+     * @param partitioning how the rows are split into files
+     * @param watermark    the watermark returned by the earlier export
+     * @return the exported files and the watermark for the next incremental export
+     * @throws IllegalArgumentException if the watermark is null
+     * @throws IOException              if a file could not be written
+     */
+    public ExportResult exportSince(Path directory, Partitioning partitioning, LocalDateTime watermark)
+            throws IOException {
+        if (watermark == null) {
+            throw new IllegalArgumentException("Watermark cannot be null");
+        }
+        return export(directory, partitioning, watermark);
+    }
+
+    private ExportResult export(Path directory, Partitioning partitioning, LocalDateTime since) throws IOException {
+        if (directory == null || partitioning == null) {
+            throw new IllegalArgumentException("Directory and partitioning cannot be null");
+        }
+        Files.createDirectories(directory);
+        logger.info("Exporting candlesticks {} to {} partitioned by {}",
+                since != null ? "updated after " + since : "of all symbols", directory, partitioning);
+
+        final Map<String, PriceExportWriter> writers = new LinkedHashMap<>();
+        final List<Path> files = new ArrayList<>();
+        long rowCount = 0;
+        final LocalDateTime watermark;
+        try (Connection connection = databaseManager.getConnection()) {
+            // The cursor is only kept server-side within a transaction
+            connection.setAutoCommit(false);
+            watermark = selectWatermark(connection);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    since != null ? SELECT_EXPORT_ROWS_SINCE_QUERY : SELECT_EXPORT_ROWS_QUERY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                if (since != null) {
+                    statement.setObject(1, since);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    String currentSymbol = null;
+                    while (resultSet.next()) {
+                        final String symbol = resultSet.getString(1);
+                        final long timestamp = resultSet.getLong(2);
+                        if (partitioning == Partitioning.SYMBOL && !symbol.equals(currentSymbol)) {
+                            // Rows are ordered by symbol, the file of the previous symbol is complete
+                            closeAll(writers, files);
+                            currentSymbol = symbol;
+                        }
+                        final String partition = partitioning == Partitioning.SYMBOL
+                                ? symbol : String.valueOf(yearOf(timestamp));
+                        PriceExportWriter writer = writers.get(partition);
+                        if (writer == null) {
+                            writer = new PriceExportWriter(directory.resolve(fileName(partition)));
+                            writers.put(partition, writer);
+                        }
+                        writer.write(symbol, timestamp, resultSet.getDouble(3), resultSet.getDouble(4),
+                                resultSet.getDouble(5), resultSet.getDouble(6), resultSet.getLong(7));
+                        rowCount++;
+                    }
+                }
+            }
+            connection.commit();
+            closeAll(writers, files);
+        } catch (SQLException e) {
+            writers.values().forEach(PriceExportWriter::abort);
+            logger.error("Database error during export to {}: {}", directory, e.getMessage(), e);
+            throw new RuntimeException("Failed to export candlesticks to: " + directory, e);
+        } catch (IOException | RuntimeException e) {
+            writers.values().forEach(PriceExportWriter::abort);
+            throw e;
+        }
+
+        logger.info("Exported {} candlesticks to {} files in {}, watermark {}", rowCount, files.size(), directory,
+                watermark);
+        return new ExportResult(rowCount, files, watermark);
+    }
+
+    private static LocalDateTime selectWatermark(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_EXPORT_WATERMARK_QUERY);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new SQLException("No export watermark returned");
+            }
+            return resultSet.getObject(1, LocalDateTime.class);
+        }
+    }
+
+    private static void closeAll(Map<String, PriceExportWriter> writers, List<Path> files) throws IOException {
+        for (PriceExportWriter writer : writers.values()) {
+            writer.close();
+            files.add(writer.getFile());
+        }
+        writers.clear();
+    }
+
+    private static int yearOf(long timestamp) {
+        return Instant.ofEpochSecond(timestamp).atZone(ZoneOffset.UTC).getYear();
+    }
+
+    static String fileName(String partition) {
+        return partition.replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX;
+    }
+
+    /**
+     * Result of an export.
+     *
+     * @param rowCount  the number of exported rows
+     * @param files     the written files
+     * @param watermark the watermark to pass to the next incremental export
+     */
+    public record ExportResult(long rowCount, List<Path> files, LocalDateTime watermark) {
+
+        public ExportResult {
+            files = List.copyOf(files);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.joakimcolloz.stocker.datacollector.database.spool;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of parsed candlesticks that could not be added to the database, so that a fetched response
+ * is not lost, and its API quota not wasted, while the database is down.
+ * <p>
+ * Each series is appended as one frame: a header with a magic number, the payload length and the CRC32 of the
+ * payload, followed by the payload holding the symbol, the interval and the series column by column. The prices
+ * of a fixed-point series are spooled as their scaled values, so they are replayed exactly.
+ * Every append is forced to disk before it returns. A frame left incomplete by a crash, or failing its CRC,
+ * ends the spool: it is truncated away when the spool is opened.
+ * </p>
+ * <p>
+ * {@link #replay(Consumer)} hands the spooled series to the database in the order they were appended and
+ * removes them from the file. Replay stops at the first series that fails because the database is still
+ * unavailable, keeping it and the series after it for the next replay.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ */
+public class CandlestickSpool {
+    private static final Logger logger = LoggerFactory.getLogger(CandlestickSpool.class);
+    private static final int MAGIC = 0x53504F4C; // "SPOL"
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 256 * 1024 * 1024;
+    /** Version 2 adds the price scale, version 1 frames hold floating-point prices */
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FLOATING_POINT_VERSION = 1;
+
+    private final Path file;
+    private int entryCount;
+
+    /**
+     * Opens the spool file, creating its directory if missing and truncating an incomplete or corrupt tail.
+     *
+     * @param file the spool file
+     * @throws IllegalArgumentException if the file is null or cannot be opened
+     */
+    public CandlestickSpool(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Spool file cannot be null");
+        }
+        this.file = file.toAbsolutePath();
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            recover();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to open candlestick spool: " + this.file, e);
+        }
+
+        if (entryCount > 0) {
+            logger.warn("Candlestick spool {} holds {} series not yet added to the database", this.file, entryCount);
+        } else {
+            logger.info("Candlestick spool opened in {}", this.file);
+        }
+    }
+
+    /**
+     * Appends a series to the spool and forces it to disk.
+     *
+     * @param symbol   the symbol of the series
+     * @param interval the interval of the series
+     * @param series   the candlesticks to spool
+     * @throws IllegalArgumentException if an argument is null
+     * @throws IOException              if the series could not be written
+     */
+    public synchronized void append(String symbol, Interval interval, CandlestickSeries series) throws IOException {
+        if (symbol == null || interval == null || series == null) {
+            throw new IllegalArgumentException("Symbol, interval and series cannot be null");
+        }
+
+        final byte[] payload = encode(symbol, interval, series);
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        final ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(MAGIC)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            channel.force(false);
+        }
+        entryCount++;
+        logger.info("Spooled {} candlesticks for symbol {} ({} series in spool)", series.size(), symbol, entryCount);
+    }
+
+    /**
+     * Hands the spooled series to the handler in the order they were appended, removing each handled series.
+     * <p>
+     * If the handler fails because the database is unavailable, see {@link #isDatabaseUnavailable(Throwable)},
+     * replay stops and the failed series is kept. A series failing for any other reason would never succeed
+     * and is dropped with an error.
+     * </p>
+     *
+     * @param handler adds a spooled series to the database
+     * @return the number of series added to the database
+     * @throws IOException if the spool could not be read or rewritten
+     */
+    public synchronized int replay(Consumer<Entry> handler) throws IOException {
+        if (entryCount == 0) {
+            return 0;
+        }
+        logger.info("Replaying {} spooled series from {}", entryCount, file);
+
+        int replayed = 0;
+        int dropped = 0;
+        long keepFrom = -1;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            long offset = 0;
+            byte[] payload;
+            while ((payload = readFrame(in)) != null) {
+                final Entry entry;
+                try {
+                    entry = decode(payload);
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.error("Dropping unreadable spooled series at offset {}: {}", offset, e.getMessage());
+                    offset += HEADER_BYTES + payload.length;
+                    dropped++;
+                    continue;
+                }
+
+                try {
+                    handler.accept(entry);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    if (isDatabaseUnavailable(e)) {
+                        logger.warn("Database still unavailable, keeping spooled series for symbol {}: {}",
+                                entry.symbol(), e.getMessage());
+                        keepFrom = offset;
+                        break;
+                    }
+                    logger.error("Dropping spooled series for symbol {} that cannot be added: {}",
+                            entry.symbol(), e.getMessage(), e);
+                    dropped++;
+                }
+                offset += HEADER_BYTES + payload.length;
+            }
+        }
+
+        if (keepFrom < 0) {
+            Files.deleteIfExists(file);
+        } else if (keepFrom > 0) {
+            keepTail(keepFrom);
+        }
+        entryCount -= replayed + dropped;
+        logger.info("Replayed {} spooled series, dropped {}, {} left in spool", replayed, dropped, entryCount);
+        return replayed;
+    }
+
+    /**
+     * @return true if there are no spooled series
+     */
+    public synchronized boolean isEmpty() {
+        return entryCount == 0;
+    }
+
+    /**
+     * @return the number of spooled series
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether a database failure is caused by the database being unreachable or overloaded,
+     * rather than by the data, so that retrying the same data later may succeed.
+     *
+     * @param failure the failure of a database operation
+     * @return true if an SQL exception in the cause chain is transient or has a connection, resource or
+     * shutdown SQL state
+     */
+    public static boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                final String state = sqlException.getSQLState();
+                // 08: connection exception, 53: insufficient resources, 57P: operator intervention
+                if (state.startsWith("08") || state.startsWith("53") || state.startsWith("57P")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void recover() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        long validLength = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            byte[] payload;
+            while ((payload = readFrame(in)) != null) {
+                validLength += HEADER_BYTES + payload.length;
+                entryCount++;
+            }
+        }
+
+        final long fileLength = Files.size(file);
+        if (validLength < fileLength) {
+            logger.warn("Truncating {} bytes of incomplete or corrupt frames from candlestick spool {}",
+                    fileLength - validLength, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Replaces the spool by its frames from the given offset on.
+     */
+    private void keepTail(long offset) throws IOException {
+        final Path temporaryFile = Files.createTempFile(file.getParent(), "spool", ".tmp");
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            long position = offset;
+            final long end = source.size();
+            while (position < end) {
+                position += source.transferTo(position, end - position, target);
+            }
+            target.force(true);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return the payload of the frame, or null at the end of the spool or at an incomplete or corrupt frame
+     */
+    private byte[] readFrame(InputStream in) throws IOException {
+        final byte[] header = in.readNBytes(HEADER_BYTES);
+        if (header.length == 0) {
+            return null;
+        }
+        if (header.length < HEADER_BYTES) {
+            logger.warn("Incomplete frame header at end of candlestick spool {}", file);
+            return null;
+        }
+
+        final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        final int magic = headerBuffer.getInt();
+        final int length = headerBuffer.getInt();
+        final int checksum = headerBuffer.getInt();
+        if (magic != MAGIC || length < 0 || length > MAX_PAYLOAD_BYTES) {
+            logger.warn("Invalid frame header in candlestick spool {}", file);
+            return null;
+        }
+
+        final byte[] payload = in.readNBytes(length);
+        if (payload.length < length) {
+            logger.warn("Incomplete frame at end of candlestick spool {}", file);
+            return null;
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            logger.warn("Frame with invalid checksum in candlestick spool {}", file);
+            return null;
+        }
+        return payload;
+    }
+
+    private static byte[] encode(String symbol, Interval interval, CandlestickSeries series) throws IOException {
+        final int size = series.size();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + size * 6 * Long.BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            final boolean fixedPoint = series.isFixedPoint();
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(symbol);
+            out.writeUTF(interval.name());
+            out.writeByte(series.priceScale());
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(series.timestamp(i));
+            }
+            // A price is spooled as its scaled value or as the bits of its double
+            for (int i = 0; i < size; i++) {
+                out.writeLong(fixedPoint ? series.scaledOpen(i) : Double.doubleToLongBits(series.open(i)));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(fixedPoint ? series.scaledHigh(i) : Double.doubleToLongBits(series.high(i)));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(fixedPoint ? series.scaledLow(i) : Double.doubleToLongBits(series.low(i)));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(fixedPoint ? series.scaledClose(i) : Double.doubleToLongBits(series.close(i)));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(series.volume(i));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            final byte version = in.readByte();
+            if (version != FORMAT_VERSION && version != FLOATING_POINT_VERSION) {
+                throw new IOException("Unsupported spool format version: " + version);
+            }
+            final String symbol = in.readUTF();
+            final Interval interval = Interval.valueOf(in.readUTF());
+            final int priceScale = version == FORMAT_VERSION ? in.readByte() : CandlestickSeries.FLOATING_POINT;
+            final int size = in.readInt();
+            if (size < 0 || (long) size * 6 * Long.BYTES > payload.length) {
+                throw new IOException("Invalid series size: " + size);
+            }
+
+            final long[] timestamps = readColumn(in, size);
+            final long[] opens = readColumn(in, size);
+            final long[] highs = readColumn(in, size);
+            final long[] lows = readColumn(in, size);
+            final long[] closes = readColumn(in, size);
+            final long[] volumes = readColumn(in, size);
+            if (priceScale == CandlestickSeries.FLOATING_POINT) {
+                return new Entry(symbol, interval, new CandlestickSeries(timestamps, toDoubles(opens),
+                        toDoubles(highs), toDoubles(lows), toDoubles(closes), volumes));
+            }
+            try {
+                return new Entry(symbol, interval,
+                        CandlestickSeries.ofFixedPoint(priceScale, timestamps, opens, highs, lows, closes, volumes));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid price scale: " + priceScale, e);
+            }
+        }
+    }
+
+    private static long[] readColumn(DataInputStream in, int size) throws IOException {
+        final long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static double[] toDoubles(long[] bits) {
+        final double[] values = new double[bits.length];
+        for (int i = 0; i < bits.length; i++) {
+            values[i] = Double.longBitsToDouble(bits[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "CandlestickSpool{file=" + file + ", entries=" + entryCount + "}";
+    }
+
+    /**
+     * A spooled series.
+     *
+     * @param symbol   the symbol of the series
+     * @param interval the interval of the series
+     * @param series   the spooled candlesticks
+     */
+    public record Entry(String symbol, Interval interval, CandlestickSeries series) {
+    }
+}
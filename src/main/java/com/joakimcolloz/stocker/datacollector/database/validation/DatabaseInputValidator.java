@@ -2,13 +2,16 @@ package com.joakimcolloz.stocker.datacollector.database.validation;
 
 import com.joakimcolloz.stocker.datacollector.database.CandlestickDao;
 import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Validator class for database input used by {@link CandlestickDao}.
  *
  * @author Joakim Colloz
- * @version 1.0
+ * @version 1.2
  */
 public class DatabaseInputValidator {
 
@@ -57,59 +60,142 @@ public class DatabaseInputValidator {
         if (candlestick == null) {
             throw new IllegalArgumentException("Candlestick cannot be null");
         }
+        validateCandlestick(candlestick.timestamp(), candlestick.open(), candlestick.high(),
+                candlestick.low(), candlestick.close(), candlestick.volume());
+    }
+
+    /**
+     * Validates the values of a candlestick, with the same rules as {@link #validateCandlestick(Candlestick)},
+     * for callers reading the values from a {@link CandlestickSeries} without creating candlestick objects.
+     *
+     * @param timestamp the Unix timestamp of the candlestick
+     * @param open      the opening price
+     * @param high      the highest price
+     * @param low       the lowest price
+     * @param close     the closing price
+     * @param volume    the volume
+     * @throws IllegalArgumentException if any value is invalid
+     */
+    public void validateCandlestick(long timestamp, double open, double high, double low, double close, long volume) {
+        final String violation = findViolation(timestamp, open, high, low, close, volume);
+        if (violation != null) {
+            throw new IllegalArgumentException(violation);
+        }
+    }
 
+    /**
+     * Checks the values of a candlestick without throwing, so callers can collect all invalid rows.
+     * The rules are described in {@link #validateCandlestick(Candlestick)}.
+     *
+     * @param timestamp the Unix timestamp of the candlestick
+     * @param open      the opening price
+     * @param high      the highest price
+     * @param low       the lowest price
+     * @param close     the closing price
+     * @param volume    the volume
+     * @return the first rule the values violate, or null if the candlestick is valid
+     */
+    public String findViolation(long timestamp, double open, double high, double low, double close, long volume) {
         // Validate timestamp
-        if (candlestick.timestamp() <= 0) {
-            throw new IllegalArgumentException("Candlestick timestamp must be positive");
+        if (timestamp <= 0) {
+            return "Candlestick timestamp must be positive";
         }
 
         // Validate prices are not negative
-        if (candlestick.open() < 0) {
-            throw new IllegalArgumentException("Candlestick open price cannot be negative");
+        if (open < 0) {
+            return "Candlestick open price cannot be negative";
         }
-        if (candlestick.close() < 0) {
-            throw new IllegalArgumentException("Candlestick close price cannot be negative");
+        if (close < 0) {
+            return "Candlestick close price cannot be negative";
         }
-        if (candlestick.high() < 0) {
-            throw new IllegalArgumentException("Candlestick high price cannot be negative");
+        if (high < 0) {
+            return "Candlestick high price cannot be negative";
         }
-        if (candlestick.low() < 0) {
-            throw new IllegalArgumentException("Candlestick low price cannot be negative");
+        if (low < 0) {
+            return "Candlestick low price cannot be negative";
         }
 
         // Validate volume is not negative
-        if (candlestick.volume() < 0) {
-            throw new IllegalArgumentException("Candlestick volume cannot be negative");
+        if (volume < 0) {
+            return "Candlestick volume cannot be negative";
         }
 
         // Validate price relationships (high >= low, etc.)
-        if (candlestick.high() < candlestick.low()) {
-            throw new IllegalArgumentException("Candlestick high price cannot be less than low price");
+        if (high < low) {
+            return "Candlestick high price cannot be less than low price";
         }
-        if (candlestick.open() > candlestick.high() || candlestick.open() < candlestick.low()) {
-            throw new IllegalArgumentException("Candlestick open price must be between high and low prices");
+        if (open > high || open < low) {
+            return "Candlestick open price must be between high and low prices";
         }
-        if (candlestick.close() > candlestick.high() || candlestick.close() < candlestick.low()) {
-            throw new IllegalArgumentException("Candlestick close price must be between high and low prices");
+        if (close > high || close < low) {
+            return "Candlestick close price must be between high and low prices";
         }
+        return null;
     }
 
     /**
      * Validates all candlesticks in a list.
      *
      * @param candlesticks the list of candlesticks to validate
-     * @throws IllegalArgumentException if any candlestick is invalid
+     * @throws IllegalArgumentException if any candlestick is invalid, listing all invalid candlesticks
      */
     public void validateAllCandlesticks(List<Candlestick> candlesticks) {
         validateCandlesticksList(candlesticks); // First validate the list itself
 
+        final List<String> errors = new ArrayList<>();
         for (int i = 0; i < candlesticks.size(); i++) {
             try {
                 validateCandlestick(candlesticks.get(i));
             } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("Invalid candlestick at index " + i + ": " + e.getMessage());
+                errors.add("Invalid candlestick at index " + i + ": " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+    }
+
+    /**
+     * Validates a series of candlesticks, reading the rows without creating candlestick objects.
+     *
+     * @param series the series to validate
+     * @throws IllegalArgumentException if the series is null or empty, or any row is invalid, listing all invalid rows
+     */
+    public void validateSeries(CandlestickSeries series) {
+        final List<RejectedCandlestick> rejected = findInvalidRows(series);
+        if (!rejected.isEmpty()) {
+            throw new IllegalArgumentException(rejected.stream()
+                    .map(RejectedCandlestick::toString)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    /**
+     * Finds all invalid rows of a series in one pass.
+     *
+     * @param series the series to check
+     * @return the invalid rows, empty if all rows are valid
+     * @throws IllegalArgumentException if the series is null or empty
+     */
+    public List<RejectedCandlestick> findInvalidRows(CandlestickSeries series) {
+        if (series == null) {
+            throw new IllegalArgumentException("Candlestick series cannot be null");
+        }
+        if (series.isEmpty()) {
+            throw new IllegalArgumentException("Candlestick series cannot be empty");
+        }
+
+        final List<RejectedCandlestick> rejected = new ArrayList<>();
+        final CandlestickSeries.Cursor cursor = series.cursor();
+        while (cursor.next()) {
+            final String violation = findViolation(cursor.timestamp(), cursor.open(), cursor.high(),
+                    cursor.low(), cursor.close(), cursor.volume());
+            if (violation != null) {
+                rejected.add(new RejectedCandlestick(cursor.index(), cursor.timestamp(), cursor.open(), cursor.high(),
+                        cursor.low(), cursor.close(), cursor.volume(), violation));
             }
         }
+        return rejected;
     }
 
     /**
@@ -0,0 +1,25 @@
+package com.joakimcolloz.stocker.datacollector.database.validation;
+
+/**
+ * A candlestick that failed validation, with its raw values and the reason.
+ *
+ * @param index     the index of the row in the inserted series
+ * @param timestamp the Unix timestamp of the row
+ * @param open      the opening price
+ * @param high      the highest price
+ * @param low       the lowest price
+ * @param close     the closing price
+ * @param volume    the volume
+ * @param reason    why the row is invalid
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public record RejectedCandlestick(int index, long timestamp, double open, double high, double low, double close,
+                                  long volume, String reason) {
+
+    @Override
+    public String toString() {
+        return "Invalid candlestick at index " + index + ": " + reason;
+    }
+}
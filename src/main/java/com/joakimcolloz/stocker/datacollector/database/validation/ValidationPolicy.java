@@ -0,0 +1,47 @@
+package com.joakimcolloz.stocker.datacollector.database.validation;
+
+/**
+ * What {@code CandlestickDao} does with candlesticks that fail validation when adding several rows.
+ * Rows are validated while they are bound to the insert statement, and all invalid rows are collected
+ * before the policy is applied.
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ * @see DatabaseInputValidator#findViolation(long, double, double, double, double, long)
+ */
+public enum ValidationPolicy {
+    /**
+     * Nothing is inserted if any row is invalid. An {@link IllegalArgumentException} lists all invalid rows.
+     */
+    REJECT_ALL,
+
+    /**
+     * The valid rows are inserted and the invalid rows are dropped.
+     */
+    SKIP_INVALID_ROWS,
+
+    /**
+     * The valid rows are inserted and the invalid rows are written, with their values and the reason,
+     * to the quarantine table in the same transaction, so they can be inspected instead of being lost.
+     */
+    QUARANTINE;
+
+    /**
+     * Parses a policy name, ignoring case.
+     *
+     * @param name the policy name, e.g. {@code skip_invalid_rows}
+     * @return the policy
+     * @throws IllegalArgumentException if the name is null or not a policy
+     */
+    public static ValidationPolicy fromString(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Validation policy cannot be null");
+        }
+        for (ValidationPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown validation policy: " + name);
+    }
+}
@@ -0,0 +1,168 @@
+package com.joakimcolloz.stocker.datacollector.indicators;
+
+/**
+ * Running state of the technical indicators of one symbol, updated in constant time per candlestick.
+ * <p>
+ * Computes the {@value #SMA_PERIOD} candle simple and exponential moving averages of the close, and the
+ * {@value #RSI_PERIOD} candle RSI and {@value #ATR_PERIOD} candle ATR with Wilder's smoothing. The EMA, RSI and
+ * ATR are seeded with the plain average of their first period. Candlesticks must be given in timestamp order.
+ * </p>
+ * <p>
+ * A state is either started empty for the first candlestick of a symbol, or restored from the stored
+ * {@link IndicatorValues} of a candlestick and the closes up to it, after which it continues exactly as if
+ * the whole history had been processed.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public final class IndicatorState {
+    public static final int SMA_PERIOD = 20;
+    public static final int EMA_PERIOD = 20;
+    public static final int RSI_PERIOD = 14;
+    public static final int ATR_PERIOD = 14;
+
+    private static final double EMA_MULTIPLIER = 2.0 / (EMA_PERIOD + 1);
+
+    private final double[] recentCloses = new double[SMA_PERIOD];
+    private double closeSum;
+    private int candleCount;
+    private double previousClose;
+    private double emaState;
+    private double gainState;
+    private double lossState;
+    private double atrState;
+
+    private IndicatorState() {
+    }
+
+    /**
+     * @return a state for a symbol without candlesticks
+     */
+    public static IndicatorState empty() {
+        return new IndicatorState();
+    }
+
+    /**
+     * Restores the state after a candlestick.
+     *
+     * @param last         the stored values of the candlestick
+     * @param recentCloses the closes of the last {@value #SMA_PERIOD} candlesticks up to and including it, oldest
+     *                     first, or all closes if the symbol has fewer candlesticks
+     * @return the state continuing after the candlestick
+     * @throws IllegalArgumentException if the arguments are null or the closes do not match the candle count
+     */
+    public static IndicatorState restore(IndicatorValues last, double[] recentCloses) {
+        if (last == null || recentCloses == null) {
+            throw new IllegalArgumentException("Stored indicator values and closes cannot be null");
+        }
+        if (recentCloses.length != Math.min(last.candleCount(), SMA_PERIOD)) {
+            throw new IllegalArgumentException("Expected " + Math.min(last.candleCount(), SMA_PERIOD)
+                    + " closes to restore the indicators but got " + recentCloses.length);
+        }
+
+        final IndicatorState state = new IndicatorState();
+        state.candleCount = last.candleCount() - recentCloses.length;
+        for (double close : recentCloses) {
+            state.addClose(close);
+            state.candleCount++;
+        }
+        state.previousClose = last.close();
+        state.emaState = last.emaState();
+        state.gainState = last.gainState();
+        state.lossState = last.lossState();
+        state.atrState = last.atrState();
+        return state;
+    }
+
+    /**
+     * Adds the next candlestick and computes its indicators.
+     *
+     * @param timestamp the Unix timestamp of the candlestick
+     * @param high      the highest price
+     * @param low       the lowest price
+     * @param close     the closing price
+     * @return the indicator values of the candlestick
+     */
+    public IndicatorValues next(long timestamp, double high, double low, double close) {
+        final boolean first = candleCount == 0;
+        addClose(close);
+        candleCount++;
+
+        // SMA
+        final double sma = candleCount >= SMA_PERIOD ? closeSum / SMA_PERIOD : Double.NaN;
+
+        // EMA, seeded with the average of the first period
+        if (candleCount <= EMA_PERIOD) {
+            emaState += close;
+            if (candleCount == EMA_PERIOD) {
+                emaState /= EMA_PERIOD;
+            }
+        } else {
+            emaState += (close - emaState) * EMA_MULTIPLIER;
+        }
+        final double ema = candleCount >= EMA_PERIOD ? emaState : Double.NaN;
+
+        // RSI over the changes of the close, there is one change less than candlesticks
+        final int changeCount = candleCount - 1;
+        if (changeCount > 0) {
+            final double change = close - previousClose;
+            final double gain = Math.max(change, 0);
+            final double loss = Math.max(-change, 0);
+            if (changeCount <= RSI_PERIOD) {
+                gainState += gain;
+                lossState += loss;
+                if (changeCount == RSI_PERIOD) {
+                    gainState /= RSI_PERIOD;
+                    lossState /= RSI_PERIOD;
+                }
+            } else {
+                gainState = (gainState * (RSI_PERIOD - 1) + gain) / RSI_PERIOD;
+                lossState = (lossState * (RSI_PERIOD - 1) + loss) / RSI_PERIOD;
+            }
+        }
+        final double rsi = changeCount >= RSI_PERIOD ? relativeStrengthIndex(gainState, lossState) : Double.NaN;
+
+        // ATR, the first true range is the range of the first candlestick
+        final double trueRange = first ? high - low
+                : Math.max(high - low, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+        if (candleCount <= ATR_PERIOD) {
+            atrState += trueRange;
+            if (candleCount == ATR_PERIOD) {
+                atrState /= ATR_PERIOD;
+            }
+        } else {
+            atrState = (atrState * (ATR_PERIOD - 1) + trueRange) / ATR_PERIOD;
+        }
+        final double atr = candleCount >= ATR_PERIOD ? atrState : Double.NaN;
+
+        previousClose = close;
+        return new IndicatorValues(timestamp, close, candleCount, sma, ema, rsi, atr,
+                emaState, gainState, lossState, atrState);
+    }
+
+    public int getCandleCount() {
+        return candleCount;
+    }
+
+    private void addClose(double close) {
+        final int slot = candleCount % SMA_PERIOD;
+        if (candleCount >= SMA_PERIOD) {
+            closeSum -= recentCloses[slot];
+        }
+        recentCloses[slot] = close;
+        closeSum += close;
+    }
+
+    private static double relativeStrengthIndex(double averageGain, double averageLoss) {
+        if (averageLoss == 0) {
+            return averageGain == 0 ? 50 : 100;
+        }
+        return 100 - 100 / (1 + averageGain / averageLoss);
+    }
+
+    @Override
+    public String toString() {
+        return "IndicatorState{candleCount=" + candleCount + "}";
+    }
+}
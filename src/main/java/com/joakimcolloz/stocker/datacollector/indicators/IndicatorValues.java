@@ -0,0 +1,29 @@
+package com.joakimcolloz.stocker.datacollector.indicators;
+
+/**
+ * Indicator values of one candlestick, together with the running state needed to continue the computation
+ * from this candlestick with {@link IndicatorState#restore(IndicatorValues, double[])}.
+ * <p>
+ * An indicator is {@link Double#NaN} until enough candlesticks have been seen, e.g. the first 19 candlesticks
+ * of a symbol have no 20 day SMA.
+ * </p>
+ *
+ * @param timestamp   the Unix timestamp (seconds since epoch) of the candlestick
+ * @param close       the closing price of the candlestick
+ * @param candleCount the number of candlesticks of the symbol up to and including this one
+ * @param sma         the simple moving average of the close
+ * @param ema         the exponential moving average of the close
+ * @param rsi         the relative strength index, between 0 and 100
+ * @param atr         the average true range
+ * @param emaState    the EMA, or the sum of the closes while the EMA is warming up
+ * @param gainState   the average gain, or the sum of the gains while the RSI is warming up
+ * @param lossState   the average loss, or the sum of the losses while the RSI is warming up
+ * @param atrState    the ATR, or the sum of the true ranges while the ATR is warming up
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ */
+public record IndicatorValues(long timestamp, double close, int candleCount,
+                              double sma, double ema, double rsi, double atr,
+                              double emaState, double gainState, double lossState, double atrState) {
+}
@@ -0,0 +1,469 @@
+package com.joakimcolloz.stocker.datacollector.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Columnar representation of a series of candlesticks: one primitive array per field instead of one
+ * {@link Candlestick} object per row.
+ * <p>
+ * Rows are read by index, e.g. {@link #close(int)}, or with a {@link Cursor}. {@link #asList()} gives a
+ * {@code List<Candlestick>} view for code that works with candlestick objects; the objects are created
+ * when an element is read.
+ * </p>
+ * <p>
+ * A series created with {@link #ofFixedPoint(int, long[], long[], long[], long[], long[], long[])} holds its
+ * prices as {@link FixedPoint} values. They are read exactly with e.g. {@link #scaledClose(int)}, the double
+ * accessors return the nearest double to the price.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.1
+ * @see TradingPeriod#series()
+ */
+public final class CandlestickSeries {
+    /** The price scale of a series holding its prices as doubles */
+    public static final int FLOATING_POINT = -1;
+
+    private final long[] timestamps;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final long[] volumes;
+    private final int priceScale;
+    private final long[] scaledOpens;
+    private final long[] scaledHighs;
+    private final long[] scaledLows;
+    private final long[] scaledCloses;
+    private int size;
+    private final List<Candlestick> listView = new ListView();
+
+    /**
+     * Creates a series from the given arrays, which are used without copying and must not be modified afterwards.
+     *
+     * @param timestamps the Unix timestamps (seconds since epoch) of the rows
+     * @param opens      the opening prices
+     * @param highs      the highest prices
+     * @param lows       the lowest prices
+     * @param closes     the closing prices
+     * @param volumes    the volumes
+     * @throws IllegalArgumentException if an array is null or the arrays have different lengths
+     */
+    public CandlestickSeries(long[] timestamps, double[] opens, double[] highs, double[] lows,
+                             double[] closes, long[] volumes) {
+        if (timestamps == null || opens == null || highs == null || lows == null || closes == null || volumes == null) {
+            throw new IllegalArgumentException("Candlestick series arrays cannot be null");
+        }
+        final int length = timestamps.length;
+        if (opens.length != length || highs.length != length || lows.length != length
+                || closes.length != length || volumes.length != length) {
+            throw new IllegalArgumentException("Candlestick series arrays must have the same length");
+        }
+        this.timestamps = timestamps;
+        this.opens = opens;
+        this.highs = highs;
+        this.lows = lows;
+        this.closes = closes;
+        this.volumes = volumes;
+        this.size = length;
+        this.priceScale = FLOATING_POINT;
+        this.scaledOpens = null;
+        this.scaledHighs = null;
+        this.scaledLows = null;
+        this.scaledCloses = null;
+    }
+
+    private CandlestickSeries(int priceScale, long[] timestamps, long[] opens, long[] highs, long[] lows,
+                              long[] closes, long[] volumes) {
+        this.timestamps = timestamps;
+        this.opens = null;
+        this.highs = null;
+        this.lows = null;
+        this.closes = null;
+        this.volumes = volumes;
+        this.size = timestamps.length;
+        this.priceScale = priceScale;
+        this.scaledOpens = opens;
+        this.scaledHighs = highs;
+        this.scaledLows = lows;
+        this.scaledCloses = closes;
+    }
+
+    /**
+     * Creates a series with fixed-point prices from the given arrays, which are used without copying and must
+     * not be modified afterwards.
+     *
+     * @param priceScale the number of decimals of the prices, see {@link FixedPoint}
+     * @param timestamps the Unix timestamps (seconds since epoch) of the rows
+     * @param opens      the opening prices
+     * @param highs      the highest prices
+     * @param lows       the lowest prices
+     * @param closes     the closing prices
+     * @param volumes    the volumes
+     * @return the series
+     * @throws IllegalArgumentException if the scale is not supported, an array is null or the arrays have
+     *                                  different lengths
+     */
+    public static CandlestickSeries ofFixedPoint(int priceScale, long[] timestamps, long[] opens, long[] highs,
+                                                 long[] lows, long[] closes, long[] volumes) {
+        FixedPoint.checkScale(priceScale);
+        if (timestamps == null || opens == null || highs == null || lows == null || closes == null || volumes == null) {
+            throw new IllegalArgumentException("Candlestick series arrays cannot be null");
+        }
+        final int length = timestamps.length;
+        if (opens.length != length || highs.length != length || lows.length != length
+                || closes.length != length || volumes.length != length) {
+            throw new IllegalArgumentException("Candlestick series arrays must have the same length");
+        }
+        return new CandlestickSeries(priceScale, timestamps, opens, highs, lows, closes, volumes);
+    }
+
+    /**
+     * Returns the series backing the list, without copying if the list is a view from {@link #asList()}.
+     *
+     * @param candlesticks the candlesticks to convert
+     * @return the series of the candlesticks
+     * @throws IllegalArgumentException if the list is null or contains null
+     */
+    public static CandlestickSeries from(List<Candlestick> candlesticks) {
+        if (candlesticks instanceof CandlestickSeries.ListView view) {
+            return view.series();
+        }
+        if (candlesticks == null) {
+            throw new IllegalArgumentException("Candlesticks list cannot be null");
+        }
+
+        final int length = candlesticks.size();
+        final long[] timestamps = new long[length];
+        final double[] opens = new double[length];
+        final double[] highs = new double[length];
+        final double[] lows = new double[length];
+        final double[] closes = new double[length];
+        final long[] volumes = new long[length];
+        for (int i = 0; i < length; i++) {
+            final Candlestick candlestick = candlesticks.get(i);
+            if (candlestick == null) {
+                throw new IllegalArgumentException("Candlestick at index " + i + " cannot be null");
+            }
+            timestamps[i] = candlestick.timestamp();
+            opens[i] = candlestick.open();
+            highs[i] = candlestick.high();
+            lows[i] = candlestick.low();
+            closes[i] = candlestick.close();
+            volumes[i] = candlestick.volume();
+        }
+        return new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return true if the prices are held as fixed-point values
+     */
+    public boolean isFixedPoint() {
+        return priceScale != FLOATING_POINT;
+    }
+
+    /**
+     * @return the number of decimals of the fixed-point prices, or {@link #FLOATING_POINT}
+     */
+    public int priceScale() {
+        return priceScale;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    public double open(int index) {
+        return price(opens, scaledOpens, checkIndex(index));
+    }
+
+    public double high(int index) {
+        return price(highs, scaledHighs, checkIndex(index));
+    }
+
+    public double low(int index) {
+        return price(lows, scaledLows, checkIndex(index));
+    }
+
+    public double close(int index) {
+        return price(closes, scaledCloses, checkIndex(index));
+    }
+
+    /**
+     * @param index the row index
+     * @return the opening price as a fixed-point value with {@link #priceScale()} decimals
+     * @throws IllegalStateException if the series holds its prices as doubles
+     */
+    public long scaledOpen(int index) {
+        return scaled(scaledOpens)[checkIndex(index)];
+    }
+
+    /**
+     * @param index the row index
+     * @return the highest price as a fixed-point value with {@link #priceScale()} decimals
+     * @throws IllegalStateException if the series holds its prices as doubles
+     */
+    public long scaledHigh(int index) {
+        return scaled(scaledHighs)[checkIndex(index)];
+    }
+
+    /**
+     * @param index the row index
+     * @return the lowest price as a fixed-point value with {@link #priceScale()} decimals
+     * @throws IllegalStateException if the series holds its prices as doubles
+     */
+    public long scaledLow(int index) {
+        return scaled(scaledLows)[checkIndex(index)];
+    }
+
+    /**
+     * @param index the row index
+     * @return the closing price as a fixed-point value with {@link #priceScale()} decimals
+     * @throws IllegalStateException if the series holds its prices as doubles
+     */
+    public long scaledClose(int index) {
+        return scaled(scaledCloses)[checkIndex(index)];
+    }
+
+    public long volume(int index) {
+        return volumes[checkIndex(index)];
+    }
+
+    /**
+     * Creates the candlestick object of a row.
+     *
+     * @param index the row index
+     * @return a new candlestick with the values of the row
+     */
+    public Candlestick candlestick(int index) {
+        checkIndex(index);
+        return new Candlestick(price(opens, scaledOpens, index), price(highs, scaledHighs, index),
+                price(lows, scaledLows, index), price(closes, scaledCloses, index), volumes[index], timestamps[index]);
+    }
+
+    /**
+     * @return a new cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a list view of the series. Elements are created on access and removing an element removes the row
+     * from the series.
+     *
+     * @return the list view of the series
+     */
+    public List<Candlestick> asList() {
+        return listView;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    private double price(double[] prices, long[] scaledPrices, int index) {
+        return prices != null ? prices[index] : FixedPoint.toDouble(scaledPrices[index], priceScale);
+    }
+
+    private static long[] scaled(long[] scaledPrices) {
+        if (scaledPrices == null) {
+            throw new IllegalStateException("Candlestick series does not hold fixed-point prices");
+        }
+        return scaledPrices;
+    }
+
+    private void remove(int index) {
+        checkIndex(index);
+        final int moved = size - index - 1;
+        System.arraycopy(timestamps, index + 1, timestamps, index, moved);
+        if (isFixedPoint()) {
+            System.arraycopy(scaledOpens, index + 1, scaledOpens, index, moved);
+            System.arraycopy(scaledHighs, index + 1, scaledHighs, index, moved);
+            System.arraycopy(scaledLows, index + 1, scaledLows, index, moved);
+            System.arraycopy(scaledCloses, index + 1, scaledCloses, index, moved);
+        } else {
+            System.arraycopy(opens, index + 1, opens, index, moved);
+            System.arraycopy(highs, index + 1, highs, index, moved);
+            System.arraycopy(lows, index + 1, lows, index, moved);
+            System.arraycopy(closes, index + 1, closes, index, moved);
+        }
+        System.arraycopy(volumes, index + 1, volumes, index, moved);
+        size--;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CandlestickSeries other)) {
+            return false;
+        }
+        if (size != other.size
+                || !Arrays.equals(timestamps, 0, size, other.timestamps, 0, size)
+                || !Arrays.equals(volumes, 0, size, other.volumes, 0, size)) {
+            return false;
+        }
+        if (!isFixedPoint() && !other.isFixedPoint()) {
+            return Arrays.equals(opens, 0, size, other.opens, 0, size)
+                    && Arrays.equals(highs, 0, size, other.highs, 0, size)
+                    && Arrays.equals(lows, 0, size, other.lows, 0, size)
+                    && Arrays.equals(closes, 0, size, other.closes, 0, size);
+        }
+        if (priceScale == other.priceScale) {
+            return Arrays.equals(scaledOpens, 0, size, other.scaledOpens, 0, size)
+                    && Arrays.equals(scaledHighs, 0, size, other.scaledHighs, 0, size)
+                    && Arrays.equals(scaledLows, 0, size, other.scaledLows, 0, size)
+                    && Arrays.equals(scaledCloses, 0, size, other.scaledCloses, 0, size);
+        }
+        // Different representations are equal if their prices read as the same doubles
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(open(i), other.open(i)) != 0 || Double.compare(high(i), other.high(i)) != 0
+                    || Double.compare(low(i), other.low(i)) != 0 || Double.compare(close(i), other.close(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return listView.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isFixedPoint()
+                ? "CandlestickSeries{size=" + size + ", priceScale=" + priceScale + "}"
+                : "CandlestickSeries{size=" + size + "}";
+    }
+
+    /**
+     * Forward only cursor over the rows of the series, reading the values without creating objects.
+     */
+    public final class Cursor {
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next row.
+         *
+         * @return true if there is a next row, false if the cursor is past the last row
+         */
+        public boolean next() {
+            if (index < size) {
+                index++;
+            }
+            return index < size;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public long timestamp() {
+            return timestamps[current()];
+        }
+
+        public double open() {
+            return price(opens, scaledOpens, current());
+        }
+
+        public double high() {
+            return price(highs, scaledHighs, current());
+        }
+
+        public double low() {
+            return price(lows, scaledLows, current());
+        }
+
+        public double close() {
+            return price(closes, scaledCloses, current());
+        }
+
+        public long volume() {
+            return volumes[current()];
+        }
+
+        /**
+         * @return the opening price as a fixed-point value with {@link #priceScale()} decimals
+         * @throws IllegalStateException if the series holds its prices as doubles
+         */
+        public long scaledOpen() {
+            return scaled(scaledOpens)[current()];
+        }
+
+        /**
+         * @return the highest price as a fixed-point value with {@link #priceScale()} decimals
+         * @throws IllegalStateException if the series holds its prices as doubles
+         */
+        public long scaledHigh() {
+            return scaled(scaledHighs)[current()];
+        }
+
+        /**
+         * @return the lowest price as a fixed-point value with {@link #priceScale()} decimals
+         * @throws IllegalStateException if the series holds its prices as doubles
+         */
+        public long scaledLow() {
+            return scaled(scaledLows)[current()];
+        }
+
+        /**
+         * @return the closing price as a fixed-point value with {@link #priceScale()} decimals
+         * @throws IllegalStateException if the series holds its prices as doubles
+         */
+        public long scaledClose() {
+            return scaled(scaledCloses)[current()];
+        }
+
+        private int current() {
+            if (index < 0 || index >= size) {
+                throw new NoSuchElementException("Cursor is not positioned on a row");
+            }
+            return index;
+        }
+    }
+
+    private final class ListView extends AbstractList<Candlestick> implements RandomAccess {
+        @Override
+        public Candlestick get(int index) {
+            return candlestick(index);
+        }
+
+        @Override
+        public Candlestick remove(int index) {
+            final Candlestick removed = candlestick(index);
+            CandlestickSeries.this.remove(index);
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        CandlestickSeries series() {
+            return CandlestickSeries.this;
+        }
+    }
+}
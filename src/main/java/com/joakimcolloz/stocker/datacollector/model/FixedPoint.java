@@ -0,0 +1,167 @@
+package com.joakimcolloz.stocker.datacollector.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions of prices held as fixed-point values: a {@code long} with an implied number of decimals,
+ * the scale. With scale 2 the value {@code 32690} is the price {@code 326.90}.
+ * <p>
+ * Fixed-point prices are compared and deduplicated exactly, and are bound to the {@code DECIMAL(15,6)}
+ * price columns without converting a double. The scale is at most {@value #MAX_SCALE}, the precision of
+ * those columns.
+ * </p>
+ *
+ * @author Joakim Colloz
+ * @version 1.0
+ * @see CandlestickSeries#ofFixedPoint(int, long[], long[], long[], long[], long[], long[])
+ */
+public final class FixedPoint {
+    /** The largest supported scale, the number of decimals of the candlestick tables */
+    public static final int MAX_SCALE = 6;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Parses a decimal number, rounding half to even to the scale.
+     *
+     * @param text  the number, e.g. {@code "326.895"} or {@code "3.2689E2"}
+     * @param scale the number of decimals of the result
+     * @return the fixed-point value
+     * @throws IllegalArgumentException if the scale is not supported
+     * @throws NumberFormatException    if the text is not a number or the value does not fit in a long
+     */
+    public static long parse(CharSequence text, int scale) {
+        checkScale(scale);
+        final int length = text.length();
+        int position = 0;
+        final boolean negative = length > 0 && text.charAt(0) == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean fraction = false;
+        for (; position < length; position++) {
+            final char c = text.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (fraction && decimals == scale) {
+                    // Past the scale, only the first dropped digit and whether any later one is non-zero matter
+                    return parseDropped(text, position, value, negative, scale);
+                }
+                digits++;
+                if (value > (Long.MAX_VALUE - 9) / 10) {
+                    return parseSlow(text, scale);
+                }
+                value = value * 10 + (c - '0');
+                if (fraction) {
+                    decimals++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(text, scale);
+            } else {
+                throw new NumberFormatException("Invalid number: " + text);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid number: " + text);
+        }
+        return applySign(scaleUp(value, scale - decimals, text, scale), negative);
+    }
+
+    private static long parseDropped(CharSequence text, int position, long value, boolean negative, int scale) {
+        final int roundingDigit = text.charAt(position) - '0';
+        boolean sticky = false;
+        for (int i = position + 1; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '1' && c <= '9') {
+                sticky = true;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(text, scale);
+            } else if (c != '0') {
+                throw new NumberFormatException("Invalid number: " + text);
+            }
+        }
+        return applySign(roundHalfEven(value, roundingDigit, sticky), negative);
+    }
+
+    /**
+     * Rounds a value truncated to the scale, half to even, given the first dropped digit and whether any
+     * later dropped digit is non-zero.
+     *
+     * @param truncated     the absolute value truncated to the scale
+     * @param roundingDigit the first dropped digit
+     * @param sticky        true if a dropped digit after the first one is non-zero
+     * @return the rounded absolute value
+     */
+    public static long roundHalfEven(long truncated, int roundingDigit, boolean sticky) {
+        if (roundingDigit > 5 || (roundingDigit == 5 && (sticky || (truncated & 1) == 1))) {
+            return Math.addExact(truncated, 1);
+        }
+        return truncated;
+    }
+
+    private static long scaleUp(long value, int missingDecimals, CharSequence text, int scale) {
+        try {
+            return Math.multiplyExact(value, POWERS_OF_TEN[missingDecimals]);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Number out of range for scale " + scale + ": " + text);
+        }
+    }
+
+    private static long applySign(long value, boolean negative) {
+        return negative ? -value : value;
+    }
+
+    private static long parseSlow(CharSequence text, int scale) {
+        try {
+            return new BigDecimal(text.toString()).setScale(scale, RoundingMode.HALF_EVEN).unscaledValue()
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Number out of range for scale " + scale + ": " + text);
+        }
+    }
+
+    /**
+     * @param value the fixed-point value
+     * @param scale the scale of the value
+     * @return the nearest double to the value
+     */
+    public static double toDouble(long value, int scale) {
+        // Both operands are exact, so the division is correctly rounded
+        return value / (double) POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * @param value the fixed-point value
+     * @param scale the scale of the value
+     * @return the exact decimal value
+     */
+    public static BigDecimal toBigDecimal(long value, int scale) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    /**
+     * @param scale the number of decimals
+     * @return the fixed-point value of one unit, e.g. 100 for scale 2
+     */
+    public static long unit(int scale) {
+        checkScale(scale);
+        return POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * @param scale the scale to check
+     * @throws IllegalArgumentException if the scale is negative or larger than {@link #MAX_SCALE}
+     */
+    public static void checkScale(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Price scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+    }
+}
@@ -16,7 +16,7 @@ import java.util.Map;
  * Class representing a stock and provides different functionalities to get info about a stock.
  *
  * @author Joakim Colloz
- * @version 1.0
+ * @version 1.1
  * @since 1.0
  */
 public class Stock {
@@ -49,9 +49,9 @@ public class Stock {
     public Stock(String symbol, final String range, final String interval) throws DataFetchException, JsonParseException {
         this.symbol = symbol;
 
-        final String json = new YahooFinanceFetcher().fetchData(symbol, range, interval);
+        final byte[] json = new YahooFinanceFetcher().fetchBytes(symbol, range, interval);
         try (YahooFinanceParser yahooFinanceParser = new YahooFinanceParser()) {
-            yahooFinanceParser.setJsonString(json);
+            yahooFinanceParser.setJsonBytes(json);
             yahooFinanceParser.parse();
             this.tradingPeriod = yahooFinanceParser.getTradingPeriod();
         }
@@ -73,9 +73,9 @@ public class Stock {
             throws DataFetchException {
         this.symbol = symbol;
 
-        final String json = new YahooFinanceFetcher().fetchData(symbol, range, interval);
+        final byte[] json = new YahooFinanceFetcher().fetchBytes(symbol, range, interval);
         try (YahooFinanceParser yahooFinanceParser = new YahooFinanceParser()) {
-            yahooFinanceParser.setJsonString(json);
+            yahooFinanceParser.setJsonBytes(json);
             yahooFinanceParser.parse();
 
             if (skipCurrentDayPriceData) {
@@ -7,14 +7,41 @@ import java.util.List;
 
 /**
  * Record representing a trading period i.e., a list of {@link Candlestick} which all have the same interval and range.
+ * <p>
+ * A trading period created from a {@link CandlestickSeries} keeps the candlesticks in columns, and the
+ * candlesticks list is a view of the series. Use {@link #series()} to read the data without creating
+ * candlestick objects.
+ * </p>
  *
  * @author Joakim Colloz
- * @version 1.0
+ * @version 1.1
  * @since 1.0
  */
 public record TradingPeriod(List<Candlestick> candlesticks, String range, String interval) {
     private static final Logger logger = LoggerFactory.getLogger(TradingPeriod.class);
 
+    /**
+     * Creates a trading period backed by the given series.
+     *
+     * @param series   the candlesticks of the trading period
+     * @param range    the range of the trading period
+     * @param interval the interval between the candlesticks
+     * @return the created trading period
+     */
+    public static TradingPeriod of(CandlestickSeries series, String range, String interval) {
+        return new TradingPeriod(series.asList(), range, interval);
+    }
+
+    /**
+     * Returns the candlesticks as a series. This is the backing series if the trading period was created from one,
+     * otherwise the candlesticks are copied into a new series.
+     *
+     * @return the candlesticks as a series
+     */
+    public CandlestickSeries series() {
+        return CandlestickSeries.from(candlesticks);
+    }
+
     public void printTradingPeriod() {
         candlesticks.forEach(System.out::println);
     }
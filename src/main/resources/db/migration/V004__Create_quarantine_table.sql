@@ -0,0 +1,23 @@
+-- Purpose: Keep candlesticks that fail validation, with the reason and the raw values, instead of dropping
+-- the whole symbol. Valid rows of the same response still go to stock_prices_1day.
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_quarantine (
+    id BIGSERIAL PRIMARY KEY,
+    symbol VARCHAR(20) NOT NULL,
+    timestamp BIGINT,
+    open DOUBLE PRECISION,
+    high DOUBLE PRECISION,
+    low DOUBLE PRECISION,
+    close DOUBLE PRECISION,
+    volume BIGINT,
+    reason TEXT NOT NULL,
+    quarantined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_prices_quarantine_symbol_timestamp
+ON stock_prices_schema.stock_prices_quarantine(symbol, timestamp);
+
+-- Comments for documentation
+COMMENT ON TABLE stock_prices_schema.stock_prices_quarantine IS 'Candlesticks rejected by validation, kept for inspection';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_quarantine.timestamp IS 'Unix timestamp as received from the provider';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_quarantine.open IS 'Opening price as received, may be invalid';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_quarantine.reason IS 'Why the candlestick was rejected';
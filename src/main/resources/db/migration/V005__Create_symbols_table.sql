@@ -0,0 +1,77 @@
+-- Purpose: Store each symbol once in a symbols dimension table and reference it from stock_prices_1day with an
+-- INTEGER id instead of repeating the VARCHAR(20) symbol in every row, the unique constraint and the indexes.
+CREATE TABLE IF NOT EXISTS stock_prices_schema.symbols (
+    id SERIAL PRIMARY KEY,
+    symbol VARCHAR(20) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE stock_prices_schema.symbols IS 'Stock symbols referenced by the price tables';
+COMMENT ON COLUMN stock_prices_schema.symbols.symbol IS 'Stock symbol (e.g., BOL.ST, ABB.ST)';
+
+-- Backfill the symbols of the existing rows
+INSERT INTO stock_prices_schema.symbols (symbol)
+SELECT DISTINCT symbol
+FROM stock_prices_schema.stock_prices_1day
+ORDER BY symbol
+ON CONFLICT (symbol) DO NOTHING;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day
+ADD COLUMN symbol_id INTEGER;
+
+UPDATE stock_prices_schema.stock_prices_1day AS prices
+SET symbol_id = symbols.id
+FROM stock_prices_schema.symbols AS symbols
+WHERE symbols.symbol = prices.symbol;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day
+ALTER COLUMN symbol_id SET NOT NULL;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day
+ADD CONSTRAINT fk_stock_prices_symbol_id
+FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id);
+
+-- The unique constraint on (symbol_id, timestamp) also serves the symbol and symbol range lookups,
+-- replacing unique_timestamp_symbol, idx_stock_prices_symbol_timestamp and idx_stock_prices_symbol
+ALTER TABLE stock_prices_schema.stock_prices_1day
+DROP CONSTRAINT IF EXISTS unique_timestamp_symbol;
+
+DROP INDEX IF EXISTS stock_prices_schema.idx_stock_prices_symbol_timestamp;
+DROP INDEX IF EXISTS stock_prices_schema.idx_stock_prices_symbol;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day
+ADD CONSTRAINT unique_symbol_id_timestamp
+UNIQUE (symbol_id, timestamp);
+
+-- Recreate the trigger function of V003 on symbol_id before the symbol column is dropped
+CREATE OR REPLACE FUNCTION enforce_unique_date_per_symbol()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF EXISTS (
+            SELECT 1
+            FROM stock_prices_schema.stock_prices_1day
+            WHERE to_char(TO_TIMESTAMP(stock_prices_schema.stock_prices_1day.timestamp), 'YYYY-MM-DD') = to_char(TO_TIMESTAMP(NEW.timestamp), 'YYYY-MM-DD')
+              AND stock_prices_schema.stock_prices_1day.symbol_id = NEW.symbol_id
+        ) THEN
+            UPDATE stock_prices_schema.stock_prices_1day
+            SET open = NEW.open,
+                high = NEW.high,
+                low = NEW.low,
+                close = NEW.close,
+                volume = NEW.volume,
+                timestamp = NEW.timestamp,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE to_char(TO_TIMESTAMP(stock_prices_schema.stock_prices_1day.timestamp), 'YYYY-MM-DD') = to_char(TO_TIMESTAMP(NEW.timestamp), 'YYYY-MM-DD')
+              AND stock_prices_schema.stock_prices_1day.symbol_id = NEW.symbol_id;
+            RETURN NULL;
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day
+DROP COLUMN symbol;
+
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1day.symbol_id IS 'Id of the stock symbol in stock_prices_schema.symbols';
@@ -0,0 +1,8 @@
+-- Purpose: Keep one B-tree per insert besides the primary key. V005 already replaced the symbol indexes with the
+-- unique (symbol_id, timestamp) constraint, which serves lookups by symbol and by symbol and time range.
+-- The B-tree on timestamp is only used for time range scans over all symbols, which a BRIN index serves
+-- at a fraction of the size and maintenance cost since rows are appended in roughly timestamp order.
+DROP INDEX IF EXISTS stock_prices_schema.idx_stock_prices_timestamp;
+
+CREATE INDEX IF NOT EXISTS idx_stock_prices_timestamp_brin
+ON stock_prices_schema.stock_prices_1day USING BRIN (timestamp);
@@ -0,0 +1,87 @@
+-- Purpose: Range partition stock_prices_1day on timestamp by calendar year (UTC), so vacuum, index maintenance
+-- and time range queries only touch the relevant years, and an old year can be detached without rewriting
+-- the table. Partitions are created with create_stock_prices_partition, ahead of time by the application.
+
+-- Move the existing table aside and free its constraint and index names
+ALTER TABLE stock_prices_schema.stock_prices_1day RENAME TO stock_prices_1day_unpartitioned;
+
+DROP TRIGGER IF EXISTS enforce_unique_date_per_symbol_trigger ON stock_prices_schema.stock_prices_1day_unpartitioned;
+
+ALTER TABLE stock_prices_schema.stock_prices_1day_unpartitioned
+DROP CONSTRAINT stock_prices_1day_pkey,
+DROP CONSTRAINT unique_symbol_id_timestamp,
+DROP CONSTRAINT fk_stock_prices_symbol_id;
+
+DROP INDEX IF EXISTS stock_prices_schema.idx_stock_prices_timestamp_brin;
+
+-- Keep the id sequence when the old table is dropped
+ALTER SEQUENCE stock_prices_schema.stock_prices_1day_id_seq OWNED BY NONE;
+
+-- The primary key and unique constraints of a partitioned table must include the partition key
+CREATE TABLE stock_prices_schema.stock_prices_1day (
+    id BIGINT NOT NULL DEFAULT nextval('stock_prices_schema.stock_prices_1day_id_seq'),
+    timestamp BIGINT NOT NULL,
+    open DECIMAL(15,6) NOT NULL,
+    close DECIMAL(15,6) NOT NULL,
+    low DECIMAL(15,6) NOT NULL,
+    high DECIMAL(15,6) NOT NULL,
+    volume BIGINT NOT NULL,
+    symbol_id INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT stock_prices_1day_pkey PRIMARY KEY (id, timestamp),
+    CONSTRAINT unique_symbol_id_timestamp UNIQUE (symbol_id, timestamp),
+    CONSTRAINT fk_stock_prices_symbol_id FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE stock_prices_schema.stock_prices_1day_id_seq OWNED BY stock_prices_schema.stock_prices_1day.id;
+
+CREATE INDEX IF NOT EXISTS idx_stock_prices_timestamp_brin
+ON stock_prices_schema.stock_prices_1day USING BRIN (timestamp);
+
+COMMENT ON TABLE stock_prices_schema.stock_prices_1day IS '1-day Stock price candlestick data, partitioned by year';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1day.timestamp IS 'Unix timestamp marking the start of the candlestick interval';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1day.symbol_id IS 'Id of the stock symbol in stock_prices_schema.symbols';
+
+-- Creates the partition of a year if it does not exist and returns its name
+CREATE OR REPLACE FUNCTION stock_prices_schema.create_stock_prices_partition(partition_year INTEGER)
+RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := format('stock_prices_1day_y%s', partition_year);
+    range_start BIGINT := EXTRACT(EPOCH FROM make_timestamptz(partition_year, 1, 1, 0, 0, 0, 'UTC'))::BIGINT;
+    range_end BIGINT := EXTRACT(EPOCH FROM make_timestamptz(partition_year + 1, 1, 1, 0, 0, 0, 'UTC'))::BIGINT;
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS stock_prices_schema.%I '
+                   'PARTITION OF stock_prices_schema.stock_prices_1day FOR VALUES FROM (%s) TO (%s)',
+                   partition_name, range_start, range_end);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Create the partitions of the existing data, the current year and the next year, then copy the rows
+DO $$
+DECLARE
+    first_year INTEGER;
+    last_year INTEGER := EXTRACT(YEAR FROM (now() AT TIME ZONE 'UTC'))::INTEGER + 1;
+BEGIN
+    SELECT EXTRACT(YEAR FROM (to_timestamp(MIN(timestamp)) AT TIME ZONE 'UTC'))::INTEGER
+    INTO first_year
+    FROM stock_prices_schema.stock_prices_1day_unpartitioned;
+
+    FOR partition_year IN LEAST(COALESCE(first_year, last_year - 1), last_year - 1)..last_year LOOP
+        PERFORM stock_prices_schema.create_stock_prices_partition(partition_year);
+    END LOOP;
+END $$;
+
+INSERT INTO stock_prices_schema.stock_prices_1day
+    (id, timestamp, open, close, low, high, volume, symbol_id, created_at, updated_at)
+SELECT id, timestamp, open, close, low, high, volume, symbol_id, created_at, updated_at
+FROM stock_prices_schema.stock_prices_1day_unpartitioned;
+
+DROP TABLE stock_prices_schema.stock_prices_1day_unpartitioned;
+
+-- Recreate the same day trigger of V005 on the partitioned table
+CREATE TRIGGER enforce_unique_date_per_symbol_trigger
+BEFORE INSERT ON stock_prices_schema.stock_prices_1day
+FOR EACH ROW
+EXECUTE FUNCTION enforce_unique_date_per_symbol();
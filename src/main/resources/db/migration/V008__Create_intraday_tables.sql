@@ -0,0 +1,48 @@
+-- Purpose: Store intraday candlesticks in one table per interval. Unlike stock_prices_1day there is no trigger
+-- collapsing the rows of a day, the primary key is the exact timestamp per symbol and rows are upserted with
+-- ON CONFLICT. No surrogate id is kept, so each insert only maintains the primary key and a small BRIN index.
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_1min (
+    symbol_id INTEGER NOT NULL REFERENCES stock_prices_schema.symbols (id),
+    timestamp BIGINT NOT NULL,
+    open DECIMAL(15,6) NOT NULL,
+    high DECIMAL(15,6) NOT NULL,
+    low DECIMAL(15,6) NOT NULL,
+    close DECIMAL(15,6) NOT NULL,
+    volume BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT stock_prices_1min_pkey PRIMARY KEY (symbol_id, timestamp)
+);
+
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_5min
+(LIKE stock_prices_schema.stock_prices_1min INCLUDING DEFAULTS);
+ALTER TABLE stock_prices_schema.stock_prices_5min
+ADD CONSTRAINT stock_prices_5min_pkey PRIMARY KEY (symbol_id, timestamp),
+ADD CONSTRAINT stock_prices_5min_symbol_id_fkey FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id);
+
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_15min
+(LIKE stock_prices_schema.stock_prices_1min INCLUDING DEFAULTS);
+ALTER TABLE stock_prices_schema.stock_prices_15min
+ADD CONSTRAINT stock_prices_15min_pkey PRIMARY KEY (symbol_id, timestamp),
+ADD CONSTRAINT stock_prices_15min_symbol_id_fkey FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id);
+
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_1hour
+(LIKE stock_prices_schema.stock_prices_1min INCLUDING DEFAULTS);
+ALTER TABLE stock_prices_schema.stock_prices_1hour
+ADD CONSTRAINT stock_prices_1hour_pkey PRIMARY KEY (symbol_id, timestamp),
+ADD CONSTRAINT stock_prices_1hour_symbol_id_fkey FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id);
+
+CREATE INDEX IF NOT EXISTS idx_stock_prices_1min_timestamp_brin
+ON stock_prices_schema.stock_prices_1min USING BRIN (timestamp);
+CREATE INDEX IF NOT EXISTS idx_stock_prices_5min_timestamp_brin
+ON stock_prices_schema.stock_prices_5min USING BRIN (timestamp);
+CREATE INDEX IF NOT EXISTS idx_stock_prices_15min_timestamp_brin
+ON stock_prices_schema.stock_prices_15min USING BRIN (timestamp);
+CREATE INDEX IF NOT EXISTS idx_stock_prices_1hour_timestamp_brin
+ON stock_prices_schema.stock_prices_1hour USING BRIN (timestamp);
+
+-- Comments for documentation
+COMMENT ON TABLE stock_prices_schema.stock_prices_1min IS '1-minute Stock price candlestick data';
+COMMENT ON TABLE stock_prices_schema.stock_prices_5min IS '5-minute Stock price candlestick data';
+COMMENT ON TABLE stock_prices_schema.stock_prices_15min IS '15-minute Stock price candlestick data';
+COMMENT ON TABLE stock_prices_schema.stock_prices_1hour IS '1-hour Stock price candlestick data';
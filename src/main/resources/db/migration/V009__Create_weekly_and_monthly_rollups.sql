@@ -0,0 +1,78 @@
+-- Purpose: Keep weekly and monthly candlesticks aggregated from stock_prices_1day, so long histories can be read
+-- without aggregating the daily rows on every request. refresh_stock_price_rollups recomputes only the buckets
+-- overlapping the given timestamp range of one symbol and is called by the application after each daily insert,
+-- in the same transaction. Buckets start on Monday (weeks) and the 1st (months), 00:00 UTC.
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_1week (
+    symbol_id INTEGER NOT NULL REFERENCES stock_prices_schema.symbols (id),
+    timestamp BIGINT NOT NULL,
+    open DECIMAL(15,6) NOT NULL,
+    high DECIMAL(15,6) NOT NULL,
+    low DECIMAL(15,6) NOT NULL,
+    close DECIMAL(15,6) NOT NULL,
+    volume BIGINT NOT NULL,
+    candle_count INTEGER NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT stock_prices_1week_pkey PRIMARY KEY (symbol_id, timestamp)
+);
+
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_prices_1month
+(LIKE stock_prices_schema.stock_prices_1week INCLUDING DEFAULTS);
+ALTER TABLE stock_prices_schema.stock_prices_1month
+ADD CONSTRAINT stock_prices_1month_pkey PRIMARY KEY (symbol_id, timestamp),
+ADD CONSTRAINT stock_prices_1month_symbol_id_fkey FOREIGN KEY (symbol_id) REFERENCES stock_prices_schema.symbols (id);
+
+-- Comments for documentation
+COMMENT ON TABLE stock_prices_schema.stock_prices_1week IS '1-week candlesticks aggregated from stock_prices_1day';
+COMMENT ON TABLE stock_prices_schema.stock_prices_1month IS '1-month candlesticks aggregated from stock_prices_1day';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1week.timestamp IS 'Unix timestamp of the start of the week (UTC)';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1month.timestamp IS 'Unix timestamp of the start of the month (UTC)';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1week.candle_count IS 'Number of daily candlesticks in the week';
+COMMENT ON COLUMN stock_prices_schema.stock_prices_1month.candle_count IS 'Number of daily candlesticks in the month';
+
+-- Recomputes the weekly and monthly buckets of a symbol overlapping [range_from, range_to]
+CREATE OR REPLACE FUNCTION stock_prices_schema.refresh_stock_price_rollups(
+    rollup_symbol_id INTEGER, range_from BIGINT, range_to BIGINT)
+RETURNS VOID AS $$
+DECLARE
+    bucket_unit TEXT;
+    rollup_table TEXT;
+    range_start BIGINT;
+    range_end BIGINT;
+BEGIN
+    FOREACH bucket_unit IN ARRAY ARRAY['week', 'month'] LOOP
+        rollup_table := 'stock_prices_1' || bucket_unit;
+        range_start := EXTRACT(EPOCH FROM date_trunc(bucket_unit, to_timestamp(range_from) AT TIME ZONE 'UTC'))::BIGINT;
+        range_end := EXTRACT(EPOCH FROM date_trunc(bucket_unit, to_timestamp(range_to) AT TIME ZONE 'UTC')
+                                         + ('1 ' || bucket_unit)::INTERVAL)::BIGINT;
+
+        EXECUTE format(
+            'INSERT INTO stock_prices_schema.%I (symbol_id, timestamp, open, high, low, close, volume, candle_count) '
+            'SELECT $1, bucket, (array_agg(open ORDER BY timestamp))[1], MAX(high), MIN(low), '
+            '       (array_agg(close ORDER BY timestamp DESC))[1], SUM(volume), COUNT(*) '
+            'FROM (SELECT daily.*, EXTRACT(EPOCH FROM date_trunc(%L, to_timestamp(daily.timestamp) AT TIME ZONE ''UTC''))::BIGINT AS bucket '
+            '      FROM stock_prices_schema.stock_prices_1day daily '
+            '      WHERE daily.symbol_id = $1 AND daily.timestamp >= $2 AND daily.timestamp < $3) AS daily_in_range '
+            'GROUP BY bucket '
+            'ON CONFLICT (symbol_id, timestamp) DO UPDATE SET open = EXCLUDED.open, high = EXCLUDED.high, '
+            '    low = EXCLUDED.low, close = EXCLUDED.close, volume = EXCLUDED.volume, '
+            '    candle_count = EXCLUDED.candle_count, updated_at = CURRENT_TIMESTAMP',
+            rollup_table, bucket_unit)
+        USING rollup_symbol_id, range_start, range_end;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Backfill the rollups of the existing daily rows
+DO $$
+DECLARE
+    symbol_range RECORD;
+BEGIN
+    FOR symbol_range IN
+        SELECT symbol_id, MIN(timestamp) AS first_timestamp, MAX(timestamp) AS last_timestamp
+        FROM stock_prices_schema.stock_prices_1day
+        GROUP BY symbol_id
+    LOOP
+        PERFORM stock_prices_schema.refresh_stock_price_rollups(
+            symbol_range.symbol_id, symbol_range.first_timestamp, symbol_range.last_timestamp);
+    END LOOP;
+END $$;
@@ -0,0 +1,28 @@
+-- Purpose: Store technical indicators of the daily candlesticks, computed at ingest time. Besides the indicator
+-- values, each row keeps the running state after the candlestick, so the next run continues from the stored
+-- rows and only processes new candlesticks instead of the whole history.
+CREATE TABLE IF NOT EXISTS stock_prices_schema.stock_indicators_1day (
+    symbol_id INTEGER NOT NULL REFERENCES stock_prices_schema.symbols (id),
+    timestamp BIGINT NOT NULL,
+    close DOUBLE PRECISION NOT NULL,
+    candle_count INTEGER NOT NULL,
+    sma_20 DOUBLE PRECISION,
+    ema_20 DOUBLE PRECISION,
+    rsi_14 DOUBLE PRECISION,
+    atr_14 DOUBLE PRECISION,
+    ema_state DOUBLE PRECISION NOT NULL,
+    gain_state DOUBLE PRECISION NOT NULL,
+    loss_state DOUBLE PRECISION NOT NULL,
+    atr_state DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT stock_indicators_1day_pkey PRIMARY KEY (symbol_id, timestamp)
+);
+
+-- Comments for documentation
+COMMENT ON TABLE stock_prices_schema.stock_indicators_1day IS 'Technical indicators of the 1-day candlesticks';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.candle_count IS 'Number of daily candlesticks of the symbol up to this one';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.sma_20 IS '20 day simple moving average of the close, NULL for the first 19 days';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.ema_20 IS '20 day exponential moving average of the close, NULL for the first 19 days';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.rsi_14 IS '14 day relative strength index (Wilder), NULL for the first 14 days';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.atr_14 IS '14 day average true range (Wilder), NULL for the first 13 days';
+COMMENT ON COLUMN stock_prices_schema.stock_indicators_1day.ema_state IS 'Running EMA state used to continue the computation';
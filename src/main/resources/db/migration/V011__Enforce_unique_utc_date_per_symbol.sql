@@ -0,0 +1,47 @@
+-- Purpose: Define the day of the same day trigger of V003/V005 in UTC, like the rollups of V009 and the application,
+-- instead of in the session time zone, which PgJDBC sets to the time zone of the JVM. The day is matched as a
+-- timestamp range, so the stored row of the day is found with the (symbol_id, timestamp) index.
+
+-- Rows stored on the same UTC day under the session time zone definition, the latest row of each day is kept
+CREATE TEMPORARY TABLE removed_same_utc_day (symbol_id INTEGER NOT NULL, timestamp BIGINT NOT NULL);
+
+WITH removed AS (
+    DELETE FROM stock_prices_schema.stock_prices_1day older
+    USING stock_prices_schema.stock_prices_1day newer
+    WHERE newer.symbol_id = older.symbol_id
+      AND floor(newer.timestamp / 86400.0) = floor(older.timestamp / 86400.0)
+      AND newer.timestamp > older.timestamp
+    RETURNING older.symbol_id, older.timestamp
+)
+INSERT INTO removed_same_utc_day SELECT symbol_id, timestamp FROM removed;
+
+SELECT stock_prices_schema.refresh_stock_price_rollups(symbol_id, MIN(timestamp), MAX(timestamp))
+FROM removed_same_utc_day
+GROUP BY symbol_id;
+
+DROP TABLE removed_same_utc_day;
+
+CREATE OR REPLACE FUNCTION enforce_unique_date_per_symbol()
+RETURNS TRIGGER AS $$
+DECLARE
+    day_start BIGINT := (floor(NEW.timestamp / 86400.0) * 86400)::BIGINT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE stock_prices_schema.stock_prices_1day
+        SET open = NEW.open,
+            high = NEW.high,
+            low = NEW.low,
+            close = NEW.close,
+            volume = NEW.volume,
+            timestamp = NEW.timestamp,
+            updated_at = CURRENT_TIMESTAMP
+        WHERE stock_prices_schema.stock_prices_1day.symbol_id = NEW.symbol_id
+          AND stock_prices_schema.stock_prices_1day.timestamp >= day_start
+          AND stock_prices_schema.stock_prices_1day.timestamp < day_start + 86400;
+        IF FOUND THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,5 @@
+-- Purpose: Let incremental exports, which select the daily rows updated after a watermark, read only those rows
+-- instead of scanning every yearly partition. The index is created on each partition, including the partitions
+-- the application adds later.
+CREATE INDEX IF NOT EXISTS idx_stock_prices_updated_at
+ON stock_prices_schema.stock_prices_1day (updated_at);
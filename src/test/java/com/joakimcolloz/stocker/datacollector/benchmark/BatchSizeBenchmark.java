@@ -0,0 +1,89 @@
+package com.joakimcolloz.stocker.datacollector.benchmark;
+
+import com.joakimcolloz.stocker.datacollector.database.CandlestickDao;
+import com.joakimcolloz.stocker.datacollector.database.DatabaseConfig;
+import com.joakimcolloz.stocker.datacollector.database.DatabaseManager;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.util.TestDatabaseUtil;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+/**
+ * Daily insert throughput of {@link CandlestickDao} per JDBC batch size, with and without the driver rewriting
+ * batched inserts into multi-row inserts, on a PostgreSQL container. Used to pick
+ * {@link DatabaseConfig#DEFAULT_BATCH_SIZE}.
+ * Run with {@code mvn test -Pbenchmark}. {@code benchmark.symbols} (default 20) and {@code benchmark.days}
+ * (default 5000) set the number of series and their length, one backfill per symbol.
+ */
+@Testcontainers
+class BatchSizeBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(BatchSizeBenchmark.class);
+    private static final List<Integer> BATCH_SIZES = List.of(50, 100, 250, 500, 1000, 2500, 5000);
+    private static final long FIRST_DAY = 1_262_334_600L; // 2010-01-01 08:30
+    private static final long DAY = 86_400L;
+
+    @Container
+    static PostgreSQLContainer<?> postgreSQLContainer = TestDatabaseUtil.createContainer(
+            "stockdb_benchmark", "test_user", "test_password");
+
+    @Test
+    void compareBatchSizes() {
+        final int symbols = Integer.getInteger("benchmark.symbols", 20);
+        final CandlestickSeries series = createSeries(Integer.getInteger("benchmark.days", 5000));
+        for (boolean rewriteBatchedInserts : List.of(false, true)) {
+            for (int batchSize : BATCH_SIZES) {
+                run(batchSize, rewriteBatchedInserts, symbols, series);
+            }
+        }
+    }
+
+    private static void run(int batchSize, boolean rewriteBatchedInserts, int symbols, CandlestickSeries series) {
+        final DatabaseConfig config = new DatabaseConfig(postgreSQLContainer.getHost(),
+                postgreSQLContainer.getFirstMappedPort().toString(), postgreSQLContainer.getDatabaseName(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword(), batchSize,
+                rewriteBatchedInserts);
+        final DatabaseManager databaseManager = new DatabaseManager(config);
+        try {
+            databaseManager.initialize();
+            final CandlestickDao candlestickDao = databaseManager.createCandlestickDao();
+            candlestickDao.resetTable();
+
+            final long start = System.nanoTime();
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                candlestickDao.addRows("SYM" + symbol + ".ST", series);
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            final long rows = (long) symbols * series.size();
+            logger.info("batch size {}, reWriteBatchedInserts {}: inserted {} rows in {} s, {} rows/s", batchSize,
+                    rewriteBatchedInserts, rows, String.format("%.1f", seconds),
+                    String.format("%.0f", rows / seconds));
+        } finally {
+            databaseManager.close();
+        }
+    }
+
+    private static CandlestickSeries createSeries(int days) {
+        final long[] timestamps = new long[days];
+        final double[] opens = new double[days];
+        final double[] highs = new double[days];
+        final double[] lows = new double[days];
+        final double[] closes = new double[days];
+        final long[] volumes = new long[days];
+        for (int day = 0; day < days; day++) {
+            final double price = 100 + day % 97;
+            timestamps[day] = FIRST_DAY + day * DAY;
+            opens[day] = price;
+            highs[day] = price + 2;
+            lows[day] = price - 1;
+            closes[day] = price + 1;
+            volumes[day] = 1000L + day % 1000;
+        }
+        return new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+    }
+}
@@ -0,0 +1,84 @@
+package com.joakimcolloz.stocker.datacollector.benchmark;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.ApiKeyPool;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.FinanceBirdFetcher;
+import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
+import com.joakimcolloz.stocker.datacollector.util.StubProviderServer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load test of fetching and parsing thousands of symbols from the {@link StubProviderServer}, without network access.
+ * Run with {@code mvn test -Pbenchmark}. The load is configured through system properties:
+ * {@code benchmark.symbols} (default 2000), {@code benchmark.threads} (default 16),
+ * {@code benchmark.latencyMs} (default 20) and {@code benchmark.throttleRate} (default 0.01).
+ */
+class FetchThroughputBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(FetchThroughputBenchmark.class);
+
+    @Test
+    void fetchAndParseSymbols() throws Exception {
+        final int symbolCount = Integer.getInteger("benchmark.symbols", 2000);
+        final int threadCount = Integer.getInteger("benchmark.threads", 16);
+        final long latencyMs = Long.getLong("benchmark.latencyMs", 20);
+        final double throttleRate = Double.parseDouble(System.getProperty("benchmark.throttleRate", "0.01"));
+
+        try (StubProviderServer server = new StubProviderServer()) {
+            server.setLatency(Duration.ofMillis(latencyMs));
+            server.setThrottleRate(throttleRate);
+            FinanceBirdFetcher fetcher = new FinanceBirdFetcher(server.financeBirdUrl(),
+                    new ApiKeyPool(List.of("key-a", "key-b", "key-c", "key-d"), 0, 0, Duration.ofSeconds(1)));
+
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            AtomicInteger failures = new AtomicInteger();
+            long[] latenciesNanos = new long[symbolCount];
+            List<Future<?>> futures = new ArrayList<>(symbolCount);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < symbolCount; i++) {
+                final int index = i;
+                futures.add(executor.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    try (FinanceBirdParser parser = new FinanceBirdParser()) {
+                        parser.setJsonString(fetcher.fetchData("SYM" + index + ".ST", "1y", "1d"));
+                        parser.parse();
+                    } catch (DataFetchException e) {
+                        failures.incrementAndGet();
+                    }
+                    latenciesNanos[index] = System.nanoTime() - requestStart;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+
+            Arrays.sort(latenciesNanos);
+            logger.info("Fetched and parsed {} symbols with {} threads in {} ms: {} symbols/s, " +
+                            "p50 {} ms, p99 {} ms, {} requests, {} throttled, {} failed",
+                    symbolCount, threadCount, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    Math.round(symbolCount / (elapsedNanos / 1e9)),
+                    TimeUnit.NANOSECONDS.toMillis(latenciesNanos[symbolCount / 2]),
+                    TimeUnit.NANOSECONDS.toMillis(latenciesNanos[(int) (symbolCount * 0.99)]),
+                    server.getRequestCount(), server.getThrottledCount(), failures.get());
+
+            assertEquals(symbolCount - failures.get(), server.getRequestCount() - server.getThrottledCount());
+        }
+    }
+}
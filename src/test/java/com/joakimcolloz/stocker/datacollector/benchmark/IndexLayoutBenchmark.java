@@ -0,0 +1,149 @@
+package com.joakimcolloz.stocker.datacollector.benchmark;
+
+import com.joakimcolloz.stocker.datacollector.util.TestDatabaseUtil;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Insert throughput and query latency of the price table with the index layout before V005/V006 (unique constraint,
+ * (symbol, timestamp), symbol and timestamp B-trees) and after (unique (symbol_id, timestamp) and a BRIN index on
+ * timestamp), on a PostgreSQL container.
+ * Run with {@code mvn test -Pbenchmark}. {@code benchmark.rows} (default 2 000 000) sets the number of rows,
+ * inserted day by day for 200 symbols like the daily collection does.
+ */
+@Testcontainers
+class IndexLayoutBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(IndexLayoutBenchmark.class);
+    private static final int SYMBOLS = 200;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int QUERY_ITERATIONS = 50;
+    private static final long FIRST_DAY = 1_262_304_000L; // 2010-01-01
+    private static final long DAY = 86_400L;
+
+    private static final List<String> BEFORE = List.of(
+            "ALTER TABLE prices ADD CONSTRAINT prices_unique UNIQUE (timestamp, symbol_id)",
+            "CREATE INDEX prices_symbol_timestamp ON prices (symbol_id, timestamp)",
+            "CREATE INDEX prices_symbol ON prices (symbol_id)",
+            "CREATE INDEX prices_timestamp ON prices (timestamp)");
+    private static final List<String> AFTER = List.of(
+            "ALTER TABLE prices ADD CONSTRAINT prices_unique UNIQUE (symbol_id, timestamp)",
+            "CREATE INDEX prices_timestamp_brin ON prices USING BRIN (timestamp)");
+
+    @Container
+    static PostgreSQLContainer<?> postgreSQLContainer = TestDatabaseUtil.createContainer(
+            "stockdb_benchmark", "test_user", "test_password");
+
+    @Test
+    void compareIndexLayouts() throws SQLException {
+        final int rows = Integer.getInteger("benchmark.rows", 2_000_000);
+        try (Connection connection = DriverManager.getConnection(postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword())) {
+            run(connection, "before", BEFORE, rows);
+            run(connection, "after", AFTER, rows);
+        }
+    }
+
+    private static void run(Connection connection, String layout, List<String> indexes, int rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS prices");
+            statement.execute("CREATE TABLE prices (id BIGSERIAL PRIMARY KEY, timestamp BIGINT NOT NULL, "
+                    + "open DECIMAL(15,6) NOT NULL, close DECIMAL(15,6) NOT NULL, low DECIMAL(15,6) NOT NULL, "
+                    + "high DECIMAL(15,6) NOT NULL, volume BIGINT NOT NULL, symbol_id INTEGER NOT NULL)");
+            for (String index : indexes) {
+                statement.execute(index);
+            }
+        }
+
+        final long start = System.nanoTime();
+        insertRows(connection, rows);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("{}: inserted {} rows in {} s, {} rows/s, index size {} MB", layout, rows,
+                String.format("%.1f", seconds), String.format("%.0f", rows / seconds),
+                String.format("%.1f", indexSize(connection) / (1024.0 * 1024.0)));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE prices");
+        }
+
+        final long lastDay = FIRST_DAY + (rows / SYMBOLS - 1) * DAY;
+        logQueryLatency(connection, layout, "one symbol, last year",
+                "SELECT * FROM prices WHERE symbol_id = 42 AND timestamp BETWEEN ? AND ? ORDER BY timestamp",
+                lastDay - 365 * DAY, lastDay);
+        logQueryLatency(connection, layout, "all symbols, one day",
+                "SELECT * FROM prices WHERE timestamp BETWEEN ? AND ?", lastDay, lastDay);
+        logQueryLatency(connection, layout, "all symbols, last month volume",
+                "SELECT symbol_id, SUM(volume) FROM prices WHERE timestamp BETWEEN ? AND ? GROUP BY symbol_id",
+                lastDay - 30 * DAY, lastDay);
+    }
+
+    private static void insertRows(Connection connection, int rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO prices "
+                + "(timestamp, open, close, low, high, volume, symbol_id) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int row = 0; row < rows; row++) {
+                final double price = 100 + row % 97;
+                statement.setLong(1, FIRST_DAY + (row / SYMBOLS) * DAY);
+                statement.setDouble(2, price);
+                statement.setDouble(3, price + 1);
+                statement.setDouble(4, price - 1);
+                statement.setDouble(5, price + 2);
+                statement.setLong(6, 1000L + row % 1000);
+                statement.setInt(7, row % SYMBOLS);
+                statement.addBatch();
+                if ((row + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static long indexSize(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_indexes_size('prices')")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void logQueryLatency(Connection connection, String layout, String name, String sql,
+                                        long from, long to) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            long totalNanos = 0;
+            int resultRows = 0;
+            for (int i = 0; i < QUERY_ITERATIONS * 2; i++) {
+                final long start = System.nanoTime();
+                resultRows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultRows++;
+                    }
+                }
+                // The first half warms up the cache
+                if (i >= QUERY_ITERATIONS) {
+                    totalNanos += System.nanoTime() - start;
+                }
+            }
+            logger.info("{}: {} ({} rows): {} ms", layout, name, resultRows,
+                    String.format("%.2f", totalNanos / 1e6 / QUERY_ITERATIONS));
+        }
+    }
+}
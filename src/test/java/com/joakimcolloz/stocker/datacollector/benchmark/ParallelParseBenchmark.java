@@ -0,0 +1,86 @@
+package com.joakimcolloz.stocker.datacollector.benchmark;
+
+import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
+import com.joakimcolloz.stocker.datacollector.data.parsers.ParseStage;
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Scaling of the {@link ParseStage} from 1 to N workers on the FinanceBird fixtures, reporting the total
+ * throughput and the throughput per worker in MB/s.
+ * Run with {@code mvn test -Pbenchmark}. {@code benchmark.iterations} (default 20) sets the rounds over the
+ * fixtures and {@code benchmark.maxThreads} (default the available processors) the largest pool.
+ */
+class ParallelParseBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelParseBenchmark.class);
+    private static final String[] FIXTURES = {
+            "FinanceBird-BOL.ST-1d-10y.json",
+            "FinanceBird-BOL.ST-1d-3y.json",
+            "FinanceBird-BOL.ST-1d-2y.json",
+            "FinanceBird-BOL.ST-1d-1y.json",
+            "FinanceBird-BOL.ST-1d-3month.json",
+            "FinanceBird-BOL.ST-1d-1d.json"
+    };
+    private static final int WARMUP_ROUNDS = 5;
+
+    @Test
+    void parseFixturesWithOneToNWorkers() {
+        final int iterations = Integer.getInteger("benchmark.iterations", 20);
+        final int maxThreads = Integer.getInteger("benchmark.maxThreads", Runtime.getRuntime().availableProcessors());
+        final List<byte[]> documents = new ArrayList<>();
+        long roundBytes = 0;
+        for (String fixture : FIXTURES) {
+            byte[] json = loadTestJSON(fixture);
+            documents.add(json);
+            roundBytes += json.length;
+        }
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            try (ParseStage stage = new ParseStage(FinanceBirdParser::new, threads)) {
+                parseRounds(stage, documents, WARMUP_ROUNDS);
+
+                final ParseStage.Stats before = stage.getStats();
+                final long start = System.nanoTime();
+                parseRounds(stage, documents, iterations);
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                final ParseStage.Stats after = stage.getStats();
+
+                final long bytes = roundBytes * iterations;
+                final long busyNanos = after.busyNanos() - before.busyNanos();
+                logger.info("{} workers: {} MB/s total, {} MB/s per busy worker, {} documents",
+                        threads,
+                        String.format("%.1f", bytes / seconds / (1024 * 1024)),
+                        String.format("%.1f", bytes / (busyNanos / 1e9) / (1024 * 1024)),
+                        after.documents() - before.documents());
+            }
+        }
+    }
+
+    private static void parseRounds(ParseStage stage, List<byte[]> documents, int rounds) {
+        final List<CompletableFuture<TradingPeriod>> results = new ArrayList<>();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] json : documents) {
+                results.add(stage.submit("BOL.ST", json));
+            }
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private byte[] loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return is.readAllBytes();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.joakimcolloz.stocker.datacollector.benchmark;
+
+import com.joakimcolloz.stocker.datacollector.data.parsers.BaseParser;
+import com.joakimcolloz.stocker.datacollector.data.parsers.ChartByteParser;
+import com.joakimcolloz.stocker.datacollector.data.parsers.ChartColumns;
+import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Parse throughput in MB/s on the 10 year fixture: full traversal, path aware and byte level parsing, and the
+ * {@link ChartByteParser} alone without building the trading period.
+ * Run with {@code mvn test -Pbenchmark}. {@code benchmark.iterations} (default 200) sets the measured iterations.
+ */
+class ParserThroughputBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ParserThroughputBenchmark.class);
+    private static final String FIXTURE = "FinanceBird-BOL.ST-1d-10y.json";
+    private static final int WARMUP_ITERATIONS = 50;
+
+    @Test
+    void parseTenYearFixture() {
+        final int iterations = Integer.getInteger("benchmark.iterations", 200);
+        final String json = loadTestJSON(FIXTURE);
+        final byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+        for (Mode mode : Mode.values()) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                parse(json, jsonBytes, mode);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                assertEquals(2516, parse(json, jsonBytes, mode));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            logger.info("Parsed {} ({} bytes) {} times, {}: {} MB/s, {} ms per document",
+                    FIXTURE, jsonBytes.length, iterations, mode,
+                    String.format("%.1f", jsonBytes.length * (double) iterations / seconds / (1024 * 1024)),
+                    String.format("%.2f", seconds * 1000 / iterations));
+        }
+    }
+
+    private enum Mode { FULL_TRAVERSAL, PATH_AWARE, BYTE_LEVEL, COLUMNS_ONLY }
+
+    private static int parse(String json, byte[] jsonBytes, Mode mode) {
+        if (mode == Mode.COLUMNS_ONLY) {
+            ChartColumns columns = new ChartColumns();
+            new ChartByteParser(columns).parse(ByteBuffer.wrap(jsonBytes));
+            return columns.timestamps().size();
+        }
+        try (BaseParser parser = new FinanceBirdParser()) {
+            parser.setPathAwareParsing(mode != Mode.FULL_TRAVERSAL);
+            if (mode == Mode.BYTE_LEVEL) {
+                parser.setJsonBytes(jsonBytes);
+            } else {
+                parser.setJsonString(json);
+            }
+            parser.parse();
+            return parser.getTradingPeriod().candlesticks().size();
+        }
+    }
+
+    private String loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
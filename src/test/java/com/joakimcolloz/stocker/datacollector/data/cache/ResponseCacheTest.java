@@ -0,0 +1,222 @@
+package com.joakimcolloz.stocker.datacollector.data.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ResponseCache} covering expiry, LRU eviction and persistence across instances.
+ */
+class ResponseCacheTest {
+    // Thursday 12:00 in Stockholm (CEST), during a trading session
+    private static final Instant DURING_SESSION = Instant.parse("2025-08-28T10:00:00Z");
+    // Friday 20:00 in Stockholm (CEST), after the session has closed
+    private static final Instant AFTER_CLOSE = Instant.parse("2025-08-29T18:00:00Z");
+    private static final Duration LIVE_TTL = Duration.ofMinutes(5);
+    private static final String JSON = "{\"chart\": {\"result\": [], \"error\": null}}";
+    private static final byte[] JSON_BYTES = JSON.getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void storedResponseIsReturned() {
+        // Arrange
+        ResponseCache cache = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, new MutableClock(AFTER_CLOSE));
+
+        // Act
+        cache.put("host", "BOL.ST", "10y", "1d", JSON_BYTES);
+
+        // Assert
+        assertEquals(Optional.of(JSON), text(cache.get("host", "BOL.ST", "10y", "1d")));
+        assertEquals(Optional.empty(), cache.get("host", "BOL.ST", "1y", "1d"));
+        assertEquals(Optional.empty(), cache.get("other-host", "BOL.ST", "10y", "1d"));
+    }
+
+    @Test
+    void responseStoredDuringSessionExpiresAfterLiveTtl() {
+        // Arrange
+        MutableClock clock = new MutableClock(DURING_SESSION);
+        ResponseCache cache = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, clock);
+        cache.put("host", "BOL.ST", "1d", "1d", JSON_BYTES);
+
+        // Act & Assert
+        clock.advance(LIVE_TTL.minusSeconds(1));
+        assertEquals(Optional.of(JSON), text(cache.get("host", "BOL.ST", "1d", "1d")));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(Optional.empty(), cache.get("host", "BOL.ST", "1d", "1d"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void responseStoredAfterCloseIsValidUntilNextSessionOpens() {
+        // Arrange & Act
+        ResponseCache cache = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, new MutableClock(AFTER_CLOSE));
+
+        // Assert - Friday evening is valid until Monday 09:00 Stockholm time
+        assertEquals(Instant.parse("2025-09-01T07:00:00Z"), cache.expiresAt(AFTER_CLOSE));
+        // Before the session opens the response is valid until 09:00 the same day
+        assertEquals(Instant.parse("2025-08-28T07:00:00Z"), cache.expiresAt(Instant.parse("2025-08-28T05:00:00Z")));
+        assertEquals(DURING_SESSION.plus(LIVE_TTL), cache.expiresAt(DURING_SESSION));
+    }
+
+    @Test
+    void leastRecentlyUsedResponseIsEvictedWhenCacheIsFull() throws IOException {
+        // Arrange
+        MutableClock clock = new MutableClock(AFTER_CLOSE);
+        ResponseCache probe = new ResponseCache(cacheDirectory.resolve("probe"), 1024 * 1024, LIVE_TTL, clock);
+        probe.put("host", "A.ST", "10y", "1d", JSON_BYTES);
+        long entrySize = probe.getTotalSizeBytes();
+
+        ResponseCache cache = new ResponseCache(cacheDirectory.resolve("lru"), 2 * entrySize, LIVE_TTL, clock);
+        cache.put("host", "A.ST", "10y", "1d", JSON_BYTES);
+        cache.put("host", "B.ST", "10y", "1d", JSON_BYTES);
+
+        // Act - use A so that B becomes the least recently used
+        cache.get("host", "A.ST", "10y", "1d");
+        cache.put("host", "C.ST", "10y", "1d", JSON_BYTES);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("host", "A.ST", "10y", "1d").isPresent());
+        assertEquals(Optional.empty(), cache.get("host", "B.ST", "10y", "1d"));
+        assertTrue(cache.get("host", "C.ST", "10y", "1d").isPresent());
+        try (Stream<Path> files = Files.list(cacheDirectory.resolve("lru"))) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void responsesAreCompressedAndSurviveRestart() {
+        // Arrange
+        MutableClock clock = new MutableClock(AFTER_CLOSE);
+        String largeJson = "{\"close\": [" + "123.45,".repeat(10_000) + "123.45]}";
+        new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, clock)
+                .put("host", "BOL.ST", "10y", "1d", bytes(largeJson));
+
+        // Act
+        ResponseCache reopened = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, clock);
+
+        // Assert
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.getTotalSizeBytes() < largeJson.length() / 10);
+        assertEquals(Optional.of(largeJson), text(reopened.get("host", "BOL.ST", "10y", "1d")));
+    }
+
+    @Test
+    void failedPutLeavesNoTemporaryFile() throws IOException {
+        // Arrange
+        ResponseCache cache = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, new MutableClock(AFTER_CLOSE));
+        cache.put("host", "BOL.ST", "1d", "1d", JSON_BYTES);
+        Path entry;
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            entry = files.findFirst().orElseThrow();
+        }
+        // A non-empty directory in place of the entry makes the move fail
+        Files.delete(entry);
+        Files.createDirectories(entry.resolve("blocked"));
+
+        // Act
+        cache.put("host", "BOL.ST", "1d", "1d", JSON_BYTES);
+
+        // Assert
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertEquals(0, files.filter(file -> file.getFileName().toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void concurrentPutsAndGetsKeepIndexConsistent() throws Exception {
+        // Arrange
+        ResponseCache cache = new ResponseCache(cacheDirectory, 1024 * 1024, LIVE_TTL, new MutableClock(AFTER_CLOSE));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try {
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int symbol = 0; symbol < 25; symbol++) {
+                        cache.put("host", symbol + ".ST", "10y", "1d", JSON_BYTES);
+                        assertEquals(Optional.of(JSON), text(cache.get("host", symbol + ".ST", "10y", "1d")));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(25, cache.size());
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertEquals(cache.getTotalSizeBytes(), files.mapToLong(file -> file.toFile().length()).sum());
+        }
+    }
+
+    @Test
+    void invalidConfigurationThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(null, 1024, LIVE_TTL));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(cacheDirectory, 0, LIVE_TTL));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(cacheDirectory, 1024, null));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Optional<String> text(Optional<byte[]> json) {
+        return json.map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ApiKeyPool} covering key rotation, daily quotas and cooldown of rejected keys.
+ */
+class ApiKeyPoolTest {
+    private static final Instant START = Instant.parse("2025-08-28T10:00:00Z");
+
+    @Test
+    void requestsAreSpreadEvenlyAcrossKeys() throws DataFetchException {
+        ApiKeyPool pool = new ApiKeyPool(List.of("key-a", "key-b", "key-c"));
+
+        for (int i = 0; i < 9; i++) {
+            pool.acquire();
+        }
+
+        assertEquals(List.of(3, 3, 3), pool.getUsageToday());
+    }
+
+    @Test
+    void exhaustedDailyQuotaThrowsDataFetchException() throws DataFetchException {
+        ApiKeyPool pool = new ApiKeyPool(List.of("key-a", "key-b"), 0, 2, Duration.ofSeconds(60),
+                new MutableClock(START));
+
+        for (int i = 0; i < 4; i++) {
+            pool.acquire();
+        }
+
+        DataFetchException exception = assertThrows(DataFetchException.class, pool::acquire);
+        assertEquals("All 2 API key(s) have used up their daily quota", exception.getMessage());
+    }
+
+    @Test
+    void dailyQuotaIsResetOnNextUtcDay() throws DataFetchException {
+        MutableClock clock = new MutableClock(START);
+        ApiKeyPool pool = new ApiKeyPool(List.of("key-a"), 0, 1, Duration.ofSeconds(60), clock);
+        pool.acquire();
+
+        clock.advance(Duration.ofDays(1));
+
+        assertEquals("key-a", pool.acquire());
+        assertEquals(List.of(1), pool.getUsageToday());
+    }
+
+    @Test
+    void retiredKeyIsNotUsedDuringCooldown() throws DataFetchException {
+        MutableClock clock = new MutableClock(START);
+        ApiKeyPool pool = new ApiKeyPool(List.of("key-a", "key-b"), 0, 0, Duration.ofSeconds(60), clock);
+
+        pool.retire("key-a", 429, null);
+
+        assertEquals("key-b", pool.acquire());
+        assertEquals("key-b", pool.acquire());
+
+        clock.advance(Duration.ofSeconds(61));
+        assertEquals("key-a", pool.acquire());
+    }
+
+    @Test
+    void retryAfterLongerThanCooldownIsRespected() throws DataFetchException {
+        MutableClock clock = new MutableClock(START);
+        ApiKeyPool pool = new ApiKeyPool(List.of("key-a", "key-b"), 0, 0, Duration.ofSeconds(60), clock);
+
+        pool.retire("key-a", 429, Duration.ofSeconds(120));
+        clock.advance(Duration.ofSeconds(61));
+
+        assertEquals("key-b", pool.acquire());
+        assertEquals("key-b", pool.acquire());
+    }
+
+    @Test
+    void onlyAuthenticationAndThrottlingStatusCodesRejectKeys() {
+        assertEquals(true, ApiKeyPool.isKeyRejection(401));
+        assertEquals(true, ApiKeyPool.isKeyRejection(403));
+        assertEquals(true, ApiKeyPool.isKeyRejection(429));
+        assertEquals(false, ApiKeyPool.isKeyRejection(404));
+        assertEquals(false, ApiKeyPool.isKeyRejection(500));
+    }
+
+    @Test
+    void emptyKeyListThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ApiKeyPool(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new ApiKeyPool(List.of("key-a", " ")));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -3,22 +3,33 @@ package com.joakimcolloz.stocker.datacollector.data.fetchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.joakimcolloz.stocker.datacollector.data.cache.ResponseCache;
+import com.joakimcolloz.stocker.datacollector.data.exception.ApiKeyRejectedException;
 import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -35,7 +46,10 @@ class BaseDataFetcherTest {
     private HttpClient mockHttpClient;
 
     @Mock
-    private HttpResponse<String> mockHttpResponse;
+    private HttpResponse<byte[]> mockHttpResponse;
+
+    @Mock
+    private HttpResponse<byte[]> mockRejectedResponse;
 
     private TestableBaseDataFetcher fetcher;
     private static final String apiUrl = "https://api.example.com/stock/";
@@ -56,7 +70,7 @@ class BaseDataFetcherTest {
         // Arrange
         String expectedResponse = "{\"data\": \"test\"}";
         when(mockHttpResponse.statusCode()).thenReturn(200);
-        when(mockHttpResponse.body()).thenReturn(expectedResponse);
+        when(mockHttpResponse.body()).thenReturn(expectedResponse.getBytes(StandardCharsets.UTF_8));
 
         try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
             mockedHttpClient.when(HttpClient::newHttpClient).thenReturn(mockHttpClient);
@@ -71,6 +85,26 @@ class BaseDataFetcherTest {
         }
     }
 
+    @Test
+    void fetchBytesReturnsResponseBodyAsReceived() throws Exception {
+        // Arrange
+        byte[] expectedResponse = "{\"name\": \"Södra\"}".getBytes(StandardCharsets.UTF_8);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+        when(mockHttpResponse.body()).thenReturn(expectedResponse);
+
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::newHttpClient).thenReturn(mockHttpClient);
+            when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                    .thenReturn(mockHttpResponse);
+
+            // Act
+            byte[] result = fetcher.fetchBytes("BOL.ST", "1d", "1m");
+
+            // Assert
+            assertSame(expectedResponse, result);
+        }
+    }
+
     @Test
     void invalidInputThrowsIllegalArgumentException() {
         // Act & Assert
@@ -152,13 +186,93 @@ class BaseDataFetcherTest {
         assertTrue(exception.getMessage().contains("Invalid API URL format"));
     }
 
+    @Test
+    void rejectedApiKeyIsRetriedWithNextKeyInPool() throws Exception {
+        // Arrange
+        TestableBaseDataFetcher pooledFetcher = new TestableBaseDataFetcher(
+                "X-API-Key",
+                "X-API-Host",
+                new ApiKeyPool(List.of("first-key", "second-key")),
+                "test-api-host",
+                apiUrl
+        );
+        String expectedResponse = "{\"data\": \"test\"}";
+        when(mockRejectedResponse.statusCode()).thenReturn(429);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+        when(mockHttpResponse.body()).thenReturn(expectedResponse.getBytes(StandardCharsets.UTF_8));
+
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::newHttpClient).thenReturn(mockHttpClient);
+            when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                    .thenReturn(mockRejectedResponse, mockHttpResponse);
+
+            // Act
+            String result = pooledFetcher.fetchData("BOL.ST", "1d", "1m");
+
+            // Assert
+            assertEquals(expectedResponse, result);
+            ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+            verify(mockHttpClient, times(2)).send(requests.capture(), any(HttpResponse.BodyHandler.class));
+            assertEquals("first-key", requests.getAllValues().get(0).headers().firstValue("X-API-Key").orElseThrow());
+            assertEquals("second-key", requests.getAllValues().get(1).headers().firstValue("X-API-Key").orElseThrow());
+        }
+    }
+
+    @Test
+    void rejectedSingleApiKeyThrowsApiKeyRejectedException() throws Exception {
+        // Arrange
+        when(mockRejectedResponse.statusCode()).thenReturn(403);
+
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::newHttpClient).thenReturn(mockHttpClient);
+            when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                    .thenReturn(mockRejectedResponse);
+
+            // Act & Assert
+            ApiKeyRejectedException exception = assertThrows(ApiKeyRejectedException.class,
+                    () -> fetcher.fetchData("BOL.ST", "1d", "1m"));
+
+            assertEquals(403, exception.getStatusCode());
+            assertTrue(exception.getMessage().contains("status code: 403"));
+        }
+    }
+
     // Simple testable subclass
+    @Test
+    void cachedResponseIsReturnedWithoutSendingRequest(@TempDir Path cacheDirectory) throws Exception {
+        // Arrange
+        String expectedResponse = "{\"data\": \"test\"}";
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+        when(mockHttpResponse.body()).thenReturn(expectedResponse.getBytes(StandardCharsets.UTF_8));
+        fetcher.setResponseCache(new ResponseCache(cacheDirectory, 1024 * 1024, Duration.ofHours(1)));
+
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::newHttpClient).thenReturn(mockHttpClient);
+            when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                    .thenReturn(mockHttpResponse);
+
+            // Act
+            String first = fetcher.fetchData("BOL.ST", "10y", "1d");
+            String second = fetcher.fetchData("BOL.ST", "10y", "1d");
+
+            // Assert
+            assertEquals(expectedResponse, first);
+            assertEquals(expectedResponse, second);
+            verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        }
+    }
+
     private static class TestableBaseDataFetcher extends BaseDataFetcher {
         public TestableBaseDataFetcher(String apiKeyHeader, String apiHostHeader,
                                        String apiKey, String apiHost, String apiUrl) {
             super(apiKeyHeader, apiHostHeader, apiKey, apiHost, apiUrl);
         }
 
+        public TestableBaseDataFetcher(String apiKeyHeader, String apiHostHeader,
+                                       ApiKeyPool apiKeyPool, String apiHost, String apiUrl) {
+            super(apiKeyHeader, apiHostHeader, apiKeyPool, apiHost, apiUrl);
+        }
+
         @Override
         protected String buildApiUrl(String stockName, String range, String interval) {
             return apiUrl + stockName + "?range=" + range + "&interval=" + interval;
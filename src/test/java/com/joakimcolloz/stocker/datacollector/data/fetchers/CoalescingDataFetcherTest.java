@@ -0,0 +1,183 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link CoalescingDataFetcher} covering shared requests and slicing of longer ranges.
+ */
+class CoalescingDataFetcherTest {
+    // The fixtures were fetched after close on 2025-08-28
+    private static final Clock FIXTURE_CLOCK = Clock.fixed(Instant.parse("2025-08-28T18:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void concurrentIdenticalRequestsShareOneFetch() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            calls.incrementAndGet();
+            awaitLatch(release);
+            return "{\"symbol\": \"" + symbol + "\"}";
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            Future<String> first = executor.submit(() -> fetcher.fetchData("BOL.ST", "1y", "1d"));
+            Future<String> second = executor.submit(() -> fetcher.fetchData("BOL.ST", "1y", "1d"));
+            Future<String> third = executor.submit(() -> fetcher.fetchData("BOL.ST", "1y", "1d"));
+            while (fetcher.getCoalescedCount() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Assert
+            assertEquals("{\"symbol\": \"BOL.ST\"}", first.get(5, TimeUnit.SECONDS));
+            assertEquals(first.get(), second.get(5, TimeUnit.SECONDS));
+            assertEquals(first.get(), third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void repeatedRequestDuringRunIsNotFetchedAgain() throws DataFetchException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            calls.incrementAndGet();
+            return "{}";
+        });
+
+        // Act
+        fetcher.fetchData("BOL.ST", "3mo", "1d");
+        fetcher.fetchData("BOL.ST", "3mo", "1d");
+        fetcher.fetchData("ABB.ST", "3mo", "1d");
+
+        // Assert
+        assertEquals(2, calls.get());
+        assertEquals(1, fetcher.getCoalescedCount());
+    }
+
+    @Test
+    void onlyMostRecentlyUsedCompletedResponsesAreKept() throws DataFetchException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            calls.incrementAndGet();
+            return "{}";
+        }, 1);
+
+        // Act
+        fetcher.fetchData("BOL.ST", "3mo", "1d");
+        fetcher.fetchData("ABB.ST", "3mo", "1d");
+        fetcher.fetchData("BOL.ST", "3mo", "1d");
+        fetcher.fetchData("BOL.ST", "3mo", "1d");
+
+        // Assert - BOL.ST is dropped when ABB.ST completes and is kept again after it is fetched again
+        assertEquals(3, calls.get());
+        assertEquals(1, fetcher.getCoalescedCount());
+    }
+
+    @Test
+    void shorterRangeIsSlicedFromLongerRange() throws DataFetchException {
+        // Arrange
+        String oneYearJson = loadTestJSON("FinanceBird-BOL.ST-1d-1y.json");
+        AtomicInteger calls = new AtomicInteger();
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            calls.incrementAndGet();
+            return oneYearJson;
+        }, FIXTURE_CLOCK);
+
+        // Act
+        fetcher.fetchData("BOL.ST", "1y", "1d");
+        TradingPeriod threeMonths = parse(fetcher.fetchData("BOL.ST", "3mo", "1d"));
+        TradingPeriod oneDay = parse(fetcher.fetchData("BOL.ST", "1d", "1d"));
+
+        // Assert - the slices match what the API returns for the shorter ranges
+        assertEquals(1, calls.get());
+        assertEquals(2, fetcher.getSlicedCount());
+        assertEquals(parse(loadTestJSON("FinanceBird-BOL.ST-1d-3month.json")), threeMonths);
+        assertEquals(parse(loadTestJSON("FinanceBird-BOL.ST-1d-1d.json")).candlesticks(), oneDay.candlesticks());
+    }
+
+    @Test
+    void intradayRangeIsNotSliced() throws DataFetchException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            calls.incrementAndGet();
+            return loadTestJSON("FinanceBird-BOL.ST-1d-1y.json");
+        }, FIXTURE_CLOCK);
+
+        // Act
+        fetcher.fetchData("BOL.ST", "5d", "5m");
+        fetcher.fetchData("BOL.ST", "1d", "5m");
+
+        // Assert
+        assertEquals(2, calls.get());
+        assertEquals(0, fetcher.getSlicedCount());
+    }
+
+    @Test
+    void failedRequestIsFetchedAgain() throws DataFetchException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        CoalescingDataFetcher fetcher = new CoalescingDataFetcher((symbol, range, interval) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new DataFetchException("HTTP request failed with status code: 500");
+            }
+            return "{}";
+        });
+
+        // Act & Assert
+        assertThrows(DataFetchException.class, () -> fetcher.fetchData("BOL.ST", "1y", "1d"));
+        assertEquals("{}", fetcher.fetchData("BOL.ST", "1y", "1d"));
+        assertEquals(2, calls.get());
+    }
+
+    private static TradingPeriod parse(String json) {
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setJsonString(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
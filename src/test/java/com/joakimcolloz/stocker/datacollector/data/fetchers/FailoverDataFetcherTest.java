@@ -0,0 +1,194 @@
+package com.joakimcolloz.stocker.datacollector.data.fetchers;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link FailoverDataFetcher} covering failover and hedged requests.
+ */
+class FailoverDataFetcherTest {
+    private static final String PRIMARY_JSON = "{\"provider\": \"primary\"}";
+    private static final String SECONDARY_JSON = "{\"provider\": \"secondary\"}";
+
+    @Test
+    void primaryResponseIsUsedWhenPrimarySucceeds() throws DataFetchException {
+        AtomicInteger secondaryCalls = new AtomicInteger();
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> PRIMARY_JSON,
+                (symbol, range, interval) -> {
+                    secondaryCalls.incrementAndGet();
+                    return SECONDARY_JSON;
+                });
+
+        assertEquals(PRIMARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        assertEquals(0, secondaryCalls.get());
+    }
+
+    @Test
+    void failedPrimaryFailsOverToSecondary() throws DataFetchException {
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    throw new DataFetchException("HTTP request failed with status code: 429");
+                },
+                (symbol, range, interval) -> SECONDARY_JSON);
+
+        assertEquals(SECONDARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        assertEquals(1, fetcher.getFailoverCount());
+    }
+
+    @Test
+    void failureOfBothProvidersThrowsDataFetchException() {
+        DataFetchException primaryException = new DataFetchException("primary failed");
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    throw primaryException;
+                },
+                (symbol, range, interval) -> {
+                    throw new DataFetchException("secondary failed");
+                });
+
+        DataFetchException exception = assertThrows(DataFetchException.class,
+                () -> fetcher.fetchData("BOL.ST", "1d", "1d"));
+
+        assertEquals("secondary failed", exception.getMessage());
+        assertEquals(primaryException, exception.getSuppressed()[0]);
+    }
+
+    @Test
+    void invalidInputIsNotFailedOver() {
+        AtomicBoolean secondaryCalled = new AtomicBoolean();
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    throw new IllegalArgumentException("Invalid range: 2d");
+                },
+                (symbol, range, interval) -> {
+                    secondaryCalled.set(true);
+                    return SECONDARY_JSON;
+                });
+
+        assertThrows(IllegalArgumentException.class, () -> fetcher.fetchData("BOL.ST", "2d", "1d"));
+        assertEquals(false, secondaryCalled.get());
+    }
+
+    @Test
+    void slowPrimaryIsHedgedToSecondary() throws DataFetchException {
+        AtomicBoolean primaryIsSlow = new AtomicBoolean(false);
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    if (primaryIsSlow.get()) {
+                        sleep(5_000);
+                    }
+                    return PRIMARY_JSON;
+                },
+                (symbol, range, interval) -> SECONDARY_JSON,
+                0.95, 1.0);
+
+        // Collect enough fast primary latencies for the percentile to be known
+        for (int i = 0; i < 20; i++) {
+            assertEquals(PRIMARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        }
+
+        primaryIsSlow.set(true);
+        String json = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> fetcher.fetchData("BOL.ST", "1d", "1d"));
+
+        assertEquals(SECONDARY_JSON, json);
+        assertEquals(1, fetcher.getHedgeCount());
+    }
+
+    @Test
+    void losingPrimaryIsCancelledWhenHedgedRequestWins() throws Exception {
+        AtomicBoolean primaryIsSlow = new AtomicBoolean(false);
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    if (primaryIsSlow.get()) {
+                        try {
+                            Thread.sleep(5_000);
+                        } catch (InterruptedException e) {
+                            primaryInterrupted.countDown();
+                        }
+                    }
+                    return PRIMARY_JSON;
+                },
+                (symbol, range, interval) -> SECONDARY_JSON,
+                0.95, 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            fetcher.fetchData("BOL.ST", "1d", "1d");
+        }
+        primaryIsSlow.set(true);
+
+        assertEquals(SECONDARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        assertTrue(primaryInterrupted.await(2, TimeUnit.SECONDS), "Losing primary request should be cancelled");
+    }
+
+    @Test
+    void fastPrimaryIsNotHedgedBeforeMinimumDelay() throws DataFetchException {
+        AtomicBoolean primaryIsSlow = new AtomicBoolean(false);
+        AtomicInteger secondaryCalls = new AtomicInteger();
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    if (primaryIsSlow.get()) {
+                        sleep(10);
+                    }
+                    return PRIMARY_JSON;
+                },
+                (symbol, range, interval) -> {
+                    secondaryCalls.incrementAndGet();
+                    return SECONDARY_JSON;
+                },
+                0.95, 1.0);
+
+        // Sub-millisecond latencies give a percentile of 0 ms
+        for (int i = 0; i < 20; i++) {
+            fetcher.fetchData("BOL.ST", "1d", "1d");
+        }
+        primaryIsSlow.set(true);
+
+        assertEquals(PRIMARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        assertEquals(0, fetcher.getHedgeCount());
+        assertEquals(0, secondaryCalls.get());
+    }
+
+    @Test
+    void hedgingIsBoundedByMaxHedgeRatio() throws DataFetchException {
+        AtomicBoolean primaryIsSlow = new AtomicBoolean(false);
+        FailoverDataFetcher fetcher = new FailoverDataFetcher(
+                (symbol, range, interval) -> {
+                    if (primaryIsSlow.get()) {
+                        sleep(50);
+                    }
+                    return PRIMARY_JSON;
+                },
+                (symbol, range, interval) -> SECONDARY_JSON,
+                0.95, 0.0);
+
+        for (int i = 0; i < 20; i++) {
+            fetcher.fetchData("BOL.ST", "1d", "1d");
+        }
+        primaryIsSlow.set(true);
+
+        assertEquals(PRIMARY_JSON, fetcher.fetchData("BOL.ST", "1d", "1d"));
+        assertEquals(0, fetcher.getHedgeCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
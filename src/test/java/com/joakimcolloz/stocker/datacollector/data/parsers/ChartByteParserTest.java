@@ -0,0 +1,260 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.google.gson.JsonParseException;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.FixedPoint;
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ChartByteParser} and byte level parsing through {@link BaseParser}.
+ */
+class ChartByteParserTest {
+    private static final String CHART_JSON = "{\"chart\":{\"result\":[{\"meta\":{\"symbol\":\"BOL.ST\"," +
+            "\"dataGranularity\":\"1d\",\"range\":\"5d\",\"validRanges\":[\"1d\",\"5d\"]}," +
+            "\"timestamp\":[1756364400,1756450800]," +
+            "\"indicators\":{\"quote\":[{\"open\":[326.9,-1.5e2],\"high\":[330.3,331],\"low\":[325.8,0.001]," +
+            "\"close\":[326.9,327.12345678901234567],\"volume\":[547119,0]}],\"adjclose\":[{\"adjclose\":[1,2]}]}}]," +
+            "\"error\":null}}";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"FinanceBird-BOL.ST-1d-1d.json", "FinanceBird-BOL.ST-1d-3month.json",
+            "FinanceBird-BOL.ST-1d-10y.json", "YahooFinance-BOL.ST-1d-3month.json"})
+    void byteParsingGivesSameTradingPeriodAsJsonReader(String fixture) {
+        // Arrange
+        String json = loadTestJSON(fixture);
+
+        // Act
+        boolean parsed = new ChartByteParser(new ChartColumns()).parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        TradingPeriod fromBytes = parseBytes(json.getBytes(StandardCharsets.UTF_8), true);
+        TradingPeriod fromString = parseString(json);
+
+        // Assert
+        assertTrue(parsed, "Byte parser fell back to JsonReader");
+        assertEquals(fromString, fromBytes);
+    }
+
+    @Test
+    void seriesAndMetaDataAreParsedIntoColumns() {
+        // Arrange
+        ChartColumns columns = new ChartColumns();
+        ChartByteParser parser = new ChartByteParser(columns);
+        ByteBuffer buffer = ByteBuffer.wrap(CHART_JSON.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        boolean parsed = parser.parse(buffer);
+
+        // Assert
+        assertTrue(parsed);
+        assertEquals("BOL.ST", parser.getSymbol());
+        assertEquals("1d", parser.getInterval());
+        assertEquals("5d", parser.getRange());
+        assertArrayEquals(new long[]{1756364400, 1756450800}, columns.timestamps().toArray());
+        assertArrayEquals(new double[]{326.9, -150}, columns.opens().toArray());
+        assertArrayEquals(new double[]{330.3, 331}, columns.highs().toArray());
+        assertArrayEquals(new double[]{325.8, 0.001}, columns.lows().toArray());
+        assertArrayEquals(new double[]{326.9, 327.12345678901234567}, columns.closes().toArray());
+        assertArrayEquals(new long[]{547119, 0}, columns.volumes().toArray());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void numbersAreParsedExactlyLikeDoubleParseDouble() {
+        // Arrange
+        Random random = new Random(42);
+        StringBuilder close = new StringBuilder();
+        double[] expected = new double[1000];
+        for (int i = 0; i < expected.length; i++) {
+            String number = (random.nextInt(100_000)) + "." + random.nextInt(1_000_000);
+            expected[i] = Double.parseDouble(number);
+            close.append(i == 0 ? "" : ",").append(number);
+        }
+        String json = "{\"chart\":{\"result\":[{\"indicators\":{\"quote\":[{\"close\":[" + close + "]}]}}]}}";
+        ChartColumns columns = new ChartColumns();
+
+        // Act
+        boolean parsed = new ChartByteParser(columns).parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertTrue(parsed);
+        assertArrayEquals(expected, columns.closes().toArray());
+    }
+
+    @Test
+    void pricesAreParsedAsFixedPointFromTheirDigits() {
+        // Arrange
+        ChartColumns columns = new ChartColumns();
+        columns.setPriceScale(4);
+
+        // Act
+        boolean parsed = new ChartByteParser(columns).parse(ByteBuffer.wrap(CHART_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertTrue(parsed);
+        assertArrayEquals(new long[]{3269000, -1500000}, columns.scaledOpens().toArray());
+        assertArrayEquals(new long[]{3303000, 3310000}, columns.scaledHighs().toArray());
+        assertArrayEquals(new long[]{3258000, 10}, columns.scaledLows().toArray());
+        assertArrayEquals(new long[]{3269000, 3271235}, columns.scaledCloses().toArray());
+        assertEquals(0, columns.closes().size());
+    }
+
+    @Test
+    void fixedPointPricesAreRoundedHalfEvenLikeFixedPointParse() {
+        // Arrange - three decimals rounded to two, so a tenth of the numbers are ties
+        Random random = new Random(42);
+        StringBuilder close = new StringBuilder();
+        long[] expected = new long[1000];
+        for (int i = 0; i < expected.length; i++) {
+            String number = (i % 2 == 0 ? "" : "-") + random.nextInt(100_000) + "." + (100 + random.nextInt(900));
+            expected[i] = FixedPoint.parse(number, 2);
+            close.append(i == 0 ? "" : ",").append(number);
+        }
+        String json = "{\"chart\":{\"result\":[{\"indicators\":{\"quote\":[{\"close\":[" + close + "]}]}}]}}";
+        ChartColumns columns = new ChartColumns();
+        columns.setPriceScale(2);
+
+        // Act
+        boolean parsed = new ChartByteParser(columns).parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertTrue(parsed);
+        assertArrayEquals(expected, columns.scaledCloses().toArray());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"FinanceBird-BOL.ST-1d-3month.json", "YahooFinance-BOL.ST-1d-3month.json"})
+    void fixedPointByteParsingGivesSameTradingPeriodAsJsonReader(String fixture) {
+        // Arrange
+        String json = loadTestJSON(fixture);
+
+        // Act
+        TradingPeriod fromBytes = parseBytes(json.getBytes(StandardCharsets.UTF_8), true, 6);
+        TradingPeriod fromString = parseBytes(json.getBytes(StandardCharsets.UTF_8), false, 6);
+
+        // Assert
+        CandlestickSeries series = fromBytes.series();
+        assertTrue(series.isFixedPoint());
+        assertEquals(6, series.priceScale());
+        assertEquals(fromString.series(), series);
+        assertEquals(fromString.series().scaledClose(0), series.scaledClose(0));
+        assertEquals(Math.round(series.close(0) * 1_000_000), series.scaledClose(0));
+    }
+
+    @Test
+    void nullInSeriesIsAddedAsGap() {
+        // Arrange
+        String json = "{\"chart\":{\"result\":[{\"timestamp\":[1756364400,1756450800]," +
+                "\"indicators\":{\"quote\":[{\"close\":[326.9, null],\"volume\":[null,0]}]}}]}}";
+        ChartColumns columns = new ChartColumns();
+
+        // Act
+        boolean parsed = new ChartByteParser(columns).parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertTrue(parsed);
+        assertEquals(2, columns.closes().size());
+        assertEquals(2, columns.volumes().size());
+        assertTrue(columns.isGap(0));
+        assertTrue(columns.isGap(1));
+        assertEquals(2, columns.gapCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"chart\":{\"result\":[{\"timestamp\":[1756364400,true]}]}}",
+            "{\"chart\":{\"result\":[{\"timestamp\":[1756364400.5]}]}}",
+            "{\"chart\":{\"result\":[{\"meta\":{\"symbol\":\"BOL\\u002eST\"}}]}}",
+            "{\"chart\":{\"res\\u0075lt\":[]}}",
+            "{\"chart\":{\"result\":[{\"timestamp\":[1756364400]}]}",
+            "{\"chart\":{}} trailing"})
+    void unexpectedInputIsRejected(String json) {
+        // Act
+        boolean parsed = new ChartByteParser(new ChartColumns()).parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertFalse(parsed);
+    }
+
+    @Test
+    void unexpectedInputFallsBackToJsonReader() {
+        // Arrange - escaped key the byte parser does not accept
+        String json = loadTestJSON("FinanceBird-BOL.ST-1d-3month.json").replace("\"symbol\"", "\"sym\\u0062ol\"");
+
+        // Act
+        TradingPeriod period = parseBytes(json.getBytes(StandardCharsets.UTF_8), true);
+
+        // Assert
+        assertEquals(64, period.candlesticks().size());
+    }
+
+    @Test
+    void malformedJsonThrowsJsonParseException() {
+        // Arrange
+        byte[] json = "{\"chart\":{\"result\":[{\"timestamp\":[1,".getBytes(StandardCharsets.UTF_8);
+
+        // Act & Assert
+        assertThrows(JsonParseException.class, () -> parseBytes(json, true));
+    }
+
+    @Test
+    void jsonIsReadFromStream() throws IOException {
+        // Arrange
+        byte[] json = loadTestJSON("FinanceBird-BOL.ST-1d-1y.json").getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setJsonStream(new ByteArrayInputStream(json));
+            parser.parse();
+
+            // Assert
+            assertEquals(250, parser.getTradingPeriod().candlesticks().size());
+        }
+    }
+
+    private static TradingPeriod parseBytes(byte[] json, boolean byteParsing) {
+        return parseBytes(json, byteParsing, CandlestickSeries.FLOATING_POINT);
+    }
+
+    private static TradingPeriod parseBytes(byte[] json, boolean byteParsing, int priceScale) {
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setByteParsing(byteParsing);
+            parser.setPriceScale(priceScale);
+            parser.setJsonBytes(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+
+    private static TradingPeriod parseString(String json) {
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setJsonString(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+
+    private String loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
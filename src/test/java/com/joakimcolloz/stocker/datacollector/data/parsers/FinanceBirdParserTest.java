@@ -128,6 +128,55 @@ class FinanceBirdParserTest {
         }
     }
 
+    /**
+     * Tests that skipping everything outside the declared JSON paths gives the same result as traversing
+     * the whole document.
+     */
+    @Test
+    void pathAwareParsingGivesSameTradingPeriodAsFullTraversal() {
+        // Arrange
+        String json = loadTestJSON("FinanceBird-BOL.ST-1d-10y.json");
+
+        // Act
+        TradingPeriod pathAware = parse(json, true);
+        TradingPeriod fullTraversal = parse(json, false);
+
+        // Assert
+        assertEquals(fullTraversal, pathAware);
+        assertEquals("10y", pathAware.range());
+        assertEquals("1d", pathAware.interval());
+    }
+
+    @Test
+    void resetParserParsesNextJsonWithoutPreviousData() {
+        // Arrange
+        String tenYears = loadTestJSON("FinanceBird-BOL.ST-1d-10y.json");
+        String threeMonths = loadTestJSON("FinanceBird-BOL.ST-1d-3month.json");
+
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setJsonString(tenYears);
+            parser.parse();
+
+            // Act
+            parser.reset();
+            parser.setJsonString(threeMonths);
+            parser.parse();
+
+            // Assert
+            assertEquals(parse(threeMonths, true), parser.getTradingPeriod());
+            assertEquals("3mo", parser.getRange());
+        }
+    }
+
+    private static TradingPeriod parse(String json, boolean pathAwareParsing) {
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setPathAwareParsing(pathAwareParsing);
+            parser.setJsonString(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+
     private String loadTestJSON(final String jsonFileName) {
         try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
             assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
@@ -0,0 +1,78 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ParseStage}.
+ */
+class ParseStageTest {
+
+    @Test
+    void parsesSubmittedResponsesInParallel() {
+        // Arrange
+        byte[] tenYears = loadTestJSON("FinanceBird-BOL.ST-1d-10y.json");
+        byte[] oneDay = loadTestJSON("FinanceBird-BOL.ST-1d-1d.json");
+        List<CompletableFuture<TradingPeriod>> results = new ArrayList<>();
+
+        // Act
+        try (ParseStage stage = new ParseStage(FinanceBirdParser::new, 2)) {
+            for (int i = 0; i < 4; i++) {
+                results.add(stage.submit("BOL.ST", tenYears));
+                results.add(stage.submit("BOL.ST", oneDay));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+
+            // Assert
+            for (int i = 0; i < results.size(); i += 2) {
+                assertEquals(2516, results.get(i).join().candlesticks().size());
+                assertEquals(1, results.get(i + 1).join().candlesticks().size());
+            }
+            ParseStage.Stats stats = stage.getStats();
+            assertEquals(8, stats.documents());
+            assertEquals(4L * (tenYears.length + oneDay.length), stats.bytes());
+            assertEquals(2, stats.parallelism());
+            assertTrue(stats.megabytesPerSecondPerWorker() > 0);
+        }
+    }
+
+    @Test
+    void invalidResponseCompletesExceptionallyAndIsCounted() {
+        try (ParseStage stage = new ParseStage(FinanceBirdParser::new, 1)) {
+            // Act
+            CompletableFuture<TradingPeriod> result = stage.submit("BOL.ST", "{\"invalid\":".getBytes(StandardCharsets.UTF_8));
+
+            // Assert
+            assertThrows(CompletionException.class, result::join);
+            assertEquals(1, stage.getStats().failures());
+            assertEquals(0, stage.getStats().documents());
+        }
+    }
+
+    @Test
+    void nonPositiveParallelismThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ParseStage(FinanceBirdParser::new, 0));
+    }
+
+    private byte[] loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return is.readAllBytes();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
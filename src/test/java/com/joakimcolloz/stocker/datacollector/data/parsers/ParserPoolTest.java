@@ -0,0 +1,101 @@
+package com.joakimcolloz.stocker.datacollector.data.parsers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ParserPool}.
+ */
+class ParserPoolTest {
+
+    @Test
+    void releasedParserIsReusedOnSameThread() {
+        // Arrange
+        ParserPool pool = new ParserPool(FinanceBirdParser::new);
+        BaseParser first = pool.acquire();
+
+        // Act
+        pool.release(first);
+        BaseParser second = pool.acquire();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    void releasedParserIsResetAndParsesNextJson() {
+        // Arrange
+        ParserPool pool = new ParserPool(FinanceBirdParser::new);
+        BaseParser parser = pool.acquire();
+        parser.setJsonString(loadTestJSON("FinanceBird-BOL.ST-1d-10y.json"));
+        parser.parse();
+
+        // Act
+        pool.release(parser);
+        BaseParser reused = pool.acquire();
+        assertNull(reused.getTradingPeriod());
+        reused.setJsonString(loadTestJSON("FinanceBird-BOL.ST-1d-1d.json"));
+        reused.parse();
+
+        // Assert
+        assertEquals(1, reused.getTradingPeriod().candlesticks().size());
+    }
+
+    @Test
+    void parsersAreNotSharedBetweenThreads() {
+        // Arrange
+        ParserPool pool = new ParserPool(FinanceBirdParser::new);
+        BaseParser parser = pool.acquire();
+        pool.release(parser);
+
+        // Act
+        BaseParser otherThreadParser = CompletableFuture.supplyAsync(pool::acquire).join();
+
+        // Assert
+        assertNotSame(parser, otherThreadParser);
+        assertEquals(2, pool.getCreatedCount());
+    }
+
+    @Test
+    void parsersBeyondMaxIdleAreDropped() {
+        // Arrange
+        ParserPool pool = new ParserPool(FinanceBirdParser::new, 1);
+        BaseParser first = pool.acquire();
+        BaseParser second = pool.acquire();
+
+        // Act
+        pool.release(first);
+        pool.release(second);
+        pool.acquire();
+        pool.acquire();
+
+        // Assert
+        assertEquals(3, pool.getCreatedCount());
+    }
+
+    @Test
+    void nullFactoryThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ParserPool(null));
+    }
+
+    private String loadTestJSON(final String jsonFileName) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
+            assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load JSON test resource " + jsonFileName + " from classpath", e);
+        }
+    }
+}
@@ -10,6 +10,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class YahooFinanceParserTest {
+    // Second day is halted: Yahoo returns nulls in the quote arrays
+    private static final String JSON_WITH_NULLS = "{\"chart\":{\"result\":[{\"meta\":{\"symbol\":\"BOL.ST\"," +
+            "\"dataGranularity\":\"1d\",\"range\":\"5d\"},\"timestamp\":[1756191600,1756278000,1756364400]," +
+            "\"indicators\":{\"quote\":[{\"open\":[320.1,null,326.9],\"high\":[325.0,null,330.3]," +
+            "\"low\":[319.5,null,325.8],\"close\":[324.2,null,328.5],\"volume\":[401234,null,547119]}]}}]," +
+            "\"error\":null}}";
+
     @Test
     void shouldCreateOneDayCandleStick() {
         // Arrange: Load the test JSON resource from the classpath
@@ -44,6 +51,30 @@ class YahooFinanceParserTest {
         }
     }
 
+    @Test
+    void nullQuoteValuesDropOnlyThatCandlestick() {
+        // Act: Parse the same JSON as string and as bytes
+        TradingPeriod fromString;
+        TradingPeriod fromBytes;
+        try (YahooFinanceParser parser = new YahooFinanceParser()) {
+            parser.setJsonString(JSON_WITH_NULLS);
+            parser.parse();
+            fromString = parser.getTradingPeriod();
+        }
+        try (YahooFinanceParser parser = new YahooFinanceParser()) {
+            parser.setJsonBytes(JSON_WITH_NULLS.getBytes(StandardCharsets.UTF_8));
+            parser.parse();
+            fromBytes = parser.getTradingPeriod();
+        }
+
+        // Assert: The halted day is dropped and the other days keep their values
+        assertEquals(2, fromString.candlesticks().size());
+        assertEquals(1756191600L, fromString.candlesticks().get(0).timestamp());
+        assertEquals(1756364400L, fromString.candlesticks().get(1).timestamp());
+        assertEquals(328.5, fromString.candlesticks().get(1).close());
+        assertEquals(fromString, fromBytes);
+    }
+
     private String loadTestJSON(final String jsonFileName) {
         try (InputStream is = getClass().getClassLoader().getResourceAsStream(jsonFileName)) {
             assertNotNull(is, "Test resource " + jsonFileName + " not found in classpath");
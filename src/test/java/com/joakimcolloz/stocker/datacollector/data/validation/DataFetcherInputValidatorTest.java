@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -121,6 +122,17 @@ class DataFetcherInputValidatorTest {
         assertTrue(exception.getMessage().contains("Invalid JSON format"));
     }
 
+    @Test
+    void jsonBytesAreValidatedLikeJsonString() {
+        assertDoesNotThrow(() -> validator.validateJsonData(" \n[1]".getBytes(StandardCharsets.UTF_8)));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> validator.validateJsonData("invalid".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(exception.getMessage().contains("Invalid JSON format"));
+        assertThrows(IllegalArgumentException.class,
+                () -> validator.validateJsonData(" ".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateJsonData((byte[]) null));
+    }
+
     // API Config Validation Tests
     @Test
     void validConfigShouldPass() {
@@ -7,12 +7,19 @@ import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import com.joakimcolloz.stocker.datacollector.database.validation.ValidationPolicy;
+import com.joakimcolloz.stocker.datacollector.indicators.IndicatorState;
+import com.joakimcolloz.stocker.datacollector.indicators.IndicatorValues;
 import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.Interval;
 import com.joakimcolloz.stocker.datacollector.util.TestDatabaseUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Testcontainers
 @DisplayName("CandlestickDao Integration Tests - Date Overwrite Logic")
@@ -111,4 +118,200 @@ class CandlestickDaoIntegrationTest {
         List<Candlestick> rowsAfterInsert = candlestickDao.getAllRowsByName(symbol);
         assertEquals(2, rowsAfterInsert.size(), "Should have two rows after insert");
     }
+
+    @Test
+    @DisplayName("Rows are kept per UTC day whatever the session time zone")
+    void sameDayIsUtcDay() {
+        String symbol = "UTC.ST";
+        // 2025-07-26 23:30 UTC, 2025-07-27 00:30 UTC and 2025-07-26 01:00 UTC
+        Candlestick lateEvening = new Candlestick(100.0, 112.0, 95.0, 110.0, 1000L, 1753572600L);
+        Candlestick nextDay = new Candlestick(200.0, 212.0, 195.0, 210.0, 2000L, 1753576200L);
+        Candlestick sameDay = new Candlestick(300.0, 312.0, 295.0, 310.0, 3000L, 1753491600L);
+
+        candlestickDao.addRows(symbol, List.of(lateEvening));
+        candlestickDao.addRows(symbol, List.of(nextDay));
+        candlestickDao.addRows(symbol, List.of(sameDay));
+
+        List<Candlestick> rows = candlestickDao.getAllRowsByName(symbol);
+        assertEquals(List.of(sameDay.timestamp(), nextDay.timestamp()),
+                rows.stream().map(Candlestick::timestamp).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Invalid candlesticks are quarantined while valid candlesticks are inserted")
+    void invalidCandlesticksAreQuarantined() {
+        candlestickDao.setValidationPolicy(ValidationPolicy.QUARANTINE);
+        String symbol = "QRT.ST";
+        // 2025-07-26 12:00:00 GMT+02:00 and 2025-07-27 12:00:00 GMT+02:00
+        Candlestick valid = new Candlestick(100.0, 112.0, 95.0, 110.0, 1000L, 1753524000L);
+        Candlestick invalid = new Candlestick(100.0, 90.0, 95.0, 92.0, 1000L, 1753610400L); // high < low
+
+        InsertResult result = candlestickDao.addRows(symbol, CandlestickSeries.from(List.of(valid, invalid)));
+
+        assertEquals(1, result.insertedCount());
+        assertEquals(1, candlestickDao.getAllRowsByName(symbol).size(), "Valid candlestick should be inserted");
+        assertEquals(1, candlestickDao.countQuarantinedRows(symbol), "Invalid candlestick should be quarantined");
+    }
+
+    @Test
+    @DisplayName("Candlesticks of different years are inserted into created partitions")
+    void candlesticksOfPastYearsCreateTheirPartitions() {
+        String symbol = "PRT.ST";
+        // 2015-06-01 12:00:00 UTC and 2016-06-01 12:00:00 UTC
+        Candlestick first = new Candlestick(100.0, 112.0, 95.0, 110.0, 1000L, 1433160000L);
+        Candlestick second = new Candlestick(200.0, 212.0, 195.0, 210.0, 2000L, 1464782400L);
+
+        candlestickDao.addRows(symbol, List.of(first, second));
+
+        assertEquals(2, candlestickDao.getAllRowsByName(symbol).size(), "Both years should be inserted");
+
+        candlestickDao.detachPartition(2015);
+        assertEquals(1, candlestickDao.getAllRowsByName(symbol).size(), "Detached year should not be returned");
+    }
+
+    @Test
+    @DisplayName("Intraday candlesticks of the same day are kept and the same timestamp is updated")
+    void intradayCandlesticksAreUniqueOnExactTimestamp() {
+        String symbol = "INT.ST";
+        // 2025-07-25 09:00 and 09:05 UTC
+        Candlestick first = new Candlestick(100.0, 112.0, 95.0, 110.0, 1000L, 1753434000L);
+        Candlestick second = new Candlestick(110.0, 115.0, 105.0, 111.0, 1500L, 1753434300L);
+        Candlestick secondUpdated = new Candlestick(110.0, 116.0, 105.0, 114.0, 1800L, 1753434300L);
+
+        candlestickDao.addRows(symbol, Interval.FIVE_MINUTES, CandlestickSeries.from(List.of(first, second)));
+        candlestickDao.addRows(symbol, Interval.FIVE_MINUTES, CandlestickSeries.from(List.of(secondUpdated)));
+
+        List<Candlestick> rows = candlestickDao.getAllRowsByName(symbol, Interval.FIVE_MINUTES);
+        assertEquals(List.of(first, secondUpdated), rows, "Both timestamps should be kept, the second updated");
+        assertEquals(0, candlestickDao.getAllRowsByName(symbol).size(), "Daily table should not be touched");
+    }
+
+    @Test
+    @DisplayName("Weekly and monthly rollups are recomputed for the inserted days")
+    void rollupsAreMaintainedOnInsert() {
+        String symbol = "RLP.ST";
+        // Monday 2025-07-21, Tuesday 2025-07-22 and Monday 2025-07-28, 09:00 UTC
+        Candlestick monday = new Candlestick(100.0, 112.0, 95.0, 110.0, 1000L, 1753088400L);
+        Candlestick tuesday = new Candlestick(110.0, 120.0, 90.0, 115.0, 2000L, 1753174800L);
+        Candlestick nextMonday = new Candlestick(115.0, 118.0, 101.0, 102.0, 500L, 1753693200L);
+
+        candlestickDao.addRows(symbol, List.of(monday, nextMonday));
+        candlestickDao.addRows(symbol, List.of(tuesday));
+
+        List<Candlestick> weeks = candlestickDao.getAllRowsByName(symbol, Interval.ONE_WEEK);
+        assertEquals(2, weeks.size(), "Should have two weeks");
+        assertEquals(new Candlestick(100.0, 120.0, 90.0, 115.0, 3000L, 1753056000L), weeks.get(0));
+        List<Candlestick> months = candlestickDao.getAllRowsByName(symbol, Interval.ONE_MONTH);
+        assertEquals(List.of(new Candlestick(100.0, 120.0, 90.0, 102.0, 3500L, 1751328000L)), months);
+    }
+
+    @Test
+    @DisplayName("Indicators are updated from the last stored rows")
+    void indicatorsAreUpdatedIncrementally() {
+        String symbol = "IND.ST";
+        IndicatorDao indicatorDao = databaseManager.createIndicatorDao();
+        List<Candlestick> candlesticks = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            double close = 100 + 5 * Math.sin(i / 2.0);
+            // 2025-06-02 09:00 UTC and the following days
+            candlesticks.add(new Candlestick(close, close + 2, close - 2, close, 1000L, 1748854800L + i * 86400L));
+        }
+        IndicatorState expected = IndicatorState.empty();
+        IndicatorValues expectedLast = null;
+        for (Candlestick candlestick : candlesticks) {
+            expectedLast = expected.next(candlestick.timestamp(), candlestick.high(), candlestick.low(),
+                    candlestick.close());
+        }
+
+        candlestickDao.addRows(symbol, candlesticks.subList(0, 30));
+        assertEquals(30, indicatorDao.updateIndicators(symbol));
+        candlestickDao.addRows(symbol, candlesticks.subList(30, 35));
+        assertEquals(6, indicatorDao.updateIndicators(symbol), "Last stored row and new rows are computed");
+
+        List<IndicatorValues> indicators = indicatorDao.getIndicators(symbol);
+        assertEquals(35, indicators.size());
+        assertEquals(expectedLast.ema(), indicators.get(34).ema(), 1e-9);
+        assertEquals(expectedLast.rsi(), indicators.get(34).rsi(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Indicators are recomputed from backfilled older rows")
+    void indicatorsAreRecomputedFromBackfilledRows() {
+        String symbol = "BCK.ST";
+        IndicatorDao indicatorDao = databaseManager.createIndicatorDao();
+        List<Candlestick> candlesticks = createIndicatorCandlesticks(60);
+        IndicatorValues expectedLast = computeLast(candlesticks);
+
+        // First collected with a short range, then backfilled with a long one
+        candlestickDao.addRows(symbol, candlesticks.subList(35, 60));
+        indicatorDao.updateIndicators(symbol);
+        InsertResult backfill = candlestickDao.addRows(symbol, CandlestickSeries.from(candlesticks.subList(0, 40)));
+        assertEquals(candlesticks.get(0).timestamp(), backfill.firstWrittenTimestamp());
+        assertEquals(60, indicatorDao.updateIndicators(symbol, backfill.firstWrittenTimestamp()));
+
+        List<IndicatorValues> indicators = indicatorDao.getIndicators(symbol);
+        assertEquals(60, indicators.size());
+        assertEquals(60, indicators.get(59).candleCount());
+        assertEquals(expectedLast.ema(), indicators.get(59).ema(), 1e-9);
+        assertEquals(expectedLast.rsi(), indicators.get(59).rsi(), 1e-9);
+        assertEquals(expectedLast.atr(), indicators.get(59).atr(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Indicators are recomputed when older rows were added without their timestamp")
+    void indicatorsAreRecomputedWhenStoredCountDiffers() {
+        String symbol = "CNT.ST";
+        IndicatorDao indicatorDao = databaseManager.createIndicatorDao();
+        List<Candlestick> candlesticks = createIndicatorCandlesticks(60);
+        IndicatorValues expectedLast = computeLast(candlesticks);
+
+        candlestickDao.addRows(symbol, candlesticks.subList(30, 55));
+        indicatorDao.updateIndicators(symbol);
+        candlestickDao.addRows(symbol, candlesticks.subList(0, 30));
+        candlestickDao.addRows(symbol, candlesticks.subList(55, 60));
+        assertEquals(60, indicatorDao.updateIndicators(symbol), "Candle count of the seed no longer matches");
+
+        List<IndicatorValues> indicators = indicatorDao.getIndicators(symbol);
+        assertEquals(60, indicators.get(59).candleCount());
+        assertEquals(expectedLast.ema(), indicators.get(59).ema(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Reset removes the indicators, so they are computed again from the new rows")
+    void resetTableRemovesIndicators() {
+        String symbol = "RST.ST";
+        IndicatorDao indicatorDao = databaseManager.createIndicatorDao();
+        List<Candlestick> candlesticks = createIndicatorCandlesticks(60);
+
+        candlestickDao.addRows(symbol, candlesticks.subList(0, 40));
+        indicatorDao.updateIndicators(symbol);
+        candlestickDao.resetTable();
+        assertTrue(indicatorDao.getIndicators(symbol).isEmpty());
+
+        candlestickDao.addRows(symbol, candlesticks.subList(40, 60));
+        assertEquals(20, indicatorDao.updateIndicators(symbol));
+        List<IndicatorValues> indicators = indicatorDao.getIndicators(symbol);
+        assertEquals(20, indicators.size());
+        assertEquals(20, indicators.get(19).candleCount());
+        assertEquals(computeLast(candlesticks.subList(40, 60)).ema(), indicators.get(19).ema(), 1e-9);
+    }
+
+    private static List<Candlestick> createIndicatorCandlesticks(int count) {
+        List<Candlestick> candlesticks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 5 * Math.sin(i / 2.0);
+            // 2025-06-02 09:00 UTC and the following days
+            candlesticks.add(new Candlestick(close, close + 2, close - 2, close, 1000L, 1748854800L + i * 86400L));
+        }
+        return candlesticks;
+    }
+
+    private static IndicatorValues computeLast(List<Candlestick> candlesticks) {
+        IndicatorState state = IndicatorState.empty();
+        IndicatorValues last = null;
+        for (Candlestick candlestick : candlesticks) {
+            last = state.next(candlestick.timestamp(), candlestick.high(), candlestick.low(), candlestick.close());
+        }
+        return last;
+    }
 }
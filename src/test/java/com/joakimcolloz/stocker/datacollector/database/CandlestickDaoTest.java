@@ -3,11 +3,20 @@ package com.joakimcolloz.stocker.datacollector.database;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import com.joakimcolloz.stocker.datacollector.database.validation.DatabaseInputValidator;
+import com.joakimcolloz.stocker.datacollector.database.validation.RejectedCandlestick;
+import com.joakimcolloz.stocker.datacollector.database.validation.ValidationPolicy;
 import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.Interval;
+import org.postgresql.PGConnection;
 
+import java.math.BigDecimal;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -21,8 +30,14 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -50,6 +65,27 @@ class CandlestickDaoTest {
     @Mock
     private ResultSet mockResultSet;
 
+    @Mock
+    private PGConnection mockPgConnection;
+
+    @Mock
+    private Array mockArray;
+
+    @Mock
+    private PreparedStatement mockWindowStatement;
+
+    @Mock
+    private ResultSet mockWindowResultSet;
+
+    @Mock
+    private PreparedStatement mockRefreshStatement;
+
+    @Mock
+    private Connection mockPartitionConnection;
+
+    @Mock
+    private PreparedStatement mockPartitionStatement;
+
     private CandlestickDao dao;
 
     @BeforeEach
@@ -97,8 +133,9 @@ class CandlestickDaoTest {
         // Arrange
         String symbol = "BOL.ST";
         Candlestick candlestick = createValidCandlestick();
-        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        setupPartitionConnection();
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
         when(mockStatement.executeUpdate()).thenReturn(1);
 
         // Act
@@ -107,8 +144,28 @@ class CandlestickDaoTest {
         // Assert
         verify(mockValidator).validateSymbol(symbol);
         verify(mockValidator).validateCandlestick(candlestick);
+        verify(mockPartitionStatement).executeQuery();
         verify(mockStatement).executeUpdate();
-        verify(mockDatabaseManager).getConnection();
+        verify(mockConnection).setAutoCommit(false);
+        verify(mockConnection).commit();
+        verify(mockDatabaseManager, times(2)).getConnection();
+    }
+
+    @Test
+    void addRowRollsBackRowWhenRollupRefreshFails() throws SQLException {
+        // Arrange
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        when(mockConnection.prepareStatement(DbConstants.REFRESH_ROLLUPS_QUERY)).thenReturn(mockRefreshStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeUpdate()).thenReturn(1);
+        when(mockRefreshStatement.execute()).thenThrow(new SQLException("Rollup refresh failed"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> dao.addRow("BOL.ST", createValidCandlestick()));
+
+        verify(mockConnection).rollback();
+        verify(mockConnection, never()).commit();
     }
 
     @Test
@@ -158,8 +215,9 @@ class CandlestickDaoTest {
         );
 
         // Mock batch operations and transaction management
-        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        setupPartitionConnection();
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
         when(mockStatement.executeBatch()).thenReturn(new int[]{1, 1}); // Success for both
 
         // Act
@@ -168,13 +226,212 @@ class CandlestickDaoTest {
         // Assert
         verify(mockValidator).validateSymbol(symbol);
         verify(mockValidator).validateCandlesticksList(candlesticks);
-        verify(mockValidator, times(2)).validateCandlestick(any(Candlestick.class));
+        verify(mockValidator, times(2)).findViolation(anyLong(), anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyLong());
         verify(mockStatement, times(2)).addBatch();
         verify(mockStatement).executeBatch();
         verify(mockConnection).setAutoCommit(false); // Transaction should be started
         verify(mockConnection).commit();
         verify(mockConnection).close(); // Connection should be closed
-        verify(mockDatabaseManager).getConnection();
+        verify(mockPartitionConnection).close();
+        verify(mockDatabaseManager, times(2)).getConnection();
+    }
+
+    @Test
+    void addRowsWithSeriesBindsColumnValues() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756364400L, 1756450800L},
+                new double[]{326.9, 327.0}, new double[]{330.3, 331.0}, new double[]{325.8, 326.0},
+                new double[]{328.5, 330.0}, new long[]{547119L, 600000L});
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1, 0});
+
+        // Act
+        InsertResult result = dao.addRows(symbol, series);
+
+        // Assert
+        assertEquals(1756364400L, result.firstWrittenTimestamp());
+        verify(mockValidator).validateSymbol(symbol);
+        verify(mockStatement).setLong(1, 1756450800L);
+        verify(mockStatement).setDouble(3, 331.0);
+        verify(mockStatement).setDouble(5, 330.0);
+        verify(mockStatement, times(2)).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithFixedPointSeriesBindsExactDecimals() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        CandlestickSeries series = CandlestickSeries.ofFixedPoint(2, new long[]{1756364400L},
+                new long[]{32690}, new long[]{33030}, new long[]{32580}, new long[]{32850}, new long[]{547119L});
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1});
+
+        // Act
+        dao.addRows(symbol, series);
+
+        // Assert
+        verify(mockStatement).setBigDecimal(2, new BigDecimal("326.90"));
+        verify(mockStatement).setBigDecimal(5, new BigDecimal("328.50"));
+        verify(mockStatement, never()).setDouble(eq(2), anyDouble());
+        verify(mockStatement).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsRefreshesRollupsOfInsertedRangeBeforeCommit() throws SQLException {
+        // Arrange
+        CandlestickDao skippingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        skippingDao.setValidationPolicy(ValidationPolicy.SKIP_INVALID_ROWS);
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756450800L, -1L, 1756364400L},
+                new double[]{100.0, 100.0, 100.0}, new double[]{110.0, 110.0, 110.0},
+                new double[]{95.0, 95.0, 95.0}, new double[]{105.0, 105.0, 105.0}, new long[]{1000L, 1000L, 1000L});
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1, 1});
+
+        // Act
+        skippingDao.addRows("BOL.ST", series);
+
+        // Assert
+        InOrder inOrder = inOrder(mockStatement, mockConnection);
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).prepareStatement(DbConstants.REFRESH_ROLLUPS_QUERY);
+        inOrder.verify(mockStatement).setLong(2, 1756364400L);
+        inOrder.verify(mockStatement).setLong(3, 1756450800L);
+        inOrder.verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithSkipPolicyInsertsValidRowsAndReturnsRejected() throws SQLException {
+        // Arrange
+        CandlestickDao skippingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        skippingDao.setValidationPolicy(ValidationPolicy.SKIP_INVALID_ROWS);
+        CandlestickSeries series = createSeriesWithInvalidRows();
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1});
+
+        // Act
+        InsertResult result = skippingDao.addRows("BOL.ST", series);
+
+        // Assert
+        assertEquals(1, result.insertedCount());
+        assertEquals(List.of(0, 2), result.rejected().stream().map(RejectedCandlestick::index).toList());
+        verify(mockStatement, times(1)).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithRejectAllPolicyListsAllInvalidRows() throws SQLException {
+        // Arrange
+        CandlestickDao rejectingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        CandlestickSeries series = createSeriesWithInvalidRows();
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> rejectingDao.addRows("BOL.ST", series));
+
+        assertTrue(exception.getMessage().contains("index 0"));
+        assertTrue(exception.getMessage().contains("index 2"));
+        verify(mockStatement, never()).executeBatch();
+        verify(mockConnection, never()).commit();
+    }
+
+    @Test
+    void addRowsSendsRowsInBatchesOfBatchSizeInOneTransaction() throws SQLException {
+        // Arrange
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756364400L, 1756450800L, 1756537200L},
+                new double[]{326.9, 327.0, 328.0}, new double[]{330.3, 331.0, 332.0},
+                new double[]{325.8, 326.0, 327.0}, new double[]{328.5, 330.0, 331.0},
+                new long[]{547119L, 600000L, 700000L});
+        dao.setBatchSize(2);
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1, 1}, new int[]{1});
+
+        // Act
+        InsertResult result = dao.addRows("BOL.ST", series);
+
+        // Assert
+        assertEquals(3, result.insertedCount());
+        verify(mockStatement, times(3)).addBatch();
+        InOrder inOrder = inOrder(mockStatement, mockConnection);
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockStatement).setLong(1, 1756537200L);
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithRejectAllPolicyRollsBackBatchesAlreadySent() throws SQLException {
+        // Arrange
+        CandlestickDao rejectingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        rejectingDao.setBatchSize(2);
+        // Row 2 has high < low
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756364400L, 1756450800L, 1756537200L},
+                new double[]{100.0, 100.0, 100.0}, new double[]{110.0, 110.0, 90.0},
+                new double[]{95.0, 95.0, 95.0}, new double[]{105.0, 105.0, 92.0}, new long[]{1000L, 1000L, 1000L});
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1, 1});
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rejectingDao.addRows("BOL.ST", series));
+
+        verify(mockStatement).executeBatch();
+        verify(mockConnection).rollback();
+        verify(mockConnection, never()).commit();
+    }
+
+    @Test
+    void setBatchSizeWithNonPositiveSizeThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> dao.setBatchSize(0));
+    }
+
+    @Test
+    void addRowsWithQuarantinePolicyWritesRejectedRowsInSameTransaction() throws SQLException {
+        // Arrange
+        CandlestickDao quarantiningDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        quarantiningDao.setValidationPolicy(ValidationPolicy.QUARANTINE);
+        CandlestickSeries series = createSeriesWithInvalidRows();
+
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1}, new int[]{1, 1});
+
+        // Act
+        InsertResult result = quarantiningDao.addRows("BOL.ST", series);
+
+        // Assert
+        assertEquals(1, result.insertedCount());
+        assertEquals(2, result.rejectedCount());
+        verify(mockConnection).prepareStatement(DbConstants.INSERT_QUARANTINE_QUERY);
+        verify(mockStatement).setString(8, "Candlestick timestamp must be positive");
+        verify(mockStatement).setString(8, "Candlestick high price cannot be less than low price");
+        verify(mockStatement, times(3)).addBatch();
+        verify(mockStatement, times(2)).executeBatch();
+        verify(mockConnection).commit();
     }
 
     @Test
@@ -201,7 +458,7 @@ class CandlestickDaoTest {
         String symbol = "BOL.ST";
         List<Candlestick> candlesticks = List.of(createValidCandlestick());
 
-        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        setupPartitionConnection();
         when(mockConnection.prepareStatement(anyString()))
                 .thenThrow(new SQLException("Database error"));
 
@@ -215,7 +472,7 @@ class CandlestickDaoTest {
         // Verify transaction management even during errors
         verify(mockConnection).setAutoCommit(false); // Transaction should still be started
         verify(mockConnection).close(); // Connection should be closed
-        verify(mockDatabaseManager).getConnection();
+        verify(mockDatabaseManager, times(2)).getConnection();
     }
 
     @Test
@@ -233,6 +490,23 @@ class CandlestickDaoTest {
         verify(mockDatabaseManager).getConnection();
     }
 
+    @Test
+    void resetTableTruncatesRollupsAndIndicators() throws SQLException {
+        // Arrange
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+
+        // Act
+        dao.resetTable();
+
+        // Assert
+        ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+        verify(mockConnection).prepareStatement(query.capture());
+        assertTrue(query.getValue().contains(DbConstants.CANDLESTICK_1WEEK_TABLE));
+        assertTrue(query.getValue().contains(DbConstants.CANDLESTICK_1MONTH_TABLE));
+        assertTrue(query.getValue().contains(DbConstants.INDICATOR_TABLE));
+    }
+
     @Test
     void resetTableWithSqlExceptionShouldThrowRuntimeException() throws SQLException {
         // Arrange
@@ -264,7 +538,280 @@ class CandlestickDaoTest {
         verify(mockDatabaseManager).getConnection();
     }
 
+    @Test
+    void partitionsAreCreatedOnOwnConnectionBeforeInsertTransaction() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        List<Candlestick> candlesticks = List.of(createValidCandlestick());
+        setupPartitionConnection();
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1});
+
+        // Act
+        dao.addRows(symbol, candlesticks);
+        dao.addRows(symbol, candlesticks);
+
+        // Assert
+        InOrder inOrder = inOrder(mockPartitionStatement, mockPartitionConnection, mockConnection);
+        inOrder.verify(mockPartitionStatement).executeQuery();
+        inOrder.verify(mockPartitionConnection).close();
+        inOrder.verify(mockConnection).setAutoCommit(false);
+        verify(mockPartitionConnection, never()).setAutoCommit(false);
+        verify(mockPartitionStatement, times(1)).executeQuery(); // The year is known after the first insert
+        verify(mockDatabaseManager, times(3)).getConnection();
+    }
+
+    @Test
+    void partitionCreatedConcurrentlyIsRetried() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        setupPartitionConnection();
+        when(mockPartitionStatement.executeQuery())
+                .thenThrow(new SQLException("relation already exists", "42P07"))
+                .thenReturn(mockResultSet);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1});
+
+        // Act
+        dao.addRows(symbol, List.of(createValidCandlestick()));
+
+        // Assert
+        verify(mockPartitionStatement, times(2)).executeQuery();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void partitionErrorFailsBeforeInsertTransaction() throws SQLException {
+        // Arrange
+        when(mockDatabaseManager.getConnection()).thenReturn(mockPartitionConnection);
+        when(mockPartitionConnection.prepareStatement(DbConstants.CREATE_PARTITION_QUERY))
+                .thenReturn(mockPartitionStatement);
+        when(mockPartitionStatement.executeQuery()).thenThrow(new SQLException("permission denied", "42501"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> dao.addRows("BOL.ST", List.of(createValidCandlestick())));
+
+        assertTrue(exception.getMessage().contains("Failed to create partitions"));
+        verify(mockPartitionStatement, times(1)).executeQuery();
+        verify(mockDatabaseManager, times(1)).getConnection();
+        verifyNoInteractions(mockConnection);
+    }
+
+    @Test
+    void symbolIdIsQueriedOnceAndBoundToInserts() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        List<Candlestick> candlesticks = List.of(createValidCandlestick());
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockStatement.executeBatch()).thenReturn(new int[]{1});
+
+        // Act
+        dao.addRows(symbol, candlesticks);
+        dao.addRows(symbol, candlesticks);
+
+        // Assert
+        verify(mockConnection, times(1)).prepareStatement(DbConstants.UPSERT_SYMBOL_QUERY);
+        verify(mockStatement).setString(1, symbol);
+        verify(mockStatement, times(2)).setInt(7, 7);
+        verify(mockConnection, times(2)).commit();
+    }
+
+    @Test
+    void symbolIdIsNotCachedWhenInsertIsRejected() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockValidator.findViolation(anyLong(), anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyLong()))
+                .thenReturn("Candlestick timestamp must be positive");
+
+        // Act
+        assertThrows(IllegalArgumentException.class, () -> dao.addRows(symbol, createSeriesWithInvalidRows()));
+        assertThrows(IllegalArgumentException.class, () -> dao.addRows(symbol, createSeriesWithInvalidRows()));
+
+        // Assert
+        verify(mockConnection, times(2)).prepareStatement(DbConstants.UPSERT_SYMBOL_QUERY);
+        verify(mockConnection, never()).commit();
+    }
+
+    @Test
+    void addRowsWithIntradayIntervalUpsertsColumnsAsArrays() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        CandlestickDao skippingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        skippingDao.setValidationPolicy(ValidationPolicy.SKIP_INVALID_ROWS);
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(mockPgConnection);
+        when(mockPgConnection.createArrayOf(anyString(), any())).thenReturn(mockArray);
+        when(mockStatement.executeUpdate()).thenReturn(1);
+
+        // Act
+        InsertResult result = skippingDao.addRows(symbol, Interval.FIVE_MINUTES, createSeriesWithInvalidRows());
+
+        // Assert
+        assertEquals(1, result.insertedCount());
+        assertEquals(2, result.rejectedCount());
+        verify(mockConnection).prepareStatement(
+                String.format(DbConstants.UPSERT_INTRADAY_QUERY_FORMAT, DbConstants.CANDLESTICK_5MIN_TABLE));
+        verify(mockPgConnection).createArrayOf("int8", new long[]{1756364400L});
+        verify(mockStatement).setInt(1, 7);
+        verify(mockStatement, never()).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithIntradayIntervalUpsertsLastOfRepeatedTimestamps() throws SQLException {
+        // Arrange
+        // The still forming bar at 1756364700 is repeated with a later close
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756364400L, 1756364700L, 1756364700L},
+                new double[]{326.9, 327.0, 327.0}, new double[]{330.3, 331.0, 331.5},
+                new double[]{325.8, 326.0, 326.0}, new double[]{328.5, 330.0, 331.2},
+                new long[]{547119L, 600000L, 610000L});
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(mockPgConnection);
+        when(mockPgConnection.createArrayOf(anyString(), any())).thenReturn(mockArray);
+        when(mockStatement.executeUpdate()).thenReturn(2);
+
+        // Act
+        InsertResult result = dao.addRows("BOL.ST", Interval.FIVE_MINUTES, series);
+
+        // Assert
+        assertEquals(2, result.insertedCount());
+        verify(mockPgConnection).createArrayOf("int8", new long[]{1756364400L, 1756364700L});
+        verify(mockPgConnection).createArrayOf("float8", new double[]{328.5, 331.2});
+        verify(mockPgConnection).createArrayOf("int8", new long[]{547119L, 610000L});
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithIntradayIntervalUpsertsFixedPointPricesAsScaledIntegers() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        CandlestickDao validatingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        CandlestickSeries series = CandlestickSeries.ofFixedPoint(4, new long[]{1756364400L},
+                new long[]{3269000}, new long[]{3303000}, new long[]{3258000}, new long[]{3285125},
+                new long[]{547119L});
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(mockPgConnection);
+        when(mockPgConnection.createArrayOf(anyString(), any())).thenReturn(mockArray);
+        when(mockStatement.executeUpdate()).thenReturn(1);
+
+        // Act
+        InsertResult result = validatingDao.addRows(symbol, Interval.FIVE_MINUTES, series);
+
+        // Assert
+        assertEquals(1, result.insertedCount());
+        verify(mockConnection).prepareStatement(String.format(DbConstants.UPSERT_INTRADAY_FIXED_POINT_QUERY_FORMAT,
+                DbConstants.CANDLESTICK_5MIN_TABLE));
+        verify(mockPgConnection).createArrayOf("int8", new long[]{3285125});
+        verify(mockPgConnection, never()).createArrayOf(eq("float8"), any());
+        verify(mockStatement).setBigDecimal(8, new BigDecimal("0.0001"));
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsSkipsRowsStoredUnchangedAndCountsUpdatedRows() throws SQLException {
+        // Arrange - the first day is stored unchanged, the second day is still forming and the third day is new
+        String symbol = "BOL.ST";
+        CandlestickDao skippingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        skippingDao.setSkipUnchangedRows(true);
+        CandlestickSeries series = new CandlestickSeries(new long[]{1756364400L, 1756450800L, 1756537200L},
+                new double[]{326.9, 327.0, 330.0}, new double[]{330.3, 331.0, 333.0}, new double[]{325.8, 326.0, 329.0},
+                new double[]{328.5, 330.0, 332.0}, new long[]{547119L, 600000L, 700000L});
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        setupStoredWindow(DbConstants.CANDLESTICK_TABLE,
+                new Object[]{1756364400L, "326.900000", "330.300000", "325.800000", "328.500000", 547119L},
+                new Object[]{1756447200L, "327.000000", "329.000000", "326.000000", "328.000000", 400000L});
+        when(mockStatement.executeBatch()).thenReturn(new int[]{0, 1});
+
+        // Act
+        InsertResult result = skippingDao.addRows(symbol, series);
+
+        // Assert
+        assertEquals(2, result.insertedCount());
+        assertEquals(1, result.updatedCount());
+        assertEquals(1, result.newCount());
+        assertEquals(1, result.unchangedCount());
+        // The window starts at the UTC day of the first row
+        verify(mockWindowStatement).setLong(2, 1756339200L);
+        verify(mockStatement, never()).setLong(1, 1756364400L);
+        verify(mockStatement, times(2)).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithAllRowsStoredUnchangedWritesNothing() throws SQLException {
+        // Arrange
+        String symbol = "BOL.ST";
+        CandlestickDao skippingDao = new CandlestickDao(mockDatabaseManager, new DatabaseInputValidator());
+        skippingDao.setSkipUnchangedRows(true);
+        CandlestickSeries series = CandlestickSeries.ofFixedPoint(2, new long[]{1756364400L},
+                new long[]{32690}, new long[]{33030}, new long[]{32580}, new long[]{32850}, new long[]{547119L});
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        setupSymbolId(7);
+        setupStoredWindow(DbConstants.CANDLESTICK_5MIN_TABLE,
+                new Object[]{1756364400L, "326.900000", "330.300000", "325.800000", "328.500000", 547119L});
+
+        // Act
+        InsertResult result = skippingDao.addRows(symbol, Interval.FIVE_MINUTES, series);
+
+        // Assert
+        assertEquals(0, result.insertedCount());
+        assertEquals(1, result.unchangedCount());
+        verify(mockConnection, never()).unwrap(PGConnection.class);
+        verify(mockStatement, never()).executeUpdate();
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void addRowsWithIntervalWithoutTableThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> dao.addRows("BOL.ST", Interval.ONE_WEEK, createSeriesWithInvalidRows()));
+        verifyNoInteractions(mockDatabaseManager);
+    }
+
     // Helper methods
+    private void setupPartitionConnection() throws SQLException {
+        when(mockDatabaseManager.getConnection()).thenReturn(mockPartitionConnection, mockConnection);
+        when(mockPartitionConnection.prepareStatement(DbConstants.CREATE_PARTITION_QUERY))
+                .thenReturn(mockPartitionStatement);
+        when(mockPartitionStatement.executeQuery()).thenReturn(mockResultSet);
+    }
+
+    private void setupSymbolId(int symbolId) throws SQLException {
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(symbolId);
+    }
+
+    private void setupStoredWindow(String table, Object[]... rows) throws SQLException {
+        when(mockConnection.prepareStatement(String.format(DbConstants.SELECT_STORED_WINDOW_QUERY_FORMAT, table)))
+                .thenReturn(mockWindowStatement);
+        when(mockWindowStatement.executeQuery()).thenReturn(mockWindowResultSet);
+        int[] cursor = {-1};
+        when(mockWindowResultSet.next()).thenAnswer(invocation -> ++cursor[0] < rows.length);
+        when(mockWindowResultSet.getLong(anyInt())).thenAnswer(invocation ->
+                rows[cursor[0]][invocation.<Integer>getArgument(0) - 1]);
+        when(mockWindowResultSet.getBigDecimal(anyInt())).thenAnswer(invocation ->
+                new BigDecimal((String) rows[cursor[0]][invocation.<Integer>getArgument(0) - 1]));
+    }
+
     private void setupSingleCandlestickResult() throws SQLException {
         when(mockResultSet.next()).thenReturn(true, false);
         when(mockResultSet.getLong(anyString())).thenReturn(1620000000L);
@@ -275,4 +822,11 @@ class CandlestickDaoTest {
         return new Candlestick(100.0, 110.0, 95.0,
                 105.0, 1000L, System.currentTimeMillis());
     }
+
+    private CandlestickSeries createSeriesWithInvalidRows() {
+        // Row 0 has a negative timestamp, row 2 has high < low
+        return new CandlestickSeries(new long[]{-1L, 1756364400L, 1756450800L},
+                new double[]{100.0, 100.0, 100.0}, new double[]{110.0, 110.0, 90.0},
+                new double[]{95.0, 95.0, 95.0}, new double[]{105.0, 105.0, 92.0}, new long[]{1000L, 1000L, 1000L});
+    }
 }
@@ -0,0 +1,153 @@
+package com.joakimcolloz.stocker.datacollector.database.columnar;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ColumnarPriceStore} covering appends, replaced days, rewrites and read-only views.
+ */
+class ColumnarPriceStoreTest {
+    private static final long FIRST_DAY = 1756339200L; // 2025-08-28T00:00:00Z
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    @TempDir
+    Path storeDirectory;
+
+    @Test
+    void storedRowsAreReadByAnotherStore() throws IOException {
+        // Arrange
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+        CandlestickSeries series = createSeries(0, 5);
+
+        // Act
+        store.update("BOL.ST", series);
+        Optional<PriceColumns> columns = new ColumnarPriceStore(storeDirectory).read("BOL.ST");
+
+        // Assert
+        assertTrue(columns.isPresent());
+        assertEquals(5, columns.get().size());
+        assertEquals(series, columns.get().toSeries());
+        assertEquals(104.0 + 0.5, columns.get().closes().get(4));
+        assertEquals(Optional.empty(), store.read("SAND.ST"));
+    }
+
+    @Test
+    void rowOfStoredDayIsReplacedAndLaterRowsAreAppended() throws IOException {
+        // Arrange
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+        store.update("BOL.ST", createSeries(0, 3));
+        long fileSize = Files.size(storeDirectory.resolve("BOL.ST.cols"));
+        // Same day as the last stored row, later during the day, followed by two new days
+        CandlestickSeries update = new CandlestickSeries(
+                new long[]{FIRST_DAY + 2 * SECONDS_PER_DAY + 3600, FIRST_DAY + 3 * SECONDS_PER_DAY,
+                        FIRST_DAY + 4 * SECONDS_PER_DAY},
+                new double[]{1, 2, 3}, new double[]{1, 2, 3}, new double[]{1, 2, 3}, new double[]{1, 2, 3},
+                new long[]{1, 2, 3});
+
+        // Act
+        int updatedCount = store.update("BOL.ST", update);
+
+        // Assert
+        PriceColumns columns = store.read("BOL.ST").orElseThrow();
+        assertEquals(3, updatedCount);
+        assertEquals(5, columns.size());
+        assertEquals(FIRST_DAY + 2 * SECONDS_PER_DAY + 3600, columns.timestamps().get(2));
+        assertEquals(1, columns.volumes().get(2));
+        assertEquals(3, columns.volumes().get(4));
+        assertEquals(fileSize, Files.size(storeDirectory.resolve("BOL.ST.cols")));
+    }
+
+    @Test
+    void rowsBeforeStoredHistoryAreMergedInOrder() throws IOException {
+        // Arrange
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+        store.update("BOL.ST", createSeries(10, 3));
+
+        // Act
+        store.update("BOL.ST", createSeries(0, 12));
+
+        // Assert
+        PriceColumns columns = store.read("BOL.ST").orElseThrow();
+        assertEquals(13, columns.size());
+        long[] timestamps = columns.toSeries().asList().stream().mapToLong(c -> c.timestamp()).toArray();
+        long[] expected = new long[13];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = FIRST_DAY + i * SECONDS_PER_DAY;
+        }
+        assertArrayEquals(expected, timestamps);
+    }
+
+    @Test
+    void fileGrowsBeyondItsCapacity() throws IOException {
+        // Arrange
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+        store.update("BOL.ST", createSeries(0, 1000));
+
+        // Act
+        store.update("BOL.ST", createSeries(1000, 500));
+
+        // Assert
+        PriceColumns columns = store.read("BOL.ST").orElseThrow();
+        assertEquals(1500, columns.size());
+        assertEquals(FIRST_DAY + 1499 * SECONDS_PER_DAY, columns.timestamps().get(1499));
+        assertEquals(100.0 + 1499, columns.opens().get(1499));
+    }
+
+    @Test
+    void viewsAreReadOnly() throws IOException {
+        // Arrange
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+        store.update("BOL.ST", createSeries(0, 2));
+
+        // Act
+        PriceColumns columns = store.read("BOL.ST").orElseThrow();
+
+        // Assert
+        assertTrue(columns.closes().isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> columns.closes().put(0, 1.0));
+        assertFalse(store.contains("SAND.ST"));
+    }
+
+    @Test
+    void fileOfOtherFormatThrowsException() throws IOException {
+        // Arrange
+        Files.write(storeDirectory.resolve("BOL.ST.cols"), new byte[128]);
+        ColumnarPriceStore store = new ColumnarPriceStore(storeDirectory);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> store.read("BOL.ST"));
+        assertThrows(IOException.class, () -> store.update("BOL.ST", createSeries(0, 1)));
+    }
+
+    private static CandlestickSeries createSeries(int firstDay, int size) {
+        long[] timestamps = new long[size];
+        double[] opens = new double[size];
+        double[] highs = new double[size];
+        double[] lows = new double[size];
+        double[] closes = new double[size];
+        long[] volumes = new long[size];
+        for (int i = 0; i < size; i++) {
+            int day = firstDay + i;
+            timestamps[i] = FIRST_DAY + day * SECONDS_PER_DAY;
+            opens[i] = 100.0 + day;
+            highs[i] = 110.0 + day;
+            lows[i] = 95.0 + day;
+            closes[i] = 100.5 + day;
+            volumes[i] = 1000L + day;
+        }
+        return new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+    }
+}
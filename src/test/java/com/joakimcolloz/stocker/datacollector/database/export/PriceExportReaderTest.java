@@ -0,0 +1,68 @@
+package com.joakimcolloz.stocker.datacollector.database.export;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the export file format written by {@link PriceExportWriter} and read by {@link PriceExportReader}.
+ */
+class PriceExportReaderTest {
+    private static final long DAY_2024_12_30 = 1735516800L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    @TempDir
+    Path exportDirectory;
+
+    @Test
+    void largeSeriesIsSplitIntoRowGroupsAndCompressed() throws IOException {
+        // Arrange
+        Path file = exportDirectory.resolve("BOL.ST.pexp");
+        int rowCount = PriceExportWriter.MAX_ROW_GROUP_ROWS + 100;
+
+        // Act
+        try (PriceExportWriter writer = new PriceExportWriter(file)) {
+            for (int i = 0; i < rowCount; i++) {
+                double close = 100 + (i % 500) * 0.05;
+                writer.write("BOL.ST", DAY_2024_12_30 + i * SECONDS_PER_DAY, close - 0.5, close + 1, close - 1,
+                        close, 100_000 + i % 1000);
+            }
+        }
+
+        // Assert
+        List<PriceExportReader.RowGroup> rowGroups = PriceExporterTest.readAll(file);
+        assertEquals(2, rowGroups.size());
+        assertEquals(100, rowGroups.get(1).series().size());
+        CandlestickSeries last = rowGroups.get(1).series();
+        int lastRow = rowCount - 1;
+        assertEquals(DAY_2024_12_30 + lastRow * SECONDS_PER_DAY, last.timestamp(99));
+        assertEquals(100 + (lastRow % 500) * 0.05, last.close(99), 1e-9);
+        assertEquals(100_000 + lastRow % 1000, last.volume(99));
+        // 48 bytes per row uncompressed
+        assertTrue(Files.size(file) < rowCount * 48L / 10);
+    }
+
+    @Test
+    void truncatedFileThrowsException() throws IOException {
+        // Arrange
+        Path file = exportDirectory.resolve("BOL.ST.pexp");
+        try (PriceExportWriter writer = new PriceExportWriter(file)) {
+            writer.write("BOL.ST", DAY_2024_12_30, 1, 2, 0.5, 1.5, 100);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> PriceExporterTest.readAll(file));
+    }
+}
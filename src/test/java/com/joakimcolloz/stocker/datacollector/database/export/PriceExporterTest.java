@@ -0,0 +1,179 @@
+package com.joakimcolloz.stocker.datacollector.database.export;
+
+import com.joakimcolloz.stocker.datacollector.database.DatabaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_ROWS_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_ROWS_SINCE_QUERY;
+import static com.joakimcolloz.stocker.datacollector.database.DbConstants.SELECT_EXPORT_WATERMARK_QUERY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PriceExporter} using a mocked result set.
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceExporterTest {
+    private static final LocalDateTime WATERMARK = LocalDateTime.of(2025, 9, 1, 18, 0);
+    private static final long DAY_2024_12_30 = 1735516800L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    @Mock
+    private DatabaseManager mockDatabaseManager;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockWatermarkStatement;
+
+    @Mock
+    private ResultSet mockWatermarkResultSet;
+
+    @Mock
+    private PreparedStatement mockRowsStatement;
+
+    @Mock
+    private ResultSet mockRowsResultSet;
+
+    @TempDir
+    Path exportDirectory;
+
+    private PriceExporter exporter;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        exporter = new PriceExporter(mockDatabaseManager);
+        when(mockDatabaseManager.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(SELECT_EXPORT_WATERMARK_QUERY)).thenReturn(mockWatermarkStatement);
+        when(mockWatermarkStatement.executeQuery()).thenReturn(mockWatermarkResultSet);
+        when(mockWatermarkResultSet.next()).thenReturn(true);
+        when(mockWatermarkResultSet.getObject(1, LocalDateTime.class)).thenReturn(WATERMARK);
+    }
+
+    @Test
+    void exportPerSymbolStreamsRowsWithCursor() throws Exception {
+        // Arrange
+        stubRows(SELECT_EXPORT_ROWS_QUERY, List.of(
+                row("BOL.ST", DAY_2024_12_30, 301.25),
+                row("BOL.ST", DAY_2024_12_30 + SECONDS_PER_DAY, 302.5),
+                row("VOLV-B.ST", DAY_2024_12_30, 250.123456)));
+
+        // Act
+        PriceExporter.ExportResult result = exporter.exportAll(exportDirectory, PriceExporter.Partitioning.SYMBOL);
+
+        // Assert
+        verify(mockConnection).setAutoCommit(false);
+        verify(mockRowsStatement).setFetchSize(anyInt());
+        assertEquals(3, result.rowCount());
+        assertEquals(WATERMARK, result.watermark());
+        assertEquals(List.of(exportDirectory.resolve("BOL.ST.pexp").toAbsolutePath(),
+                exportDirectory.resolve("VOLV-B.ST.pexp").toAbsolutePath()), result.files());
+
+        List<PriceExportReader.RowGroup> volvo = readAll(result.files().get(1));
+        assertEquals(1, volvo.size());
+        assertEquals("VOLV-B.ST", volvo.get(0).symbol());
+        assertEquals(250.123456, volvo.get(0).series().close(0));
+        assertEquals(250.123456 - 1, volvo.get(0).series().low(0));
+    }
+
+    @Test
+    void exportPerYearSplitsRowsOfSymbolByYear() throws Exception {
+        // Arrange
+        stubRows(SELECT_EXPORT_ROWS_QUERY, List.of(
+                row("BOL.ST", DAY_2024_12_30, 301.25),
+                row("BOL.ST", DAY_2024_12_30 + 3 * SECONDS_PER_DAY, 302.5),
+                row("VOLV-B.ST", DAY_2024_12_30 + 2 * SECONDS_PER_DAY, 250.0)));
+
+        // Act
+        PriceExporter.ExportResult result = exporter.exportAll(exportDirectory, PriceExporter.Partitioning.YEAR);
+
+        // Assert
+        assertEquals(List.of(exportDirectory.resolve("2024.pexp").toAbsolutePath(),
+                exportDirectory.resolve("2025.pexp").toAbsolutePath()), result.files());
+        List<PriceExportReader.RowGroup> year2025 = readAll(result.files().get(1));
+        assertEquals(List.of("BOL.ST", "VOLV-B.ST"), year2025.stream().map(PriceExportReader.RowGroup::symbol).toList());
+        assertEquals(DAY_2024_12_30 + 3 * SECONDS_PER_DAY, year2025.get(0).series().timestamp(0));
+    }
+
+    @Test
+    void incrementalExportSelectsRowsUpdatedAfterWatermark() throws Exception {
+        // Arrange
+        LocalDateTime previousWatermark = WATERMARK.minusDays(1);
+        stubRows(SELECT_EXPORT_ROWS_SINCE_QUERY, List.<Object[]>of(row("BOL.ST", DAY_2024_12_30, 301.25)));
+
+        // Act
+        PriceExporter.ExportResult result = exporter.exportSince(exportDirectory, PriceExporter.Partitioning.SYMBOL,
+                previousWatermark);
+
+        // Assert
+        verify(mockRowsStatement).setObject(1, previousWatermark);
+        assertEquals(1, result.rowCount());
+        assertEquals(WATERMARK, result.watermark());
+    }
+
+    @Test
+    void failedExportLeavesNoFiles() throws Exception {
+        // Arrange
+        when(mockConnection.prepareStatement(SELECT_EXPORT_ROWS_QUERY)).thenReturn(mockRowsStatement);
+        when(mockRowsStatement.executeQuery()).thenReturn(mockRowsResultSet);
+        when(mockRowsResultSet.next()).thenReturn(true).thenThrow(new SQLException("Connection reset", "08006"));
+        when(mockRowsResultSet.getString(1)).thenReturn("BOL.ST");
+        when(mockRowsResultSet.getLong(2)).thenReturn(DAY_2024_12_30);
+
+        // Act
+        assertThrows(RuntimeException.class,
+                () -> exporter.exportAll(exportDirectory, PriceExporter.Partitioning.SYMBOL));
+
+        // Assert
+        try (var files = Files.list(exportDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private void stubRows(String query, List<Object[]> rows) throws SQLException {
+        when(mockConnection.prepareStatement(query)).thenReturn(mockRowsStatement);
+        when(mockRowsStatement.executeQuery()).thenReturn(mockRowsResultSet);
+        int[] cursor = {-1};
+        when(mockRowsResultSet.next()).thenAnswer(invocation -> ++cursor[0] < rows.size());
+        when(mockRowsResultSet.getString(1)).thenAnswer(invocation -> rows.get(cursor[0])[0]);
+        when(mockRowsResultSet.getLong(anyInt())).thenAnswer(invocation ->
+                rows.get(cursor[0])[invocation.<Integer>getArgument(0) - 1]);
+        when(mockRowsResultSet.getDouble(anyInt())).thenAnswer(invocation ->
+                rows.get(cursor[0])[invocation.<Integer>getArgument(0) - 1]);
+    }
+
+    private static Object[] row(String symbol, long timestamp, double close) {
+        return new Object[]{symbol, timestamp, close - 0.5, close + 1, close - 1, close, 1000L};
+    }
+
+    static List<PriceExportReader.RowGroup> readAll(Path file) throws IOException {
+        List<PriceExportReader.RowGroup> rowGroups = new ArrayList<>();
+        try (PriceExportReader reader = new PriceExportReader(file)) {
+            PriceExportReader.RowGroup rowGroup;
+            while ((rowGroup = reader.next()) != null) {
+                rowGroups.add(rowGroup);
+            }
+        }
+        return rowGroups;
+    }
+}
@@ -0,0 +1,236 @@
+package com.joakimcolloz.stocker.datacollector.database.spool;
+
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
+import com.joakimcolloz.stocker.datacollector.model.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CandlestickSpool} covering replay, failed replays and damaged spool files.
+ */
+class CandlestickSpoolTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    void spooledSeriesAreReplayedInOrderAndRemoved() throws IOException {
+        // Arrange
+        Path file = spoolDirectory.resolve("candlesticks.spool");
+        CandlestickSpool spool = new CandlestickSpool(file);
+        spool.append("BOL.ST", Interval.ONE_DAY, createSeries(3, 0));
+        spool.append("VOLV-B.ST", Interval.FIVE_MINUTES, createSeries(2, 1));
+        List<CandlestickSpool.Entry> replayed = new ArrayList<>();
+
+        // Act
+        int replayedCount = new CandlestickSpool(file).replay(replayed::add);
+
+        // Assert
+        assertEquals(2, replayedCount);
+        assertEquals(new CandlestickSpool.Entry("BOL.ST", Interval.ONE_DAY, createSeries(3, 0)), replayed.get(0));
+        assertEquals(new CandlestickSpool.Entry("VOLV-B.ST", Interval.FIVE_MINUTES, createSeries(2, 1)),
+                replayed.get(1));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void fixedPointSeriesIsReplayedWithExactPrices() throws IOException {
+        // Arrange
+        Path file = spoolDirectory.resolve("candlesticks.spool");
+        CandlestickSeries series = CandlestickSeries.ofFixedPoint(4, new long[]{1756364400L, 1756450800L},
+                new long[]{3269000L, 3270001L}, new long[]{3303000L, 3310000L}, new long[]{3258000L, 3260000L},
+                new long[]{3285000L, 3300099L}, new long[]{547119L, 600000L});
+        new CandlestickSpool(file).append("BOL.ST", Interval.ONE_DAY, series);
+        List<CandlestickSpool.Entry> replayed = new ArrayList<>();
+
+        // Act
+        new CandlestickSpool(file).replay(replayed::add);
+
+        // Assert
+        CandlestickSeries replayedSeries = replayed.get(0).series();
+        assertTrue(replayedSeries.isFixedPoint());
+        assertEquals(4, replayedSeries.priceScale());
+        assertEquals(3270001L, replayedSeries.scaledOpen(1));
+        assertEquals(3300099L, replayedSeries.scaledClose(1));
+        assertEquals(series, replayedSeries);
+    }
+
+    @Test
+    void spoolWrittenWithFloatingPointFormatIsReplayed() throws IOException {
+        // Arrange
+        Path file = spoolDirectory.resolve("candlesticks.spool");
+        CandlestickSeries series = createSeries(2, 0);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(1);
+            out.writeUTF("BOL.ST");
+            out.writeUTF(Interval.ONE_DAY.name());
+            out.writeInt(2);
+            for (int i = 0; i < 2; i++) {
+                out.writeLong(series.timestamp(i));
+            }
+            for (double[] prices : new double[][]{{series.open(0), series.open(1)}, {series.high(0), series.high(1)},
+                    {series.low(0), series.low(1)}, {series.close(0), series.close(1)}}) {
+                for (double price : prices) {
+                    out.writeDouble(price);
+                }
+            }
+            for (int i = 0; i < 2; i++) {
+                out.writeLong(series.volume(i));
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x53504F4C);
+            out.writeInt(payload.size());
+            out.writeInt((int) crc.getValue());
+            payload.writeTo(out);
+        }
+        List<CandlestickSpool.Entry> replayed = new ArrayList<>();
+
+        // Act
+        new CandlestickSpool(file).replay(replayed::add);
+
+        // Assert
+        assertEquals(List.of(new CandlestickSpool.Entry("BOL.ST", Interval.ONE_DAY, series)), replayed);
+    }
+
+    @Test
+    void replayStopsAndKeepsSeriesWhileDatabaseIsUnavailable() throws IOException {
+        // Arrange
+        CandlestickSpool spool = new CandlestickSpool(spoolDirectory.resolve("candlesticks.spool"));
+        spool.append("BOL.ST", Interval.ONE_DAY, createSeries(1, 0));
+        spool.append("SAND.ST", Interval.ONE_DAY, createSeries(1, 1));
+        spool.append("VOLV-B.ST", Interval.ONE_DAY, createSeries(1, 2));
+        List<String> replayed = new ArrayList<>();
+
+        // Act
+        int replayedCount = spool.replay(entry -> {
+            if (entry.symbol().equals("SAND.ST")) {
+                throw new RuntimeException("Failed to establish database connection for symbol: SAND.ST",
+                        new SQLException("Connection refused", "08001"));
+            }
+            replayed.add(entry.symbol());
+        });
+
+        // Assert
+        assertEquals(1, replayedCount);
+        assertEquals(2, spool.size());
+        spool.replay(entry -> replayed.add(entry.symbol()));
+        assertEquals(List.of("BOL.ST", "SAND.ST", "VOLV-B.ST"), replayed);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    void seriesFailingForOtherReasonsAreDropped() throws IOException {
+        // Arrange
+        CandlestickSpool spool = new CandlestickSpool(spoolDirectory.resolve("candlesticks.spool"));
+        spool.append("BOL.ST", Interval.ONE_DAY, createSeries(1, 0));
+        spool.append("SAND.ST", Interval.ONE_DAY, createSeries(1, 1));
+        List<String> replayed = new ArrayList<>();
+
+        // Act
+        int replayedCount = spool.replay(entry -> {
+            if (entry.symbol().equals("BOL.ST")) {
+                throw new IllegalArgumentException("Invalid candlestick");
+            }
+            replayed.add(entry.symbol());
+        });
+
+        // Assert
+        assertEquals(1, replayedCount);
+        assertEquals(List.of("SAND.ST"), replayed);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    void incompleteFrameIsTruncatedWhenOpened() throws IOException {
+        // Arrange
+        Path file = spoolDirectory.resolve("candlesticks.spool");
+        new CandlestickSpool(file).append("BOL.ST", Interval.ONE_DAY, createSeries(2, 0));
+        long validLength = Files.size(file);
+        new CandlestickSpool(file).append("SAND.ST", Interval.ONE_DAY, createSeries(2, 1));
+        truncate(file, Files.size(file) - 5);
+
+        // Act
+        CandlestickSpool spool = new CandlestickSpool(file);
+
+        // Assert
+        assertEquals(1, spool.size());
+        assertEquals(validLength, Files.size(file));
+        spool.append("VOLV-B.ST", Interval.ONE_DAY, createSeries(1, 2));
+        List<String> replayed = new ArrayList<>();
+        spool.replay(entry -> replayed.add(entry.symbol()));
+        assertEquals(List.of("BOL.ST", "VOLV-B.ST"), replayed);
+    }
+
+    @Test
+    void frameWithInvalidChecksumEndsSpool() throws IOException {
+        // Arrange
+        Path file = spoolDirectory.resolve("candlesticks.spool");
+        CandlestickSpool spool = new CandlestickSpool(file);
+        spool.append("BOL.ST", Interval.ONE_DAY, createSeries(2, 0));
+        long corruptOffset = Files.size(file) + 20;
+        spool.append("SAND.ST", Interval.ONE_DAY, createSeries(2, 1));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[(int) corruptOffset] ^= 0x01;
+        Files.write(file, bytes);
+
+        // Act
+        CandlestickSpool reopened = new CandlestickSpool(file);
+
+        // Assert
+        assertEquals(1, reopened.size());
+    }
+
+    @Test
+    void onlyConnectionFailuresMeanDatabaseIsUnavailable() {
+        // Act & Assert
+        assertTrue(CandlestickSpool.isDatabaseUnavailable(
+                new RuntimeException(new SQLException("Connection refused", "08001"))));
+        assertTrue(CandlestickSpool.isDatabaseUnavailable(new SQLException("Too many connections", "53300")));
+        assertFalse(CandlestickSpool.isDatabaseUnavailable(
+                new RuntimeException(new SQLException("Duplicate key", "23505"))));
+        assertFalse(CandlestickSpool.isDatabaseUnavailable(new IllegalArgumentException("Invalid candlestick")));
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static CandlestickSeries createSeries(int size, int seed) {
+        long[] timestamps = new long[size];
+        double[] opens = new double[size];
+        double[] highs = new double[size];
+        double[] lows = new double[size];
+        double[] closes = new double[size];
+        long[] volumes = new long[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1756364400L + (seed * 10L + i) * 86400L;
+            opens[i] = 100.0 + seed + i;
+            highs[i] = 110.0 + seed + i;
+            lows[i] = 95.0 + seed + i;
+            closes[i] = 105.25 + seed + i;
+            volumes[i] = 1000L + seed + i;
+        }
+        return new CandlestickSeries(timestamps, opens, highs, lows, closes, volumes);
+    }
+}
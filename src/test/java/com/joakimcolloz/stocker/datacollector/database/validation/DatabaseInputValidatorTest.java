@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import com.joakimcolloz.stocker.datacollector.model.Candlestick;
+import com.joakimcolloz.stocker.datacollector.model.CandlestickSeries;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -63,6 +64,26 @@ class DatabaseInputValidatorTest {
         assertDoesNotThrow(() -> validator.validateCandlesticksList(candlesticks));
     }
 
+    @Test
+    void seriesWithInvalidRowShouldThrowExceptionWithIndex() {
+        CandlestickSeries series = CandlestickSeries.from(Arrays.asList(createValidCandlestick(),
+                new Candlestick(100.0, 90.0, 95.0, 98.0, 1000L, 1693526400L)));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> validator.validateSeries(series));
+        assertTrue(exception.getMessage().contains("Invalid candlestick at index 1"));
+    }
+
+    @Test
+    void findInvalidRowsShouldCollectAllInvalidRows() {
+        CandlestickSeries series = CandlestickSeries.from(Arrays.asList(
+                new Candlestick(100.0, 110.0, 95.0, 105.0, -5L, 1693526400L),
+                createValidCandlestick(),
+                new Candlestick(100.0, 90.0, 95.0, 98.0, 1000L, 1693526400L)));
+        List<RejectedCandlestick> rejected = validator.findInvalidRows(series);
+        assertTrue(rejected.size() == 2 && rejected.get(0).index() == 0 && rejected.get(1).index() == 2);
+        assertTrue(rejected.get(0).reason().contains("volume cannot be negative"));
+    }
+
     @Test
     void nullCandlesticksListShouldThrowException() {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -0,0 +1,135 @@
+package com.joakimcolloz.stocker.datacollector.indicators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link IndicatorState}.
+ */
+class IndicatorStateTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void indicatorsMatchDirectComputation() {
+        // Arrange
+        double[] closes = createCloses(60);
+        IndicatorState state = IndicatorState.empty();
+
+        // Act
+        List<IndicatorValues> values = process(state, closes, 0, closes.length);
+
+        // Assert
+        IndicatorValues last = values.get(59);
+        assertEquals(Arrays.stream(closes, 40, 60).average().orElseThrow(), last.sma(), DELTA);
+        assertEquals(directEma(closes), last.ema(), DELTA);
+        assertEquals(directRsi(closes), last.rsi(), DELTA);
+        assertEquals(60, last.candleCount());
+    }
+
+    @Test
+    void indicatorsAreNaNUntilTheirPeriodIsFilled() {
+        // Arrange
+        double[] closes = createCloses(20);
+
+        // Act
+        List<IndicatorValues> values = process(IndicatorState.empty(), closes, 0, closes.length);
+
+        // Assert
+        assertTrue(Double.isNaN(values.get(12).atr()));
+        assertTrue(Double.isNaN(values.get(13).rsi()));
+        assertEquals(14, values.get(13).candleCount());
+        assertTrue(Double.isFinite(values.get(13).atr()));
+        assertTrue(Double.isFinite(values.get(14).rsi()));
+        assertTrue(Double.isNaN(values.get(18).sma()));
+        assertTrue(Double.isFinite(values.get(19).sma()));
+        assertTrue(Double.isFinite(values.get(19).ema()));
+    }
+
+    @Test
+    void restoredStateContinuesLikeFullHistory() {
+        // Arrange
+        double[] closes = createCloses(80);
+        List<IndicatorValues> full = process(IndicatorState.empty(), closes, 0, closes.length);
+
+        // Act
+        for (int split : new int[]{5, 20, 50}) {
+            IndicatorValues stored = full.get(split - 1);
+            double[] recentCloses = Arrays.copyOfRange(closes,
+                    Math.max(0, split - IndicatorState.SMA_PERIOD), split);
+            List<IndicatorValues> continued = process(IndicatorState.restore(stored, recentCloses),
+                    closes, split, closes.length);
+
+            // Assert
+            for (int i = split; i < closes.length; i++) {
+                IndicatorValues expected = full.get(i);
+                IndicatorValues actual = continued.get(i - split);
+                assertEquals(expected.sma(), actual.sma(), DELTA, "SMA at " + i + " restored at " + split);
+                assertEquals(expected.ema(), actual.ema(), DELTA, "EMA at " + i + " restored at " + split);
+                assertEquals(expected.rsi(), actual.rsi(), DELTA, "RSI at " + i + " restored at " + split);
+                assertEquals(expected.atr(), actual.atr(), DELTA, "ATR at " + i + " restored at " + split);
+                assertEquals(expected.candleCount(), actual.candleCount());
+            }
+        }
+    }
+
+    @Test
+    void restoreWithWrongNumberOfClosesThrowsException() {
+        // Arrange
+        List<IndicatorValues> values = process(IndicatorState.empty(), createCloses(30), 0, 30);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> IndicatorState.restore(values.get(29), new double[5]));
+    }
+
+    private static List<IndicatorValues> process(IndicatorState state, double[] closes, int from, int to) {
+        List<IndicatorValues> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(state.next(1756364400L + i * 86400L, closes[i] + 2, closes[i] - 2, closes[i]));
+        }
+        return values;
+    }
+
+    private static double[] createCloses(int count) {
+        double[] closes = new double[count];
+        for (int i = 0; i < count; i++) {
+            closes[i] = 100 + 10 * Math.sin(i / 3.0) + i * 0.1;
+        }
+        return closes;
+    }
+
+    private static double directEma(double[] closes) {
+        double ema = Arrays.stream(closes, 0, IndicatorState.EMA_PERIOD).average().orElseThrow();
+        double multiplier = 2.0 / (IndicatorState.EMA_PERIOD + 1);
+        for (int i = IndicatorState.EMA_PERIOD; i < closes.length; i++) {
+            ema = (closes[i] - ema) * multiplier + ema;
+        }
+        return ema;
+    }
+
+    private static double directRsi(double[] closes) {
+        int period = IndicatorState.RSI_PERIOD;
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= period; i++) {
+            double change = closes[i] - closes[i - 1];
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= period;
+        loss /= period;
+        for (int i = period + 1; i < closes.length; i++) {
+            double change = closes[i] - closes[i - 1];
+            gain = (gain * (period - 1) + Math.max(change, 0)) / period;
+            loss = (loss * (period - 1) + Math.max(-change, 0)) / period;
+        }
+        return 100 - 100 / (1 + gain / loss);
+    }
+}
@@ -0,0 +1,131 @@
+package com.joakimcolloz.stocker.datacollector.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CandlestickSeries}.
+ */
+class CandlestickSeriesTest {
+
+    @Test
+    void listViewEqualsCandlesticks() {
+        // Arrange
+        List<Candlestick> candlesticks = createCandlesticks(3);
+
+        // Act
+        CandlestickSeries series = CandlestickSeries.from(candlesticks);
+
+        // Assert
+        assertEquals(candlesticks, series.asList());
+        assertEquals(candlesticks.hashCode(), series.asList().hashCode());
+        assertEquals(candlesticks.get(2), series.candlestick(2));
+    }
+
+    @Test
+    void cursorReadsAllRows() {
+        // Arrange
+        CandlestickSeries series = CandlestickSeries.from(createCandlesticks(3));
+        CandlestickSeries.Cursor cursor = series.cursor();
+        long volume = 0;
+
+        // Act
+        int rows = 0;
+        while (cursor.next()) {
+            volume += cursor.volume();
+            rows++;
+        }
+
+        // Assert
+        assertEquals(3, rows);
+        assertEquals(1000 + 1001 + 1002, volume);
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void tradingPeriodCreatedFromSeriesReturnsSameSeries() {
+        // Arrange
+        CandlestickSeries series = CandlestickSeries.from(createCandlesticks(2));
+
+        // Act
+        TradingPeriod tradingPeriod = TradingPeriod.of(series, "5d", "1d");
+
+        // Assert
+        assertSame(series, tradingPeriod.series());
+        assertEquals(new TradingPeriod(createCandlesticks(2), "5d", "1d"), tradingPeriod);
+    }
+
+    @Test
+    void fixedPointSeriesReadsExactAndDoublePrices() {
+        // Arrange
+        CandlestickSeries series = CandlestickSeries.ofFixedPoint(2, new long[]{1756364400L, 1756450800L},
+                new long[]{32690, 32700}, new long[]{33030, 33100}, new long[]{32580, 32600},
+                new long[]{32850, 33000}, new long[]{547119L, 600000L});
+        CandlestickSeries doubles = new CandlestickSeries(new long[]{1756364400L, 1756450800L},
+                new double[]{326.9, 327.0}, new double[]{330.3, 331.0}, new double[]{325.8, 326.0},
+                new double[]{328.5, 330.0}, new long[]{547119L, 600000L});
+
+        // Act
+        series.asList().remove(0);
+        doubles.asList().remove(0);
+
+        // Assert
+        assertTrue(series.isFixedPoint());
+        assertEquals(33000, series.scaledClose(0));
+        assertEquals(330.0, series.close(0));
+        assertEquals(doubles.candlestick(0), series.candlestick(0));
+        assertEquals(doubles, series);
+        assertEquals(doubles.hashCode(), series.hashCode());
+        assertThrows(IllegalStateException.class, () -> doubles.scaledClose(0));
+    }
+
+    @Test
+    void removingFromListViewRemovesRow() {
+        // Arrange
+        List<Candlestick> candlesticks = createCandlesticks(3);
+        TradingPeriod tradingPeriod = TradingPeriod.of(CandlestickSeries.from(candlesticks), "5d", "1d");
+
+        // Act
+        tradingPeriod.removeLast();
+
+        // Assert
+        assertEquals(candlesticks.subList(0, 2), tradingPeriod.candlesticks());
+        assertEquals(2, tradingPeriod.series().size());
+    }
+
+    @Test
+    void arraysOfDifferentLengthThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new CandlestickSeries(new long[2],
+                new double[2], new double[2], new double[1], new double[2], new long[2]));
+    }
+
+    @Test
+    void nullCandlestickThrowsException() {
+        // Arrange
+        List<Candlestick> candlesticks = createCandlesticks(1);
+        candlesticks.add(null);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CandlestickSeries.from(candlesticks));
+        assertTrue(exception.getMessage().contains("index 1"));
+    }
+
+    private static List<Candlestick> createCandlesticks(int count) {
+        List<Candlestick> candlesticks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            candlesticks.add(new Candlestick(100.0 + i, 110.0 + i, 95.0 + i, 105.0 + i, 1000L + i,
+                    1756364400L + i * 86400L));
+        }
+        return candlesticks;
+    }
+}
@@ -0,0 +1,61 @@
+package com.joakimcolloz.stocker.datacollector.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FixedPoint}.
+ */
+class FixedPointTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "326.9, 2, 32690",
+            "326.895, 2, 32690",
+            "326.885, 2, 32688",
+            "326.8851, 2, 32689",
+            "-326.895, 2, -32690",
+            "331, 4, 3310000",
+            "0.001, 2, 0",
+            "-1.5e2, 2, -15000",
+            "327.12345678901234567, 6, 327123457"})
+    void textIsParsedRoundingHalfToEven(String text, int scale, long expected) {
+        // Act
+        long value = FixedPoint.parse(text, scale);
+
+        // Assert
+        assertEquals(expected, value);
+        assertEquals(new BigDecimal(text).setScale(scale, RoundingMode.HALF_EVEN),
+                FixedPoint.toBigDecimal(value, scale));
+    }
+
+    @Test
+    void doubleIsNearestToDecimalValue() {
+        // Act & Assert
+        assertEquals(326.9, FixedPoint.toDouble(32690, 2));
+        assertEquals(0.000001, FixedPoint.toDouble(1, 6));
+        assertEquals(100, FixedPoint.unit(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", ".", "12a", "1.2.3", "99999999999999999999"})
+    void invalidTextThrowsNumberFormatException(String text) {
+        // Act & Assert
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse(text, 2));
+    }
+
+    @Test
+    void unsupportedScaleThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.parse("1.0", FixedPoint.MAX_SCALE + 1));
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.checkScale(-1));
+    }
+}
@@ -0,0 +1,338 @@
+package com.joakimcolloz.stocker.datacollector.util;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.DataFetcher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Local HTTP server standing in for the FinanceBird and Yahoo Finance APIs in tests and benchmarks.
+ * <p>
+ * Requests to {@code /quote/{symbol}/history} (FinanceBird) and {@code /v8/finance/chart/{symbol}} (Yahoo Finance)
+ * are answered with the recorded response for the symbol, range and interval if one exists, otherwise with a
+ * synthetic series in the same chart schema. Recorded responses are looked up in the replay directory (see
+ * {@link #record(DataFetcher, String, String, String, String)}) and then on the test classpath, using the
+ * fixture naming {@code FinanceBird-BOL.ST-1d-3month.json}.
+ * </p>
+ * <p>
+ * Latency, throttling (429) and server errors (500) can be injected to load test the collector offline.
+ * Point a fetcher at the server with {@link #financeBirdUrl()} or {@link #yahooFinanceUrl()}, or through the
+ * {@code FINANCEBIRD_API_URL} and {@code YAHOO_FINANCE_API_URL} environment variables.
+ * </p>
+ */
+public class StubProviderServer implements AutoCloseable {
+    public static final String FINANCE_BIRD = "FinanceBird";
+    public static final String YAHOO_FINANCE = "YahooFinance";
+
+    private static final String FINANCE_BIRD_PATH = "/quote/";
+    private static final String YAHOO_FINANCE_PATH = "/v8/finance/chart/";
+    // Same trading day as the checked in fixtures
+    private static final LocalDate DEFAULT_LAST_TRADING_DAY = LocalDate.of(2025, 8, 28);
+    private static final long SESSION_OPEN_SECONDS = 7 * 3600;        // 09:00 Stockholm (CEST) in UTC
+    private static final long SESSION_LENGTH_SECONDS = 8 * 3600 + 1800;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private Path replayDirectory;
+    private LocalDate lastTradingDay = DEFAULT_LAST_TRADING_DAY;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double throttleRate = 0;
+    private volatile double errorRate = 0;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Starts a server on a free port of the loopback interface.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public StubProviderServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-provider");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(FINANCE_BIRD_PATH, exchange -> handle(exchange, FINANCE_BIRD));
+        server.createContext(YAHOO_FINANCE_PATH, exchange -> handle(exchange, YAHOO_FINANCE));
+        server.start();
+    }
+
+    /**
+     * @return the API URL to give a FinanceBird fetcher
+     */
+    public String financeBirdUrl() {
+        return baseUrl() + FINANCE_BIRD_PATH;
+    }
+
+    /**
+     * @return the API URL to give a Yahoo Finance fetcher
+     */
+    public String yahooFinanceUrl() {
+        return baseUrl() + YAHOO_FINANCE_PATH;
+    }
+
+    /**
+     * Sets the delay before each response is sent.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Sets the share of requests (0 to 1) answered with 429 Too Many Requests.
+     */
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Sets the share of requests (0 to 1) answered with 500 Internal Server Error.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Sets the directory where recorded responses are stored and looked up before the classpath fixtures.
+     */
+    public void setReplayDirectory(Path replayDirectory) {
+        this.replayDirectory = replayDirectory;
+    }
+
+    /**
+     * Sets the last trading day of the synthetic series.
+     */
+    public void setLastTradingDay(LocalDate lastTradingDay) {
+        this.lastTradingDay = lastTradingDay;
+    }
+
+    /**
+     * Fetches a response with the given (real) fetcher and stores it in the replay directory,
+     * so that later runs can replay it without network access.
+     *
+     * @param fetcher  the fetcher to record the response from
+     * @param provider {@link #FINANCE_BIRD} or {@link #YAHOO_FINANCE}
+     * @return the path of the recorded response
+     */
+    public Path record(DataFetcher fetcher, String provider, String symbol, String range, String interval)
+            throws DataFetchException, IOException {
+        if (replayDirectory == null) {
+            throw new IllegalStateException("Replay directory must be set before recording");
+        }
+        String json = fetcher.fetchData(symbol, range, interval);
+        Files.createDirectories(replayDirectory);
+        return Files.writeString(replayDirectory.resolve(fixtureName(provider, symbol, range, interval)), json);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, String provider) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            sleep(latency);
+
+            double draw = ThreadLocalRandom.current().nextDouble();
+            if (draw < throttleRate) {
+                throttledCount.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, 429, "{\"message\": \"Too many requests\"}");
+                return;
+            }
+            if (draw < throttleRate + errorRate) {
+                errorCount.incrementAndGet();
+                send(exchange, 500, "{\"message\": \"Internal server error\"}");
+                return;
+            }
+
+            URI uri = exchange.getRequestURI();
+            String symbol = FINANCE_BIRD.equals(provider)
+                    ? uri.getPath().substring(FINANCE_BIRD_PATH.length()).replace("/history", "")
+                    : uri.getPath().substring(YAHOO_FINANCE_PATH.length());
+            Map<String, String> query = parseQuery(uri.getRawQuery());
+            String range = query.getOrDefault("range", "1d");
+            String interval = query.getOrDefault("interval", "1d");
+
+            String json = recordedResponse(provider, symbol, range, interval);
+            send(exchange, 200, json != null ? json : syntheticResponse(symbol, range, interval));
+        }
+    }
+
+    private String recordedResponse(String provider, String symbol, String range, String interval) throws IOException {
+        String fileName = fixtureName(provider, symbol, range, interval);
+        if (replayDirectory != null && Files.exists(replayDirectory.resolve(fileName))) {
+            return Files.readString(replayDirectory.resolve(fileName));
+        }
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(fileName)) {
+            return is != null ? new String(is.readAllBytes(), StandardCharsets.UTF_8) : null;
+        }
+    }
+
+    private static String fixtureName(String provider, String symbol, String range, String interval) {
+        String rangeName = "3mo".equals(range) ? "3month" : range;
+        return provider + "-" + symbol + "-" + interval + "-" + rangeName + ".json";
+    }
+
+    /**
+     * Builds a chart response with deterministic prices for the symbol, so that overlapping ranges agree.
+     */
+    String syntheticResponse(String symbol, String range, String interval) {
+        List<Long> timestamps = syntheticTimestamps(range, interval);
+        StringBuilder open = new StringBuilder();
+        StringBuilder high = new StringBuilder();
+        StringBuilder low = new StringBuilder();
+        StringBuilder close = new StringBuilder();
+        StringBuilder volume = new StringBuilder();
+        double basePrice = 20 + Math.floorMod(symbol.hashCode(), 500);
+
+        for (int i = 0; i < timestamps.size(); i++) {
+            long timestamp = timestamps.get(i);
+            Random random = new Random(symbol.hashCode() * 31L + timestamp);
+            double trend = basePrice * (1 + 0.3 * Math.sin(timestamp / 20_000_000.0 + symbol.length()));
+            double openPrice = trend * (1 + (random.nextDouble() - 0.5) * 0.02);
+            double closePrice = trend * (1 + (random.nextDouble() - 0.5) * 0.02);
+            String separator = i == 0 ? "" : ",";
+            open.append(separator).append(round(openPrice));
+            close.append(separator).append(round(closePrice));
+            high.append(separator).append(round(Math.max(openPrice, closePrice) * (1 + random.nextDouble() * 0.01)));
+            low.append(separator).append(round(Math.min(openPrice, closePrice) * (1 - random.nextDouble() * 0.01)));
+            volume.append(separator).append(10_000 + random.nextInt(1_000_000));
+        }
+
+        String timestampArray = timestamps.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return "{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"SEK\",\"symbol\":\"" + symbol + "\"," +
+                "\"exchangeName\":\"STO\",\"instrumentType\":\"EQUITY\",\"gmtoffset\":7200," +
+                "\"timezone\":\"CEST\",\"exchangeTimezoneName\":\"Europe/Stockholm\",\"priceHint\":2," +
+                "\"dataGranularity\":\"" + interval + "\",\"range\":\"" + range + "\"}," +
+                "\"timestamp\":[" + timestampArray + "]," +
+                "\"indicators\":{\"quote\":[{\"open\":[" + open + "],\"high\":[" + high + "],\"low\":[" + low +
+                "],\"close\":[" + close + "],\"volume\":[" + volume + "]}]," +
+                "\"adjclose\":[{\"adjclose\":[" + close + "]}]}}],\"error\":null}}";
+    }
+
+    private List<Long> syntheticTimestamps(String range, String interval) {
+        final int tradingDays = switch (range) {
+            case "1d" -> 1;
+            case "5d", "1wk" -> 5;
+            case "1mo" -> 21;
+            case "3mo" -> 63;
+            case "6mo" -> 126;
+            case "ytd" -> Math.max(1, lastTradingDay.getDayOfYear() * 5 / 7);
+            case "1y" -> 250;
+            case "2y" -> 500;
+            case "5y" -> 1250;
+            case "10y" -> 2500;
+            default -> 5000;
+        };
+        final long stepSeconds = switch (interval) {
+            case "1m" -> 60;
+            case "5m" -> 300;
+            case "15m" -> 900;
+            case "30m" -> 1800;
+            case "1h" -> 3600;
+            default -> 0; // one candle per trading day
+        };
+
+        List<LocalDate> days = new ArrayList<>(tradingDays);
+        for (LocalDate day = lastTradingDay; days.size() < tradingDays; day = day.minusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                days.add(0, day);
+            }
+        }
+
+        List<Long> timestamps = new ArrayList<>();
+        for (LocalDate day : days) {
+            long sessionOpen = day.atStartOfDay(ZoneOffset.UTC).toEpochSecond() + SESSION_OPEN_SECONDS;
+            if (stepSeconds == 0) {
+                timestamps.add(sessionOpen);
+            } else {
+                for (long offset = 0; offset < SESSION_LENGTH_SECONDS; offset += stepSeconds) {
+                    timestamps.add(sessionOpen + offset);
+                }
+            }
+        }
+        return timestamps;
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 100) / 100.0;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                String[] keyValue = parameter.split("=", 2);
+                query.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+            }
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.joakimcolloz.stocker.datacollector.util;
+
+import com.joakimcolloz.stocker.datacollector.data.exception.ApiKeyRejectedException;
+import com.joakimcolloz.stocker.datacollector.data.exception.DataFetchException;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.ApiKeyPool;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.FinanceBirdFetcher;
+import com.joakimcolloz.stocker.datacollector.data.fetchers.YahooFinanceFetcher;
+import com.joakimcolloz.stocker.datacollector.data.parsers.FinanceBirdParser;
+import com.joakimcolloz.stocker.datacollector.data.parsers.YahooFinanceParser;
+import com.joakimcolloz.stocker.datacollector.model.TradingPeriod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the fetchers and parsers against the {@link StubProviderServer} without network access.
+ */
+class StubProviderServerTest {
+    private StubProviderServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubProviderServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void fixtureIsServedToFinanceBirdFetcher() throws DataFetchException {
+        // Arrange
+        FinanceBirdFetcher fetcher = new FinanceBirdFetcher(server.financeBirdUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Act
+        TradingPeriod period = parseFinanceBird(fetcher.fetchData("BOL.ST", "3mo", "1d"));
+
+        // Assert
+        assertEquals(64, period.candlesticks().size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void fixtureIsServedToYahooFinanceFetcher() throws DataFetchException {
+        // Arrange
+        YahooFinanceFetcher fetcher = new YahooFinanceFetcher(server.yahooFinanceUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Act
+        TradingPeriod period = parseYahooFinance(fetcher.fetchData("BOL.ST", "3mo", "1d"));
+
+        // Assert
+        assertEquals(60, period.candlesticks().size());
+    }
+
+    @Test
+    void syntheticSeriesIsServedForUnknownSymbol() throws DataFetchException {
+        // Arrange
+        FinanceBirdFetcher fetcher = new FinanceBirdFetcher(server.financeBirdUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Act
+        TradingPeriod oneYear = parseFinanceBird(fetcher.fetchData("ABB.ST", "1y", "1d"));
+        TradingPeriod intraday = parseFinanceBird(fetcher.fetchData("ABB.ST", "1d", "5m"));
+
+        // Assert
+        assertEquals(250, oneYear.candlesticks().size());
+        assertEquals("1y", oneYear.range());
+        assertEquals(102, intraday.candlesticks().size());
+        assertTrue(oneYear.candlesticks().stream().allMatch(c -> c.low() <= c.open() && c.open() <= c.high()));
+    }
+
+    @Test
+    void throttledRequestRejectsApiKey() {
+        // Arrange
+        server.setThrottleRate(1.0);
+        FinanceBirdFetcher fetcher = new FinanceBirdFetcher(server.financeBirdUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Act & Assert
+        ApiKeyRejectedException exception = assertThrows(ApiKeyRejectedException.class,
+                () -> fetcher.fetchData("ABB.ST", "1d", "1d"));
+        assertEquals(429, exception.getStatusCode());
+        assertEquals(1, server.getThrottledCount());
+    }
+
+    @Test
+    void serverErrorThrowsDataFetchException() {
+        // Arrange
+        server.setErrorRate(1.0);
+        FinanceBirdFetcher fetcher = new FinanceBirdFetcher(server.financeBirdUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Act & Assert
+        DataFetchException exception = assertThrows(DataFetchException.class,
+                () -> fetcher.fetchData("ABB.ST", "1d", "1d"));
+        assertTrue(exception.getMessage().contains("status code: 500"));
+    }
+
+    @Test
+    void recordedResponseIsReplayed(@TempDir Path replayDirectory) throws DataFetchException, IOException {
+        // Arrange
+        server.setReplayDirectory(replayDirectory);
+        String recordedJson = server.syntheticResponse("ERIC-B.ST", "5d", "1d");
+
+        // Act
+        Path recording = server.record((symbol, range, interval) -> recordedJson,
+                StubProviderServer.YAHOO_FINANCE, "ERIC-B.ST", "5d", "1d");
+        YahooFinanceFetcher fetcher = new YahooFinanceFetcher(server.yahooFinanceUrl(), new ApiKeyPool(List.of("stub-key")));
+
+        // Assert
+        assertEquals("YahooFinance-ERIC-B.ST-1d-5d.json", recording.getFileName().toString());
+        assertEquals(recordedJson, Files.readString(recording));
+        assertEquals(recordedJson, fetcher.fetchData("ERIC-B.ST", "5d", "1d"));
+    }
+
+    private static TradingPeriod parseFinanceBird(String json) {
+        try (FinanceBirdParser parser = new FinanceBirdParser()) {
+            parser.setJsonString(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+
+    private static TradingPeriod parseYahooFinance(String json) {
+        try (YahooFinanceParser parser = new YahooFinanceParser()) {
+            parser.setJsonString(json);
+            parser.parse();
+            return parser.getTradingPeriod();
+        }
+    }
+}